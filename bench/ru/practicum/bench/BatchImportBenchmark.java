@@ -0,0 +1,101 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.*;
+import ru.practicum.model.Epic;
+import ru.practicum.model.Status;
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Импорт 100 000 задач и подзадач с временем: по одной через add* против одного addAll.
+// Файловый менеджер по одной пишется через журнал: снимок на каждую задачу за разумное время не дождаться.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchImportBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"100000"})
+    private int size;
+
+    private List<Task> batch;
+    private TaskManager manager;
+    private File file;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        file = File.createTempFile("import", ".csv");
+        manager = null;
+        batch = new ArrayList<>(size);
+        // эпики идут первыми и получают id 1..epics, подзадачи ссылаются на них
+        int epics = size / 100;
+        for (int i = 0; i < epics; i++) {
+            batch.add(new Epic("Эпик " + i, "Описание эпика", Status.NEW));
+        }
+        for (int i = epics; i < size; i++) {
+            Task task = i % 2 == 0
+                    ? new Task("Задача " + i, "Описание задачи", Status.NEW)
+                    : new SubTask("Подзадача " + i, "Описание подзадачи", Status.IN_PROGRESS, 1 + i % epics);
+            task.setStartTime(START.plusMinutes(30L * i));
+            task.setDuration(Duration.ofMinutes(15));
+            batch.add(task);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (manager instanceof FileBackedTaskManager fileBacked) fileBacked.close();
+        file.delete();
+        TaskJournal.defaultFileFor(file).delete();
+    }
+
+    @Benchmark
+    public TaskManager inMemoryOneByOne() {
+        manager = Managers.getDefault();
+        addOneByOne(manager);
+        return manager;
+    }
+
+    @Benchmark
+    public TaskManager inMemoryAddAll() {
+        manager = Managers.getDefault();
+        manager.addAll(batch);
+        return manager;
+    }
+
+    @Benchmark
+    public TaskManager fileBackedJournalOneByOne() {
+        manager = new FileBackedTaskManager(file, new TaskJournal(TaskJournal.defaultFileFor(file), DurabilityPolicy.ASYNC));
+        addOneByOne(manager);
+        return manager;
+    }
+
+    @Benchmark
+    public TaskManager fileBackedAddAll() {
+        manager = new FileBackedTaskManager(file);
+        manager.addAll(batch);
+        return manager;
+    }
+
+    private void addOneByOne(TaskManager target) {
+        for (Task task : batch) {
+            switch (task.getType()) {
+                case TASK -> target.addTask(task);
+                case EPIC -> target.addEpic((Epic) task);
+                case SUBTASK -> target.addSubTask((SubTask) task);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.bench;
+
+import ru.practicum.model.Epic;
+import ru.practicum.model.Status;
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Общие данные для наборов бенчмарков: доска из эпиков, задач и подзадач с непересекающимся временем,
+// которая добавляется одним addAll. Эпики идут первыми и получают id 1..epics.
+final class BenchData {
+
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final Status[] STATUSES = Status.values();
+
+    private BenchData() {
+    }
+
+    // size элементов, из них size / subtasksPerEpic эпиков (хотя бы один), остальное поровну задачи и подзадачи
+    static List<Task> board(int size, int subtasksPerEpic) {
+        int epics = epicCount(size, subtasksPerEpic);
+        List<Task> board = new ArrayList<>(size);
+        for (int i = 0; i < epics; i++) {
+            board.add(new Epic("Эпик " + i, "Описание эпика " + i, Status.NEW));
+        }
+        for (int i = epics; i < size; i++) {
+            Status status = STATUSES[i % STATUSES.length];
+            Task task = i % 2 == 0
+                    ? new Task("Задача " + i, "Описание задачи " + i, status)
+                    : new SubTask("Подзадача " + i, "Описание подзадачи " + i, status, 1 + i % epics);
+            task.setStartTime(slot(i));
+            task.setDuration(Duration.ofMinutes(15));
+            board.add(task);
+        }
+        return board;
+    }
+
+    static int epicCount(int size, int subtasksPerEpic) {
+        return Math.max(1, size / (2 * subtasksPerEpic + 1));
+    }
+
+    // получасовые слоты: задачи по 15 минут в них не пересекаются
+    static LocalDateTime slot(long index) {
+        return START.plusMinutes(30 * index);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.bench;
+
+import ru.practicum.util.CsvReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Сравнение двух прогонов JMH в формате CSV (-rf csv, так пишет BenchmarkRunner):
+//   BenchmarkDiff <прежний.csv> <новый.csv> [порог, %]
+// Для каждого бенчмарка с одинаковыми параметрами печатается изменение оценки. Изменение считается
+// значимым, если оно больше порога (по умолчанию 5%) и больше суммы погрешностей обоих прогонов.
+// Код выхода 1, если есть значимые ухудшения: так сравнение можно встроить в проверку сборки.
+public final class BenchmarkDiff {
+
+    // оценка одного бенчмарка; ключ — имя и параметры
+    record Score(String key, String mode, double score, double error, String unit) {
+
+        // в режиме пропускной способности больше — лучше, в остальных режимах измеряется время
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    private BenchmarkDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Использование: BenchmarkDiff <прежний.csv> <новый.csv> [порог, %]");
+            System.exit(2);
+        }
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> current = read(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+
+        int regressions = 0;
+        for (Score now : current.values()) {
+            Score before = baseline.get(now.key());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %s (новый)%n", now.key(), "", now.score(), now.unit());
+                continue;
+            }
+            double change = (now.score() - before.score()) / before.score() * 100;
+            boolean significant = Math.abs(change) > threshold
+                    && Math.abs(now.score() - before.score()) > before.error() + now.error();
+            boolean worse = now.higherIsBetter() ? change < 0 : change > 0;
+            String verdict = !significant ? "" : worse ? "ХУЖЕ" : "лучше";
+            if (significant && worse) regressions++;
+            System.out.printf("%-70s %14.3f %14.3f %s %+8.1f%% %s%n",
+                    now.key(), before.score(), now.score(), now.unit(), change, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) System.out.printf("%-70s (нет в новом прогоне)%n", key);
+        }
+        System.out.println("Значимых ухудшений: " + regressions);
+        if (regressions > 0) System.exit(1);
+    }
+
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            if (!csv.next()) return scores;
+            List<String> header = new ArrayList<>();
+            for (int i = 0; i < csv.size(); i++) header.add(csv.get(i));
+            int benchmark = column(header, "Benchmark", file);
+            int mode = column(header, "Mode", file);
+            int score = column(header, "Score", file);
+            int error = column(header, "Score Error (99.9%)", file);
+            int unit = column(header, "Unit", file);
+
+            while (csv.next()) {
+                if (csv.isBlankRecord()) continue;
+                StringJoiner key = new StringJoiner(", ", csv.get(benchmark) + " [", "]");
+                key.setEmptyValue(csv.get(benchmark));
+                for (int i = 0; i < header.size(); i++) {
+                    if (header.get(i).startsWith("Param: ") && !csv.isEmpty(i)) {
+                        key.add(header.get(i).substring("Param: ".length()) + "=" + csv.get(i));
+                    }
+                }
+                scores.put(key.toString(), new Score(key.toString(), csv.get(mode), number(csv.get(score)),
+                        csv.isEmpty(error) ? 0 : number(csv.get(error)), csv.get(unit)));
+            }
+        }
+        return scores;
+    }
+
+    private static int column(List<String> header, String name, Path file) {
+        int index = header.indexOf(name);
+        if (index < 0) throw new IllegalArgumentException("Нет столбца \"" + name + "\" в " + file);
+        return index;
+    }
+
+    // JMH пишет числа с разделителем дробной части текущей локали; погрешность бывает NaN
+    private static double number(String text) {
+        double value = Double.parseDouble(text.replace(',', '.'));
+        return Double.isNaN(value) ? 0 : value;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Запуск наборов JMH с сохранением результатов для сравнения прогонов через BenchmarkDiff.
+// Аргументы передаются JMH как есть, например: TaskManagerCrudBenchmark -p size=1000,10000
+// Если формат результатов (-rf/-rff) не задан, они пишутся в CSV: bench-results/jmh-<дата>-<время>.csv.
+// Для JSON достаточно передать -rf json -rff <файл>.
+public final class BenchmarkRunner {
+
+    private static final Path RESULTS = Path.of("bench-results");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf") && !options.contains("-rff")) {
+            Files.createDirectories(RESULTS);
+            String name = "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv";
+            options.addAll(List.of("-rf", "csv", "-rff", RESULTS.resolve(name).toString()));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
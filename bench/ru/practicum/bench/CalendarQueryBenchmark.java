@@ -0,0 +1,72 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+// Календарь на один день (24 задачи из расписания по задаче в час): выборка по диапазону
+// поверх prioritizedTasks против фильтрации копии getPrioritizedTasks потоком.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarQueryBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private LocalDateTime dayStart;
+    private LocalDateTime dayEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Задача " + i, "desc", Status.NEW);
+            task.setStartTime(BASE.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+        dayStart = BASE.plusHours(size / 2).truncatedTo(ChronoUnit.DAYS);
+        dayEnd = dayStart.plusDays(1);
+    }
+
+    @Benchmark
+    public int rangeView() {
+        int count = 0;
+        for (Task task : manager.getTasksStartingBetween(dayStart, dayEnd)) count += task.getId() & 1;
+        return count;
+    }
+
+    @Benchmark
+    public int streamFilter() {
+        return manager.getPrioritizedTasks().stream()
+                .filter(t -> t.getStartTime() != null && !t.getStartTime().isBefore(dayStart) && t.getStartTime().isBefore(dayEnd))
+                .mapToInt(t -> t.getId() & 1)
+                .sum();
+    }
+
+    @Benchmark
+    public int nextTasks() {
+        int count = 0;
+        for (Task task : manager.getNextTasks(dayStart, 10)) count += task.getId() & 1;
+        return count;
+    }
+
+    @Benchmark
+    public int activeAt() {
+        return manager.getTasksActiveAt(dayStart.plusMinutes(10)).size();
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.DurabilityPolicy;
+import ru.practicum.manager.TaskJournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность общего журнала, в который одновременно пишут 16 потоков, при разных политиках
+// сброса: при PER_BATCH один fsync подтверждает записи всех потоков, дождавшихся одной пачки.
+// Однопоточный замер через FileBackedTaskManager — в JournalDurabilityBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class ConcurrentJournalBenchmark {
+
+    @Param({"PER_OP", "PER_BATCH", "ASYNC"})
+    private DurabilityPolicy policy;
+
+    private File file;
+    private TaskJournal journal;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench", ".journal");
+        journal = new TaskJournal(file, 1_000_000, policy, TaskJournal.DEFAULT_BATCH_SIZE, Duration.ofMillis(5));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        journal.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void append() {
+        journal.append("CLEAR,TASK");
+    }
+}
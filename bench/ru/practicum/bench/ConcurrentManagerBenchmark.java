@@ -0,0 +1,71 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.ConcurrentTaskManager;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.Epic;
+import ru.practicum.model.Status;
+import ru.practicum.model.SubTask;
+
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность смешанной нагрузки (обновление подзадачи своего эпика + чтение его подзадач):
+// InMemoryTaskManager под одной общей блокировкой против ConcurrentTaskManager.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentManagerBenchmark {
+
+    @Param({"synchronized", "concurrent"})
+    private String implementation;
+
+    private TaskManager manager;
+    private boolean globalLock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        globalLock = implementation.equals("synchronized");
+        manager = globalLock
+                ? new InMemoryTaskManager(new InMemoryHistoryManager())
+                : new ConcurrentTaskManager(new InMemoryHistoryManager());
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int epicId;
+        int subtaskId;
+        boolean done;
+
+        @Setup(Level.Trial)
+        public void setUp(ConcurrentManagerBenchmark benchmark) {
+            synchronized (benchmark) {
+                epicId = benchmark.manager.addEpic(new Epic("Epic", "d", Status.NEW));
+                for (int i = 0; i < 16; i++) {
+                    subtaskId = benchmark.manager.addSubTask(new SubTask("S", "d", Status.NEW, epicId));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int updateOwnEpicAndRead(ThreadState state) {
+        SubTask sub = new SubTask("S", "d", state.done ? Status.NEW : Status.DONE, state.epicId);
+        sub.setId(state.subtaskId);
+        state.done = !state.done;
+
+        if (globalLock) {
+            synchronized (this) {
+                manager.updateSubtask(sub);
+                return manager.getEpicSubtasks(state.epicId).size();
+            }
+        }
+        manager.updateSubtask(sub);
+        return manager.getEpicSubtasks(state.epicId).size();
+    }
+}
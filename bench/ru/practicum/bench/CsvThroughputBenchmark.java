@@ -0,0 +1,100 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.model.Status;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.CsvReader;
+import ru.practicum.util.CsvWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Чтение и запись файла задач в 1 000 000 строк: потоковые CsvReader/CsvWriter против прежних split и String.format.
+// Аллокации на строку смотреть с -prof gc.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvThroughputBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    private File file;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench", ".csv");
+        output = File.createTempFile("bench-out", ".csv");
+        try (CsvWriter csv = new CsvWriter(writer(file))) {
+            for (int i = 1; i <= ROWS; i++) {
+                csv.field(i).field(TaskType.TASK).field("Задача " + i).field(Status.NEW)
+                        .field("Описание задачи " + i).field((String) null).field(30)
+                        .field(START.plusHours(i).toString());
+                csv.endRecord();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+        output.delete();
+    }
+
+    @Benchmark
+    public long readCsvReader() throws IOException {
+        long checksum = 0;
+        try (CsvReader csv = new CsvReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            while (csv.next()) {
+                checksum += csv.getInt(0) + csv.getEnum(3, Status.values()).ordinal() + csv.getLong(6);
+                checksum += csv.get(2).length() + csv.get(4).length();
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long readSplit() throws IOException {
+        long checksum = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", -1);
+                checksum += Integer.parseInt(parts[0]) + Status.valueOf(parts[3]).ordinal() + Long.parseLong(parts[6]);
+                checksum += parts[2].length() + parts[4].length();
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public void writeCsvWriter() throws IOException {
+        try (CsvWriter csv = new CsvWriter(writer(output))) {
+            for (int i = 1; i <= ROWS; i++) {
+                csv.field(i).field(TaskType.TASK).field("Задача").field(Status.NEW)
+                        .field("Описание задачи").field((String) null).field(30).field((String) null);
+                csv.endRecord();
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeFormat() throws IOException {
+        try (Writer writer = writer(output)) {
+            for (int i = 1; i <= ROWS; i++) {
+                writer.write(String.format("%d,%s,%s,%s,%s,%s,%d,%s",
+                        i, TaskType.TASK, "Задача", Status.NEW, "Описание задачи", "", 30, "") + "\n");
+            }
+        }
+    }
+
+    private static Writer writer(File target) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), StandardCharsets.UTF_8), 1 << 16);
+    }
+}
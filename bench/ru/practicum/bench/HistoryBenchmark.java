@@ -0,0 +1,60 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// InMemoryHistoryManager: просмотр новой задачи с вытеснением самой давней, повторный просмотр
+// задачи из истории с переносом в конец и чтение всей истории при разной ёмкости.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int capacity;
+
+    private InMemoryHistoryManager history;
+    // задач вдвое больше ёмкости: вторая половина ещё не в истории
+    private Task[] tasks;
+    private int next;
+    private int oldest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = new InMemoryHistoryManager(capacity);
+        tasks = new Task[2 * capacity];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Задача " + i, "desc", Status.NEW);
+            tasks[i].setId(i + 1);
+        }
+        for (int i = 0; i < capacity; i++) history.add(tasks[i]);
+        next = capacity;
+    }
+
+    // по кругу: задача, просмотренная capacity вызовов назад, уже вытеснена
+    @Benchmark
+    public void addWithEviction() {
+        history.add(tasks[next]);
+        next = next + 1 == tasks.length ? 0 : next + 1;
+    }
+
+    // задачи 0..capacity-1 уже в истории: самая давняя по кругу переносится в конец
+    @Benchmark
+    public void addExisting() {
+        history.add(tasks[oldest]);
+        oldest = oldest + 1 == capacity ? 0 : oldest + 1;
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,191 @@
+package ru.practicum.bench;
+
+import ru.practicum.http.HttpTaskServer;
+import ru.practicum.manager.Managers;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.util.LatencyHistogram;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузочный прогон HttpTaskServer на этой машине: сервер с доской из BenchData поднимается на свободном
+// порту, clients виртуальных потоков шлют запросы друг за другом (замкнутый цикл) warmup + seconds секунд,
+// в конце печатаются пропускная способность и перцентили задержек по видам запросов.
+// Замкнутый цикл недооценивает хвост задержек при остановках сервера (coordinated omission): клиент,
+// ждущий ответа, не отправляет запросы, которые пришлись бы на паузу.
+// Аргументы: clients=64 seconds=10 warmup=3 size=10000 manager=concurrent|locked
+public final class HttpLoadTest {
+
+    private enum Kind {
+        // задача или подзадача по случайному id
+        GET_TASK(60),
+        // эпик читается, пока CREATE_SUBTASK пересчитывает эпики: ответ должен оставаться согласованным
+        GET_EPIC(10),
+        EPIC_SUBTASKS(10),
+        CREATE_TASK(5),
+        CREATE_SUBTASK(5),
+        HISTORY(5),
+        SEARCH(5);
+
+        final int weight;
+
+        Kind(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final int SUBTASKS_PER_EPIC = 10;
+    private static final String[] WORDS = {"задача", "подзадача", "описание", "эпик"};
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<Kind, LatencyHistogram> latencies = new EnumMap<>(Kind.class);
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger createdSubtasks = new AtomicInteger();
+    private final String base;
+    private final int size;
+    private final int epics;
+    private volatile boolean measuring;
+
+    private HttpLoadTest(String base, int size) {
+        this.base = base;
+        this.size = size;
+        this.epics = BenchData.epicCount(size, SUBTASKS_PER_EPIC);
+        for (Kind kind : Kind.values()) latencies.put(kind, new LatencyHistogram());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "clients", "64", "seconds", "10", "warmup", "3", "size", "10000", "manager", "concurrent"));
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !options.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Неизвестный аргумент " + arg + ", допустимы " + options.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int clients = Integer.parseInt(options.get("clients"));
+        int size = Integer.parseInt(options.get("size"));
+        TaskManager manager = switch (options.get("manager")) {
+            case "concurrent" -> Managers.getConcurrent();
+            case "locked" -> Managers.getDefault();
+            default -> throw new IllegalArgumentException("manager=concurrent|locked");
+        };
+        manager.addAll(BenchData.board(size, SUBTASKS_PER_EPIC));
+
+        HttpTaskServer server = new HttpTaskServer(manager, 0);
+        server.start();
+        try {
+            HttpLoadTest test = new HttpLoadTest("http://localhost:" + server.getPort(), size);
+            test.run(clients, Integer.parseInt(options.get("warmup")), Integer.parseInt(options.get("seconds")));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private void run(int clients, int warmupSeconds, int seconds) throws InterruptedException {
+        long measuredNanos;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            long stopAt = System.nanoTime() + (warmupSeconds + seconds) * 1_000_000_000L;
+            for (int i = 0; i < clients; i++) {
+                threads.submit(() -> {
+                    while (System.nanoTime() < stopAt) request(pick());
+                    return null;
+                });
+            }
+            Thread.sleep(warmupSeconds * 1000L);
+            measuring = true;
+            long from = System.nanoTime();
+            Thread.sleep(seconds * 1000L);
+            measuring = false;
+            measuredNanos = System.nanoTime() - from;
+        }
+        report(clients, measuredNanos);
+    }
+
+    private static Kind pick() {
+        int point = ThreadLocalRandom.current().nextInt(100);
+        for (Kind kind : Kind.values()) {
+            point -= kind.weight;
+            if (point < 0) return kind;
+        }
+        return Kind.GET_TASK;
+    }
+
+    private void request(Kind kind) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest request = switch (kind) {
+            case GET_TASK -> {
+                // после эпиков id чередуются: задачи на чётных местах доски, подзадачи на нечётных
+                int id = epics + 1 + random.nextInt(size - epics);
+                String path = (id - 1) % 2 == 0 ? "/tasks/" : "/subtasks/";
+                yield get(path + id);
+            }
+            case GET_EPIC -> get("/epics/" + (1 + random.nextInt(epics)));
+            case EPIC_SUBTASKS -> get("/epics/" + (1 + random.nextInt(epics)) + "/subtasks");
+            case CREATE_TASK -> {
+                // новые задачи идут после доски и не пересекаются ни с ней, ни друг с другом
+                LocalDateTime start = BenchData.START.plusYears(50).plusMinutes(10L * created.getAndIncrement());
+                yield HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Нагрузка\",\"description\":\"описание\","
+                                + "\"duration\":5,\"startTime\":\"" + start + "\"}"))
+                        .build();
+            }
+            case CREATE_SUBTASK -> {
+                // подзадачи случайных эпиков занимают свой диапазон времени, после новых задач
+                LocalDateTime start = BenchData.START.plusYears(60).plusMinutes(10L * createdSubtasks.getAndIncrement());
+                yield HttpRequest.newBuilder(URI.create(base + "/subtasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Нагрузка\",\"description\":\"описание\","
+                                + "\"epicId\":" + (1 + random.nextInt(epics)) + ",\"status\":\"IN_PROGRESS\","
+                                + "\"duration\":5,\"startTime\":\"" + start + "\"}"))
+                        .build();
+            }
+            case HISTORY -> get("/history");
+            case SEARCH -> get("/search?limit=20&q="
+                    + URLEncoder.encode(WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(size), StandardCharsets.UTF_8));
+        };
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long elapsed = System.nanoTime() - start;
+            if (!measuring) return;
+            latencies.get(kind).record(elapsed);
+            if (response.statusCode() >= 300) errors.increment();
+        } catch (Exception e) {
+            if (measuring) errors.increment();
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+    }
+
+    private void report(int clients, long nanos) {
+        double seconds = nanos / 1e9;
+        long total = 0;
+        System.out.printf("клиентов %d, замер %.1f с%n", clients, seconds);
+        System.out.printf("%-14s %9s %10s %8s %8s %8s %8s %8s%n", "запрос", "число", "в секунду", "p50 мс", "p90 мс",
+                "p99 мс", "p99.9 мс", "max мс");
+        for (Kind kind : Kind.values()) {
+            LatencyHistogram.Snapshot s = latencies.get(kind).snapshot();
+            total += s.count();
+            System.out.printf("%-14s %9d %10.0f %8.2f %8.2f %8.2f %8.2f %8.2f%n", kind, s.count(), s.count() / seconds,
+                    s.p50() / 1e6, s.p90() / 1e6, s.p99() / 1e6, s.p999() / 1e6, s.max() / 1e6);
+        }
+        System.out.printf("всего %d запросов, %.0f в секунду, ошибок %d%n", total, total / seconds, errors.sum());
+    }
+}
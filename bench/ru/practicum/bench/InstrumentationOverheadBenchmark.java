@@ -0,0 +1,54 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.*;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+
+import java.util.concurrent.TimeUnit;
+
+// Цена замеров: те же вызовы у InMemoryTaskManager напрямую и через InstrumentedTaskManager
+// с RecordingMetricsSink. Разница — два System.nanoTime и запись в гистограмму на вызов.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationOverheadBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    @Param({"false", "true"})
+    private boolean instrumented;
+
+    private TaskManager manager;
+    private Task updated;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TaskManager plain = Managers.getDefault();
+        manager = instrumented ? Managers.getInstrumented(plain, new RecordingMetricsSink()) : plain;
+        for (int i = 0; i < SIZE; i++) manager.addTask(new Task("Задача " + i, "desc", Status.NEW));
+        updated = new Task("Задача", "desc", Status.IN_PROGRESS);
+        updated.setId(1);
+    }
+
+    @Benchmark
+    public Task getTask() {
+        next = next % SIZE + 1;
+        return manager.getTask(next);
+    }
+
+    @Benchmark
+    public boolean updateTask() {
+        return manager.updateTask(updated);
+    }
+
+    @Benchmark
+    public int countByStatus() {
+        return manager.countByStatus(TaskType.TASK, Status.NEW);
+    }
+}
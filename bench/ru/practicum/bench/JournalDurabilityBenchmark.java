@@ -0,0 +1,55 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.DurabilityPolicy;
+import ru.practicum.manager.FileBackedTaskManager;
+import ru.practicum.manager.TaskJournal;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность изменений FileBackedTaskManager с журналом при разных политиках сброса на диск.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalDurabilityBenchmark {
+
+    @Param({"PER_OP", "PER_BATCH", "ASYNC"})
+    private DurabilityPolicy policy;
+
+    private File snapshot;
+    private File journalFile;
+    private FileBackedTaskManager manager;
+    private int taskId;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        snapshot = File.createTempFile("bench", ".csv");
+        journalFile = TaskJournal.defaultFileFor(snapshot);
+        TaskJournal journal = new TaskJournal(journalFile, 100_000, policy,
+                TaskJournal.DEFAULT_BATCH_SIZE, Duration.ofMillis(5));
+        manager = new FileBackedTaskManager(snapshot, journal);
+        taskId = manager.addTask(new Task("Task", "desc", Status.NEW));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        manager.close();
+        snapshot.delete();
+        journalFile.delete();
+    }
+
+    @Benchmark
+    public boolean updateTask() {
+        Task task = new Task("Task", "desc", Status.IN_PROGRESS);
+        task.setId(taskId);
+        return manager.updateTask(task);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.FileBackedTaskManager;
+import ru.practicum.manager.LoadMode;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Время до первого ответа после запуска: загрузка снимка CSV и чтение одной задачи и одного эпика
+// в режимах EAGER и LAZY. В ленивом режиме загрузка только строит индекс записей.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyLoadBenchmark {
+
+    @Param({"EAGER", "LAZY"})
+    private LoadMode mode;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private File file;
+    private int taskId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("lazy", ".csv");
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(file)) {
+            manager.addAll(BenchData.board(size, 10));
+        }
+        // задачи стоят на чётных местах доски, id на единицу больше места
+        taskId = size - (size - 1) % 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Task firstRequest() {
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file, null, mode);
+        manager.getEpic(1);
+        return manager.getTask(taskId);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.bench;
+
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+import ru.practicum.util.IntObjectMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+// Занимаемая память на одну запись хранилища: HashMap<Integer, Task> против IntObjectMap<Task>,
+// а также полный расход InMemoryTaskManager на задачу. Измеряется по приросту занятой кучи после GC,
+// поэтому запускать стоит с фиксированной кучей, например -Xms2g -Xmx2g.
+public class MemoryFootprintBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : SIZE;
+        Task[] tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task("Task", "desc", Status.NEW);
+            tasks[i].setId(i + 1);
+        }
+
+        report("HashMap<Integer, Task>", size, n -> {
+            Map<Integer, Task> map = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(tasks[i].getId(), tasks[i]);
+            }
+            return map;
+        });
+        report("IntObjectMap<Task>", size, n -> {
+            IntObjectMap<Task> map = new IntObjectMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(tasks[i].getId(), tasks[i]);
+            }
+            return map;
+        });
+        report("InMemoryTaskManager (с задачами)", size, n -> {
+            InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+            for (int i = 0; i < n; i++) {
+                manager.addTask(new Task("Task", "desc", Status.NEW));
+            }
+            return manager;
+        });
+    }
+
+    private static void report(String name, int size, IntFunction<Object> builder) {
+        long before = usedHeap();
+        Object structure = builder.apply(size);
+        long after = usedHeap();
+        System.out.printf("%-35s %8.1f байт на запись%n", name, (after - before) / (double) size);
+        if (structure.hashCode() == 42) System.out.print("");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость проверки пересечений при добавлении задачи в заполненное расписание:
+// индекс интервалов против прежнего линейного прохода по prioritizedTasks.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverlapCheckBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private List<Task> prioritized;
+    private LocalDateTime freeStart;
+    private LocalDateTime freeEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, "desc", Status.NEW);
+            task.setStartTime(BASE.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+        prioritized = manager.getPrioritizedTasks();
+        freeStart = BASE.plusHours(size);
+        freeEnd = freeStart.plusMinutes(30);
+    }
+
+    @Benchmark
+    public int addAndDeleteTimedTask() {
+        Task task = new Task("Probe", "desc", Status.NEW);
+        task.setStartTime(freeStart);
+        task.setDuration(Duration.ofMinutes(30));
+        int id = manager.addTask(task);
+        manager.deleteTask(id);
+        return id;
+    }
+
+    @Benchmark
+    public boolean linearScanBaseline() {
+        return prioritized.stream()
+                .filter(t -> t.getStartTime() != null && t.getDuration() != null)
+                .anyMatch(t -> !(t.getEndTime().isBefore(freeStart) || t.getStartTime().isAfter(freeEnd)));
+    }
+}
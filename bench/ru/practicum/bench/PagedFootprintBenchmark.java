@@ -0,0 +1,69 @@
+package ru.practicum.bench;
+
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.manager.PagedTaskManager;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Расход кучи на задачу у InMemoryTaskManager и PagedTaskManager при уникальных описаниях,
+// а также время случайного чтения из страничного файла. Запускать с фиксированной кучей, например -Xms2g -Xmx2g.
+public class PagedFootprintBenchmark {
+
+    private static final int SIZE = 500_000;
+    private static final int READS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : SIZE;
+
+        measureInMemory(size);
+
+        File file = File.createTempFile("bench", ".pages");
+        file.delete();
+        long before = usedHeap();
+        try (PagedTaskManager paged = new PagedTaskManager(file, new InMemoryHistoryManager())) {
+            fill(paged, size);
+            report("PagedTaskManager", size, usedHeap() - before);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < READS; i++) {
+                paged.getTask(1 + ThreadLocalRandom.current().nextInt(size));
+            }
+            System.out.printf("случайное чтение: %.0f нс на задачу, файл %d МБ%n",
+                    (System.nanoTime() - start) / (double) READS, file.length() >> 20);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void measureInMemory(int size) {
+        long before = usedHeap();
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        fill(manager, size);
+        report("InMemoryTaskManager", size, usedHeap() - before);
+        if (manager.hashCode() == 42) System.out.print("");
+    }
+
+    private static void fill(TaskManager manager, int size) {
+        for (int i = 0; i < size; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание задачи номер " + i + " с подробностями", Status.NEW));
+        }
+    }
+
+    private static void report(String name, int size, long bytes) {
+        System.out.printf("%-20s %8.1f байт кучи на задачу%n", name, bytes / (double) size);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
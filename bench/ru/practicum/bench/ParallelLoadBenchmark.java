@@ -0,0 +1,47 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.FileBackedTaskManager;
+import ru.practicum.manager.LoadMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Полная загрузка снимка CSV в режимах EAGER и PARALLEL: разбор, текстовый индекс, связи эпиков
+// и приоритетный порядок. Зависимость от числа ядер снимается запуском с
+// -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParallelLoadBenchmark {
+
+    @Param({"EAGER", "PARALLEL"})
+    private LoadMode mode;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("parallel", ".csv");
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(file)) {
+            manager.addAll(BenchData.board(size, 10));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(file, null, mode);
+    }
+}
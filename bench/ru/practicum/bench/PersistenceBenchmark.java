@@ -0,0 +1,54 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.FileBackedTaskManager;
+import ru.practicum.manager.SnapshotFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Запись и загрузка снимка FileBackedTaskManager в обоих форматах от 1 000 до 1 000 000 задач.
+// Для миллиона задач нужна куча побольше, например -Xmx4g.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({"CSV", "BINARY"})
+    private SnapshotFormat format;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("persistence", ".dat");
+        // addAll записывает снимок один раз на весь пакет
+        manager = new FileBackedTaskManager(file, format);
+        manager.addAll(BenchData.board(size, 10));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public File save() {
+        manager.compact();
+        return file;
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Поиск по словам среди задач со сгенерированным текстом: обратный индекс InMemoryTaskManager против
+// перебора всех задач с contains по названию и описанию. После прогона печатается размер индекса.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final String[] STEMS = {"отчет", "релиз", "клиент", "договор", "встреча", "сборка", "тест",
+            "report", "release", "review", "deploy", "invoice", "meeting", "backup"};
+    private static final String[] ENDINGS = {"", "а", "ы", "ов", "ом", "s", "ing"};
+
+    @Param({"100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            manager.addTask(new Task(text(random, 3) + " " + i, text(random, 12), Status.NEW));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println(manager.getSearchIndexStats());
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) text.append(' ');
+            text.append(STEMS[random.nextInt(STEMS.length)]).append(ENDINGS[random.nextInt(ENDINGS.length)]);
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public List<Task> indexTwoWords() {
+        return manager.search("клиент invoice", 20);
+    }
+
+    @Benchmark
+    public List<Task> indexPrefix() {
+        return manager.search("договор* backup", 20);
+    }
+
+    @Benchmark
+    public List<Task> scanTwoWords() {
+        return manager.getAllTasks().stream()
+                .filter(t -> contains(t, "клиент") && contains(t, "invoice"))
+                .limit(20)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Task> indexRareWord() {
+        return manager.search(String.valueOf(size - 1), 20);
+    }
+
+    @Benchmark
+    public List<Task> scanRareWord() {
+        String word = String.valueOf(size - 1);
+        return manager.getAllTasks().stream().filter(t -> contains(t, word)).limit(20).toList();
+    }
+
+    private static boolean contains(Task task, String word) {
+        return task.getTitle().toLowerCase().contains(word) || task.getDescription().toLowerCase().contains(word);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.bench;
+
+import ru.practicum.manager.Managers;
+import ru.practicum.manager.SessionHistoryManager;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.time.Duration;
+
+// Память на одну сессию SessionHistoryManager с заполненной историей.
+// Измеряется по приросту занятой кучи после GC; запускать с фиксированной кучей, например -Xms1g -Xmx1g.
+public class SessionHistoryMemoryBenchmark {
+
+    public static void main(String[] args) {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int taskCount = 1_000;
+
+        SessionHistoryManager history = new SessionHistoryManager(
+                SessionHistoryManager.DEFAULT_SESSION_CAPACITY, sessionCount, Duration.ofHours(1));
+        TaskManager manager = Managers.getWithSessionHistory(history);
+        for (int i = 0; i < taskCount; i++) {
+            manager.addTask(new Task("Task " + i, "desc", Status.NEW));
+        }
+        // строки id сессий создаются заранее, чтобы не учитывать их в расходе на сессию
+        String[] sessionIds = new String[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            sessionIds[i] = "session-" + i;
+        }
+
+        long before = usedHeap();
+        for (int i = 0; i < sessionCount; i++) {
+            int session = i;
+            history.runInSession(sessionIds[i], () -> {
+                for (int view = 0; view < SessionHistoryManager.DEFAULT_SESSION_CAPACITY; view++) {
+                    manager.getTask(1 + (session + view * 31) % taskCount);
+                }
+            });
+        }
+        long after = usedHeap();
+
+        System.out.printf("сессий: %d, байт на сессию: %.1f%n",
+                history.sessionCount(), (after - before) / (double) sessionCount);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.DurabilityPolicy;
+import ru.practicum.manager.FileBackedTaskManager;
+import ru.practicum.manager.SnapshotFormat;
+import ru.practicum.manager.TaskJournal;
+import ru.practicum.model.Epic;
+import ru.practicum.model.Status;
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Время загрузки снимка в CSV и в двоичном формате. Аллокации смотреть с -prof gc.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotLoadBenchmark {
+
+    @Param({"CSV", "BINARY"})
+    private SnapshotFormat format;
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("snapshot", ".dat");
+        // Журнал вместо снимка на каждое изменение, иначе подготовка квадратична по размеру.
+        File journalFile = TaskJournal.defaultFileFor(file);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file,
+                new TaskJournal(journalFile, size + 1, DurabilityPolicy.ASYNC,
+                        TaskJournal.DEFAULT_BATCH_SIZE, Duration.ofMillis(10)));
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        int epicId = 0;
+        for (int i = 0; i < size; i++) {
+            if (i % 10 == 0) {
+                epicId = manager.addEpic(new Epic("Эпик " + i, "Описание эпика", Status.NEW));
+                continue;
+            }
+            Task task = i % 2 == 0
+                    ? new Task("Задача " + i, "Описание задачи", Status.NEW)
+                    : new SubTask("Подзадача " + i, "Описание подзадачи", Status.IN_PROGRESS, epicId);
+            task.setStartTime(start.plusMinutes(30L * i));
+            task.setDuration(Duration.ofMinutes(15));
+            if (task instanceof SubTask subTask) {
+                manager.addSubTask(subTask);
+            } else {
+                manager.addTask(task);
+            }
+        }
+        manager.export(file, format);
+        manager.close();
+        journalFile.delete();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Выборки и счётчики по статусу: индекс InMemoryTaskManager против фильтрации полного списка потоком.
+// Задачи и подзадачи поровну делятся между тремя статусами. Варианты *AfterUpdate перед запросом
+// переводят одну подзадачу между NEW и DONE и выбирают DONE, поэтому индекс пересобирает список корзины.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusQueryBenchmark {
+
+    private static final Status[] STATUSES = Status.values();
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private SubTask toggled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        int epics = Math.max(1, size / 100);
+        for (int i = 0; i < epics; i++) {
+            manager.addEpic(new Epic("Эпик " + i, "desc", Status.NEW));
+        }
+        for (int i = 0; i < size; i++) {
+            Status status = STATUSES[i % STATUSES.length];
+            if (i % 2 == 0) {
+                manager.addTask(new Task("Задача " + i, "desc", status));
+            } else {
+                toggled = new SubTask("Подзадача " + i, "desc", status, 1 + i % epics);
+                manager.addSubTask(toggled);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<SubTask> indexedSelect() {
+        return manager.getSubtasksByStatus(Status.IN_PROGRESS);
+    }
+
+    @Benchmark
+    public List<SubTask> streamSelect() {
+        return manager.getAllSubTasks().stream().filter(s -> s.getStatus() == Status.IN_PROGRESS).toList();
+    }
+
+    @Benchmark
+    public int indexedCount() {
+        return manager.countByStatus(TaskType.TASK, Status.DONE);
+    }
+
+    @Benchmark
+    public long streamCount() {
+        return manager.getAllTasks().stream().filter(t -> t.getStatus() == Status.DONE).count();
+    }
+
+    @Benchmark
+    public List<SubTask> indexedSelectAfterUpdate() {
+        toggle();
+        return manager.getSubtasksByStatus(Status.DONE);
+    }
+
+    @Benchmark
+    public List<SubTask> streamSelectAfterUpdate() {
+        toggle();
+        return manager.getAllSubTasks().stream().filter(s -> s.getStatus() == Status.DONE).toList();
+    }
+
+    private void toggle() {
+        SubTask next = new SubTask(toggled.getTitle(), toggled.getDescription(),
+                toggled.getStatus() == Status.DONE ? Status.NEW : Status.DONE, toggled.getEpicId());
+        next.setId(toggled.getId());
+        manager.updateSubtask(next);
+        toggled = next;
+    }
+}
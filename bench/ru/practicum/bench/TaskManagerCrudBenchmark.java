@@ -0,0 +1,91 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Добавление, обновление и удаление в InMemoryTaskManager на досках разного размера.
+// Каждый вызов возвращает доску в исходный размер, поэтому измерение не зависит от числа итераций.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerCrudBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private Task timedTask;
+    private SubTask subtask;
+    private long freeSlot;
+    private long nextSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.addAll(BenchData.board(size, 10));
+        timedTask = manager.getAllTasks().getLast();
+        subtask = manager.getAllSubTasks().getLast();
+        // слоты после доски свободны
+        freeSlot = size;
+        nextSlot = size + 1;
+    }
+
+    @Benchmark
+    public int addAndDeleteTask() {
+        int id = manager.addTask(new Task("Новая", "Описание", Status.NEW));
+        manager.deleteTask(id);
+        return id;
+    }
+
+    @Benchmark
+    public int addAndDeleteTimedTask() {
+        Task task = new Task("Новая", "Описание", Status.NEW);
+        task.setStartTime(BenchData.slot(freeSlot));
+        task.setDuration(Duration.ofMinutes(15));
+        int id = manager.addTask(task);
+        manager.deleteTask(id);
+        return id;
+    }
+
+    @Benchmark
+    public int addAndDeleteSubtask() {
+        int id = manager.addSubTask(new SubTask("Новая", "Описание", Status.DONE, subtask.getEpicId()));
+        manager.deleteSubtask(id);
+        return id;
+    }
+
+    // задача переезжает между двумя свободными слотами: индекс времени и prioritizedTasks меняются каждый раз
+    @Benchmark
+    public boolean updateTimedTask() {
+        Task moved = new Task(timedTask.getTitle(), timedTask.getDescription(), timedTask.getStatus());
+        moved.setId(timedTask.getId());
+        moved.setDuration(timedTask.getDuration());
+        long slot = nextSlot;
+        nextSlot = nextSlot == size + 1 ? size + 2 : size + 1;
+        moved.setStartTime(BenchData.slot(slot));
+        timedTask = moved;
+        return manager.updateTask(moved);
+    }
+
+    // смена статуса подзадачи пересчитывает статус её эпика
+    @Benchmark
+    public boolean updateSubtaskStatus() {
+        SubTask updated = new SubTask(subtask.getTitle(), subtask.getDescription(),
+                subtask.getStatus() == Status.DONE ? Status.IN_PROGRESS : Status.DONE, subtask.getEpicId());
+        updated.setId(subtask.getId());
+        updated.setStartTime(subtask.getStartTime());
+        updated.setDuration(subtask.getDuration());
+        subtask = updated;
+        return manager.updateSubtask(updated);
+    }
+}
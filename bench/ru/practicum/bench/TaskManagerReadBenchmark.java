@@ -0,0 +1,67 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.manager.InMemoryHistoryManager;
+import ru.practicum.manager.InMemoryTaskManager;
+import ru.practicum.model.Status;
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Чтение из InMemoryTaskManager: подзадачи эпика при разном их числе и список по приоритету.
+// Вариант *AfterUpdate перед чтением меняет подзадачу, поэтому кэшированный список пересобирается.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerReadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"10", "1000"})
+    private int subtasksPerEpic;
+
+    private InMemoryTaskManager manager;
+    private SubTask subtask;
+    private int epicId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.addAll(BenchData.board(size, subtasksPerEpic));
+        subtask = manager.getAllSubTasks().getLast();
+        epicId = subtask.getEpicId();
+    }
+
+    @Benchmark
+    public List<SubTask> getEpicSubtasks() {
+        return manager.getEpicSubtasks(epicId);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasksAfterUpdate() {
+        SubTask updated = new SubTask(subtask.getTitle(), subtask.getDescription(),
+                subtask.getStatus() == Status.DONE ? Status.NEW : Status.DONE, subtask.getEpicId());
+        updated.setId(subtask.getId());
+        updated.setStartTime(subtask.getStartTime());
+        updated.setDuration(subtask.getDuration());
+        subtask = updated;
+        manager.updateSubtask(updated);
+        return manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return manager.getAllTasks();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.bench;
+
+import ru.practicum.manager.FileBackedTaskManager;
+import ru.practicum.manager.SnapshotFormat;
+import ru.practicum.manager.WriteBehindStats;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Задержка updateTask у FileBackedTaskManager с синхронной и отложенной записью снимка.
+// Перцентили считаются по каждому вызову, поэтому здесь обычная программа, а не JMH.
+public class WriteBehindLatencyBenchmark {
+
+    private static final int TASKS = 2_000;
+    private static final int UPDATES = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        run("синхронно", 0);
+        run("отложенно (очередь " + capacity + ")", capacity);
+    }
+
+    private static void run(String name, int capacity) throws IOException {
+        File file = File.createTempFile("bench", ".csv");
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(file, SnapshotFormat.CSV, null, capacity)) {
+            for (int i = 0; i < TASKS; i++) {
+                manager.addTask(new Task("Задача " + i, "Описание", Status.NEW));
+            }
+            manager.flush();
+
+            int updates = capacity == 0 ? UPDATES / 10 : UPDATES;
+            long[] latencies = new long[updates];
+            for (int i = 0; i < updates; i++) {
+                Task update = new Task("Задача", "Описание " + i, Status.IN_PROGRESS);
+                update.setId(1 + i % TASKS);
+                long start = System.nanoTime();
+                manager.updateTask(update);
+                latencies[i] = System.nanoTime() - start;
+            }
+            manager.flush();
+
+            Arrays.sort(latencies);
+            System.out.printf("%-28s p50 %8.1f мкс, p99 %8.1f мкс, max %9.1f мкс%n", name,
+                    latencies[updates / 2] / 1000.0, latencies[updates * 99 / 100] / 1000.0,
+                    latencies[updates - 1] / 1000.0);
+            WriteBehindStats stats = manager.getWriteBehindStats();
+            if (stats != null) {
+                System.out.printf("%-28s записей на диск %d на %d изменений, макс. отставание %d мс, ожиданий очереди %d%n",
+                        "", stats.writes(), stats.persistedChanges(), stats.maxLag().toMillis(), stats.backpressureWaits());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
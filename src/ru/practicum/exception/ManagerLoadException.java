@@ -1,7 +1,11 @@
 package ru.practicum.exception;
 
 public class ManagerLoadException extends RuntimeException {
+    public ManagerLoadException(String message) {
+        super(message);
+    }
+
     public ManagerLoadException(String message, Throwable cause) {
         super(message, cause);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,218 @@
+package ru.practicum.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.Epic;
+import ru.practicum.model.Task;
+import ru.practicum.util.JsonReader;
+import ru.practicum.util.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Общая часть обработчиков {@link HttpTaskServer}: вызовы менеджера под блокировкой сервера, разбор тела
+ * и запись ответа. Списки пишутся потоково с chunked-кодированием, по мере обхода, одиночные ответы —
+ * с длиной тела.
+ * <p>
+ * Коды ошибок: 400 — неверный путь, id или тело, 404 — задачи нет, 405 — метод не поддерживается,
+ * 406 — задача пересекается по времени с другой, 500 — прочие ошибки.
+ */
+abstract class BaseHttpHandler implements HttpHandler {
+
+    // предел тела запроса с задачей; длиннее — 400
+    static final int MAX_BODY = 1 << 20;
+    private static final int BUFFER = 16 * 1024;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final TaskManager manager;
+    // null — менеджер потокобезопасен
+    private final Lock lock;
+
+    // неверный запрос: ответ 400 с текстом сообщения
+    static final class BadRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    BaseHttpHandler(TaskManager manager, Lock lock) {
+        this.manager = manager;
+        this.lock = lock;
+    }
+
+    @Override
+    public final void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange, exchange.getRequestMethod(), segments(exchange));
+            } catch (BadRequestException e) {
+                sendText(exchange, 400, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                // менеджер отказывает в изменении, которое пересекается по времени с другой задачей
+                sendText(exchange, 406, e.getMessage());
+            } catch (RuntimeException e) {
+                sendText(exchange, 500, "Внутренняя ошибка: " + e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    // parts — части пути после имени ресурса, например [] для /tasks и ["3"] для /tasks/3
+    protected abstract void route(HttpExchange exchange, String method, String[] parts) throws IOException;
+
+    // вызов менеджера; если менеджер не потокобезопасен, вызовы идут по одному
+    protected <T> T call(Function<TaskManager, T> action) {
+        if (lock == null) return action.apply(manager);
+        lock.lock();
+        try {
+            return action.apply(manager);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // задачи для ответа. Ответ пишется клиенту уже без блокировки, а эпик менеджера с блокировкой меняют
+    // следующие запросы (состав подзадач, статус, сроки), поэтому под ней список копируется, а эпики —
+    // вместе с ним. Задачи и подзадачи менеджер не меняет: обновление заменяет объект целиком.
+    // ConcurrentTaskManager сам отдаёт копии эпиков, снятые под полосой, и его списки не копируются
+    protected Collection<? extends Task> readTasks(Function<TaskManager, ? extends Collection<? extends Task>> action) {
+        if (lock == null) return action.apply(manager);
+        return call(manager -> {
+            Collection<? extends Task> tasks = action.apply(manager);
+            List<Task> result = new ArrayList<>(tasks.size());
+            for (Task task : tasks) result.add(stable(task));
+            return result;
+        });
+    }
+
+    protected Task readTask(Function<TaskManager, ? extends Task> action) {
+        return call(manager -> stable(action.apply(manager)));
+    }
+
+    private Task stable(Task task) {
+        return lock != null && task instanceof Epic epic ? epic.copy() : task;
+    }
+
+    protected void run(Consumer<TaskManager> action) {
+        call(m -> {
+            action.accept(m);
+            return null;
+        });
+    }
+
+    protected static int parseId(String text) {
+        try {
+            int id = Integer.parseInt(text);
+            if (id > 0) return id;
+        } catch (NumberFormatException ignored) {
+            // ниже тот же ответ, что и для неположительного id
+        }
+        throw new BadRequestException("Неверный id: " + text);
+    }
+
+    protected static Object readBody(HttpExchange exchange) throws IOException {
+        InputStream limited = new LimitedInputStream(exchange.getRequestBody(), MAX_BODY);
+        try (Reader body = new InputStreamReader(limited, StandardCharsets.UTF_8)) {
+            return JsonReader.parse(body);
+        } catch (IOException e) {
+            if (e instanceof LimitExceededException) throw new BadRequestException(e.getMessage());
+            throw new BadRequestException("Неверный JSON: " + e.getMessage());
+        }
+    }
+
+    protected static void sendTasks(HttpExchange exchange, Collection<? extends Task> tasks) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER))) {
+            json.beginArray();
+            for (Task task : tasks) TaskJson.write(json, task);
+            json.endArray();
+        }
+    }
+
+    protected static void sendTask(HttpExchange exchange, Task task) throws IOException {
+        StringWriter text = new StringWriter();
+        TaskJson.write(new JsonWriter(text), task);
+        send(exchange, 200, JSON, text.toString());
+    }
+
+    // ответ на создание задачи: {"id":N}
+    protected static void sendCreated(HttpExchange exchange, int id) throws IOException {
+        send(exchange, 201, JSON, "{\"id\":" + id + "}");
+    }
+
+    protected static void sendOk(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    protected static void sendNotFound(HttpExchange exchange, String message) throws IOException {
+        sendText(exchange, 404, message);
+    }
+
+    protected static void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendText(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+    }
+
+    protected static void sendText(HttpExchange exchange, int code, String message) throws IOException {
+        send(exchange, code, "text/plain; charset=utf-8", message);
+    }
+
+    private static void send(HttpExchange exchange, int code, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) exchange.getResponseBody().write(bytes);
+    }
+
+    private static String[] segments(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        String context = exchange.getHttpContext().getPath();
+        String rest = path.substring(Math.min(context.length(), path.length()));
+        if (rest.startsWith("/")) rest = rest.substring(1);
+        if (rest.endsWith("/")) rest = rest.substring(0, rest.length() - 1);
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private static final class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException() {
+            super("Тело запроса больше " + MAX_BODY + " байт");
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && --remaining < 0) throw new LimitExceededException();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0 && (remaining -= count) < 0) throw new LimitExceededException();
+            return count;
+        }
+    }
+}
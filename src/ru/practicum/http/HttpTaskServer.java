@@ -0,0 +1,93 @@
+package ru.practicum.http;
+
+import com.sun.net.httpserver.HttpServer;
+import ru.practicum.manager.ConcurrentTaskManager;
+import ru.practicum.manager.Managers;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.TaskType;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HTTP-сервер с JSON API поверх {@link TaskManager} на встроенном {@link HttpServer} JDK:
+ * /tasks, /epics, /subtasks (см. {@link TasksHandler}), /history, /prioritized и /search?q=...&amp;limit=N.
+ * <p>
+ * Каждый запрос обрабатывается в своём виртуальном потоке, поэтому ожидание сети не занимает потоки
+ * платформы. {@link ConcurrentTaskManager} вызывается без блокировки, вызовы других менеджеров идут
+ * по одному под {@link ReentrantLock}: synchronized закрепил бы виртуальный поток за потоком платформы.
+ * Блокировка держится только на время вызова менеджера, список пишется клиенту уже без неё. Поэтому
+ * ответ собирается из снимка: под блокировкой копируются список и эпики, которые параллельный запрос
+ * иначе менял бы во время записи, а {@link ConcurrentTaskManager} отдаёт эпики неизменяемыми копиями.
+ * Статус, время и подзадачи эпика в ответе всегда согласованы между собой.
+ */
+public class HttpTaskServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    static {
+        // заголовки и тело ответа уходят отдельными пакетами: без TCP_NODELAY второй ждёт подтверждения
+        // первого, а клиент откладывает его до 40 мс. Настройка читается при создании первого HttpServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, DEFAULT_PORT);
+    }
+
+    // port 0 — любой свободный порт, см. getPort
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        Lock lock = manager instanceof ConcurrentTaskManager ? null : new ReentrantLock();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        for (TaskType type : TaskType.values()) {
+            server.createContext(pathOf(type), new TasksHandler(manager, lock, type));
+        }
+        server.createContext("/history", new ListHandler(manager, lock, (m, query) -> m.getHistory()));
+        server.createContext("/prioritized", new ListHandler(manager, lock, (m, query) -> m.getPrioritizedTasks()));
+        server.createContext("/search", new ListHandler(manager, lock, (m, query) -> {
+            String text = query.get("q");
+            if (text == null) throw new BaseHttpHandler.BadRequestException("Нет параметра q");
+            return m.search(text, ListHandler.intParameter(query, "limit", DEFAULT_SEARCH_LIMIT));
+        }));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), port);
+        server.start();
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // ждёт до delaySeconds завершения начатых запросов, затем закрывает сервер и его потоки
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    static String pathOf(TaskType type) {
+        return switch (type) {
+            case TASK -> "/tasks";
+            case EPIC -> "/epics";
+            case SUBTASK -> "/subtasks";
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.Task;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiFunction;
+
+/**
+ * Списки только для чтения: GET /history, GET /prioritized и GET /search?q=...&amp;limit=N.
+ * Функция списка получает параметры строки запроса.
+ */
+final class ListHandler extends BaseHttpHandler {
+
+    private final BiFunction<TaskManager, Map<String, String>, Collection<? extends Task>> list;
+
+    ListHandler(TaskManager manager, Lock lock,
+                BiFunction<TaskManager, Map<String, String>, Collection<? extends Task>> list) {
+        super(manager, lock);
+        this.list = list;
+    }
+
+    @Override
+    protected void route(HttpExchange exchange, String method, String[] parts) throws IOException {
+        if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange, "GET");
+            return;
+        }
+        if (parts.length != 0) throw new BadRequestException("Неизвестный путь " + exchange.getRequestURI().getPath());
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        sendTasks(exchange, readTasks(manager -> list.apply(manager, query)));
+    }
+
+    // неотрицательное число из параметра name или fallback, если его нет
+    static int intParameter(Map<String, String> query, String name, int fallback) {
+        String value = query.get(name);
+        if (value == null) return fallback;
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 0) return parsed;
+        } catch (NumberFormatException ignored) {
+            // ниже тот же ответ, что и для отрицательного числа
+        }
+        throw new BadRequestException("Неверный параметр " + name + ": " + value);
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Неверная строка запроса: " + raw);
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.http;
+
+import ru.practicum.model.*;
+import ru.practicum.util.JsonWriter;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Задачи в JSON API: {@code id}, {@code type}, {@code title}, {@code description}, {@code status},
+ * {@code duration} в минутах, {@code startTime} и {@code endTime} в ISO-8601 без зоны, у подзадачи
+ * {@code epicId}, у эпика {@code subtaskIds}. Пустые время и продолжительность пишутся как null.
+ * {@code endTime}, {@code subtaskIds} и статус эпика считает менеджер, при чтении они не используются.
+ */
+final class TaskJson {
+
+    private TaskJson() {
+    }
+
+    static void write(JsonWriter json, Task task) throws IOException {
+        json.beginObject()
+                .name("id").value(task.getId())
+                .name("type").value(task.getType().name())
+                .name("title").value(task.getTitle())
+                .name("description").value(task.getDescription())
+                .name("status").value(task.getStatus() == null ? null : task.getStatus().name());
+        json.name("duration");
+        if (task.getDuration() == null) {
+            json.nullValue();
+        } else {
+            json.value(task.getDuration().toMinutes());
+        }
+        json.name("startTime").value(toText(task.getStartTime()))
+                .name("endTime").value(toText(task.getEndTime()));
+        if (task instanceof SubTask sub) {
+            json.name("epicId").value(sub.getEpicId());
+        } else if (task instanceof Epic epic) {
+            json.name("subtaskIds").beginArray();
+            for (int id : epic.getSubtaskIdArray()) json.value(id);
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    // задача типа type из разобранного тела запроса; id 0, если его нет. Значения вне допустимых
+    // границ — IOException, чтобы клиент получил 400, а не 500 от менеджера
+    static Task read(Object body, TaskType type) throws IOException {
+        if (!(body instanceof Map<?, ?> fields)) throw new IOException("Ожидался объект задачи");
+        String declared = text(fields, "type");
+        if (declared != null && !declared.equals(type.name())) {
+            throw new IOException("Тип " + declared + " не подходит для " + type.name());
+        }
+        String title = text(fields, "title");
+        if (title == null) throw new IOException("Нет поля title");
+        String description = text(fields, "description");
+        String status = text(fields, "status");
+        Status parsedStatus;
+        try {
+            parsedStatus = status == null ? Status.NEW : Status.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Неизвестный статус " + status);
+        }
+
+        Task task = switch (type) {
+            case TASK -> new Task(title, description == null ? "" : description, parsedStatus);
+            case EPIC -> new Epic(title, description == null ? "" : description, parsedStatus);
+            case SUBTASK -> {
+                Integer epicId = number(fields, "epicId", 1);
+                if (epicId == null) throw new IOException("Нет поля epicId");
+                yield new SubTask(title, description == null ? "" : description, parsedStatus, epicId);
+            }
+        };
+        Integer id = number(fields, "id", 0);
+        task.setId(id == null ? 0 : id);
+        Integer minutes = number(fields, "duration", 0);
+        if (minutes != null) task.setDuration(Duration.ofMinutes(minutes));
+        String start = text(fields, "startTime");
+        if (start != null) {
+            try {
+                task.setStartTime(LocalDateTime.parse(start));
+            } catch (DateTimeParseException e) {
+                throw new IOException("Неверное время startTime: " + start);
+            }
+            try {
+                task.getEndTime();
+            } catch (DateTimeException e) {
+                throw new IOException("Задача заканчивается позже допустимого времени: startTime " + start);
+            }
+        }
+        return task;
+    }
+
+    private static String toText(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+
+    private static String text(Map<?, ?> fields, String name) throws IOException {
+        Object value = fields.get(name);
+        if (value == null || value instanceof String) return (String) value;
+        throw new IOException("Поле " + name + " должно быть строкой");
+    }
+
+    // целое поле от min до Integer.MAX_VALUE или null, если его нет
+    private static Integer number(Map<?, ?> fields, String name, int min) throws IOException {
+        Object value = fields.get(name);
+        if (value == null) return null;
+        if (value instanceof Long number && number >= min && number <= Integer.MAX_VALUE) return number.intValue();
+        throw new IOException("Поле " + name + " должно быть целым числом от " + min + " до " + Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.Epic;
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * /tasks, /epics и /subtasks:
+ * <ul>
+ *     <li>GET /tasks — все задачи типа, GET /tasks/{id} — одна задача, 404 если её нет;</li>
+ *     <li>GET /epics/{id}/subtasks — подзадачи эпика, пустой список для неизвестного эпика;</li>
+ *     <li>POST /tasks — задача без id (или с id 0) создаётся, ответ 201 с {"id":N}; с id — обновляется,
+ *     ответ 200 или 404. Подзадача без существующего эпика — 404;</li>
+ *     <li>DELETE /tasks/{id} — удаление задачи, DELETE /tasks — всех задач типа.</li>
+ * </ul>
+ */
+final class TasksHandler extends BaseHttpHandler {
+
+    private final TaskType type;
+
+    TasksHandler(TaskManager manager, Lock lock, TaskType type) {
+        super(manager, lock);
+        this.type = type;
+    }
+
+    @Override
+    protected void route(HttpExchange exchange, String method, String[] parts) throws IOException {
+        switch (method) {
+            case "GET" -> get(exchange, parts);
+            case "POST" -> {
+                if (parts.length != 0) throw new BadRequestException("Задача передаётся в теле POST " + path());
+                post(exchange);
+            }
+            case "DELETE" -> delete(exchange, parts);
+            default -> sendMethodNotAllowed(exchange, "GET, POST, DELETE");
+        }
+    }
+
+    private void get(HttpExchange exchange, String[] parts) throws IOException {
+        if (parts.length == 0) {
+            sendTasks(exchange, readTasks(manager -> switch (type) {
+                case TASK -> manager.getAllTasks();
+                case EPIC -> manager.getAllEpics();
+                case SUBTASK -> manager.getAllSubTasks();
+            }));
+            return;
+        }
+        int id = parseId(parts[0]);
+        if (parts.length == 2 && type == TaskType.EPIC && parts[1].equals("subtasks")) {
+            sendTasks(exchange, readTasks(manager -> manager.getEpicSubtasks(id)));
+            return;
+        }
+        if (parts.length != 1) throw new BadRequestException("Неизвестный путь " + exchange.getRequestURI().getPath());
+
+        Task task = readTask(manager -> switch (type) {
+            case TASK -> manager.getTask(id);
+            case EPIC -> manager.getEpic(id);
+            case SUBTASK -> manager.getSubtask(id);
+        });
+        if (task == null) {
+            sendNotFound(exchange, "Не найдено: " + path() + "/" + id);
+        } else {
+            sendTask(exchange, task);
+        }
+    }
+
+    private void post(HttpExchange exchange) throws IOException {
+        Task task;
+        try {
+            task = TaskJson.read(readBody(exchange), type);
+        } catch (IOException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        if (task.getId() == 0) {
+            int id = call(manager -> switch (type) {
+                case TASK -> manager.addTask(task);
+                case EPIC -> manager.addEpic((Epic) task);
+                case SUBTASK -> manager.addSubTask((SubTask) task);
+            });
+            if (id == -1) {
+                sendNotFound(exchange, "Эпик не найден: " + ((SubTask) task).getEpicId());
+            } else {
+                sendCreated(exchange, id);
+            }
+            return;
+        }
+
+        boolean updated = call(manager -> switch (type) {
+            case TASK -> manager.updateTask(task);
+            case EPIC -> manager.updateEpic((Epic) task);
+            case SUBTASK -> manager.updateSubtask((SubTask) task);
+        });
+        if (updated) {
+            sendOk(exchange);
+        } else {
+            sendNotFound(exchange, "Не найдено: " + path() + "/" + task.getId());
+        }
+    }
+
+    private void delete(HttpExchange exchange, String[] parts) throws IOException {
+        if (parts.length > 1) throw new BadRequestException("Неизвестный путь " + exchange.getRequestURI().getPath());
+        if (parts.length == 0) {
+            run(manager -> {
+                switch (type) {
+                    case TASK -> manager.deleteAllTasks();
+                    case EPIC -> manager.deleteAllEpics();
+                    case SUBTASK -> manager.deleteAllSubtasks();
+                }
+            });
+        } else {
+            int id = parseId(parts[0]);
+            run(manager -> {
+                switch (type) {
+                    case TASK -> manager.deleteTask(id);
+                    case EPIC -> manager.deleteEpic(id);
+                    case SUBTASK -> manager.deleteSubtask(id);
+                }
+            });
+        }
+        sendOk(exchange);
+    }
+
+    private String path() {
+        return HttpTaskServer.pathOf(type);
+    }
+}
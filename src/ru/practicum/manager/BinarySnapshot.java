@@ -0,0 +1,326 @@
+package ru.practicum.manager;
+
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.model.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный снимок задач.
+ * <pre>
+ * заголовок:   "JKBS" (4 байта), версия (1 байт)
+ * блок строк:  количество (varint), затем для каждой длина в байтах UTF-8 (varint) и байты,
+ *              в конце количество записей (varint)
+ * записи:      для каждой:
+ *              тип (1 байт), флаги (1 байт), id (varint), статус (1 байт),
+ *              название и описание как номер строки + 1 (varint, 0 — null),
+ *              [id эпика (varint) — только у подзадач],
+ *              [длительность в минутах (varlong) — флаг HAS_DURATION],
+ *              [начало в минутах от эпохи UTC (zigzag varlong) — флаг HAS_START],
+ *              [наносекунды внутри минуты (varlong) — флаг HAS_SUB_MINUTE]
+ * </pre>
+ * Повторяющиеся названия и описания хранятся в таблице строк один раз.
+ * <p>
+ * С версии 2 блок строк и каждая запись обрамлены: длина (varint), байты, CRC32C (int). Оборванный
+ * при сбое хвост тогда отбрасывается, а загружаются все целые записи перед ним; неверная запись,
+ * за которой следуют верные, означает повреждение в середине файла. Версия 1 без рамок читается как раньше.
+ */
+final class BinarySnapshot {
+
+    static final int VERSION = 2;
+    private static final int VERSION_UNFRAMED = 1;
+    private static final byte[] MAGIC = {'J', 'K', 'B', 'S'};
+
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START = 1 << 1;
+    private static final int HAS_SUB_MINUTE = 1 << 2;
+    private static final int HAS_STATUS = 1 << 3;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    // способ записи и чтения строк внутри записи задачи: номер в таблице строк или сами байты
+    interface StringWriter {
+        void write(DataOutput out, String value) throws IOException;
+    }
+
+    interface StringReader {
+        String read(DataInput in) throws IOException;
+    }
+
+    private BinarySnapshot() {
+    }
+
+    static boolean isBinary(File file) {
+        if (file.length() < MAGIC.length) return false;
+        try (InputStream in = new FileInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static void write(OutputStream target, List<? extends Task> records) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (Task task : records) {
+            if (task.getTitle() != null) strings.putIfAbsent(task.getTitle(), strings.size());
+            if (task.getDescription() != null) strings.putIfAbsent(task.getDescription(), strings.size());
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+
+        Frame frame = new Frame();
+        writeVarLong(frame.data, strings.size());
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(frame.data, bytes.length);
+            frame.data.write(bytes);
+        }
+        writeVarLong(frame.data, records.size());
+        frame.writeTo(out);
+
+        StringWriter table = (o, value) -> writeVarLong(o, value == null ? 0 : strings.get(value) + 1);
+        for (Task task : records) {
+            writeRecord(frame.data, task, table);
+            frame.writeTo(out);
+        }
+        out.flush();
+    }
+
+    static void read(InputStream source, String name, Consumer<Task> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source, 1 << 16));
+        if (!Arrays.equals(in.readNBytes(MAGIC.length), MAGIC)) {
+            throw new ManagerLoadException("Файл не является двоичным снимком задач: " + name);
+        }
+        int version = in.readUnsignedByte();
+        if (version == VERSION_UNFRAMED) {
+            readUnframed(in, name, consumer);
+            return;
+        }
+        if (version != VERSION) {
+            throw new ManagerLoadException("Неподдерживаемая версия двоичного снимка " + version + ": " + name);
+        }
+
+        CRC32C crc = new CRC32C();
+        DataInputStream block = readFrame(in, crc);
+        if (block == null) {
+            throw new ManagerLoadException("Повреждена таблица строк двоичного снимка: " + name);
+        }
+        StringReader table = readStrings(block, name);
+        long count = readVarLong(block);
+        for (long i = 0; i < count; i++) {
+            DataInputStream record = readFrame(in, crc);
+            if (record == null) {
+                // оборванный хвост: целые записи до него уже загружены
+                if (hasValidFrame(in, crc)) {
+                    throw new ManagerLoadException("Повреждена запись " + (i + 1) + " в середине файла: " + name);
+                }
+                return;
+            }
+            consumer.accept(readRecord(record, table));
+        }
+    }
+
+    private static void readUnframed(DataInputStream in, String name, Consumer<Task> consumer) throws IOException {
+        StringReader table = readStrings(in, name);
+        long count = readVarLong(in);
+        for (long i = 0; i < count; i++) {
+            consumer.accept(readRecord(in, table));
+        }
+    }
+
+    private static StringReader readStrings(DataInputStream in, String name) throws IOException {
+        String[] strings = new String[checkedSize(readVarLong(in), name)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(in.readNBytes(checkedSize(readVarLong(in), name)), StandardCharsets.UTF_8);
+        }
+        return input -> {
+            long index = readVarLong(input);
+            if (index > strings.length) {
+                throw new ManagerLoadException("Повреждённый двоичный снимок: " + name);
+            }
+            return index == 0 ? null : strings[(int) index - 1];
+        };
+    }
+
+    // содержимое рамки; null, если рамка оборвана или не сходится контрольная сумма
+    private static DataInputStream readFrame(DataInputStream in, CRC32C crc) throws IOException {
+        long length;
+        try {
+            length = readVarLong(in);
+        } catch (IOException e) {
+            return null;
+        }
+        if (length < 0 || length > Integer.MAX_VALUE - 8) return null;
+        // readNBytes не выделяет сразу весь буфер, так что испорченная длина не займёт лишнюю память
+        byte[] bytes = in.readNBytes((int) length);
+        if (bytes.length < length) return null;
+        byte[] expected = in.readNBytes(Integer.BYTES);
+        if (expected.length < Integer.BYTES) return null;
+        crc.reset();
+        crc.update(bytes);
+        int actual = (int) crc.getValue();
+        if (actual != (expected[0] << 24 | (expected[1] & 0xFF) << 16 | (expected[2] & 0xFF) << 8 | expected[3] & 0xFF)) {
+            return null;
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    // есть ли после неверной рамки хоть одна верная
+    private static boolean hasValidFrame(DataInputStream in, CRC32C crc) throws IOException {
+        while (true) {
+            in.mark(1);
+            if (in.read() < 0) return false;
+            in.reset();
+            if (readFrame(in, crc) != null) return true;
+        }
+    }
+
+    // запись одной задачи; строки кодируются переданным способом (номер в таблице или сами байты)
+    static void writeRecord(DataOutput out, Task task, StringWriter strings) throws IOException {
+        LocalDateTime start = task instanceof Epic ? null : task.getStartTime();
+        long startSeconds = start == null ? 0 : start.toEpochSecond(ZoneOffset.UTC);
+        long subMinuteNanos = start == null ? 0 : Math.floorMod(startSeconds, 60) * 1_000_000_000L + start.getNano();
+        Duration duration = task instanceof Epic ? null : task.getDuration();
+
+        int flags = 0;
+        if (duration != null) flags |= HAS_DURATION;
+        if (start != null) flags |= HAS_START;
+        if (subMinuteNanos != 0) flags |= HAS_SUB_MINUTE;
+        if (task.getStatus() != null) flags |= HAS_STATUS;
+
+        out.writeByte(task.getType().ordinal());
+        out.writeByte(flags);
+        writeVarLong(out, Integer.toUnsignedLong(task.getId()));
+        out.writeByte(task.getStatus() == null ? 0 : task.getStatus().ordinal());
+        strings.write(out, task.getTitle());
+        strings.write(out, task.getDescription());
+        if (task instanceof SubTask sub) writeVarLong(out, Integer.toUnsignedLong(sub.getEpicId()));
+        if (duration != null) writeVarLong(out, zigZag(duration.toMinutes()));
+        if (start != null) writeVarLong(out, zigZag(Math.floorDiv(startSeconds, 60)));
+        if (subMinuteNanos != 0) writeVarLong(out, subMinuteNanos);
+    }
+
+    // в версии 1 записи не защищены контрольной суммой, поэтому испорченный байт должен давать
+    // ManagerLoadException, а не ошибку индекса или переполнения
+    static Task readRecord(DataInput in, StringReader strings) throws IOException {
+        TaskType type = TYPES[checkedOrdinal(in.readUnsignedByte(), TYPES.length, "тип задачи")];
+        int flags = in.readUnsignedByte();
+        int id = (int) readVarLong(in);
+        int statusOrdinal = in.readUnsignedByte();
+        Status status = (flags & HAS_STATUS) != 0 ? STATUSES[checkedOrdinal(statusOrdinal, STATUSES.length, "статус")] : null;
+        String title = strings.read(in);
+        String description = strings.read(in);
+
+        Task task = switch (type) {
+            case TASK -> new Task(title, description, status);
+            case EPIC -> new Epic(title, description, status);
+            case SUBTASK -> new SubTask(title, description, status, (int) readVarLong(in));
+        };
+        task.setId(id);
+        try {
+            if ((flags & HAS_DURATION) != 0) {
+                task.setDuration(Duration.ofMinutes(unZigZag(readVarLong(in))));
+            }
+            if ((flags & HAS_START) != 0) {
+                long minutes = unZigZag(readVarLong(in));
+                long subMinuteNanos = (flags & HAS_SUB_MINUTE) != 0 ? readVarLong(in) : 0;
+                task.setStartTime(LocalDateTime.ofEpochSecond(Math.multiplyExact(minutes, 60), 0, ZoneOffset.UTC)
+                        .plusNanos(subMinuteNanos));
+            }
+        } catch (ArithmeticException | DateTimeException e) {
+            throw new ManagerLoadException("Повреждённая запись двоичного снимка: время задачи " + id, e);
+        }
+        return task;
+    }
+
+    private static int checkedOrdinal(int ordinal, int count, String what) {
+        if (ordinal >= count) {
+            throw new ManagerLoadException("Повреждённая запись двоичного снимка: " + what + " " + ordinal);
+        }
+        return ordinal;
+    }
+
+    // строка прямо в записи: длина в байтах UTF-8 + 1 (varint, 0 — null) и байты
+    static void writeInline(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    static String readInline(DataInput in) throws IOException {
+        long length = readVarLong(in);
+        if (length == 0) return null;
+        if (length < 0 || length > Integer.MAX_VALUE - 8) throw new IOException("Неверная длина строки " + length);
+        byte[] bytes = new byte[(int) length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // рамка для записи: содержимое копится в data, writeTo дописывает длину и CRC32C и очищает буфер
+    private static final class Frame extends ByteArrayOutputStream {
+
+        private final DataOutputStream data = new DataOutputStream(this);
+        private final CRC32C crc = new CRC32C();
+
+        Frame() {
+            super(256);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            writeVarLong(out, count);
+            out.write(buf, 0, count);
+            crc.reset();
+            crc.update(buf, 0, count);
+            out.writeInt((int) crc.getValue());
+            reset();
+        }
+    }
+
+    private static int checkedSize(long size, String name) {
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new ManagerLoadException("Повреждённый двоичный снимок: " + name);
+        }
+        return (int) size;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("Слишком длинное число varint");
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.manager;
+
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.util.CsvReader;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Чтение записей снимка CSV и журнала с контрольными суммами {@link ru.practicum.util.CsvWriter#withChecksums}.
+ * <p>
+ * Сбой во время записи оставляет в конце файла оборванный хвост: первая неверная запись и всё после неё
+ * пропускаются, а её смещение возвращается вызывающему, чтобы обрезать файл. Если же после неверной
+ * записи встречается верная, файл повреждён в середине, и загрузка прерывается.
+ * <p>
+ * Записи без контрольной суммы остались от прежних версий и разбираются как раньше, строго, пока в файле
+ * не встретилась запись с суммой: после неё запись без суммы может быть только оборванной.
+ */
+final class ChecksummedRecords {
+
+    // сколько записей передано и с какого байта начинается оборванный хвост (-1 — хвоста нет)
+    record Result(int records, long tailOffset) {
+
+        boolean hasTornTail() {
+            return tailOffset >= 0;
+        }
+    }
+
+    private ChecksummedRecords() {
+    }
+
+    // headerRecords первых записей пропускаются без проверки
+    static Result read(CsvReader csv, String name, int headerRecords, Consumer<CsvReader> action) throws IOException {
+        int count = 0;
+        boolean checksummed = false;
+        long tail = -1;
+        long tailRecord = 0;
+        while (true) {
+            try {
+                if (!csv.next()) break;
+            } catch (IOException e) {
+                // незакрытые кавычки: запись оборвана, если файл пишется с суммами
+                if (!checksummed && !csv.isChecksummed()) throw e;
+                if (tail < 0) tail = csv.byteOffset();
+                break;
+            }
+            if (csv.recordNumber() <= headerRecords || csv.isBlankRecord()) continue;
+
+            boolean valid = csv.isChecksummed() ? csv.checksumMatches() : !checksummed;
+            if (tail >= 0) {
+                if (valid && csv.isChecksummed()) {
+                    throw new ManagerLoadException("Повреждена запись " + tailRecord
+                            + " в середине файла: " + name);
+                }
+                continue;
+            }
+            if (!valid) {
+                tail = csv.byteOffset();
+                tailRecord = csv.recordNumber();
+                continue;
+            }
+            checksummed |= csv.isChecksummed();
+            action.accept(csv);
+            count++;
+        }
+        return new Result(count, tail);
+    }
+}
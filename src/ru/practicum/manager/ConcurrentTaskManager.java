@@ -0,0 +1,737 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.*;
+import ru.practicum.util.IntObjectMap;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Потокобезопасный менеджер задач без общей блокировки на все операции.
+ * <p>
+ * Изменения задачи или эпика (вместе с его подзадачами) защищены одной из {@code STRIPES} блокировок,
+ * выбираемой по id задачи или эпика, поэтому изменения разных эпиков идут параллельно. Проверка
+ * пересечений по времени глобальна и выполняется под отдельной короткой блокировкой {@code timeLock}.
+ * Порядок захвата всегда один: блокировка полосы, затем {@code timeLock}. Пакеты addAll и importBatch
+ * захватывают все полосы по возрастанию и затем {@code timeLock}, поэтому проверяются и применяются целиком;
+ * так же выполняется transaction, которая при исключении откатывает свои изменения.
+ * <p>
+ * Чтение не блокируется. Задачи читаются из конкурентных коллекций, а эпик, который меняется под полосой,
+ * читатели не видят: после каждого пересчёта под полосой публикуется его копия, и getEpic, getAllEpics
+ * и история отдают только такие копии. Поэтому статус, время и подзадачи эпика в ответе согласованы
+ * между собой, хотя могут отставать от изменений, сделанных после чтения. История отдаётся последним
+ * снятым списком: если её в этот момент меняет другой поток, чтение не ждёт и может не увидеть
+ * просмотры, сделанные одновременно с ним.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private static final int STRIPES = 64;
+
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    // эпики, которые меняются под полосой; читателям отдаются только копии из epicViews
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epicViews = new ConcurrentHashMap<>();
+    private final Map<Integer, SubTask> subtasks = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> epicSubtaskIds = new ConcurrentHashMap<>();
+    private final HistoryManager historyManager;
+    private final ReentrantLock historyLock = new ReentrantLock();
+    // номер последнего изменения истории и последний снятый с неё список
+    private volatile long historyVersion;
+    private volatile HistoryView historyView = new HistoryView(0, List.of());
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private volatile MetricsSink metrics = MetricsSink.NONE;
+    // журнал текущей транзакции; меняется под всеми полосами и читается под любой из них,
+    // поэтому другие потоки всегда видят null
+    private TransactionLog transaction;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock timeLock = new ReentrantLock();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final NavigableSet<Task> prioritizedTasks = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingInt(Task::getId)
+    );
+
+    private record HistoryView(long version, List<Task> tasks) {
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    //ADD
+    @Override
+    public int addTask(Task task) {
+        if (task == null) return -1;
+
+        while (true) {
+            task.setId(nextId.getAndUpdate(next -> TaskBatches.advance(next, 1)));
+            ReentrantLock lock = stripeFor(task.getId());
+            lock.lock();
+            try {
+                if (isTaken(task.getId())) continue;
+                reserveTime(task, null, "Задачи пересекаются по времени: ");
+                recordTask(task.getId());
+                tasks.put(task.getId(), task);
+                return task.getId();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        if (epic == null) return -1;
+        while (true) {
+            epic.setId(nextId.getAndUpdate(next -> TaskBatches.advance(next, 1)));
+            ReentrantLock lock = stripeFor(epic.getId());
+            lock.lock();
+            try {
+                if (isTaken(epic.getId())) continue;
+                recordEpic(epic.getId());
+                epicSubtaskIds.put(epic.getId(), new ConcurrentSkipListSet<>());
+                epics.put(epic.getId(), epic);
+                publish(epic);
+                return epic.getId();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int addSubTask(SubTask subtask) {
+        if (subtask == null) return -1;
+
+        ReentrantLock lock = stripeFor(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) return -1;
+
+            subtask.setId(nextId.getAndUpdate(next -> TaskBatches.advance(next, 1)));
+            reserveTime(subtask, null, "Подзадача пересекается по времени: ");
+            recordSubtask(subtask.getId());
+            recordEpicState(epic);
+            subtasks.put(subtask.getId(), subtask);
+            epic.addSubtask(subtask);
+            epicSubtaskIds.get(epic.getId()).add(subtask.getId());
+            recalculateEpic(epic);
+            return subtask.getId();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // BATCH
+
+    // пакет проверяется целиком, пока захвачены все полосы и timeLock, поэтому отклонённый пакет
+    // не меняет менеджер. Остальные изменения на это время ждут, а читатели могут увидеть пакет частично
+    @Override
+    public List<Integer> addAll(List<? extends Task> batch) {
+        List<? extends Task> list = new ArrayList<>(batch);
+        int first = nextId.getAndUpdate(next -> TaskBatches.advance(next, list.size()));
+        int[] ids = new int[list.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = first + i;
+        }
+        lockAll();
+        try {
+            TaskBatches.validate(list, ids, epics::containsKey, timeIndex);
+            applyBatch(list, ids);
+        } finally {
+            unlockAll();
+        }
+        return TaskBatches.asList(ids);
+    }
+
+    // nextId сдвигается за id пакета до захвата полос: новые задачи получают свободные id, а add*,
+    // получивший id пакета раньше, увидит его занятым и возьмёт следующий
+    @Override
+    public void importBatch(Collection<? extends Task> batch) {
+        List<? extends Task> list = new ArrayList<>(batch);
+        for (Task task : list) {
+            // id вне допустимого диапазона пакет не пройдёт, nextId для них не сдвигается
+            if (task != null && task.getId() > 0 && task.getId() <= TaskBatches.MAX_ID) {
+                nextId.accumulateAndGet(task.getId() + 1, Math::max);
+            }
+        }
+        lockAll();
+        try {
+            int[] ids = TaskBatches.importIds(list, this::isTaken);
+            TaskBatches.validate(list, ids, epics::containsKey, timeIndex);
+            applyBatch(list, ids);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // вызывается под всеми полосами после проверки пакета; эпики добавляются первыми,
+    // а каждый эпик пересчитывается и публикуется один раз
+    private void applyBatch(List<? extends Task> batch, int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            if (batch.get(i) instanceof Epic epic) {
+                epic.setId(ids[i]);
+                recordEpic(epic.getId());
+                epic.clearSubtasks();
+                epicSubtaskIds.put(epic.getId(), new ConcurrentSkipListSet<>());
+                epics.put(epic.getId(), epic);
+            }
+        }
+        Map<Integer, Epic> touched = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = batch.get(i);
+            if (task.getType() == TaskType.EPIC) continue;
+            task.setId(ids[i]);
+            reserveTime(task, null, "Задача пересекается по времени: ");
+            if (task instanceof SubTask sub) {
+                recordSubtask(sub.getId());
+                subtasks.put(sub.getId(), sub);
+                Epic epic = epics.get(sub.getEpicId());
+                recordEpicState(epic);
+                epic.addSubtask(sub);
+                epicSubtaskIds.get(epic.getId()).add(sub.getId());
+                touched.put(epic.getId(), epic);
+            } else {
+                recordTask(task.getId());
+                tasks.put(task.getId(), task);
+            }
+        }
+        touched.values().forEach(this::recalculateEpic);
+        for (Task task : batch) {
+            if (task instanceof Epic epic && !touched.containsKey(epic.getId())) publish(epic);
+        }
+    }
+
+    // TRANSACTION
+
+    // body выполняется в вызывающем потоке под всеми полосами и timeLock: остальные изменения ждут конца
+    // транзакции, а читатели видят её изменения сразу. Пересечения проверяются каждой операцией, как и
+    // вне транзакции; исключение из body откатывает всё, удаление из истории откладывается до фиксации.
+    // Выданные в транзакции id при откате не возвращаются
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        lockAll();
+        try {
+            // все полосы уже у этого потока, значит, журнал есть только у его собственной транзакции
+            if (transaction != null) throw new IllegalStateException("Транзакция уже выполняется");
+            TransactionLog log = new TransactionLog();
+            transaction = log;
+            try {
+                body.accept(this);
+                transaction = null;
+            } catch (RuntimeException | Error e) {
+                transaction = null;
+                rollback(log);
+                throw e;
+            }
+            for (int id = log.forgotten.nextSetBit(0); id >= 0; id = log.forgotten.nextSetBit(id + 1)) {
+                if (!isTaken(id)) removeFromHistory(id);
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // вызывается под всеми полосами: прежние значения возвращаются в хранилища и индекс времени,
+    // затронутые эпики собираются заново по сохранённому составу подзадач
+    private void rollback(TransactionLog log) {
+        restore(tasks, log.tasks);
+        restore(subtasks, log.subtasks);
+        for (int id : log.epics.keys()) {
+            Epic previous = log.epics.get(id);
+            if (previous == null) {
+                epics.remove(id);
+                epicViews.remove(id);
+                epicSubtaskIds.remove(id);
+            } else {
+                epics.put(id, previous);
+            }
+        }
+
+        for (int id : log.epicStates.keys()) {
+            Epic epic = epics.get(id);
+            if (epic == null) continue;
+            TransactionLog.EpicState state = log.epicStates.get(id);
+            epic.setTitle(state.title());
+            epic.setDescription(state.description());
+            epic.clearSubtasks();
+            NavigableSet<Integer> ids = new ConcurrentSkipListSet<>();
+            for (int subId : state.subtaskIds()) {
+                SubTask sub = subtasks.get(subId);
+                if (sub == null) continue;
+                epic.addSubtask(sub);
+                ids.add(subId);
+            }
+            epicSubtaskIds.put(id, ids);
+            recalculateEpic(epic);
+        }
+        log.forEachCreated(this::removeFromHistory);
+    }
+
+    private <T extends Task> void restore(Map<Integer, T> store, IntObjectMap<T> previous) {
+        for (int id : previous.keys()) {
+            T current = store.get(id);
+            if (current != null) releaseTime(current);
+            T value = previous.get(id);
+            if (value == null) {
+                store.remove(id);
+                continue;
+            }
+            store.put(id, value);
+            if (value.getStartTime() != null && value.getDuration() != null) {
+                timeIndex.add(id, value.getStartTime(), value.getEndTime());
+            }
+            prioritizedTasks.add(value);
+        }
+    }
+
+    // record* вызываются под полосой задачи до её изменения
+    private void recordTask(int id) {
+        if (transaction != null) transaction.rememberTask(id, tasks.get(id));
+    }
+
+    private void recordEpic(int id) {
+        if (transaction != null) transaction.rememberEpic(id, epics.get(id));
+    }
+
+    private void recordSubtask(int id) {
+        if (transaction != null) transaction.rememberSubtask(id, subtasks.get(id));
+    }
+
+    private void recordEpicState(Epic epic) {
+        if (transaction != null) transaction.rememberEpicState(epic);
+    }
+
+    // UPDATE
+    @Override
+    public boolean updateTask(Task updatedTask) {
+        if (updatedTask == null) return false;
+
+        ReentrantLock lock = stripeFor(updatedTask.getId());
+        lock.lock();
+        try {
+            Task old = tasks.get(updatedTask.getId());
+            if (old == null) return false;
+
+            reserveTime(updatedTask, old, "Обновление приводит к пересечению: ");
+            recordTask(old.getId());
+            tasks.put(updatedTask.getId(), updatedTask);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateEpic(Epic updatedEpic) {
+        ReentrantLock lock = stripeFor(updatedEpic.getId());
+        lock.lock();
+        try {
+            Epic existingEpic = epics.get(updatedEpic.getId());
+            if (existingEpic == null) return false;
+            recordEpicState(existingEpic);
+            existingEpic.setTitle(updatedEpic.getTitle());
+            existingEpic.setDescription(updatedEpic.getDescription());
+            publish(existingEpic);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateSubtask(SubTask updatedSubtask) {
+        if (updatedSubtask == null) return false;
+
+        while (true) {
+            SubTask current = subtasks.get(updatedSubtask.getId());
+            if (current == null) return false;
+
+            // подзадача может перейти в другой эпик: тогда нужны полосы обоих эпиков
+            ReentrantLock[] locks = lockPair(current.getEpicId(), updatedSubtask.getEpicId());
+            try {
+                SubTask old = subtasks.get(updatedSubtask.getId());
+                if (old == null) return false;
+                if (old.getEpicId() != current.getEpicId()) continue;
+
+                Epic epic = epics.get(updatedSubtask.getEpicId());
+                if (epic == null) return false;
+
+                reserveTime(updatedSubtask, old, "Обновление подзадачи приводит к пересечению: ");
+                recordSubtask(old.getId());
+                recordEpicState(epic);
+                subtasks.put(updatedSubtask.getId(), updatedSubtask);
+
+                if (old.getEpicId() != epic.getId()) {
+                    Epic oldEpic = epics.get(old.getEpicId());
+                    if (oldEpic != null) {
+                        recordEpicState(oldEpic);
+                        oldEpic.removeSubtask(old.getId());
+                        epicSubtaskIds.get(oldEpic.getId()).remove(old.getId());
+                        recalculateEpic(oldEpic);
+                    }
+                    epicSubtaskIds.get(epic.getId()).add(updatedSubtask.getId());
+                }
+                epic.addSubtask(updatedSubtask);
+                recalculateEpic(epic);
+                return true;
+            } finally {
+                unlockPair(locks);
+            }
+        }
+    }
+
+    // DELETE
+    @Override
+    public void deleteTask(int id) {
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            if (!tasks.containsKey(id)) return;
+            recordTask(id);
+            releaseTime(tasks.remove(id));
+            removeFromHistory(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            if (!epics.containsKey(id)) return;
+            recordEpic(id);
+            epics.remove(id);
+            epicViews.remove(id);
+            removeFromHistory(id);
+            for (int subId : epicSubtaskIds.remove(id)) {
+                recordSubtask(subId);
+                SubTask removedSub = subtasks.remove(subId);
+                if (removedSub != null) {
+                    releaseTime(removedSub);
+                    removeFromHistory(subId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        while (true) {
+            SubTask subtask = subtasks.get(id);
+            if (subtask == null) return;
+
+            ReentrantLock lock = stripeFor(subtask.getEpicId());
+            lock.lock();
+            try {
+                SubTask current = subtasks.get(id);
+                if (current == null) return;
+                if (current.getEpicId() != subtask.getEpicId()) continue;
+
+                recordSubtask(id);
+                subtasks.remove(id);
+                releaseTime(current);
+                removeFromHistory(id);
+
+                Epic epic = epics.get(current.getEpicId());
+                if (epic != null) {
+                    recordEpicState(epic);
+                    epic.removeSubtask(id);
+                    epicSubtaskIds.get(epic.getId()).remove(id);
+                    recalculateEpic(epic);
+                }
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // массовое удаление затрагивает только то, что существовало на момент вызова
+    @Override
+    public void deleteAllSubtasks() {
+        for (Epic epic : epics.values()) {
+            ReentrantLock lock = stripeFor(epic.getId());
+            lock.lock();
+            try {
+                NavigableSet<Integer> ids = epicSubtaskIds.get(epic.getId());
+                if (ids == null) continue;
+                recordEpicState(epic);
+                for (int subId : ids) {
+                    recordSubtask(subId);
+                    SubTask removed = subtasks.remove(subId);
+                    if (removed != null) {
+                        releaseTime(removed);
+                        removeFromHistory(subId);
+                    }
+                }
+                ids.clear();
+                epic.clearSubtasks();
+                recalculateEpic(epic);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        for (int epicId : epics.keySet()) {
+            deleteEpic(epicId);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        for (int taskId : tasks.keySet()) {
+            deleteTask(taskId);
+        }
+    }
+
+    //GET
+    @Override
+    public Task getTask(int id) {
+        Task task = tasks.get(id);
+        if (task != null) addToHistory(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = epicViews.get(id);
+        if (epic != null) addToHistory(epic);
+        return epic;
+    }
+
+    @Override
+    public SubTask getSubtask(int id) {
+        SubTask subtask = subtasks.get(id);
+        if (subtask != null) addToHistory(subtask);
+        return subtask;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return new ArrayList<>(epicViews.values());
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<SubTask> getEpicSubtasks(int epicId) {
+        NavigableSet<Integer> ids = epicSubtaskIds.get(epicId);
+        if (ids == null) return List.of();
+        List<SubTask> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            SubTask subtask = subtasks.get(id);
+            if (subtask != null) result.add(subtask);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        HistoryView view = historyView;
+        // список снимает тот, кто застал историю свободной; остальные берут последний снятый
+        if (view.version() != historyVersion && historyLock.tryLock()) {
+            try {
+                view = new HistoryView(historyVersion, historyManager.getHistory());
+                historyView = view;
+            } finally {
+                historyLock.unlock();
+            }
+        }
+        return new ArrayList<>(view.tasks());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(prioritizedTasks);
+    }
+
+    // представления поверх конкурентного множества обходятся без блокировок и согласованы слабо
+    @Override
+    public Collection<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return TimeRanges.startingBetween(prioritizedTasks, from, to);
+    }
+
+    @Override
+    public Collection<Task> getNextTasks(LocalDateTime from, int limit) {
+        return TimeRanges.startingFrom(prioritizedTasks, from, limit);
+    }
+
+    @Override
+    public Collection<Task> getTasksActiveAt(LocalDateTime instant) {
+        Task task = TimeRanges.activeAt(prioritizedTasks, instant);
+        return task == null ? List.of() : List.of(task);
+    }
+
+    MetricsSink getMetrics() {
+        return metrics;
+    }
+
+    // sink для внутренних шагов: проверки пересечений и пересчёта эпиков
+    void setMetrics(MetricsSink metrics) {
+        this.metrics = metrics;
+    }
+
+    // вызывается под блокировкой полосы задачи; old — прежняя версия задачи при обновлении
+    private void reserveTime(Task task, Task old, String error) {
+        boolean timed = task.getStartTime() != null && task.getDuration() != null;
+        if (!timed && old == null) {
+            prioritizedTasks.add(task);
+            return;
+        }
+
+        timeLock.lock();
+        try {
+            if (timed && hasOverlap(task)) {
+                throw new IllegalArgumentException(error + task.getTitle());
+            }
+            if (old != null) {
+                prioritizedTasks.remove(old);
+                timeIndex.remove(old.getId());
+            }
+            if (timed) {
+                timeIndex.add(task.getId(), task.getStartTime(), task.getEndTime());
+            }
+            prioritizedTasks.add(task);
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    // вызывается под timeLock, поэтому счётчик просмотренных интервалов не сбивают другие потоки
+    private boolean hasOverlap(Task task) {
+        MetricsSink sink = metrics;
+        if (sink == MetricsSink.NONE) return timeIndex.overlaps(task.getStartTime(), task.getEndTime(), task.getId());
+
+        long begin = System.nanoTime();
+        long scanned = timeIndex.scanned();
+        boolean overlaps = timeIndex.overlaps(task.getStartTime(), task.getEndTime(), task.getId());
+        sink.recordLatency(ManagerOperation.HAS_OVERLAP, System.nanoTime() - begin);
+        sink.increment(ManagerCounter.OVERLAP_CHECKS, 1);
+        sink.increment(ManagerCounter.OVERLAP_SCANNED, timeIndex.scanned() - scanned);
+        return overlaps;
+    }
+
+    private void releaseTime(Task task) {
+        timeLock.lock();
+        try {
+            prioritizedTasks.remove(task);
+            timeIndex.remove(task.getId());
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    // вызывается под блокировкой полосы эпика
+    private void recalculateEpic(Epic epic) {
+        MetricsSink sink = metrics;
+        long start = sink == MetricsSink.NONE ? 0 : System.nanoTime();
+        epic.setStatus(epic.calculateStatus());
+        long statusDone = sink == MetricsSink.NONE ? 0 : System.nanoTime();
+        epic.setStartTime(epic.getSubtasksStart());
+        epic.setDuration(epic.getSubtasksDuration());
+        epic.setEndTime(epic.getSubtasksEnd());
+        if (sink != MetricsSink.NONE) {
+            sink.recordLatency(ManagerOperation.UPDATE_EPIC_STATUS, statusDone - start);
+            sink.recordLatency(ManagerOperation.UPDATE_EPIC_TIME, System.nanoTime() - statusDone);
+        }
+        publish(epic);
+    }
+
+    // вызывается под блокировкой полосы эпика; копия после публикации не меняется
+    private void publish(Epic epic) {
+        epicViews.put(epic.getId(), epic.copy());
+    }
+
+    private void addToHistory(Task task) {
+        historyLock.lock();
+        try {
+            historyManager.add(task);
+            historyVersion++;
+        } finally {
+            historyLock.unlock();
+        }
+    }
+
+    // в транзакции удаление из истории ждёт фиксации: откат возвращает задачу вместе с просмотрами
+    private void removeFromHistory(int id) {
+        if (transaction != null) {
+            transaction.forgotten.set(id);
+            return;
+        }
+        historyLock.lock();
+        try {
+            historyManager.remove(id);
+            historyVersion++;
+        } finally {
+            historyLock.unlock();
+        }
+    }
+
+    private boolean isTaken(int id) {
+        return tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id);
+    }
+
+    // все полосы по возрастанию номера, затем timeLock — тот же порядок, что и у одиночных изменений
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        timeLock.lock();
+    }
+
+    private void unlockAll() {
+        timeLock.unlock();
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(int id) {
+        return stripes[Math.floorMod(id, STRIPES)];
+    }
+
+    // полосы захватываются в порядке возрастания номера, чтобы два потока не ждали друг друга
+    private ReentrantLock[] lockPair(int firstId, int secondId) {
+        int a = Math.floorMod(firstId, STRIPES);
+        int b = Math.floorMod(secondId, STRIPES);
+        ReentrantLock[] locks = a == b
+                ? new ReentrantLock[]{stripes[a]}
+                : new ReentrantLock[]{stripes[Math.min(a, b)], stripes[Math.max(a, b)]};
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        return locks;
+    }
+
+    private static void unlockPair(ReentrantLock[] locks) {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}
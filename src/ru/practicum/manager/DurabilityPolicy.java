@@ -0,0 +1,10 @@
+package ru.practicum.manager;
+
+public enum DurabilityPolicy {
+    // каждая запись журнала сразу сбрасывается на диск (flush + fsync)
+    PER_OP,
+    // один fsync на пачку записей: по размеру пачки или по истечении окна
+    PER_BATCH,
+    // записи уходят в ОС фоновым потоком раз в окно, без fsync
+    ASYNC
+}
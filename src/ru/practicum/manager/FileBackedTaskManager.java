@@ -3,216 +3,830 @@ package ru.practicum.manager;
 import ru.practicum.exception.ManagerLoadException;
 import ru.practicum.exception.ManagerSaveException;
 import ru.practicum.model.*;
+import ru.practicum.util.CsvReader;
+import ru.practicum.util.CsvWriter;
+import ru.practicum.util.IntObjectMap;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
     private final File file;
-    private static final String HEADER = "id,type,name,status,description,epic,duration,startTime";
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private final WriteBehindPersister writeBehind;
+    private boolean journalStarted;
+    private final JournalRecords journalRecords = new JournalRecords();
+    // индекс снимка, задачи из которого ещё не все прочитаны (LoadMode.LAZY); null — загружено всё
+    private SnapshotIndex lazy;
+    // первая колонка — контрольная сумма остальных полей записи
+    static final String HEADER = "checksum,id,type,name,status,description,epic,duration,startTime";
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
 
     public FileBackedTaskManager(File file) {
+        this(file, SnapshotFormat.CSV, null);
+    }
+
+    public FileBackedTaskManager(File file, TaskJournal journal) {
+        this(file, SnapshotFormat.CSV, journal);
+    }
+
+    public FileBackedTaskManager(File file, SnapshotFormat format) {
+        this(file, format, null);
+    }
+
+    // с журналом каждая операция дописывает одну запись, а снимок перезаписывается только при сжатии
+    public FileBackedTaskManager(File file, SnapshotFormat format, TaskJournal journal) {
+        this(file, format, journal, 0);
+    }
+
+    // при writeBehindCapacity > 0 изменения записываются фоновым потоком через очередь такой ёмкости,
+    // и методы менеджера не ждут диска; flush() дожидается записи, close() завершает поток
+    public FileBackedTaskManager(File file, SnapshotFormat format, TaskJournal journal, int writeBehindCapacity) {
         super(new InMemoryHistoryManager());
         this.file = file;
+        this.format = format;
+        this.journal = journal;
+        this.writeBehind = writeBehindCapacity > 0
+                ? new WriteBehindPersister(file, format, journal, writeBehindCapacity)
+                : null;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind != null;
+    }
+
+    // состояние очереди отложенной записи; null, если менеджер пишет синхронно
+    public WriteBehindStats getWriteBehindStats() {
+        return writeBehind == null ? null : writeBehind.stats();
+    }
+
+    // дожидается записи всех сделанных изменений; без отложенной записи они уже записаны
+    public void flush() {
+        if (writeBehind != null) writeBehind.flush();
     }
 
     @Override
     public int addTask(Task task) {
+        ensureLoaded();
         int id = super.addTask(task);
-        save();
+        if (id != -1) persistPut(task);
         return id;
     }
 
     @Override
     public int addEpic(Epic epic) {
+        ensureLoaded();
         int id = super.addEpic(epic);
-        save();
+        if (id != -1) persistPut(epic);
         return id;
     }
 
     @Override
     public int addSubTask(SubTask subtask) {
+        ensureLoaded();
         int id = super.addSubTask(subtask);
-        save();
+        if (id != -1) persistPut(subtask);
         return id;
     }
 
+    @Override
+    public List<Integer> addAll(List<? extends Task> batch) {
+        ensureLoaded();
+        List<Integer> ids = super.addAll(batch);
+        persistBatch(batch);
+        return ids;
+    }
+
+    @Override
+    public void importBatch(Collection<? extends Task> batch) {
+        ensureLoaded();
+        super.importBatch(batch);
+        persistBatch(batch);
+    }
+
     @Override
     public boolean updateTask(Task updatedTask) {
+        ensureLoaded();
         boolean result = super.updateTask(updatedTask);
-        save();
+        if (result) persistPut(updatedTask);
         return result;
     }
 
     @Override
     public boolean updateEpic(Epic updatedEpic) {
+        ensureLoaded();
         boolean result = super.updateEpic(updatedEpic);
-        save();
+        if (result) persistPut(epics.get(updatedEpic.getId()));
         return result;
     }
 
     @Override
     public boolean updateSubtask(SubTask updatedSubtask) {
+        ensureLoaded();
         boolean result = super.updateSubtask(updatedSubtask);
-        save();
+        if (result) persistPut(updatedSubtask);
         return result;
     }
 
     @Override
     public void deleteTask(int id) {
+        ensureLoaded();
+        if (!tasks.containsKey(id)) return;
         super.deleteTask(id);
-        save();
+        persistDelete(TaskType.TASK, id);
     }
 
     @Override
     public void deleteEpic(int id) {
+        ensureLoaded();
+        Epic epic = epics.get(id);
+        if (epic == null) return;
+        int[] subtaskIds = epic.getSubtaskIdArray();
         super.deleteEpic(id);
-        save();
+        persistDelete(TaskType.SUBTASK, subtaskIds);
+        persistDelete(TaskType.EPIC, id);
     }
 
     @Override
     public void deleteSubtask(int id) {
+        ensureLoaded();
+        if (!subtasks.containsKey(id)) return;
         super.deleteSubtask(id);
-        save();
+        persistDelete(TaskType.SUBTASK, id);
     }
 
     @Override
     public void deleteAllTasks() {
+        ensureLoaded();
         super.deleteAllTasks();
-        save();
+        persistClear(TaskType.TASK);
     }
 
     @Override
     public void deleteAllEpics() {
+        ensureLoaded();
         super.deleteAllEpics();
-        save();
+        persistClear(TaskType.EPIC);
     }
 
     @Override
     public void deleteAllSubtasks() {
+        ensureLoaded();
         super.deleteAllSubtasks();
+        persistClear(TaskType.SUBTASK);
+    }
+
+    // READ: в ленивом режиме запросы одной задачи читают только её запись, остальные загружают всё
+
+    @Override
+    public Task getTask(int id) {
+        materialize(id, TaskType.TASK);
+        return super.getTask(id);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        materialize(id, TaskType.EPIC);
+        return super.getEpic(id);
+    }
+
+    @Override
+    public SubTask getSubtask(int id) {
+        materialize(id, TaskType.SUBTASK);
+        return super.getSubtask(id);
+    }
+
+    @Override
+    public List<SubTask> getEpicSubtasks(int epicId) {
+        materialize(epicId, TaskType.EPIC);
+        return super.getEpicSubtasks(epicId);
+    }
+
+    @Override
+    public int count(TaskType type) {
+        return lazy != null ? lazy.count(type) : super.count(type);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        ensureLoaded();
+        return super.getAllTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        ensureLoaded();
+        return super.getAllEpics();
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        ensureLoaded();
+        return super.getAllSubTasks();
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        ensureLoaded();
+        return super.getTasksByStatus(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        ensureLoaded();
+        return super.getEpicsByStatus(status);
+    }
+
+    @Override
+    public List<SubTask> getSubtasksByStatus(Status status) {
+        ensureLoaded();
+        return super.getSubtasksByStatus(status);
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        ensureLoaded();
+        return super.countByStatus(type, status);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        ensureLoaded();
+        return super.search(query, limit);
+    }
+
+    @Override
+    public SearchIndexStats getSearchIndexStats() {
+        ensureLoaded();
+        return super.getSearchIndexStats();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        ensureLoaded();
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public Collection<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        ensureLoaded();
+        return super.getTasksStartingBetween(from, to);
+    }
+
+    @Override
+    public Collection<Task> getNextTasks(LocalDateTime from, int limit) {
+        ensureLoaded();
+        return super.getNextTasks(from, limit);
+    }
+
+    @Override
+    public Collection<Task> getTasksActiveAt(LocalDateTime instant) {
+        ensureLoaded();
+        return super.getTasksActiveAt(instant);
+    }
+
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        ensureLoaded();
+        super.transaction(body);
+    }
+
+    // false, пока в ленивом режиме прочитаны не все задачи снимка
+    public boolean isFullyLoaded() {
+        return lazy == null;
+    }
+
+    // сворачивает журнал в снимок; повторное применение журнала к свежему снимку ничего не меняет,
+    // поэтому сбой между записью снимка и очисткой журнала не портит данные
+    public void compact() {
+        if (writeBehind != null) {
+            writeBehind.snapshot();
+            return;
+        }
         save();
+        if (journal != null) {
+            journal.reset();
+            journalStarted = true;
+        }
     }
 
-    protected void save() {
-        try (Writer writer = new FileWriter(file)) {
-            writer.write(HEADER + "\n");
+    @Override
+    public void close() {
+        try {
+            if (writeBehind != null) writeBehind.close();
+        } finally {
+            if (journal != null) journal.close();
+        }
+    }
 
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task) + "\n");
+    private void persistPut(Task task) {
+        if (inTransaction()) return;
+        if (writeBehind != null) {
+            writeBehind.put(task);
+            return;
+        }
+        if (journal == null) {
+            save();
+            return;
+        }
+        appendToJournal(journalRecords.put(task));
+    }
+
+    // транзакция записывается одним снимком, как и пакет; отложенной записи передаются её изменения одной группой
+    @Override
+    void persistTransaction(TransactionLog log) {
+        if (writeBehind == null) {
+            compact();
+            return;
+        }
+        List<Task> puts = new ArrayList<>();
+        List<Task> deleted = new ArrayList<>();
+        collectChanges(log.tasks, tasks, puts, deleted);
+        collectChanges(log.subtasks, subtasks, puts, deleted);
+        collectChanges(log.epics, epics, puts, deleted);
+        for (int id : log.epicStates.keys()) {
+            Epic epic = epics.get(id);
+            if (epic != null && !log.epics.containsKey(id)) puts.add(epic);
+        }
+        writeBehind.group(puts, deleted);
+    }
+
+    private static <T extends Task> void collectChanges(IntObjectMap<T> previous, IntObjectMap<T> current,
+                                                        List<Task> puts, List<Task> deleted) {
+        for (int id : previous.keys()) {
+            T value = current.get(id);
+            if (value != null) {
+                puts.add(value);
+            } else if (previous.get(id) != null) {
+                deleted.add(previous.get(id));
             }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic) + "\n");
+        }
+    }
+
+    // пакет записывается одним снимком; в журнальном режиме журнал после него очищается.
+    // Отложенной записи пакет передаётся одной группой, как транзакция, и попадает на диск целиком
+    private void persistBatch(Collection<? extends Task> batch) {
+        if (batch.isEmpty() || inTransaction()) return;
+        if (writeBehind != null) {
+            List<Task> puts = new ArrayList<>(batch);
+            // эпики, чьи статус и сроки пересчитаны из-за подзадач пакета
+            Set<Integer> parents = new LinkedHashSet<>();
+            for (Task task : batch) {
+                if (task instanceof SubTask sub) parents.add(sub.getEpicId());
             }
-            for (SubTask sub : getAllSubTasks()) {
-                writer.write(toString(sub) + "\n");
+            for (Task task : batch) {
+                parents.remove(task.getId());
+            }
+            for (int epicId : parents) {
+                puts.add(epics.get(epicId));
+            }
+            writeBehind.group(puts, List.of());
+            return;
+        }
+        compact();
+    }
+
+    private void persistDelete(TaskType type, int... ids) {
+        if (inTransaction()) return;
+        if (writeBehind != null) {
+            for (int id : ids) {
+                writeBehind.delete(type, id);
             }
+            return;
+        }
+        if (journal == null) {
+            save();
+            return;
+        }
+        for (int id : ids) {
+            appendToJournal(journalRecords.delete(type, id));
+        }
+    }
 
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при сохранении данных в файл: " + file.getName(), e);
+    private void persistClear(TaskType type) {
+        if (inTransaction()) return;
+        if (writeBehind != null) {
+            writeBehind.clear(type);
+            return;
         }
+        if (journal == null) {
+            save();
+            return;
+        }
+        appendToJournal(journalRecords.clear(type));
     }
 
-    private String toString(Task task) {
-        String epicId = task instanceof SubTask sub ? String.valueOf(sub.getEpicId()) : "";
-        long duration = task.getDuration() == null ? 0 : task.getDuration().toMinutes();
-        String startTime = task.getStartTime() == null ? "" : task.getStartTime().toString();
+    private void appendToJournal(String record) {
+        // новый менеджер сначала фиксирует пустой снимок, чтобы не смешаться со старым журналом
+        if (!journalStarted) compact();
+        long start = System.nanoTime();
+        journal.append(record);
+        recordJournalAppend(metrics, record, System.nanoTime() - start);
+        if (journal.needsCompaction()) compact();
+    }
 
-        return String.format("%d,%s,%s,%s,%s,%s,%d,%s",
-                task.getId(),
-                task.getType(),
-                task.getTitle(),
-                task.getStatus(),
-                task.getDescription(),
-                epicId,
-                duration,
-                startTime
-        );
+    protected void save() {
+        if (writeBehind != null) {
+            // файл снимка пишет только поток записи
+            writeBehind.snapshot();
+            writeBehind.flush();
+            return;
+        }
+        long start = System.nanoTime();
+        export(file, format);
+        recordSnapshot(metrics, file, System.nanoTime() - start);
+    }
+
+    @Override
+    void setMetrics(MetricsSink metrics) {
+        super.setMetrics(metrics);
+        if (writeBehind != null) writeBehind.setMetrics(metrics);
     }
 
-    private Task fromString(String line) {
-        String[] parts = line.split(",", -1);
+    static void recordSnapshot(MetricsSink metrics, File file, long nanos) {
+        if (metrics == MetricsSink.NONE) return;
+        metrics.recordLatency(ManagerOperation.SAVE, nanos);
+        metrics.increment(ManagerCounter.PERSISTED_BYTES, file.length());
+    }
 
-        int id = Integer.parseInt(parts[0]);
-        TaskType type = TaskType.valueOf(parts[1]);
-        String name = parts[2];
-        Status status = Status.valueOf(parts[3]);
-        String description = parts[4];
-        String epicIdStr = parts[5];
-        long durationMinutes = parts[6].isEmpty() ? 0 : Long.parseLong(parts[6]);
-        String startTimeStr = parts[7];
-        LocalDateTime startTime = startTimeStr.isEmpty() ? null : LocalDateTime.parse(startTimeStr);
+    // в журнал запись уходит строкой UTF-8 с переводом строки
+    static void recordJournalAppend(MetricsSink metrics, String record, long nanos) {
+        if (metrics == MetricsSink.NONE) return;
+        metrics.recordLatency(ManagerOperation.JOURNAL_APPEND, nanos);
+        metrics.increment(ManagerCounter.PERSISTED_BYTES, utf8Length(record) + 1);
+    }
 
-        return switch (type) {
-            case TASK -> {
-                Task task = new Task(name, description, status);
-                task.setId(id);
-                task.setDuration(Duration.ofMinutes(durationMinutes));
-                task.setStartTime(startTime);
-                yield task;
-            }
-            case EPIC -> {
-                Epic epic = new Epic(name, description, status);
-                epic.setId(id);
-                yield epic;
-            }
-            case SUBTASK -> {
-                int epicId = Integer.parseInt(epicIdStr);
-                SubTask sub = new SubTask(name, description, status, epicId);
-                sub.setId(id);
-                sub.setDuration(Duration.ofMinutes(durationMinutes));
-                sub.setStartTime(startTime);
-                yield sub;
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
             }
+        }
+        return length;
+    }
+
+    // снимок в любом формате, например CSV для выгрузки из менеджера с двоичным хранилищем
+    public void export(File target, SnapshotFormat targetFormat) {
+        writeSnapshot(target, targetFormat, getAllTasks(), getAllEpics(), getAllSubTasks());
+    }
+
+    static void writeSnapshot(File target, SnapshotFormat format, Collection<? extends Task> tasks,
+                              Collection<? extends Task> epics, Collection<? extends Task> subtasks) {
+        writeSnapshot(target, format, tasks, epics, subtasks, UnaryOperator.identity());
+    }
+
+    // снимок пишется во временный файл рядом, сбрасывается на диск и атомарно заменяет прежний,
+    // так что сбой посреди записи оставляет старый снимок целым; wrap оборачивает поток временного файла
+    static void writeSnapshot(File target, SnapshotFormat format, Collection<? extends Task> tasks,
+                              Collection<? extends Task> epics, Collection<? extends Task> subtasks,
+                              UnaryOperator<OutputStream> wrap) {
+        File temp = temporaryFileFor(target);
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp); OutputStream out = wrap.apply(file)) {
+                writeSnapshotTo(out, format, tasks, epics, subtasks);
+                out.flush();
+                file.getFD().sync();
+            }
+            replace(temp.toPath(), target.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении данных в файл: " + target.getName(), e);
+        } finally {
+            // после переименования временного файла уже нет
+            temp.delete();
+        }
+    }
+
+    static File temporaryFileFor(File target) {
+        return new File(target.getPath() + ".tmp");
+    }
+
+    private static void writeSnapshotTo(OutputStream out, SnapshotFormat format, Collection<? extends Task> tasks,
+                                        Collection<? extends Task> epics, Collection<? extends Task> subtasks)
+            throws IOException {
+        if (format == SnapshotFormat.BINARY) {
+            List<Task> records = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+            records.addAll(tasks);
+            records.addAll(epics);
+            records.addAll(subtasks);
+            BinarySnapshot.write(out, records);
+            return;
+        }
+        Writer text = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        text.write(HEADER);
+        text.write('\n');
+        CsvWriter csv = CsvWriter.withChecksums(text);
+        for (Collection<? extends Task> group : List.of(tasks, epics, subtasks)) {
+            for (Task task : group) {
+                writeFields(csv, task);
+                csv.endRecord();
+            }
+        }
+        csv.flush();
+    }
+
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // переименование надёжно только после сброса каталога; открыть каталог можно не везде
+        Path directory = target.toAbsolutePath().getParent();
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // файл уже заменён; без сброса каталога при отключении питания может вернуться прежний снимок
+        }
+    }
+
+    // поля задачи в порядке HEADER после контрольной суммы; отсутствующие значения пишутся пустыми полями
+    static void writeFields(CsvWriter csv, Task task) throws IOException {
+        csv.field(task.getId())
+                .field(task.getType())
+                .field(task.getTitle())
+                .field(task.getStatus())
+                .field(task.getDescription());
+        if (task instanceof SubTask sub) {
+            csv.field(sub.getEpicId());
+        } else {
+            csv.field((String) null);
+        }
+        if (task.getDuration() == null || task instanceof Epic) {
+            csv.field((String) null);
+        } else {
+            csv.field(task.getDuration().toMinutes());
+        }
+        csv.field(task.getStartTime() == null || task instanceof Epic ? null : task.getStartTime().toString());
+    }
+
+    // задача из полей записи, начиная с поля from; перед задачей стоят контрольная сумма и в журнале тип операции
+    static Task readFields(CsvReader csv, int from) {
+        int id = csv.getInt(from);
+        TaskType type = csv.getEnum(from + 1, TYPES);
+        String name = csv.getOrNull(from + 2);
+        Status status = csv.getEnum(from + 3, STATUSES);
+        String description = csv.getOrNull(from + 4);
+        Duration duration = csv.isEmpty(from + 6) ? null : Duration.ofMinutes(csv.getLong(from + 6));
+        LocalDateTime startTime = csv.isEmpty(from + 7) ? null : LocalDateTime.parse(csv.get(from + 7));
+
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, status);
+            case EPIC -> new Epic(name, description, status);
+            case SUBTASK -> new SubTask(name, description, status, csv.getInt(from + 5));
         };
+        task.setId(id);
+        if (type != TaskType.EPIC) {
+            task.setDuration(duration);
+            task.setStartTime(startTime);
+        }
+        return task;
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            if (lines.isEmpty() || lines.size() == 1) return manager;
-            lines.removeFirst();
+        return loadFromFile(file, null);
+    }
 
-            int maxId = 0;
+    public static FileBackedTaskManager loadFromFile(File file, TaskJournal journal) {
+        return loadFromFile(file, journal, LoadMode.EAGER);
+    }
 
-            for (String line : lines) {
-                if (line.isBlank()) continue;
-                Task task = manager.fromString(line);
+    // формат снимка определяется по его содержимому и сохраняется для последующих записей.
+    // LAZY работает только для снимка CSV без непустого журнала, иначе файл загружается целиком
+    public static FileBackedTaskManager loadFromFile(File file, TaskJournal journal, LoadMode mode) {
+        return loadFromFile(file, journal, mode, 0);
+    }
 
-                if (task instanceof Epic epic) {
-                    manager.epics.put(epic.getId(), epic);
-                } else if (task instanceof SubTask sub) {
-                    manager.subtasks.put(sub.getId(), sub);
-                } else {
-                    manager.tasks.put(task.getId(), task);
+    // при writeBehindCapacity > 0 загруженный менеджер пишет через фоновый поток, как и созданный
+    // конструктором с той же ёмкостью. Поток записи получает копию загруженных задач, поэтому LAZY
+    // в этом режиме загружает файл целиком
+    public static FileBackedTaskManager loadFromFile(File file, TaskJournal journal, LoadMode mode,
+                                                     int writeBehindCapacity) {
+        SnapshotFormat format = BinarySnapshot.isBinary(file) ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, format, journal, writeBehindCapacity);
+        boolean complete = false;
+        try {
+            TaskJournal log = journal != null ? journal : new TaskJournal(TaskJournal.defaultFileFor(file));
+            if (mode == LoadMode.LAZY && manager.writeBehind == null
+                    && format == SnapshotFormat.CSV && file.exists() && log.getFile().length() == 0) {
+                manager.lazy = SnapshotIndex.build(file);
+                if (manager.lazy != null) {
+                    manager.nextId = manager.lazy.maxId() + 1;
+                    manager.journalStarted = true;
+                    return manager;
                 }
-
-                if (task.getId() > maxId) maxId = task.getId();
             }
 
-            for (SubTask sub : manager.subtasks.values()) {
-                Epic epic = manager.epics.get(sub.getEpicId());
-                if (epic != null) epic.addSubtaskId(sub.getId());
+            boolean parallel = mode == LoadMode.PARALLEL;
+            manager.beginBulkLoad();
+            if (format == SnapshotFormat.BINARY) {
+                try (InputStream in = new FileInputStream(file)) {
+                    BinarySnapshot.read(in, file.getName(), manager::putLoaded);
+                }
+            } else if (journal == null || file.exists()) {
+                // куски читаются только из целого снимка; всё остальное решает последовательное чтение
+                List<Task> loaded = parallel && file.exists() ? ParallelSnapshotReader.read(file) : null;
+                if (loaded != null) {
+                    loaded.forEach(manager::putLoaded);
+                } else {
+                    manager.readCsvSnapshot(manager::putLoaded);
+                }
             }
 
-            for (Epic epic : manager.epics.values()) {
-                manager.updateEpicTime(epic);
+            // журнал без менеджера с журналом остаётся от прошлого запуска: применяем его и сворачиваем
+            int records = log.readRecords(manager::replay);
+
+            manager.finishBulkLoad(parallel);
+            manager.restoreLinks(parallel);
+            manager.journalStarted = true;
+            if (manager.writeBehind != null) manager.seedWriteBehind();
+
+            if (journal == null && records > 0) {
+                manager.save();
+                Files.delete(log.getFile().toPath());
             }
+            complete = true;
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при загрузке данных из файла: " + file.getName(), e);
+        } finally {
+            // поток записи уже запущен конструктором; журнал остаётся открытым — он принадлежит вызывающему
+            if (!complete && manager.writeBehind != null) manager.writeBehind.close();
+        }
+
+        return manager;
+    }
 
-            manager.prioritizedTasks.addAll(manager.getAllTasks());
-            manager.prioritizedTasks.addAll(manager.getAllSubTasks());
+    // до первого изменения: иначе первая запись снимка из пустой копии стёрла бы загруженную доску
+    private void seedWriteBehind() {
+        List<Task> loaded = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        loaded.addAll(tasks.values());
+        loaded.addAll(epics.values());
+        loaded.addAll(subtasks.values());
+        writeBehind.seed(loaded);
+    }
+
+    private void readCsvSnapshot(Consumer<Task> action) throws IOException {
+        try (CsvReader csv = new CsvReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            // первая запись — заголовок; оборванный хвост отбрасывается и исчезнет при следующей записи снимка
+            ChecksummedRecords.read(csv, file.getName(), 1,
+                    record -> action.accept(readFields(record, record.isChecksummed() ? 1 : 0)));
+        }
+    }
+
+    // задача из снимка при первом обращении; эпик читается вместе со всеми подзадачами, чтобы сразу
+    // посчитать его статус и сроки. В приоритетный порядок задачи попадают только при полной загрузке
+    private void materialize(int id, TaskType type) {
+        if (lazy == null || lazy.typeOf(id) != type || isLoaded(id, type)) return;
+        try {
+            Task task = lazy.read(id);
+            putLoaded(task);
+            if (task instanceof Epic epic) {
+                lazy.forEachSubtask(id, subtaskId -> {
+                    materialize(subtaskId, TaskType.SUBTASK);
+                    SubTask sub = subtasks.get(subtaskId);
+                    if (sub != null && sub.getEpicId() == id) epic.addSubtask(sub);
+                });
+                updateEpicStatus(epic);
+                updateEpicTime(epic);
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при загрузке задачи " + id + " из файла: " + file.getName(), e);
+        }
+    }
 
-            manager.nextId = maxId + 1;
+    private boolean isLoaded(int id, TaskType type) {
+        return switch (type) {
+            case TASK -> tasks.containsKey(id);
+            case EPIC -> epics.containsKey(id);
+            case SUBTASK -> subtasks.containsKey(id);
+        };
+    }
 
+    // дочитывает снимок в ленивом режиме; уже прочитанные задачи остаются теми же объектами,
+    // поэтому история и выданные ссылки не расходятся с менеджером
+    private void ensureLoaded() {
+        if (lazy == null) return;
+        try {
+            readCsvSnapshot(task -> {
+                TaskType type = task.getType();
+                if (lazy.typeOf(task.getId()) == type && !isLoaded(task.getId(), type)) putLoaded(task);
+            });
         } catch (IOException e) {
             throw new ManagerLoadException("Ошибка при загрузке данных из файла: " + file.getName(), e);
         }
+        lazy = null;
+        restoreLinks(false);
+    }
 
-        return manager;
+    private void putLoaded(Task task) {
+        if (task instanceof Epic epic) {
+            epics.put(epic.getId(), epic);
+        } else if (task instanceof SubTask sub) {
+            subtasks.put(sub.getId(), sub);
+        } else {
+            tasks.put(task.getId(), task);
+        }
+    }
+
+    private void replay(CsvReader record) {
+        int op = record.isChecksummed() ? 1 : 0;
+        switch (record.get(op)) {
+            case "PUT" -> putLoaded(readFields(record, op + 1));
+            case "DELETE" -> {
+                int id = record.getInt(op + 2);
+                switch (record.getEnum(op + 1, TYPES)) {
+                    case TASK -> tasks.remove(id);
+                    case EPIC -> epics.remove(id);
+                    case SUBTASK -> subtasks.remove(id);
+                }
+            }
+            case "CLEAR" -> {
+                switch (record.getEnum(op + 1, TYPES)) {
+                    case TASK -> tasks.clear();
+                    case EPIC -> {
+                        epics.clear();
+                        subtasks.clear();
+                    }
+                    case SUBTASK -> subtasks.clear();
+                }
+            }
+            default -> throw new ManagerLoadException("Неизвестная запись журнала: " + record.get(op));
+        }
+    }
+
+    // связи эпиков, время и приоритеты не хранятся в файле и пересчитываются после загрузки.
+    // При parallel подзадачи группируются по эпику устойчивой сортировкой, и группы связываются
+    // параллельно: порядок подзадач в эпике тот же, что при последовательном проходе
+    private void restoreLinks(boolean parallel) {
+        int maxId = 0;
+        for (Task task : tasks.values()) maxId = Math.max(maxId, task.getId());
+        for (Epic epic : epics.values()) maxId = Math.max(maxId, epic.getId());
+        for (SubTask sub : subtasks.values()) maxId = Math.max(maxId, sub.getId());
+        if (maxId > TaskBatches.MAX_ID) {
+            throw new ManagerLoadException("Id " + maxId + " не оставляет места для новых задач");
+        }
+
+        if (parallel) {
+            SubTask[] byEpic = subtasks.values().toArray(new SubTask[0]);
+            Arrays.parallelSort(byEpic, Comparator.comparingInt(SubTask::getEpicId));
+            // группа g — byEpic[groupStart[g] .. groupStart[g + 1])
+            int[] groupStart = new int[byEpic.length + 1];
+            int groups = 0;
+            for (int i = 0; i < byEpic.length; i++) {
+                if (i == 0 || byEpic[i].getEpicId() != byEpic[i - 1].getEpicId()) groupStart[groups++] = i;
+            }
+            groupStart[groups] = byEpic.length;
+            IntStream.range(0, groups).parallel().forEach(g -> {
+                Epic epic = epics.get(byEpic[groupStart[g]].getEpicId());
+                if (epic == null) return;
+                for (int i = groupStart[g]; i < groupStart[g + 1]; i++) epic.addSubtask(byEpic[i]);
+            });
+        } else {
+            for (SubTask sub : subtasks.values()) {
+                Epic epic = epics.get(sub.getEpicId());
+                if (epic != null) epic.addSubtask(sub);
+            }
+        }
+
+        for (Epic epic : epics.values()) {
+            updateEpicStatus(epic);
+            updateEpicTime(epic);
+        }
+
+        if (parallel) {
+            List<Task> prioritized = new ArrayList<>(tasks.size() + subtasks.size());
+            prioritized.addAll(tasks.values());
+            prioritized.addAll(subtasks.values());
+            addAllPrioritized(prioritized);
+        } else {
+            tasks.values().forEach(this::addPrioritized);
+            subtasks.values().forEach(this::addPrioritized);
+        }
+
+        nextId = maxId + 1;
     }
-}
\ No newline at end of file
+}
@@ -1,89 +1,58 @@
 package ru.practicum.manager;
 
 import ru.practicum.model.Task;
+import ru.practicum.util.IntObjectMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * История просмотров ограниченного размера. Повторный просмотр переносит задачу в конец,
+ * а при переполнении вытесняется самая давняя запись (LRU).
+ * <p>
+ * Список просмотров хранится в {@link IntObjectMap}, заранее рассчитанной на {@code capacity} записей:
+ * порядок в ней поддерживается массивами индексов prev/next, а освобождённые ячейки переиспользуются,
+ * так что запись просмотра не создаёт узлов и не перестраивает таблицу.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
-    private Node head;
-    private Node tail;
+    public static final int DEFAULT_CAPACITY = 1000;
 
-    @Override
-    public void add(Task task) {
-        if (task == null) return;
-        if (nodeMap.containsKey(task.getId())) {
-            removeNode(nodeMap.get(task.getId()));
-        }
-        linkLast(task);
-    }
+    private final int capacity;
+    private final IntObjectMap<Task> history;
 
-    @Override
-    public void remove(int id) {
-        Node node = nodeMap.remove(id);
-        if (node != null) {
-            removeNode(node);
-        }
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
     }
 
-    @Override
-    public List<Task> getHistory() {
-        List<Task> tasks = new ArrayList<>();
-        Node current = head;
-        while (current != null) {
-            tasks.add(current.task);
-            current = current.next;
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + capacity);
         }
-        return tasks;
+        this.capacity = capacity;
+        this.history = new IntObjectMap<>(capacity);
     }
 
-    private void linkLast(Task task) {
-        Node newNode = new Node(tail, task, null);
-        if (tail != null) {
-            tail.next = newNode;
-        } else {
-            head = newNode;
-        }
-        tail = newNode;
-        nodeMap.put(task.getId(), newNode);
+    public int getCapacity() {
+        return capacity;
     }
 
-    private void removeNode(Node node) {
-        if (node == null) return;
-
-        Node prev = node.prev;
-        Node next = node.next;
-
-        if (prev != null) {
-            prev.next = next;
-        } else {
-            head = next;
-        }
-
-        if (next != null) {
-            next.prev = prev;
-        } else {
-            tail = prev;
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        if (history.remove(task.getId()) == null && history.size() == capacity) {
+            history.remove(history.firstKey());
         }
-
-        node.prev = null;
-        node.next = null;
+        history.put(task.getId(), task);
     }
 
-    private static class Node {
-        Task task;
-        Node prev;
-        Node next;
+    @Override
+    public void remove(int id) {
+        history.remove(id);
+    }
 
-        Node(Node prev, Task task, Node next) {
-            this.prev = prev;
-            this.task = task;
-            this.next = next;
-        }
+    @Override
+    public List<Task> getHistory() {
+        return new ArrayList<>(history.values());
     }
 }
-
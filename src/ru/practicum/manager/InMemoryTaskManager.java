@@ -1,15 +1,23 @@
 package ru.practicum.manager;
 
 import ru.practicum.model.*;
-import java.time.Duration;
+import ru.practicum.util.IntObjectMap;
+import ru.practicum.util.SortedArrays;
+
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, SubTask> subtasks = new HashMap<>();
+    // хранилища сами поддерживают индексы по статусу и тексту при каждом put/remove/clear
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final TextIndex textIndex = new TextIndex();
+    // внутренние замеры для InstrumentedTaskManager; без него sink пустой и замеры пропускаются
+    protected MetricsSink metrics = MetricsSink.NONE;
+    protected final IntObjectMap<Task> tasks = new IndexedStore<>(TaskType.TASK, statusIndex, textIndex);
+    protected final IntObjectMap<Epic> epics = new IndexedStore<>(TaskType.EPIC, statusIndex, textIndex);
+    protected final IntObjectMap<SubTask> subtasks = new IndexedStore<>(TaskType.SUBTASK, statusIndex, textIndex);
     protected final HistoryManager historyManager;
     protected int nextId = 1;
 
@@ -18,14 +26,28 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     private int generateId() {
-        return nextId++;
+        int id = nextId;
+        nextId = TaskBatches.advance(nextId, 1);
+        return id;
     }
 
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(
+    protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(
             Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
                     .thenComparingInt(Task::getId)
     );
 
+    final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private long prioritizedVersion;
+
+    // списки для чтения копируются один раз после изменения и дальше отдаются без копирования
+    private final VersionedSnapshot<Task> tasksSnapshot = new VersionedSnapshot<>();
+    private final VersionedSnapshot<Epic> epicsSnapshot = new VersionedSnapshot<>();
+    private final VersionedSnapshot<SubTask> subtasksSnapshot = new VersionedSnapshot<>();
+    private final VersionedSnapshot<Task> prioritizedSnapshot = new VersionedSnapshot<>();
+
+    // не null, пока выполняется transaction
+    private TransactionLog transaction;
+
     //ADD
     @Override
     public int addTask(Task task) {
@@ -36,8 +58,9 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         task.setId(generateId());
+        recordTask(task.getId());
         tasks.put(task.getId(), task);
-        prioritizedTasks.add(task);
+        addPrioritized(task);
         return task.getId();
     }
 
@@ -45,6 +68,7 @@ public class InMemoryTaskManager implements TaskManager {
     public int addEpic(Epic epic) {
         if (epic == null) return -1;
         epic.setId(generateId());
+        recordEpic(epic.getId());
         epics.put(epic.getId(), epic);
         return epic.getId();
     }
@@ -61,15 +85,75 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         subtask.setId(generateId());
+        recordSubtask(subtask.getId());
+        recordEpicState(epic);
         subtasks.put(subtask.getId(), subtask);
-        prioritizedTasks.add(subtask);
+        addPrioritized(subtask);
 
-        epic.addSubtaskId(subtask.getId());
+        epic.addSubtask(subtask);
         updateEpicStatus(epic);
         updateEpicTime(epic);
         return subtask.getId();
     }
 
+    // пакет проверяется целиком до изменений, поэтому при ошибке менеджер не меняется
+    @Override
+    public List<Integer> addAll(List<? extends Task> batch) {
+        int[] ids = new int[batch.size()];
+        int next = TaskBatches.advance(nextId, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextId + i;
+        }
+        TaskBatches.validate(batch, ids, epics::containsKey, timeIndex);
+        nextId = next;
+        applyBatch(batch, ids);
+        return TaskBatches.asList(ids);
+    }
+
+    @Override
+    public void importBatch(Collection<? extends Task> batch) {
+        List<? extends Task> list = new ArrayList<>(batch);
+        int[] ids = TaskBatches.importIds(list, id -> lookup(id) != null);
+        TaskBatches.validate(list, ids, epics::containsKey, timeIndex);
+        applyBatch(list, ids);
+        nextId = Math.max(nextId, TaskBatches.maxId(ids) + 1);
+    }
+
+    // эпики добавляются первыми, чтобы подзадачи нашли их независимо от порядка в пакете;
+    // время и статус каждого затронутого эпика пересчитываются один раз
+    private void applyBatch(List<? extends Task> batch, int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            if (batch.get(i) instanceof Epic epic) {
+                epic.setId(ids[i]);
+                recordEpic(epic.getId());
+                epic.clearSubtasks();
+                epics.put(epic.getId(), epic);
+            }
+        }
+        IntObjectMap<Epic> touched = new IntObjectMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = batch.get(i);
+            if (task.getType() == TaskType.EPIC) continue;
+            task.setId(ids[i]);
+            addPrioritized(task);
+            if (task instanceof SubTask sub) {
+                recordSubtask(sub.getId());
+                subtasks.put(sub.getId(), sub);
+                Epic epic = epics.get(sub.getEpicId());
+                recordEpicState(epic);
+                epic.addSubtask(sub);
+                touched.put(epic.getId(), epic);
+            } else {
+                recordTask(task.getId());
+                tasks.put(task.getId(), task);
+            }
+        }
+        for (Epic epic : touched.values()) {
+            updateEpicStatus(epic);
+            updateEpicTime(epic);
+        }
+    }
+
     // UPDATE
     @Override
     public boolean updateTask(Task updatedTask) {
@@ -77,15 +161,16 @@ public class InMemoryTaskManager implements TaskManager {
 
 
         Task old = tasks.get(updatedTask.getId());
-        prioritizedTasks.remove(old);
+        recordTask(old.getId());
+        removePrioritized(old);
 
         if (updatedTask.getStartTime() != null && updatedTask.getDuration() != null && hasOverlap(updatedTask)) {
-            prioritizedTasks.add(old);
+            addPrioritized(old);
             throw new IllegalArgumentException("Обновление приводит к пересечению: " + updatedTask.getTitle());
         }
 
         tasks.put(updatedTask.getId(), updatedTask);
-        prioritizedTasks.add(updatedTask);
+        addPrioritized(updatedTask);
         return true;
     }
 
@@ -93,8 +178,10 @@ public class InMemoryTaskManager implements TaskManager {
     public boolean updateEpic(Epic updatedEpic) {
         Epic existingEpic = epics.get(updatedEpic.getId());
         if (existingEpic == null) return false;
+        recordEpicState(existingEpic);
         existingEpic.setTitle(updatedEpic.getTitle());
         existingEpic.setDescription(updatedEpic.getDescription());
+        textIndex.put(TaskType.EPIC, existingEpic);
         return true;
     }
 
@@ -106,16 +193,29 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) return false;
 
         SubTask old = subtasks.get(updatedSubtask.getId());
-        prioritizedTasks.remove(old);
+        recordSubtask(old.getId());
+        recordEpicState(epic);
+        Epic previousEpic = epics.get(old.getEpicId());
+        if (previousEpic != null) recordEpicState(previousEpic);
+        removePrioritized(old);
 
         if (updatedSubtask.getStartTime() != null && updatedSubtask.getDuration() != null && hasOverlap(updatedSubtask)) {
-            prioritizedTasks.add(old);
+            addPrioritized(old);
             throw new IllegalArgumentException("Обновление подзадачи приводит к пересечению: " + updatedSubtask.getTitle());
         }
 
         subtasks.put(updatedSubtask.getId(), updatedSubtask);
-        prioritizedTasks.add(updatedSubtask);
+        addPrioritized(updatedSubtask);
+
+        // подзадача перенесена в другой эпик
+        Epic oldEpic = epics.get(old.getEpicId());
+        if (oldEpic != null && oldEpic != epic) {
+            oldEpic.removeSubtask(old.getId());
+            updateEpicStatus(oldEpic);
+            updateEpicTime(oldEpic);
+        }
 
+        epic.addSubtask(updatedSubtask);
         updateEpicStatus(epic);
         updateEpicTime(epic);
         return true;
@@ -124,24 +224,27 @@ public class InMemoryTaskManager implements TaskManager {
     // DELETE
     @Override
     public void deleteTask(int id) {
+        recordTask(id);
         Task removed = tasks.remove(id);
         if (removed != null) {
-            historyManager.remove(id);
-            prioritizedTasks.remove(removed);
+            forget(id);
+            removePrioritized(removed);
         }
     }
 
     @Override
     public void deleteEpic(int id) {
+        recordEpic(id);
         Epic epic = epics.remove(id);
         if (epic != null) {
-            historyManager.remove(epic.getId());
+            forget(epic.getId());
             // удалить все подзадачи эпика
-            for (Integer subId : new ArrayList<>(epic.getSubtaskIds())) {
+            for (int subId : epic.getSubtaskIdArray()) {
+                recordSubtask(subId);
                 SubTask removedSub = subtasks.remove(subId);
                 if (removedSub != null) {
-                    historyManager.remove(subId);
-                    prioritizedTasks.remove(removedSub);
+                    forget(subId);
+                    removePrioritized(removedSub);
                 }
             }
         }
@@ -149,14 +252,16 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteSubtask(int id) {
+        recordSubtask(id);
         SubTask removedSubtask = subtasks.remove(id);
         if (removedSubtask != null) {
-            historyManager.remove(id);
-            prioritizedTasks.remove(removedSubtask);
+            forget(id);
+            removePrioritized(removedSubtask);
 
             Epic epic = epics.get(removedSubtask.getEpicId());
             if (epic != null) {
-                epic.removeSubtaskId(id);
+                recordEpicState(epic);
+                epic.removeSubtask(id);
                 updateEpicStatus(epic);
                 updateEpicTime(epic);
             }
@@ -166,11 +271,13 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllSubtasks() {
-        subtasks.keySet().forEach(historyManager::remove);
-        subtasks.values().forEach(prioritizedTasks::remove);
+        subtasks.forEachKey(this::recordSubtask);
+        subtasks.forEachKey(this::forget);
+        subtasks.values().forEach(this::removePrioritized);
         subtasks.clear();
 
         epics.values().forEach(epic -> {
+            recordEpicState(epic);
             epic.clearSubtasks();
             updateEpicStatus(epic);
             updateEpicTime(epic);
@@ -179,20 +286,23 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteAllEpics() {
+        epics.forEachKey(this::recordEpic);
+        subtasks.forEachKey(this::recordSubtask);
         epics.values().forEach(epic -> {
-            historyManager.remove(epic.getId());
-            epic.getSubtaskIds().forEach(historyManager::remove);
+            forget(epic.getId());
+            epic.forEachSubtaskId(this::forget);
         });
         epics.clear();
 
-        subtasks.values().forEach(prioritizedTasks::remove);
+        subtasks.values().forEach(this::removePrioritized);
         subtasks.clear();
     }
 
     @Override
     public void deleteAllTasks() {
-        tasks.keySet().forEach(historyManager::remove);
-        tasks.values().forEach(prioritizedTasks::remove);
+        tasks.forEachKey(this::recordTask);
+        tasks.forEachKey(this::forget);
+        tasks.values().forEach(this::removePrioritized);
         tasks.clear();
     }
 
@@ -218,26 +328,81 @@ public class InMemoryTaskManager implements TaskManager {
         return subtask;
     }
 
+    // поиск задачи любого типа без записи в историю
+    Task lookup(int id) {
+        Task task = tasks.get(id);
+        if (task != null) return task;
+        Epic epic = epics.get(id);
+        if (epic != null) return epic;
+        return subtasks.get(id);
+    }
+
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        return tasksSnapshot.get(tasks.modCount(), tasks::values);
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        return epicsSnapshot.get(epics.modCount(), epics::values);
     }
 
     @Override
     public List<SubTask> getAllSubTasks() {
-        return new ArrayList<>(subtasks.values());
+        return subtasksSnapshot.get(subtasks.modCount(), subtasks::values);
     }
 
     @Override
     public List<SubTask> getEpicSubtasks(int epicId) {
-        return subtasks.values().stream()
-                .filter(sub -> sub.getEpicId() == epicId)
-                .toList();
+        Epic epic = epics.get(epicId);
+        if (epic == null) return List.of();
+
+        List<SubTask> result = new ArrayList<>(epic.getSubtaskIdSet().size());
+        epic.forEachSubtaskId(id -> result.add(subtasks.get(id)));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return statusIndex.get(TaskType.TASK, status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return statusIndex.get(TaskType.EPIC, status);
+    }
+
+    @Override
+    public List<SubTask> getSubtasksByStatus(Status status) {
+        return statusIndex.get(TaskType.SUBTASK, status);
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        return statusIndex.count(type, status);
+    }
+
+    @Override
+    public int count(TaskType type) {
+        return switch (type) {
+            case TASK -> tasks.size();
+            case EPIC -> epics.size();
+            case SUBTASK -> subtasks.size();
+        };
+    }
+
+    // задачи всех типов в порядке id; слова ищутся по индексу, без перебора задач
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Отрицательный limit: " + limit);
+        int[] ids = textIndex.search(TextQuery.parse(query), limit);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) result.add(lookup(id));
+        return Collections.unmodifiableList(result);
+    }
+
+    public SearchIndexStats getSearchIndexStats() {
+        return textIndex.stats();
     }
 
     @Override
@@ -245,87 +410,272 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    private void updateEpicStatus(Epic epic) {
-        if (epic.getSubtaskIds().isEmpty()) {
-            epic.setStatus(Status.NEW);
+    MetricsSink getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(MetricsSink metrics) {
+        this.metrics = metrics;
+    }
+
+    protected void updateEpicStatus(Epic epic) {
+        if (transaction != null) {
+            transaction.dirtyEpics.put(epic.getId(), epic);
             return;
         }
+        long start = metrics == MetricsSink.NONE ? 0 : System.nanoTime();
+        setEpicStatus(epic, epic.calculateStatus());
+        if (metrics != MetricsSink.NONE) {
+            metrics.recordLatency(ManagerOperation.UPDATE_EPIC_STATUS, System.nanoTime() - start);
+        }
+    }
+
+    // эпик, который лежит в хранилище, переносится в корзину нового статуса
+    private void setEpicStatus(Epic epic, Status status) {
+        if (epic.getStatus() == status) return;
+        epic.setStatus(status);
+        if (epics.get(epic.getId()) == epic) statusIndex.put(TaskType.EPIC, epic);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedSnapshot.get(prioritizedVersion, () -> prioritizedTasks);
+    }
+
+    // представления поверх prioritizedTasks: граница ищется за O(log N), задачи не копируются
+    @Override
+    public Collection<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return TimeRanges.startingBetween(prioritizedTasks, from, to);
+    }
 
-        List<Status> statuses = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .map(SubTask::getStatus)
-                .toList();
+    @Override
+    public Collection<Task> getNextTasks(LocalDateTime from, int limit) {
+        return TimeRanges.startingFrom(prioritizedTasks, from, limit);
+    }
 
-        if (statuses.isEmpty()) {
-            epic.setStatus(Status.NEW);
+    // внутри транзакции интервалы новых задач ещё не в индексе и здесь не видны
+    @Override
+    public Collection<Task> getTasksActiveAt(LocalDateTime instant) {
+        TimeIntervalIndex.Interval interval = timeIndex.at(Objects.requireNonNull(instant, "instant"));
+        return interval == null ? List.of() : List.of(lookup(interval.id()));
+    }
+
+    protected void addPrioritized(Task task) {
+        prioritizedTasks.add(task);
+        prioritizedVersion++;
+        if (task.getStartTime() != null && task.getDuration() != null) {
+            // в транзакции пересечения проверяются при фиксации, а до неё интервалы в индекс не попадают
+            if (transaction != null) {
+                transaction.timed.set(task.getId());
+            } else {
+                timeIndex.add(task.getId(), task.getStartTime(), task.getEndTime());
+            }
+        }
+    }
+
+    // то же, что addPrioritized для каждой задачи, но в пустой порядок: задачи сортируются
+    // Arrays.parallelSort, а TreeSet строится из отсортированного массива за линейное время
+    // вместо N вставок с балансировкой
+    protected void addAllPrioritized(List<? extends Task> loaded) {
+        if (!prioritizedTasks.isEmpty() || transaction != null || timeIndex.size() > 0) {
+            loaded.forEach(this::addPrioritized);
             return;
         }
+        Comparator<? super Task> order = prioritizedTasks.comparator();
+        Task[] sorted = loaded.toArray(new Task[0]);
+        // сортировка устойчивая: из равных задач, как при add, остаётся первая
+        Arrays.parallelSort(sorted, order);
+        int size = 0;
+        for (Task task : sorted) {
+            if (size == 0 || order.compare(sorted[size - 1], task) != 0) sorted[size++] = task;
+        }
+        prioritizedTasks.addAll(SortedArrays.asSortedSet(sorted, size, order));
+        prioritizedVersion++;
 
-        if (statuses.stream().allMatch(s -> s == Status.NEW)) {
-            epic.setStatus(Status.NEW);
-        } else if (statuses.stream().allMatch(s -> s == Status.DONE)) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+        List<TimeIntervalIndex.Interval> intervals = new ArrayList<>();
+        for (Task task : loaded) {
+            if (task.getStartTime() != null && task.getDuration() != null) {
+                intervals.add(new TimeIntervalIndex.Interval(task.getId(), task.getStartTime(), task.getEndTime()));
+            }
         }
+        timeIndex.addAll(intervals);
     }
 
-    @Override
-    public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+    // полнотекстовый индекс строится один раз после загрузки всех задач, см. TextIndex.beginBulk
+    void beginBulkLoad() {
+        textIndex.beginBulk();
+    }
+
+    void finishBulkLoad(boolean parallel) {
+        textIndex.finishBulk(parallel);
+    }
+
+    protected void removePrioritized(Task task) {
+        prioritizedTasks.remove(task);
+        prioritizedVersion++;
+        timeIndex.remove(task.getId());
     }
 
     private boolean hasOverlap(Task newTask) {
         LocalDateTime start = newTask.getStartTime();
         LocalDateTime end = newTask.getEndTime();
-        if (start == null || end == null) return false;
+        if (start == null || end == null || transaction != null) return false;
+        if (metrics == MetricsSink.NONE) return timeIndex.overlaps(start, end, newTask.getId());
+
+        long begin = System.nanoTime();
+        long scanned = timeIndex.scanned();
+        boolean overlaps = timeIndex.overlaps(start, end, newTask.getId());
+        metrics.recordLatency(ManagerOperation.HAS_OVERLAP, System.nanoTime() - begin);
+        metrics.increment(ManagerCounter.OVERLAP_CHECKS, 1);
+        metrics.increment(ManagerCounter.OVERLAP_SCANNED, timeIndex.scanned() - scanned);
+        return overlaps;
+    }
 
-        return prioritizedTasks.stream()
-                .filter(t -> t.getId() != newTask.getId())
-                .anyMatch(existing -> isOverlapping(existing, start, end));
+    protected void updateEpicTime(Epic epic) {
+        if (transaction != null) {
+            transaction.dirtyEpics.put(epic.getId(), epic);
+            return;
+        }
+        long start = metrics == MetricsSink.NONE ? 0 : System.nanoTime();
+        epic.setStartTime(epic.getSubtasksStart());
+        epic.setDuration(epic.getSubtasksDuration());
+        epic.setEndTime(epic.getSubtasksEnd());
+        if (metrics != MetricsSink.NONE) {
+            metrics.recordLatency(ManagerOperation.UPDATE_EPIC_TIME, System.nanoTime() - start);
+        }
     }
 
-    private boolean isOverlapping(Task existing, LocalDateTime newStart, LocalDateTime newEnd) {
-        if (existing.getStartTime() == null || existing.getDuration() == null) {
-            return false;
+    // TRANSACTION
+
+    // изменения внутри body применяются сразу, но проверка пересечений, пересчёт эпиков, удаление из истории
+    // и запись на диск откладываются до конца; исключение из body или при проверке откатывает всё.
+    // Внутри транзакции статус и время эпиков ещё не пересчитаны
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        if (transaction != null) throw new IllegalStateException("Транзакция уже выполняется");
+        TransactionLog log = new TransactionLog();
+        transaction = log;
+        try {
+            body.accept(this);
+            transaction = null;
+            commit(log);
+        } catch (RuntimeException | Error e) {
+            transaction = null;
+            rollback(log);
+            throw e;
         }
+    }
 
-        LocalDateTime start = existing.getStartTime();
-        LocalDateTime end = existing.getEndTime();
+    protected boolean inTransaction() {
+        return transaction != null;
+    }
 
-        return !(end.isBefore(newStart) || start.isAfter(newEnd));
+    // запись изменений зафиксированной транзакции; исключение откатывает транзакцию
+    void persistTransaction(TransactionLog log) {
     }
 
-    protected void updateEpicTime(Epic epic) {
-        List<SubTask> subs = getEpicSubtasks(epic.getId());
-        if (subs.isEmpty()) {
-            epic.setStartTime(null);
-            epic.setDuration(Duration.ZERO);
-            epic.setEndTime(null);
-            return;
+    private void commit(TransactionLog log) {
+        List<TimeIntervalIndex.Interval> intervals = new ArrayList<>();
+        for (int id = log.timed.nextSetBit(0); id >= 0; id = log.timed.nextSetBit(id + 1)) {
+            Task task = tasks.containsKey(id) ? tasks.get(id) : subtasks.get(id);
+            if (task != null && task.getStartTime() != null && task.getDuration() != null) {
+                intervals.add(new TimeIntervalIndex.Interval(id, task.getStartTime(), task.getEndTime()));
+            }
+        }
+        intervals.sort(Comparator.comparing(TimeIntervalIndex.Interval::start));
+        TimeIntervalIndex.Interval latest = null;
+        for (TimeIntervalIndex.Interval interval : intervals) {
+            if (latest != null && !latest.end().isBefore(interval.start())
+                    || timeIndex.overlaps(interval.start(), interval.end(), interval.id())) {
+                throw new IllegalArgumentException("Задачи транзакции пересекаются по времени: " + lookup(interval.id()).getTitle());
+            }
+            if (latest == null || interval.end().isAfter(latest.end())) latest = interval;
+        }
+        for (TimeIntervalIndex.Interval interval : intervals) {
+            timeIndex.add(interval.id(), interval.start(), interval.end());
         }
 
-        LocalDateTime start = subs.stream()
-                .map(SubTask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-
-        LocalDateTime end = subs.stream()
-                .map(SubTask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-
-        long totalMinutes = subs.stream()
-                .map(SubTask::getDuration)
-                .filter(Objects::nonNull)
-                .mapToLong(Duration::toMinutes)
-                .sum();
-
-        epic.setStartTime(start);
-        epic.setDuration(Duration.ofMinutes(totalMinutes));
-        epic.setEndTime(end);
-    }
-}
\ No newline at end of file
+        for (Epic epic : log.dirtyEpics.values()) {
+            if (epics.get(epic.getId()) != epic) continue;
+            updateEpicStatus(epic);
+            updateEpicTime(epic);
+        }
+
+        if (!log.isEmpty()) persistTransaction(log);
+
+        for (int id = log.forgotten.nextSetBit(0); id >= 0; id = log.forgotten.nextSetBit(id + 1)) {
+            if (lookup(id) == null) historyManager.remove(id);
+        }
+    }
+
+    // прежние значения возвращаются в хранилища и индексы, затронутые эпики собираются заново;
+    // выданные в транзакции id не возвращаются
+    private void rollback(TransactionLog log) {
+        restore(tasks, log.tasks);
+        restore(subtasks, log.subtasks);
+        for (int id : log.epics.keys()) {
+            Epic previous = log.epics.get(id);
+            if (previous == null) {
+                epics.remove(id);
+            } else {
+                epics.put(id, previous);
+            }
+        }
+
+        for (int id : log.epicStates.keys()) {
+            Epic epic = epics.get(id);
+            if (epic == null) continue;
+            TransactionLog.EpicState state = log.epicStates.get(id);
+            epic.setTitle(state.title());
+            epic.setDescription(state.description());
+            textIndex.put(TaskType.EPIC, epic);
+            epic.clearSubtasks();
+            for (int subId : state.subtaskIds()) {
+                SubTask sub = subtasks.get(subId);
+                if (sub != null) epic.addSubtask(sub);
+            }
+            setEpicStatus(epic, state.status());
+            updateEpicTime(epic);
+        }
+        // просмотры задач, созданных и прочитанных внутри транзакции, не должны пережить откат
+        log.forEachCreated(historyManager::remove);
+    }
+
+    private <T extends Task> void restore(IntObjectMap<T> store, IntObjectMap<T> previous) {
+        for (int id : previous.keys()) {
+            T current = store.get(id);
+            if (current != null) removePrioritized(current);
+            T value = previous.get(id);
+            if (value == null) {
+                store.remove(id);
+            } else {
+                store.put(id, value);
+                addPrioritized(value);
+            }
+        }
+    }
+
+    private void recordTask(int id) {
+        if (transaction != null) transaction.rememberTask(id, tasks.get(id));
+    }
+
+    private void recordEpic(int id) {
+        if (transaction != null) transaction.rememberEpic(id, epics.get(id));
+    }
+
+    private void recordSubtask(int id) {
+        if (transaction != null) transaction.rememberSubtask(id, subtasks.get(id));
+    }
+
+    private void recordEpicState(Epic epic) {
+        if (transaction != null) transaction.rememberEpicState(epic);
+    }
+
+    private void forget(int id) {
+        if (transaction != null) {
+            transaction.forgotten.set(id);
+        } else {
+            historyManager.remove(id);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.IntObjectMap;
+
+/**
+ * Хранилище задач одного типа, которое поддерживает вторичные индексы при каждом put/remove/clear,
+ * поэтому индексы не расходятся с ним ни при обычных вызовах, ни при загрузке из файла или откате транзакции.
+ */
+final class IndexedStore<T extends Task> extends IntObjectMap<T> {
+
+    private final TaskType type;
+    private final TaskIndex[] indexes;
+
+    IndexedStore(TaskType type, TaskIndex... indexes) {
+        this.type = type;
+        this.indexes = indexes;
+    }
+
+    @Override
+    public T put(int key, T value) {
+        T old = super.put(key, value);
+        for (TaskIndex index : indexes) {
+            // индексы ведутся по id, поэтому новая задача просто заменяет прежнюю
+            if (value != null) {
+                index.put(type, value);
+            } else if (old != null) {
+                index.remove(type, old);
+            }
+        }
+        return old;
+    }
+
+    @Override
+    public T remove(int key) {
+        T old = super.remove(key);
+        if (old != null) {
+            for (TaskIndex index : indexes) index.remove(type, old);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        for (TaskIndex index : indexes) index.clear(type);
+    }
+}
@@ -0,0 +1,273 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.*;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Менеджер-обёртка, которая записывает в {@link MetricsSink} задержку каждого вызова и число вызовов
+ * с исключением. Если обёрнут {@link InMemoryTaskManager} или наследник, {@link ConcurrentTaskManager}
+ * или {@link PagedTaskManager}, он тоже получает sink и измеряет внутренние шаги: проверку пересечений
+ * (со счётом просмотренных интервалов), пересчёт эпиков, запись снимка, журнала или страниц
+ * (со счётом записанных байтов). У менеджера один sink: обернуть его второй раз с другим sink нельзя.
+ * <p>
+ * Замер — два вызова {@link System#nanoTime} и запись в sink; вызов передаётся в замер лямбдой,
+ * которую JIT после встраивания обычно не создаёт, а int и boolean возвращаются без упаковки.
+ * Внутри {@link #transaction} body получает эту же обёртку, так что вызовы в транзакции тоже измеряются.
+ */
+public class InstrumentedTaskManager implements TaskManager {
+
+    private final TaskManager delegate;
+    private final MetricsSink sink;
+
+    public InstrumentedTaskManager(TaskManager delegate, MetricsSink sink) {
+        this.delegate = delegate;
+        this.sink = sink;
+        if (delegate instanceof InMemoryTaskManager inMemory) {
+            checkUnmetered(inMemory.getMetrics(), sink);
+            inMemory.setMetrics(sink);
+        } else if (delegate instanceof ConcurrentTaskManager concurrent) {
+            checkUnmetered(concurrent.getMetrics(), sink);
+            concurrent.setMetrics(sink);
+        } else if (delegate instanceof PagedTaskManager paged) {
+            checkUnmetered(paged.getMetrics(), sink);
+            paged.setMetrics(sink);
+        }
+    }
+
+    // замена sink молча оборвала бы метрики первой обёртки
+    private static void checkUnmetered(MetricsSink current, MetricsSink sink) {
+        if (current != MetricsSink.NONE && current != sink) {
+            throw new IllegalStateException("Менеджер уже передаёт внутренние метрики в другой MetricsSink");
+        }
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public MetricsSink getSink() {
+        return sink;
+    }
+
+    @Override
+    public int addTask(Task task) {
+        return timedInt(ManagerOperation.ADD_TASK, () -> delegate.addTask(task));
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return timedInt(ManagerOperation.ADD_EPIC, () -> delegate.addEpic(epic));
+    }
+
+    @Override
+    public int addSubTask(SubTask subtask) {
+        return timedInt(ManagerOperation.ADD_SUBTASK, () -> delegate.addSubTask(subtask));
+    }
+
+    @Override
+    public List<Integer> addAll(List<? extends Task> batch) {
+        return timed(ManagerOperation.ADD_ALL, () -> delegate.addAll(batch));
+    }
+
+    @Override
+    public void importBatch(Collection<? extends Task> batch) {
+        timedRun(ManagerOperation.IMPORT_BATCH, () -> delegate.importBatch(batch));
+    }
+
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        timedRun(ManagerOperation.TRANSACTION, () -> delegate.transaction(manager -> body.accept(this)));
+    }
+
+    @Override
+    public boolean updateTask(Task updatedTask) {
+        return timedBoolean(ManagerOperation.UPDATE_TASK, () -> delegate.updateTask(updatedTask));
+    }
+
+    @Override
+    public boolean updateEpic(Epic updatedEpic) {
+        return timedBoolean(ManagerOperation.UPDATE_EPIC, () -> delegate.updateEpic(updatedEpic));
+    }
+
+    @Override
+    public boolean updateSubtask(SubTask updatedSubtask) {
+        return timedBoolean(ManagerOperation.UPDATE_SUBTASK, () -> delegate.updateSubtask(updatedSubtask));
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        timedRun(ManagerOperation.DELETE_TASK, () -> delegate.deleteTask(id));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        timedRun(ManagerOperation.DELETE_EPIC, () -> delegate.deleteEpic(id));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        timedRun(ManagerOperation.DELETE_SUBTASK, () -> delegate.deleteSubtask(id));
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        timedRun(ManagerOperation.DELETE_ALL_SUBTASKS, () -> delegate.deleteAllSubtasks());
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        timedRun(ManagerOperation.DELETE_ALL_EPICS, () -> delegate.deleteAllEpics());
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        timedRun(ManagerOperation.DELETE_ALL_TASKS, () -> delegate.deleteAllTasks());
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return timed(ManagerOperation.GET_TASK, () -> delegate.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return timed(ManagerOperation.GET_EPIC, () -> delegate.getEpic(id));
+    }
+
+    @Override
+    public SubTask getSubtask(int id) {
+        return timed(ManagerOperation.GET_SUBTASK, () -> delegate.getSubtask(id));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return timed(ManagerOperation.GET_ALL_TASKS, () -> delegate.getAllTasks());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return timed(ManagerOperation.GET_ALL_EPICS, () -> delegate.getAllEpics());
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        return timed(ManagerOperation.GET_ALL_SUBTASKS, () -> delegate.getAllSubTasks());
+    }
+
+    @Override
+    public List<SubTask> getEpicSubtasks(int epicId) {
+        return timed(ManagerOperation.GET_EPIC_SUBTASKS, () -> delegate.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return timed(ManagerOperation.GET_BY_STATUS, () -> delegate.getTasksByStatus(status));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return timed(ManagerOperation.GET_BY_STATUS, () -> delegate.getEpicsByStatus(status));
+    }
+
+    @Override
+    public List<SubTask> getSubtasksByStatus(Status status) {
+        return timed(ManagerOperation.GET_BY_STATUS, () -> delegate.getSubtasksByStatus(status));
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        return timedInt(ManagerOperation.COUNT, () -> delegate.countByStatus(type, status));
+    }
+
+    @Override
+    public int count(TaskType type) {
+        return timedInt(ManagerOperation.COUNT, () -> delegate.count(type));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return timed(ManagerOperation.GET_HISTORY, () -> delegate.getHistory());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return timed(ManagerOperation.GET_PRIORITIZED_TASKS, () -> delegate.getPrioritizedTasks());
+    }
+
+    @Override
+    public Collection<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return timed(ManagerOperation.TIME_RANGE_QUERY, () -> delegate.getTasksStartingBetween(from, to));
+    }
+
+    @Override
+    public Collection<Task> getTasksActiveAt(LocalDateTime instant) {
+        return timed(ManagerOperation.TIME_RANGE_QUERY, () -> delegate.getTasksActiveAt(instant));
+    }
+
+    @Override
+    public Collection<Task> getNextTasks(LocalDateTime from, int limit) {
+        return timed(ManagerOperation.TIME_RANGE_QUERY, () -> delegate.getNextTasks(from, limit));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return timed(ManagerOperation.SEARCH, () -> delegate.search(query, limit));
+    }
+
+    // замер вызова: задержка записывается всегда, исключение ещё и считается; для int и boolean
+    // отдельные варианты, чтобы результат не упаковывался
+    private <T> T timed(ManagerOperation operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            sink.increment(ManagerCounter.FAILED_OPERATIONS, 1);
+            throw e;
+        } finally {
+            sink.recordLatency(operation, System.nanoTime() - start);
+        }
+    }
+
+    private int timedInt(ManagerOperation operation, IntSupplier call) {
+        long start = System.nanoTime();
+        try {
+            return call.getAsInt();
+        } catch (RuntimeException | Error e) {
+            sink.increment(ManagerCounter.FAILED_OPERATIONS, 1);
+            throw e;
+        } finally {
+            sink.recordLatency(operation, System.nanoTime() - start);
+        }
+    }
+
+    private boolean timedBoolean(ManagerOperation operation, BooleanSupplier call) {
+        long start = System.nanoTime();
+        try {
+            return call.getAsBoolean();
+        } catch (RuntimeException | Error e) {
+            sink.increment(ManagerCounter.FAILED_OPERATIONS, 1);
+            throw e;
+        } finally {
+            sink.recordLatency(operation, System.nanoTime() - start);
+        }
+    }
+
+    private void timedRun(ManagerOperation operation, Runnable call) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException | Error e) {
+            sink.increment(ManagerCounter.FAILED_OPERATIONS, 1);
+            throw e;
+        } finally {
+            sink.recordLatency(operation, System.nanoTime() - start);
+        }
+    }
+}
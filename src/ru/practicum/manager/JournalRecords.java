@@ -0,0 +1,56 @@
+package ru.practicum.manager;
+
+import ru.practicum.exception.ManagerSaveException;
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.CsvWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Записи журнала {@link TaskJournal} с контрольной суммой первым полем:
+ * {@code PUT,<поля задачи>}, {@code DELETE,<тип>,<id>} и {@code CLEAR,<тип>}.
+ * Возвращаются без перевода строки (его добавляет сам журнал); буфер переиспользуется, поэтому не потокобезопасно.
+ */
+final class JournalRecords {
+
+    private final StringWriter buffer = new StringWriter();
+    private final CsvWriter csv = CsvWriter.withChecksums(buffer);
+
+    String put(Task task) {
+        try {
+            csv.field("PUT");
+            FileBackedTaskManager.writeFields(csv, task);
+            return end();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи задачи " + task.getId() + " в журнал", e);
+        }
+    }
+
+    String delete(TaskType type, int id) {
+        try {
+            csv.field("DELETE").field(type).field(id);
+            return end();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи удаления " + id + " в журнал", e);
+        }
+    }
+
+    String clear(TaskType type) {
+        try {
+            csv.field("CLEAR").field(type);
+            return end();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи очистки " + type + " в журнал", e);
+        }
+    }
+
+    private String end() throws IOException {
+        csv.endRecord();
+        StringBuffer record = buffer.getBuffer();
+        String result = record.substring(0, record.length() - 1);
+        record.setLength(0);
+        return result;
+    }
+}
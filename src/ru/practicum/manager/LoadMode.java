@@ -0,0 +1,11 @@
+package ru.practicum.manager;
+
+public enum LoadMode {
+    // все задачи читаются и связываются до возврата из loadFromFile
+    EAGER,
+    // при загрузке строится только индекс записей CSV, задачи читаются при первом обращении, см. SnapshotIndex
+    LAZY,
+    // как EAGER, но снимок CSV разбирается кусками, а текстовый индекс, связи эпиков и приоритетный порядок
+    // строятся пакетом в ForkJoinPool.commonPool(), см. ParallelSnapshotReader
+    PARALLEL
+}
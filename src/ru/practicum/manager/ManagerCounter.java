@@ -0,0 +1,11 @@
+package ru.practicum.manager;
+
+public enum ManagerCounter {
+    // вызовы, завершившиеся исключением
+    FAILED_OPERATIONS,
+    // проверки пересечений по времени и просмотренные при них интервалы
+    OVERLAP_CHECKS,
+    OVERLAP_SCANNED,
+    // байты, записанные в снимки и журнал
+    PERSISTED_BYTES
+}
@@ -0,0 +1,39 @@
+package ru.practicum.manager;
+
+// операции, задержки которых записывает InstrumentedTaskManager; последние пять измеряются внутри
+// InMemoryTaskManager и FileBackedTaskManager
+public enum ManagerOperation {
+    ADD_TASK,
+    ADD_EPIC,
+    ADD_SUBTASK,
+    ADD_ALL,
+    IMPORT_BATCH,
+    TRANSACTION,
+    UPDATE_TASK,
+    UPDATE_EPIC,
+    UPDATE_SUBTASK,
+    DELETE_TASK,
+    DELETE_EPIC,
+    DELETE_SUBTASK,
+    DELETE_ALL_TASKS,
+    DELETE_ALL_EPICS,
+    DELETE_ALL_SUBTASKS,
+    GET_TASK,
+    GET_EPIC,
+    GET_SUBTASK,
+    GET_ALL_TASKS,
+    GET_ALL_EPICS,
+    GET_ALL_SUBTASKS,
+    GET_EPIC_SUBTASKS,
+    GET_HISTORY,
+    GET_PRIORITIZED_TASKS,
+    GET_BY_STATUS,
+    COUNT,
+    TIME_RANGE_QUERY,
+    SEARCH,
+    HAS_OVERLAP,
+    UPDATE_EPIC_STATUS,
+    UPDATE_EPIC_TIME,
+    SAVE,
+    JOURNAL_APPEND
+}
@@ -1,13 +1,34 @@
 package ru.practicum.manager;
 
+import java.io.File;
+
 public class Managers {
     public static TaskManager getDefault() {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(getDefaultHistory());
+    }
+
+    // менеджер с отдельной историей для каждой сессии, привязанной через sessionHistory.bind(...)
+    public static TaskManager getWithSessionHistory(SessionHistoryManager sessionHistory) {
+        InMemoryTaskManager manager = new InMemoryTaskManager(sessionHistory);
+        sessionHistory.setTaskLookup(manager::lookup);
+        return manager;
+    }
+
+    // задачи хранятся в страничном файле и создаются при обращении; менеджер нужно закрыть
+    public static PagedTaskManager getPaged(File file) {
+        return new PagedTaskManager(file, getDefaultHistory());
+    }
+
+    // каждый вызов delegate измеряется и записывается в sink, например RecordingMetricsSink
+    public static InstrumentedTaskManager getInstrumented(TaskManager delegate, MetricsSink sink) {
+        return new InstrumentedTaskManager(delegate, sink);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 }
-
-
@@ -0,0 +1,24 @@
+package ru.practicum.manager;
+
+/**
+ * Приёмник метрик {@link InstrumentedTaskManager}. Вызывается на каждой операции и из потока
+ * отложенной записи, поэтому реализация должна быть потокобезопасной и дешёвой: без блокировок
+ * и без выделения памяти. Встроенная реализация — {@link RecordingMetricsSink}; для внешней системы
+ * мониторинга достаточно своей реализации этих двух методов.
+ */
+public interface MetricsSink {
+
+    MetricsSink NONE = new MetricsSink() {
+        @Override
+        public void recordLatency(ManagerOperation operation, long nanos) {
+        }
+
+        @Override
+        public void increment(ManagerCounter counter, long delta) {
+        }
+    };
+
+    void recordLatency(ManagerOperation operation, long nanos);
+
+    void increment(ManagerCounter counter, long delta);
+}
@@ -0,0 +1,613 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.*;
+import ru.practicum.util.IntObjectMap;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Менеджер, хранящий задачи и подзадачи в страничном файле ({@link PagedTaskStore}), а не в куче.
+ * Объекты создаются из записей при обращении, последние прочитанные держатся в небольшом LRU-кэше,
+ * поэтому занятая память зависит от того, к каким задачам обращаются, а не от размера доски.
+ * <p>
+ * В куче остаются только индексы: тип и смещение записи по id, время начала и окончания задач
+ * со временем (для приоритетного порядка и проверки пересечений), а также эпики с агрегатами
+ * по подзадачам — их немного, а статус и сроки эпика пересчитываются при каждом изменении подзадачи.
+ * <p>
+ * Объект, полученный из менеджера, может быть вытеснен из кэша и создан заново,
+ * поэтому изменения сохраняются только через методы update.
+ */
+public class PagedTaskManager implements TaskManager, AutoCloseable {
+
+    public static final int DEFAULT_CACHE_CAPACITY = 1024;
+
+    private final PagedTaskStore store;
+    private final HistoryManager historyManager;
+    private final int cacheCapacity;
+    private final IntObjectMap<Task> cache;
+    private final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    private int nextId;
+    private TransactionLog transaction;
+    private MetricsSink metrics = MetricsSink.NONE;
+
+    // задачи со временем начала в порядке getPrioritizedTasks; у задач без длительности end == null
+    private final NavigableSet<TimeIntervalIndex.Interval> byStart = new TreeSet<>(
+            Comparator.comparing(TimeIntervalIndex.Interval::start)
+                    .thenComparingInt(TimeIntervalIndex.Interval::id)
+    );
+    // задачи без времени начала идут в конце по возрастанию id
+    private final BitSet untimed = new BitSet();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+
+    public PagedTaskManager(File file, HistoryManager historyManager) {
+        this(file, historyManager, DEFAULT_CACHE_CAPACITY);
+    }
+
+    public PagedTaskManager(File file, HistoryManager historyManager, int cacheCapacity) {
+        this(new PagedTaskStore(file), historyManager, cacheCapacity);
+    }
+
+    PagedTaskManager(PagedTaskStore store, HistoryManager historyManager, int cacheCapacity) {
+        if (cacheCapacity <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + cacheCapacity);
+        }
+        this.store = store;
+        this.historyManager = historyManager;
+        this.cacheCapacity = cacheCapacity;
+        this.cache = new IntObjectMap<>(cacheCapacity);
+        restore();
+    }
+
+    // восстановить индексы и эпики по записям, уже лежащим в файле
+    private void restore() {
+        store.forEachId(TaskType.EPIC, id -> epics.put(id, (Epic) store.read(id)));
+        store.forEachId(TaskType.TASK, id -> index(store.read(id)));
+        store.forEachId(TaskType.SUBTASK, id -> {
+            SubTask subtask = (SubTask) store.read(id);
+            index(subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) epic.addSubtask(subtask);
+        });
+        for (Epic epic : epics.values()) {
+            recalculateEpic(epic, null);
+        }
+        nextId = store.maxId() + 1;
+    }
+
+    private int generateId() {
+        int id = nextId;
+        nextId = TaskBatches.advance(nextId, 1);
+        return id;
+    }
+
+    //ADD
+    @Override
+    public int addTask(Task task) {
+        if (task == null) return -1;
+
+        if (hasOverlap(task)) {
+            throw new IllegalArgumentException("Задачи пересекаются по времени: " + task.getTitle());
+        }
+
+        task.setId(generateId());
+        recordTask(task.getId());
+        store.put(task);
+        cache(task);
+        index(task);
+        return task.getId();
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        if (epic == null) return -1;
+        epic.setId(generateId());
+        recordEpic(epic.getId());
+        store.put(epic);
+        epics.put(epic.getId(), epic);
+        return epic.getId();
+    }
+
+    @Override
+    public int addSubTask(SubTask subtask) {
+        if (subtask == null) return -1;
+
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null) return -1;
+
+        if (hasOverlap(subtask)) {
+            throw new IllegalArgumentException("Подзадача пересекается по времени: " + subtask.getTitle());
+        }
+
+        subtask.setId(generateId());
+        recordSubtask(subtask.getId());
+        recordEpicState(epic);
+        store.put(subtask);
+        cache(subtask);
+        index(subtask);
+        recalculateEpic(epic, subtask);
+        return subtask.getId();
+    }
+
+    // BATCH
+
+    // пакет проверяется целиком до записи в файл, поэтому отклонённый пакет не меняет менеджер
+    @Override
+    public List<Integer> addAll(List<? extends Task> batch) {
+        List<? extends Task> list = new ArrayList<>(batch);
+        int[] ids = new int[list.size()];
+        int next = TaskBatches.advance(nextId, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextId + i;
+        }
+        TaskBatches.validate(list, ids, epics::containsKey, timeIndex);
+        nextId = next;
+        applyBatch(list, ids);
+        return TaskBatches.asList(ids);
+    }
+
+    @Override
+    public void importBatch(Collection<? extends Task> batch) {
+        List<? extends Task> list = new ArrayList<>(batch);
+        int[] ids = TaskBatches.importIds(list, id -> store.typeOf(id) != null);
+        TaskBatches.validate(list, ids, epics::containsKey, timeIndex);
+        applyBatch(list, ids);
+        nextId = Math.max(nextId, TaskBatches.maxId(ids) + 1);
+    }
+
+    // эпики добавляются первыми, чтобы подзадачи нашли их независимо от порядка в пакете;
+    // статус и сроки каждого затронутого эпика пересчитываются один раз
+    private void applyBatch(List<? extends Task> batch, int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            if (batch.get(i) instanceof Epic epic) {
+                epic.setId(ids[i]);
+                recordEpic(epic.getId());
+                epic.clearSubtasks();
+                store.put(epic);
+                epics.put(epic.getId(), epic);
+            }
+        }
+        IntObjectMap<Epic> touched = new IntObjectMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = batch.get(i);
+            if (task.getType() == TaskType.EPIC) continue;
+            task.setId(ids[i]);
+            if (task instanceof SubTask) {
+                recordSubtask(task.getId());
+            } else {
+                recordTask(task.getId());
+            }
+            store.put(task);
+            cache(task);
+            index(task);
+            if (task instanceof SubTask sub) {
+                Epic epic = epics.get(sub.getEpicId());
+                recordEpicState(epic);
+                epic.addSubtask(sub);
+                touched.put(epic.getId(), epic);
+            }
+        }
+        for (Epic epic : touched.values()) {
+            recalculateEpic(epic, null);
+        }
+    }
+
+    // TRANSACTION
+
+    // изменения внутри body сразу пишутся в файл; исключение из body возвращает прежние записи,
+    // а удаление из истории откладывается до фиксации. Пересечения проверяются каждой операцией,
+    // как и вне транзакции. Выданные в транзакции id при откате не возвращаются
+    @Override
+    public void transaction(Consumer<TaskManager> body) {
+        if (transaction != null) throw new IllegalStateException("Транзакция уже выполняется");
+        TransactionLog log = new TransactionLog();
+        transaction = log;
+        try {
+            body.accept(this);
+            transaction = null;
+        } catch (RuntimeException | Error e) {
+            transaction = null;
+            rollback(log);
+            throw e;
+        }
+        for (int id = log.forgotten.nextSetBit(0); id >= 0; id = log.forgotten.nextSetBit(id + 1)) {
+            if (store.typeOf(id) == null) historyManager.remove(id);
+        }
+    }
+
+    // прежние записи возвращаются в файл и индексы, затронутые эпики собираются заново
+    private void rollback(TransactionLog log) {
+        restore(log.tasks);
+        restore(log.subtasks);
+        for (int id : log.epics.keys()) {
+            Epic previous = log.epics.get(id);
+            if (previous != null) {
+                epics.put(id, previous);
+            } else if (epics.remove(id) != null) {
+                store.delete(id);
+            }
+        }
+
+        for (int id : log.epicStates.keys()) {
+            Epic epic = epics.get(id);
+            if (epic == null) continue;
+            TransactionLog.EpicState state = log.epicStates.get(id);
+            epic.setTitle(state.title());
+            epic.setDescription(state.description());
+            epic.clearSubtasks();
+            for (int subId : state.subtaskIds()) {
+                if (store.contains(subId, TaskType.SUBTASK)) epic.addSubtask((SubTask) peek(subId));
+            }
+            recalculateEpic(epic, null);
+            store.put(epic);
+        }
+        log.forEachCreated(historyManager::remove);
+    }
+
+    private void restore(IntObjectMap<? extends Task> previous) {
+        for (int id : previous.keys()) {
+            if (store.typeOf(id) != null) {
+                unindex(peek(id));
+                store.delete(id);
+            }
+            cache.remove(id);
+            Task value = previous.get(id);
+            if (value != null) {
+                store.put(value);
+                index(value);
+            }
+        }
+    }
+
+    // прежнее значение читается из файла, а не из кэша: объект из кэша мог быть изменён снаружи
+    private void recordTask(int id) {
+        if (transaction != null) {
+            transaction.rememberTask(id, store.contains(id, TaskType.TASK) ? store.read(id) : null);
+        }
+    }
+
+    private void recordSubtask(int id) {
+        if (transaction != null) {
+            transaction.rememberSubtask(id, store.contains(id, TaskType.SUBTASK) ? (SubTask) store.read(id) : null);
+        }
+    }
+
+    private void recordEpic(int id) {
+        if (transaction != null) transaction.rememberEpic(id, epics.get(id));
+    }
+
+    private void recordEpicState(Epic epic) {
+        if (transaction != null) transaction.rememberEpicState(epic);
+    }
+
+    // в транзакции удаление из истории ждёт фиксации: откат возвращает задачу вместе с просмотрами
+    private void forget(int id) {
+        if (transaction != null) {
+            transaction.forgotten.set(id);
+        } else {
+            historyManager.remove(id);
+        }
+    }
+
+    // UPDATE
+    @Override
+    public boolean updateTask(Task updatedTask) {
+        if (updatedTask == null || !store.contains(updatedTask.getId(), TaskType.TASK)) return false;
+
+        Task old = peek(updatedTask.getId());
+        unindex(old);
+
+        if (hasOverlap(updatedTask)) {
+            index(old);
+            throw new IllegalArgumentException("Обновление приводит к пересечению: " + updatedTask.getTitle());
+        }
+
+        recordTask(updatedTask.getId());
+        store.put(updatedTask);
+        cache(updatedTask);
+        index(updatedTask);
+        return true;
+    }
+
+    @Override
+    public boolean updateEpic(Epic updatedEpic) {
+        Epic existingEpic = epics.get(updatedEpic.getId());
+        if (existingEpic == null) return false;
+        recordEpicState(existingEpic);
+        existingEpic.setTitle(updatedEpic.getTitle());
+        existingEpic.setDescription(updatedEpic.getDescription());
+        store.put(existingEpic);
+        return true;
+    }
+
+    @Override
+    public boolean updateSubtask(SubTask updatedSubtask) {
+        if (updatedSubtask == null || !store.contains(updatedSubtask.getId(), TaskType.SUBTASK)) return false;
+
+        Epic epic = epics.get(updatedSubtask.getEpicId());
+        if (epic == null) return false;
+
+        SubTask old = (SubTask) peek(updatedSubtask.getId());
+        unindex(old);
+
+        if (hasOverlap(updatedSubtask)) {
+            index(old);
+            throw new IllegalArgumentException("Обновление подзадачи приводит к пересечению: " + updatedSubtask.getTitle());
+        }
+
+        recordSubtask(updatedSubtask.getId());
+        recordEpicState(epic);
+        store.put(updatedSubtask);
+        cache(updatedSubtask);
+        index(updatedSubtask);
+
+        // подзадача перенесена в другой эпик
+        Epic oldEpic = epics.get(old.getEpicId());
+        if (oldEpic != null && oldEpic != epic) {
+            recordEpicState(oldEpic);
+            oldEpic.removeSubtask(old.getId());
+            recalculateEpic(oldEpic, null);
+        }
+
+        recalculateEpic(epic, updatedSubtask);
+        return true;
+    }
+
+    // DELETE
+    @Override
+    public void deleteTask(int id) {
+        if (!store.contains(id, TaskType.TASK)) return;
+        recordTask(id);
+        unindex(peek(id));
+        store.delete(id);
+        cache.remove(id);
+        forget(id);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        if (!epics.containsKey(id)) return;
+        recordEpic(id);
+        Epic epic = epics.remove(id);
+        forget(id);
+        for (int subId : epic.getSubtaskIdArray()) {
+            if (!store.contains(subId, TaskType.SUBTASK)) continue;
+            recordSubtask(subId);
+            unindex(peek(subId));
+            store.delete(subId);
+            cache.remove(subId);
+            forget(subId);
+        }
+        store.delete(id);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        if (!store.contains(id, TaskType.SUBTASK)) return;
+        recordSubtask(id);
+        SubTask removed = (SubTask) peek(id);
+        unindex(removed);
+        store.delete(id);
+        cache.remove(id);
+        forget(id);
+
+        Epic epic = epics.get(removed.getEpicId());
+        if (epic != null) {
+            recordEpicState(epic);
+            epic.removeSubtask(id);
+            recalculateEpic(epic, null);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        epics.values().forEach(this::recordEpicState);
+        clearType(TaskType.SUBTASK);
+        for (Epic epic : epics.values()) {
+            epic.clearSubtasks();
+            recalculateEpic(epic, null);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        clearType(TaskType.SUBTASK);
+        epics.forEachKey(id -> {
+            recordEpic(id);
+            forget(id);
+        });
+        epics.clear();
+        store.clear(TaskType.EPIC);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        clearType(TaskType.TASK);
+    }
+
+    //GET
+    @Override
+    public Task getTask(int id) {
+        if (!store.contains(id, TaskType.TASK)) return null;
+        Task task = load(id);
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public SubTask getSubtask(int id) {
+        if (!store.contains(id, TaskType.SUBTASK)) return null;
+        SubTask subtask = (SubTask) load(id);
+        historyManager.add(subtask);
+        return subtask;
+    }
+
+    // полные списки читаются из файла, не вытесняя из кэша задачи, к которым обращаются по id
+    @Override
+    public List<Task> getAllTasks() {
+        List<Task> result = new ArrayList<>();
+        store.forEachId(TaskType.TASK, id -> result.add(peek(id)));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return List.copyOf(epics.values());
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        List<SubTask> result = new ArrayList<>();
+        store.forEachId(TaskType.SUBTASK, id -> result.add((SubTask) peek(id)));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<SubTask> getEpicSubtasks(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) return List.of();
+
+        List<SubTask> result = new ArrayList<>(epic.getSubtaskIdSet().size());
+        epic.forEachSubtaskId(id -> result.add((SubTask) peek(id)));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> result = new ArrayList<>(byStart.size() + untimed.cardinality());
+        for (TimeIntervalIndex.Interval interval : byStart) {
+            result.add(peek(interval.id()));
+        }
+        untimed.stream().forEach(id -> result.add(peek(id)));
+        return Collections.unmodifiableList(result);
+    }
+
+    public int getCacheCapacity() {
+        return cacheCapacity;
+    }
+
+    // сколько задач сейчас держится в кэше
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    // сбросить изменённые страницы файла на диск
+    public void sync() {
+        store.sync();
+    }
+
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    MetricsSink getMetrics() {
+        return metrics;
+    }
+
+    // sink для внутренних шагов: проверки пересечений, пересчёта эпиков и записи в файл
+    void setMetrics(MetricsSink metrics) {
+        this.metrics = metrics;
+        store.setMetrics(metrics);
+    }
+
+    // задача из кэша или из файла; прочитанная из файла попадает в кэш
+    private Task load(int id) {
+        Task task = cache.remove(id);
+        if (task == null) task = store.read(id);
+        cache(task);
+        return task;
+    }
+
+    // задача из кэша или из файла без изменения кэша
+    private Task peek(int id) {
+        Task task = cache.get(id);
+        return task != null ? task : store.read(id);
+    }
+
+    private void cache(Task task) {
+        if (cache.remove(task.getId()) == null && cache.size() == cacheCapacity) {
+            cache.remove(cache.firstKey());
+        }
+        cache.put(task.getId(), task);
+    }
+
+    private void clearType(TaskType type) {
+        store.forEachId(type, id -> {
+            if (type == TaskType.SUBTASK) {
+                recordSubtask(id);
+            } else {
+                recordTask(id);
+            }
+            forget(id);
+            cache.remove(id);
+            untimed.clear(id);
+            timeIndex.remove(id);
+        });
+        byStart.removeIf(interval -> store.typeOf(interval.id()) == type);
+        store.clear(type);
+    }
+
+    private void index(Task task) {
+        if (task.getStartTime() == null) {
+            untimed.set(task.getId());
+            return;
+        }
+        byStart.add(new TimeIntervalIndex.Interval(task.getId(), task.getStartTime(), task.getEndTime()));
+        if (task.getEndTime() != null) {
+            timeIndex.add(task.getId(), task.getStartTime(), task.getEndTime());
+        }
+    }
+
+    private void unindex(Task task) {
+        untimed.clear(task.getId());
+        if (task.getStartTime() != null) {
+            byStart.remove(new TimeIntervalIndex.Interval(task.getId(), task.getStartTime(), null));
+        }
+        timeIndex.remove(task.getId());
+    }
+
+    private boolean hasOverlap(Task task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null || end == null) return false;
+        if (metrics == MetricsSink.NONE) return timeIndex.overlaps(start, end, task.getId());
+
+        long begin = System.nanoTime();
+        long scanned = timeIndex.scanned();
+        boolean overlaps = timeIndex.overlaps(start, end, task.getId());
+        metrics.recordLatency(ManagerOperation.HAS_OVERLAP, System.nanoTime() - begin);
+        metrics.increment(ManagerCounter.OVERLAP_CHECKS, 1);
+        metrics.increment(ManagerCounter.OVERLAP_SCANNED, timeIndex.scanned() - scanned);
+        return overlaps;
+    }
+
+    // учесть изменённую подзадачу (если есть) и пересчитать статус и сроки эпика
+    private void recalculateEpic(Epic epic, SubTask changed) {
+        if (changed != null) epic.addSubtask(changed);
+        long start = metrics == MetricsSink.NONE ? 0 : System.nanoTime();
+        epic.setStatus(epic.calculateStatus());
+        long statusDone = metrics == MetricsSink.NONE ? 0 : System.nanoTime();
+        epic.setStartTime(epic.getSubtasksStart());
+        epic.setDuration(epic.getSubtasksDuration());
+        epic.setEndTime(epic.getSubtasksEnd());
+        if (metrics != MetricsSink.NONE) {
+            metrics.recordLatency(ManagerOperation.UPDATE_EPIC_STATUS, statusDone - start);
+            metrics.recordLatency(ManagerOperation.UPDATE_EPIC_TIME, System.nanoTime() - statusDone);
+        }
+    }
+}
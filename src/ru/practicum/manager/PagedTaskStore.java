@@ -0,0 +1,394 @@
+package ru.practicum.manager;
+
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.exception.ManagerSaveException;
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.IntObjectMap;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Записи задач в отображённом в память файле, разбитом на страницы по {@link #PAGE_SIZE} байт.
+ * <pre>
+ * страница 0:  "JKPS" (4 байта), версия (int), конец записанных данных (long),
+ *              наибольший id на момент последнего сжатия (int)
+ * записи:      длина (int, больше нуля), операция (1 байт), далее
+ *              PUT    — задача в формате записи {@link BinarySnapshot} со строками внутри записи
+ *              DELETE — id (varint)
+ *              CLEAR  — тип (1 байт)
+ * </pre>
+ * Записи только дописываются: новая версия задачи ложится в конец, а индекс id → смещение
+ * указывает на последнюю. Запись, не помещающаяся в остаток страницы, начинается со следующей страницы,
+ * а границу сегмента отображения не пересекает никогда, поэтому пропуски в файле всегда заполнены нулями
+ * и при открытии файл читается тем же правилом.
+ * <p>
+ * Когда устаревшие записи занимают больше живых и не меньше сегмента, живые записи переписываются
+ * в новый файл, который атомарно заменяет старый: файл не растёт без предела при повторных изменениях.
+ * <p>
+ * Индекс — разреженное отображение id → запись: в старшем байте тип задачи, в остальных смещение записи.
+ */
+final class PagedTaskStore implements Closeable {
+
+    static final int PAGE_SIZE = 4096;
+    static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private static final byte[] MAGIC = {'J', 'K', 'P', 'S'};
+    private static final int VERSION = 1;
+    private static final int END_POSITION = 8;
+    private static final int MAX_ID_POSITION = 16;
+
+    private static final int OP_PUT = 1;
+    private static final int OP_DELETE = 2;
+    private static final int OP_CLEAR = 3;
+
+    private static final int TYPE_SHIFT = 56;
+    private static final long OFFSET_MASK = (1L << TYPE_SHIFT) - 1;
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final File file;
+    private final int segmentSize;
+    private FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private long end;
+    private IntObjectMap<Long> index = new IntObjectMap<>();
+    private int maxId;
+    // байты живых записей вместе с их длинами; остальное после заголовка — устаревшие записи и пропуски
+    private long liveBytes;
+    private MetricsSink metrics = MetricsSink.NONE;
+
+    PagedTaskStore(File file) {
+        this(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    PagedTaskStore(File file, int segmentSize) {
+        if (segmentSize < PAGE_SIZE * 2 || segmentSize % PAGE_SIZE != 0) {
+            throw new IllegalArgumentException("Размер сегмента должен быть кратен странице: " + segmentSize);
+        }
+        this.file = file;
+        this.segmentSize = segmentSize;
+        try {
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new ManagerLoadException("Не удалось открыть хранилище задач: " + file.getName(), e);
+        }
+        try {
+            init();
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof RuntimeException runtime) throw runtime;
+            throw new ManagerLoadException("Не удалось открыть хранилище задач: " + file.getName(), e);
+        }
+    }
+
+    private void init() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize > 0 && fileSize < PAGE_SIZE) {
+            throw new ManagerLoadException("Файл не является страничным хранилищем задач: " + file.getName());
+        }
+        map(Math.max(fileSize, PAGE_SIZE));
+        MappedByteBuffer header = segments.get(0);
+        if (fileSize == 0) {
+            header.put(0, MAGIC);
+            header.putInt(MAGIC.length, VERSION);
+            end = PAGE_SIZE;
+            header.putLong(END_POSITION, end);
+        } else {
+            open(header);
+        }
+    }
+
+    private void open(MappedByteBuffer header) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        header.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new ManagerLoadException("Файл не является страничным хранилищем задач: " + file.getName());
+        }
+        int version = header.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new ManagerLoadException("Неподдерживаемая версия хранилища " + version + ": " + file.getName());
+        }
+        end = header.getLong(END_POSITION);
+        maxId = header.getInt(MAX_ID_POSITION);
+        if (end < PAGE_SIZE || end > channel.size() || maxId < 0 || maxId > TaskBatches.MAX_ID) {
+            throw new ManagerLoadException("Повреждённый заголовок хранилища: " + file.getName());
+        }
+
+        long position = PAGE_SIZE;
+        while (position < end) {
+            int length = PAGE_SIZE - position % PAGE_SIZE >= Integer.BYTES ? intAt(position) : 0;
+            if (length == 0) {
+                // запись перенесена на следующую страницу, а с начала страницы — на следующий сегмент
+                position = position % PAGE_SIZE == 0 ? alignUp(position + 1, segmentSize) : alignUp(position, PAGE_SIZE);
+                continue;
+            }
+            DataInputStream in = recordAt(position, length);
+            switch (in.readUnsignedByte()) {
+                case OP_PUT -> {
+                    TaskType type = checkedType(in.readUnsignedByte(), position);
+                    in.readUnsignedByte();
+                    setEntry(checkedId(BinarySnapshot.readVarLong(in), position), type, position);
+                }
+                case OP_DELETE -> setEntry(checkedId(BinarySnapshot.readVarLong(in), position), null, 0);
+                case OP_CLEAR -> clearEntries(checkedType(in.readUnsignedByte(), position));
+                default -> throw new ManagerLoadException("Повреждённая запись хранилища по смещению " + position);
+            }
+            position += Integer.BYTES + length;
+        }
+    }
+
+    int maxId() {
+        return maxId;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    // занятое место в файле, включая устаревшие версии записей
+    long usedBytes() {
+        return end;
+    }
+
+    TaskType typeOf(int id) {
+        long entry = entry(id);
+        return entry == 0 ? null : typeOfEntry(entry);
+    }
+
+    boolean contains(int id, TaskType type) {
+        return typeOf(id) == type;
+    }
+
+    // id живых задач указанного типа по возрастанию; action может менять хранилище
+    void forEachId(TaskType type, IntConsumer action) {
+        long typeBits = (long) (type.ordinal() + 1) << TYPE_SHIFT;
+        int[] ids = index.keys();
+        int count = 0;
+        for (int id : ids) {
+            if ((index.get(id) & ~OFFSET_MASK) == typeBits) ids[count++] = id;
+        }
+        Arrays.sort(ids, 0, count);
+        for (int i = 0; i < count; i++) {
+            action.accept(ids[i]);
+        }
+    }
+
+    Task read(int id) {
+        long entry = entry(id);
+        if (entry == 0) return null;
+        long position = entry & OFFSET_MASK;
+        try {
+            DataInputStream in = recordAt(position, intAt(position));
+            in.readUnsignedByte();
+            return BinarySnapshot.readRecord(in, BinarySnapshot::readInline);
+        } catch (IOException e) {
+            throw new ManagerLoadException("Не удалось прочитать задачу " + id + " из " + file.getName(), e);
+        }
+    }
+
+    void put(Task task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(OP_PUT);
+            BinarySnapshot.writeRecord(out, task, BinarySnapshot::writeInline);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать задачу " + task.getId(), e);
+        }
+        setEntry(task.getId(), task.getType(), append(bytes.toByteArray()));
+        compactIfWasteful();
+    }
+
+    void delete(int id) {
+        if (entry(id) == 0) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+        bytes.write(OP_DELETE);
+        try {
+            BinarySnapshot.writeVarLong(new DataOutputStream(bytes), Integer.toUnsignedLong(id));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось удалить задачу " + id, e);
+        }
+        append(bytes.toByteArray());
+        setEntry(id, null, 0);
+        compactIfWasteful();
+    }
+
+    void clear(TaskType type) {
+        append(new byte[]{OP_CLEAR, (byte) type.ordinal()});
+        clearEntries(type);
+        compactIfWasteful();
+    }
+
+    // живые записи по возрастанию id переписываются в соседний файл, который после сброса на диск
+    // атомарно заменяет этот; при ошибке остаётся прежний файл
+    void compact() {
+        File target = new File(file.getPath() + ".compact");
+        target.delete();
+        PagedTaskStore compacted = new PagedTaskStore(target, segmentSize);
+        compacted.metrics = metrics;
+        try {
+            int[] ids = index.keys();
+            Arrays.sort(ids);
+            for (int id : ids) {
+                long entry = index.get(id);
+                long position = entry & OFFSET_MASK;
+                compacted.setEntry(id, typeOfEntry(entry), compacted.append(recordBytes(position, intAt(position))));
+            }
+            compacted.maxId = maxId;
+            compacted.segments.get(0).putInt(MAX_ID_POSITION, maxId);
+            compacted.sync();
+            Files.move(target.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            try {
+                compacted.channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            target.delete();
+            throw new ManagerSaveException("Не удалось сжать хранилище задач: " + file.getName(), e);
+        }
+
+        FileChannel previous = channel;
+        channel = compacted.channel;
+        segments.clear();
+        segments.addAll(compacted.segments);
+        end = compacted.end;
+        index = compacted.index;
+        liveBytes = compacted.liveBytes;
+        try {
+            previous.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть хранилище задач: " + file.getName(), e);
+        }
+    }
+
+    // записанные байты, включая переписанные при сжатии, считаются в PERSISTED_BYTES
+    void setMetrics(MetricsSink metrics) {
+        this.metrics = metrics;
+    }
+
+    // сбросить изменённые страницы на диск
+    void sync() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() {
+        try {
+            sync();
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть хранилище задач: " + file.getName(), e);
+        }
+    }
+
+    private long append(byte[] record) {
+        int size = Integer.BYTES + record.length;
+        if (size > segmentSize) {
+            throw new ManagerSaveException("Запись длиной " + size + " байт не помещается в сегмент хранилища");
+        }
+        long position = end;
+        if (size > PAGE_SIZE - position % PAGE_SIZE) position = alignUp(position, PAGE_SIZE);
+        if (size > segmentSize - position % segmentSize) position = alignUp(position, segmentSize);
+        try {
+            map(position + size);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось расширить хранилище задач: " + file.getName(), e);
+        }
+
+        MappedByteBuffer segment = segments.get((int) (position / segmentSize));
+        int offset = (int) (position % segmentSize);
+        segment.putInt(offset, record.length);
+        segment.put(offset + Integer.BYTES, record);
+        end = position + size;
+        segments.get(0).putLong(END_POSITION, end);
+        metrics.increment(ManagerCounter.PERSISTED_BYTES, size);
+        return position;
+    }
+
+    private void map(long limit) throws IOException {
+        while ((long) segments.size() * segmentSize < limit) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+        }
+    }
+
+    private int intAt(long position) {
+        return segments.get((int) (position / segmentSize)).getInt((int) (position % segmentSize));
+    }
+
+    private DataInputStream recordAt(long position, int length) {
+        return new DataInputStream(new ByteArrayInputStream(recordBytes(position, length)));
+    }
+
+    private byte[] recordBytes(long position, int length) {
+        if (length < 0 || position + Integer.BYTES + length > (long) segments.size() * segmentSize) {
+            throw new ManagerLoadException("Повреждённая запись хранилища по смещению " + position);
+        }
+        byte[] bytes = new byte[length];
+        segments.get((int) (position / segmentSize)).get((int) (position % segmentSize) + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+    private long entry(int id) {
+        Long entry = index.get(id);
+        return entry == null ? 0 : entry;
+    }
+
+    private static TaskType typeOfEntry(long entry) {
+        return TYPES[(int) (entry >>> TYPE_SHIFT) - 1];
+    }
+
+    private void setEntry(int id, TaskType type, long position) {
+        if (id <= 0) return;
+        Long previous = type == null
+                ? index.remove(id)
+                : index.put(id, (long) (type.ordinal() + 1) << TYPE_SHIFT | position);
+        if (previous != null) liveBytes -= Integer.BYTES + intAt(previous & OFFSET_MASK);
+        if (type != null) {
+            maxId = Math.max(maxId, id);
+            liveBytes += Integer.BYTES + intAt(position);
+        }
+    }
+
+    private void compactIfWasteful() {
+        long dead = end - PAGE_SIZE - liveBytes;
+        if (dead >= segmentSize && dead > liveBytes) compact();
+    }
+
+    private static TaskType checkedType(int ordinal, long position) {
+        if (ordinal >= TYPES.length) {
+            throw new ManagerLoadException("Повреждённая запись хранилища по смещению " + position + ": тип " + ordinal);
+        }
+        return TYPES[ordinal];
+    }
+
+    // id записи из файла: от 1 до MAX_ID, как у задач менеджера
+    private static int checkedId(long id, long position) {
+        if (id <= 0 || id > TaskBatches.MAX_ID) {
+            throw new ManagerLoadException("Повреждённая запись хранилища по смещению " + position + ": id " + id);
+        }
+        return (int) id;
+    }
+
+    private void clearEntries(TaskType type) {
+        forEachId(type, id -> setEntry(id, null, 0));
+    }
+
+    private static long alignUp(long position, long alignment) {
+        return (position + alignment - 1) / alignment * alignment;
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.util.CsvReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Параллельный разбор снимка CSV для {@link LoadMode#PARALLEL}.
+ * <p>
+ * Файл отображается в память и делится на куски по границам записей. Перевод строки — граница записи,
+ * если перед ним в файле чётное число кавычек: удвоенная кавычка внутри поля чётность не меняет.
+ * Кавычки в кусках считаются параллельно, чётность на начале куска складывается из предыдущих,
+ * и границы ищутся сразу во всех кусках. Куски разбираются {@link CsvReader} в ForkJoinPool.commonPool()
+ * и склеиваются в порядке файла.
+ * <p>
+ * Разбирается только целый снимок с контрольными суммами. Если заголовок другой или в файле есть
+ * неверная запись, возвращается null, и вызывающий читает файл последовательно через
+ * {@link ChecksummedRecords}: там решается, что делать с оборванным хвостом и записями старого формата.
+ */
+final class ParallelSnapshotReader {
+
+    // меньше байт на кусок не окупает отдельную задачу
+    private static final int MIN_CHUNK = 1 << 16;
+    private static final byte[] HEADER = (FileBackedTaskManager.HEADER + "\n").getBytes(StandardCharsets.UTF_8);
+
+    private ParallelSnapshotReader() {
+    }
+
+    // задачи снимка в порядке файла или null, если файл нужно читать последовательно
+    static List<Task> read(File file) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < HEADER.length) return null;
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (bytes.get(i) != HEADER[i]) return null;
+        }
+
+        int[] bounds = boundaries(bytes, HEADER.length);
+        List<List<Task>> chunks = IntStream.range(0, bounds.length - 1).parallel()
+                .mapToObj(i -> parse(bytes.slice(bounds[i], bounds[i + 1] - bounds[i])))
+                .toList();
+        int total = 0;
+        for (List<Task> chunk : chunks) {
+            if (chunk == null) return null;
+            total += chunk.size();
+        }
+        List<Task> tasks = new ArrayList<>(total);
+        for (List<Task> chunk : chunks) tasks.addAll(chunk);
+        return tasks;
+    }
+
+    // начала кусков от start до конца файла; последний элемент — размер файла
+    private static int[] boundaries(ByteBuffer bytes, int start) {
+        int size = bytes.limit();
+        int chunks = (int) Math.max(1, Math.min((size - start) / MIN_CHUNK,
+                ForkJoinPool.getCommonPoolParallelism() * 4L));
+        int[] raw = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++) raw[i] = (int) (start + (long) (size - start) * i / chunks);
+
+        int[] quotes = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            int count = 0;
+            for (int p = raw[i]; p < raw[i + 1]; p++) {
+                if (bytes.get(p) == '"') count++;
+            }
+            quotes[i] = count;
+        });
+        boolean[] odd = new boolean[chunks];
+        for (int i = 1; i < chunks; i++) odd[i] = odd[i - 1] ^ (quotes[i - 1] & 1) == 1;
+
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        bounds[chunks] = size;
+        // запись длиннее куска: граница найдётся дальше, и соседние куски получат одинаковое начало
+        IntStream.range(1, chunks).parallel().forEach(i -> bounds[i] = nextRecord(bytes, raw[i], odd[i]));
+        return bounds;
+    }
+
+    private static int nextRecord(ByteBuffer bytes, int from, boolean odd) {
+        for (int p = from; p < bytes.limit(); p++) {
+            byte b = bytes.get(p);
+            if (b == '"') {
+                odd = !odd;
+            } else if (b == '\n' && !odd) {
+                return p + 1;
+            }
+        }
+        return bytes.limit();
+    }
+
+    // null, если в куске есть запись без верной контрольной суммы или незакрытые кавычки
+    private static List<Task> parse(ByteBuffer chunk) {
+        List<Task> tasks = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new InputStreamReader(new BufferInputStream(chunk), StandardCharsets.UTF_8))) {
+            while (csv.next()) {
+                if (csv.isBlankRecord()) continue;
+                if (!csv.isChecksummed() || !csv.checksumMatches()) return null;
+                tasks.add(FileBackedTaskManager.readFields(csv, 1));
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return tasks;
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.manager;
+
+import ru.practicum.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Встроенный приёмник метрик: гистограмма задержек на каждую операцию и счётчики. Всё создаётся
+ * заранее, так что запись не выделяет память. Метрики читаются через методы класса или JMX
+ * после {@link #registerMBean}.
+ */
+public class RecordingMetricsSink implements MetricsSink, TaskManagerMetricsMXBean {
+
+    private static final ManagerOperation[] OPERATIONS = ManagerOperation.values();
+    private static final ManagerCounter[] COUNTERS = ManagerCounter.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] counters = new LongAdder[COUNTERS.length];
+
+    public RecordingMetricsSink() {
+        for (int i = 0; i < latencies.length; i++) latencies[i] = new LatencyHistogram();
+        for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+    }
+
+    @Override
+    public void recordLatency(ManagerOperation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void increment(ManagerCounter counter, long delta) {
+        counters[counter.ordinal()].add(delta);
+    }
+
+    public LatencyHistogram.Snapshot latency(ManagerOperation operation) {
+        return latencies[operation.ordinal()].snapshot();
+    }
+
+    public long count(ManagerOperation operation) {
+        return latencies[operation.ordinal()].count();
+    }
+
+    public long counter(ManagerCounter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    // регистрирует метрики в платформенном MBeanServer как ru.practicum:type=TaskManagerMetrics,name=<name>
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики " + name + " в JMX", e);
+        }
+    }
+
+    public void unregisterMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось снять регистрацию метрик " + name + " в JMX", e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ManagerCounter counter : COUNTERS) result.put(counter.name(), counter(counter));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ManagerOperation operation : OPERATIONS) {
+            long count = count(operation);
+            if (count > 0) result.put(operation.name(), count);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (ManagerOperation operation : OPERATIONS) {
+            LatencyHistogram.Snapshot snapshot = latency(operation);
+            if (snapshot.count() > 0) result.put(operation.name(), snapshot.mean() / 1000);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros() {
+        return micros(LatencyHistogram.Snapshot::p50);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return micros(LatencyHistogram.Snapshot::p99);
+    }
+
+    @Override
+    public Map<String, Double> getP999Micros() {
+        return micros(LatencyHistogram.Snapshot::p999);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros() {
+        return micros(LatencyHistogram.Snapshot::max);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram latency : latencies) latency.reset();
+        for (LongAdder counter : counters) counter.reset();
+    }
+
+    private Map<String, Double> micros(ToLongFunction<LatencyHistogram.Snapshot> value) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (ManagerOperation operation : OPERATIONS) {
+            LatencyHistogram.Snapshot snapshot = latency(operation);
+            if (snapshot.count() > 0) result.put(operation.name(), value.applyAsLong(snapshot) / 1000.0);
+        }
+        return result;
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("ru.practicum:type=TaskManagerMetrics,name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.manager;
+
+/**
+ * Размер полнотекстового индекса {@link InMemoryTaskManager}.
+ *
+ * @param documents      сколько задач проиндексировано
+ * @param terms          различных слов в словаре
+ * @param postings       сколько пар слово — задача хранится
+ * @param estimatedBytes оценка памяти под индекс сверх самих задач: словарь, списки id и слова каждой задачи;
+ *                       считается по размерам объектов 64-битной JVM со сжатыми указателями
+ */
+public record SearchIndexStats(int documents, int terms, long postings, long estimatedBytes) {
+}
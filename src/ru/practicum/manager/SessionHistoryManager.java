@@ -0,0 +1,260 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.util.IntObjectMap;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * История просмотров, раздельная для каждой сессии (пользователя), над общим хранилищем задач.
+ * <p>
+ * Сессия хранит только id последних просмотренных задач в маленьком массиве, а сами задачи
+ * берутся из менеджера через {@code taskLookup} в момент чтения истории.
+ * <p>
+ * {@link #remove(int)} не обходит все сессии, а запоминает id вместе с номером удаления. Сессия
+ * выбрасывает такие id при следующем обращении к ней, а когда запомненных id становится больше,
+ * чем сессий, их вычищают из всех сессий за один проход. Так удалённые задачи не занимают
+ * место в истории, а задача, которая потом получила тот же id, не подменяет их в старых сессиях.
+ * <p>
+ * Текущая сессия привязывается к потоку через {@link #bind(String)}; вне привязки используется
+ * общая анонимная сессия. Сессии, к которым не обращались дольше {@code idleTimeout}, удаляются,
+ * а число сессий ограничено {@code maxSessions} — при переполнении вытесняется самая давняя.
+ */
+public class SessionHistoryManager implements HistoryManager {
+
+    public static final int DEFAULT_SESSION_CAPACITY = 10;
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final String ANONYMOUS = "";
+    // меньше стольких удалений все сессии не вычищаются
+    private static final int MIN_SWEEP = 1024;
+
+    private final int sessionCapacity;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+    private final ThreadLocal<String> currentSession = new ThreadLocal<>();
+    private final LinkedHashMap<String, Session> sessions;
+    // id, удалённые после последнего общего прохода, и номер их удаления
+    private final IntObjectMap<Long> removed = new IntObjectMap<>();
+    private long removals;
+    private volatile IntFunction<Task> taskLookup = id -> null;
+
+    public SessionHistoryManager() {
+        this(DEFAULT_SESSION_CAPACITY, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public SessionHistoryManager(int sessionCapacity, int maxSessions, Duration idleTimeout) {
+        this(sessionCapacity, maxSessions, idleTimeout, System::nanoTime);
+    }
+
+    SessionHistoryManager(int sessionCapacity, int maxSessions, Duration idleTimeout, LongSupplier clock) {
+        if (sessionCapacity <= 0 || maxSessions <= 0) {
+            throw new IllegalArgumentException("Размер истории и число сессий должны быть положительными");
+        }
+        this.sessionCapacity = sessionCapacity;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > SessionHistoryManager.this.maxSessions;
+            }
+        };
+    }
+
+    // источник задач по id без записи в историю; подключается менеджером задач
+    void setTaskLookup(IntFunction<Task> taskLookup) {
+        this.taskLookup = taskLookup;
+    }
+
+    // привязывает сессию к текущему потоку до закрытия возвращённого объекта
+    public Binding bind(String sessionId) {
+        String previous = currentSession.get();
+        currentSession.set(Objects.requireNonNull(sessionId));
+        return () -> {
+            if (previous == null) {
+                currentSession.remove();
+            } else {
+                currentSession.set(previous);
+            }
+        };
+    }
+
+    // выполняет action в сессии sessionId и восстанавливает прежнюю привязку потока
+    public void runInSession(String sessionId, Runnable action) {
+        Binding binding = bind(sessionId);
+        try {
+            action.run();
+        } finally {
+            binding.close();
+        }
+    }
+
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) return;
+        String sessionId = currentSessionId();
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            evictIdle(now);
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                session = new Session(sessionCapacity, removals);
+                sessions.put(sessionId, session);
+            }
+            session.lastAccess = now;
+            dropRemoved(session);
+            session.add(task.getId());
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        synchronized (sessions) {
+            removed.put(id, ++removals);
+            if (removed.size() > Math.max(MIN_SWEEP, sessions.size())) {
+                sessions.values().forEach(this::dropRemoved);
+                removed.clear();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(currentSessionId());
+    }
+
+    public List<Task> getHistory(String sessionId) {
+        int[] ids;
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            evictIdle(now);
+            Session session = sessions.get(sessionId);
+            if (session == null) return List.of();
+            session.lastAccess = now;
+            dropRemoved(session);
+            ids = session.ids();
+        }
+
+        IntFunction<Task> lookup = taskLookup;
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = lookup.apply(id);
+            if (task != null) result.add(task);
+        }
+        return result;
+    }
+
+    public void closeSession(String sessionId) {
+        synchronized (sessions) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    public int sessionCount() {
+        synchronized (sessions) {
+            evictIdle(clock.getAsLong());
+            return sessions.size();
+        }
+    }
+
+    private String currentSessionId() {
+        String sessionId = currentSession.get();
+        return sessionId == null ? ANONYMOUS : sessionId;
+    }
+
+    // сессии упорядочены по времени обращения, поэтому просроченные всегда в начале
+    private void evictIdle(long now) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastAccess < idleTimeoutNanos) break;
+            iterator.remove();
+        }
+    }
+
+    // убирает из сессии id, удалённые после её прошлой проверки; просмотры, сделанные позже удаления,
+    // остаются, даже если у задачи тот же id
+    private void dropRemoved(Session session) {
+        if (session.checkedRemovals == removals) return;
+        long since = session.checkedRemovals;
+        session.removeIf(id -> {
+            Long at = removed.get(id);
+            return at != null && at > since;
+        });
+        session.checkedRemovals = removals;
+    }
+
+    // кольцевой буфер id: от старых к новым, без дубликатов
+    private static final class Session {
+        private final int[] ring;
+        private int start;
+        private int size;
+        private long lastAccess;
+        // номер удаления, до которого сессия уже вычищена
+        private long checkedRemovals;
+
+        Session(int capacity, long checkedRemovals) {
+            ring = new int[capacity];
+            this.checkedRemovals = checkedRemovals;
+        }
+
+        void add(int id) {
+            int position = indexOf(id);
+            if (position >= 0) {
+                // сдвигаем более свежие записи на место удалённой
+                for (int i = position; i < size - 1; i++) {
+                    ring[physical(i)] = ring[physical(i + 1)];
+                }
+                ring[physical(size - 1)] = id;
+                return;
+            }
+            if (size == ring.length) {
+                ring[start] = id;
+                start = (start + 1) % ring.length;
+                return;
+            }
+            ring[physical(size++)] = id;
+        }
+
+        // оставляет остальные id в прежнем порядке
+        void removeIf(IntPredicate filter) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int id = ring[physical(i)];
+                if (!filter.test(id)) ring[physical(kept++)] = id;
+            }
+            size = kept;
+        }
+
+        int[] ids() {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ring[physical(i)];
+            }
+            return result;
+        }
+
+        private int indexOf(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ring[physical(i)] == id) return i;
+            }
+            return -1;
+        }
+
+        private int physical(int logical) {
+            return (start + logical) % ring.length;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.manager;
+
+public enum SnapshotFormat {
+    // текстовый формат: удобен для импорта и экспорта
+    CSV,
+    // компактный двоичный формат с быстрой загрузкой, см. BinarySnapshot
+    BINARY
+}
@@ -0,0 +1,177 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.CsvReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Индекс записей снимка CSV для ленивой загрузки {@link FileBackedTaskManager}: по id — тип задачи,
+ * смещение и длина записи в байтах, по id эпика — id его подзадач.
+ * <p>
+ * Строится одним проходом по файлу с проверкой контрольных сумм, как при обычной загрузке, но без
+ * создания задач и строк: из записи разбираются только id, тип и эпик. Задача читается по смещению
+ * при первом обращении. Пока индекс используется, файл снимка не должен меняться.
+ * <p>
+ * Индекс разреженный: id записей лежат в отсортированном массиве и ищутся двоичным поиском, а тип
+ * и смещение записи хранятся в параллельном массиве (в старшем байте тип + 1, в остальных смещение).
+ * Память растёт с числом записей, а не с наибольшим id. Не потокобезопасно.
+ */
+final class SnapshotIndex {
+
+    private static final int TYPE_SHIFT = 56;
+    private static final long OFFSET_MASK = (1L << TYPE_SHIFT) - 1;
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final File file;
+    // слот s — запись с id keys[s]
+    private final int[] keys;
+    private final long[] entries;
+    private final int[] lengths;
+    // подзадачи эпика в слоте s — children[childStart[s] .. childStart[s + 1])
+    private final int[] childStart;
+    private final int[] children;
+    private final int[] counts = new int[TYPES.length];
+    private final int maxId;
+
+    private SnapshotIndex(File file, int records, int[] ids, long[] offsets, byte[] types, int[] epicIds, long end) {
+        this.file = file;
+        // записи по возрастанию id, а с одинаковым id — в порядке файла
+        long[] order = new long[records];
+        for (int i = 0; i < records; i++) order[i] = (long) ids[i] << 32 | i;
+        Arrays.sort(order);
+        int[] winners = new int[records];
+        int unique = 0;
+        for (int k = 0; k < records; k++) {
+            // повторный id в снимке: как при обычной загрузке, побеждает последняя запись
+            if (k + 1 < records && order[k + 1] >>> 32 == order[k] >>> 32) continue;
+            winners[unique++] = (int) order[k];
+        }
+        this.keys = new int[unique];
+        this.entries = new long[unique];
+        this.lengths = new int[unique];
+        for (int s = 0; s < unique; s++) {
+            int i = winners[s];
+            keys[s] = ids[i];
+            entries[s] = ((long) types[i] + 1) << TYPE_SHIFT | offsets[i];
+            lengths[s] = (int) ((i + 1 < records ? offsets[i + 1] : end) - offsets[i]);
+            counts[types[i]]++;
+        }
+        this.maxId = unique == 0 ? 0 : keys[unique - 1];
+
+        // слот эпика каждой подзадачи из снимка или -1; подзадачи эпика остаются в порядке файла
+        int[] epicSlots = new int[records];
+        this.childStart = new int[unique + 1];
+        int subtaskCount = 0;
+        for (int i = 0; i < records; i++) {
+            epicSlots[i] = isChild(i, ids, offsets, types) ? slotOf(epicIds[i]) : -1;
+            if (epicSlots[i] >= 0) {
+                childStart[epicSlots[i] + 1]++;
+                subtaskCount++;
+            }
+        }
+        for (int e = 1; e < childStart.length; e++) childStart[e] += childStart[e - 1];
+        this.children = new int[subtaskCount];
+        int[] filled = Arrays.copyOf(childStart, unique);
+        for (int i = 0; i < records; i++) {
+            if (epicSlots[i] >= 0) children[filled[epicSlots[i]]++] = ids[i];
+        }
+    }
+
+    // последняя запись подзадачи с этим id в снимке
+    private boolean isChild(int i, int[] ids, long[] offsets, byte[] types) {
+        return types[i] == TaskType.SUBTASK.ordinal() && (entries[slotOf(ids[i])] & OFFSET_MASK) == offsets[i];
+    }
+
+    // слот записи с этим id или отрицательное число, если её нет
+    private int slotOf(int id) {
+        return Arrays.binarySearch(keys, id);
+    }
+
+    // записи, как в ChecksummedRecords: оборванный хвост отбрасывается, повреждение в середине — ошибка;
+    // null, если в снимке есть id вне 1..MAX_ID
+    static SnapshotIndex build(File file) throws IOException {
+        try (CsvReader csv = new CsvReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            Builder builder = new Builder();
+            ChecksummedRecords.read(csv, file.getName(), 1, builder::add);
+            // недопустимый id: такой снимок загружается целиком и отклоняется при обычной загрузке
+            if (builder.invalidIds) return null;
+            return new SnapshotIndex(file, builder.size, builder.ids, builder.offsets, builder.types, builder.epicIds,
+                    csv.byteOffset());
+        }
+    }
+
+    // тип задачи с этим id или null, если в снимке её нет
+    TaskType typeOf(int id) {
+        int slot = slotOf(id);
+        return slot < 0 ? null : TYPES[(int) (entries[slot] >>> TYPE_SHIFT) - 1];
+    }
+
+    int count(TaskType type) {
+        return counts[type.ordinal()];
+    }
+
+    int maxId() {
+        return maxId;
+    }
+
+    void forEachSubtask(int epicId, IntConsumer action) {
+        int slot = slotOf(epicId);
+        if (slot < 0) return;
+        for (int i = childStart[slot]; i < childStart[slot + 1]; i++) action.accept(children[i]);
+    }
+
+    // задача из записи с этим id; запись уже проверена при построении индекса
+    Task read(int id) throws IOException {
+        int slot = slotOf(id);
+        long offset = entries[slot] & OFFSET_MASK;
+        ByteBuffer bytes = ByteBuffer.allocate(lengths[slot]);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, offset + bytes.position()) < 0) {
+                    throw new EOFException("Запись " + id + " обрывается в файле: " + file.getName());
+                }
+            }
+        }
+        String text = new String(bytes.array(), StandardCharsets.UTF_8);
+        CsvReader csv = new CsvReader(new StringReader(text), Math.max(1, text.length()));
+        if (!csv.next()) throw new EOFException("Пустая запись " + id + " в файле: " + file.getName());
+        return FileBackedTaskManager.readFields(csv, csv.isChecksummed() ? 1 : 0);
+    }
+
+    // столбцы записи в порядке FileBackedTaskManager.HEADER после контрольной суммы
+    private static final class Builder {
+
+        int size;
+        int[] ids = new int[1024];
+        long[] offsets = new long[1024];
+        byte[] types = new byte[1024];
+        int[] epicIds = new int[1024];
+        boolean invalidIds;
+
+        void add(CsvReader record) {
+            int from = record.isChecksummed() ? 1 : 0;
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                types = Arrays.copyOf(types, capacity);
+                epicIds = Arrays.copyOf(epicIds, capacity);
+            }
+            TaskType type = record.getEnum(from + 1, TYPES);
+            ids[size] = record.getInt(from);
+            invalidIds |= ids[size] <= 0 || ids[size] > TaskBatches.MAX_ID;
+            offsets[size] = record.byteOffset();
+            types[size] = (byte) type.ordinal();
+            epicIds[size] = type == TaskType.SUBTASK ? record.getInt(from + 5) : 0;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.IntObjectMap;
+
+import java.util.List;
+
+/**
+ * Вторичный индекс задач по типу и статусу: для каждой пары своя корзина id → задача.
+ * <p>
+ * Поддерживается хранилищами {@link IndexedStore}. Статус, изменённый у задачи, которая уже лежит
+ * в хранилище (пересчёт статуса эпика), нужно передать через {@link #put}.
+ * Внутри корзины задачи идут в порядке, в котором они получили этот статус. Не потокобезопасно.
+ */
+final class StatusIndex implements TaskIndex {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final IntObjectMap<Task>[][] buckets;
+    private final VersionedSnapshot<Task>[][] snapshots;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    StatusIndex() {
+        int types = TaskType.values().length;
+        buckets = new IntObjectMap[types][STATUSES.length];
+        snapshots = new VersionedSnapshot[types][STATUSES.length];
+        for (int type = 0; type < types; type++) {
+            for (int status = 0; status < STATUSES.length; status++) {
+                buckets[type][status] = new IntObjectMap<>();
+                snapshots[type][status] = new VersionedSnapshot<>();
+            }
+        }
+    }
+
+    // статус мог поменяться у того же объекта, поэтому id убирается из всех остальных корзин типа;
+    // задача без статуса не индексируется
+    @Override
+    public void put(TaskType type, Task task) {
+        IntObjectMap<Task>[] byStatus = buckets[type.ordinal()];
+        Status status = task.getStatus();
+        for (int i = 0; i < byStatus.length; i++) {
+            if (status != null && i == status.ordinal()) {
+                if (byStatus[i].get(task.getId()) != task) byStatus[i].put(task.getId(), task);
+            } else {
+                byStatus[i].remove(task.getId());
+            }
+        }
+    }
+
+    @Override
+    public void remove(TaskType type, Task task) {
+        for (IntObjectMap<Task> bucket : buckets[type.ordinal()]) bucket.remove(task.getId());
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        for (IntObjectMap<Task> bucket : buckets[type.ordinal()]) bucket.clear();
+    }
+
+    // неизменяемый список задач в корзине; пока корзина не меняется, возвращается один и тот же объект
+    @SuppressWarnings("unchecked")
+    <T extends Task> List<T> get(TaskType type, Status status) {
+        IntObjectMap<Task> bucket = buckets[type.ordinal()][status.ordinal()];
+        return (List<T>) snapshots[type.ordinal()][status.ordinal()].get(bucket.modCount(), bucket::values);
+    }
+
+    int count(TaskType type, Status status) {
+        return buckets[type.ordinal()][status.ordinal()].size();
+    }
+}
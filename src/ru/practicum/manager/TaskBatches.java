@@ -0,0 +1,93 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.SubTask;
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Проверки пакетов addAll и importBatch, общие для менеджеров: пакет проверяется целиком
+ * до изменений, поэтому отклонённый пакет не оставляет в менеджере ни одной задачи.
+ */
+final class TaskBatches {
+
+    // наибольший допустимый id: следующий за ним nextId ещё помещается в int
+    static final int MAX_ID = Integer.MAX_VALUE - 1;
+
+    private TaskBatches() {
+    }
+
+    // nextId после выдачи count id подряд, начиная с next; id не переполняются
+    static int advance(int next, int count) {
+        if (count > Integer.MAX_VALUE - next) {
+            throw new IllegalStateException("Закончились свободные id задач");
+        }
+        return next + count;
+    }
+
+    // id пакета импорта: от 1 до MAX_ID, без повторов и не занятые в менеджере
+    static int[] importIds(List<? extends Task> batch, IntPredicate taken) {
+        int[] ids = new int[batch.size()];
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = batch.get(i);
+            if (task == null) throw new IllegalArgumentException("Пакет содержит null");
+            ids[i] = task.getId();
+            if (ids[i] <= 0 || ids[i] > MAX_ID || taken.test(ids[i]) || !seen.add(ids[i])) {
+                throw new IllegalArgumentException("Недопустимый или занятый id " + ids[i] + ": " + task.getTitle());
+            }
+        }
+        return ids;
+    }
+
+    static int maxId(int[] ids) {
+        int max = 0;
+        for (int id : ids) max = Math.max(max, id);
+        return max;
+    }
+
+    static List<Integer> asList(int[] ids) {
+        List<Integer> result = new ArrayList<>(ids.length);
+        for (int id : ids) result.add(id);
+        return Collections.unmodifiableList(result);
+    }
+
+    // подзадачи ссылаются на существующие эпики или эпики пакета; пересечения внутри пакета ищутся
+    // одним проходом по интервалам, отсортированным по началу, а с уже добавленными — через индекс
+    static void validate(List<? extends Task> batch, int[] ids, IntPredicate epicExists, TimeIntervalIndex timeIndex) {
+        Set<Integer> batchEpics = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = batch.get(i);
+            if (task == null) throw new IllegalArgumentException("Пакет содержит null");
+            if (task.getType() == TaskType.EPIC) batchEpics.add(ids[i]);
+        }
+
+        List<TimeIntervalIndex.Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            Task task = batch.get(i);
+            if (task.getType() == TaskType.EPIC) continue;
+            if (task instanceof SubTask sub && !epicExists.test(sub.getEpicId()) && !batchEpics.contains(sub.getEpicId())) {
+                throw new IllegalArgumentException("Эпик " + sub.getEpicId() + " не найден для подзадачи: " + sub.getTitle());
+            }
+            if (task.getStartTime() != null && task.getDuration() != null) {
+                intervals.add(new TimeIntervalIndex.Interval(i, task.getStartTime(), task.getEndTime()));
+            }
+        }
+
+        intervals.sort(Comparator.comparing(TimeIntervalIndex.Interval::start));
+        TimeIntervalIndex.Interval latest = null;
+        for (TimeIntervalIndex.Interval interval : intervals) {
+            // границы включительно, как в TimeIntervalIndex
+            if (latest != null && !latest.end().isBefore(interval.start())) {
+                throw new IllegalArgumentException("Задачи пакета пересекаются по времени: "
+                        + batch.get(latest.id()).getTitle() + " и " + batch.get(interval.id()).getTitle());
+            }
+            if (timeIndex.overlaps(interval.start(), interval.end(), 0)) {
+                throw new IllegalArgumentException("Задача пересекается по времени: " + batch.get(interval.id()).getTitle());
+            }
+            if (latest == null || interval.end().isAfter(latest.end())) latest = interval;
+        }
+    }
+}
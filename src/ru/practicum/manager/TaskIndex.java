@@ -0,0 +1,19 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+
+/**
+ * Вторичный индекс над хранилищами {@link InMemoryTaskManager}. Хранилища {@link IndexedStore}
+ * сообщают ему о каждом put/remove/clear; изменения полей задачи, которая уже лежит в хранилище,
+ * менеджер передаёт через {@link #put} сам.
+ */
+interface TaskIndex {
+
+    // задача добавлена, заменена или у неё поменялись поля
+    void put(TaskType type, Task task);
+
+    void remove(TaskType type, Task task);
+
+    void clear(TaskType type);
+}
@@ -0,0 +1,358 @@
+package ru.practicum.manager;
+
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.exception.ManagerSaveException;
+import ru.practicum.util.CsvReader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Журнал изменений для {@link FileBackedTaskManager}: каждая операция дописывается одной записью CSV
+ * в конец файла, а при накоплении {@code compactionThreshold} записей менеджер сворачивает
+ * журнал в снимок и очищает его.
+ * <p>
+ * Политика {@link DurabilityPolicy} определяет, когда записи попадают на диск. В режиме {@code PER_BATCH}
+ * запись подтверждается групповым сбросом: {@link #append} возвращается только после fsync, покрывшего
+ * запись. Первый ожидающий поток становится ведущим и делает fsync за всю пачку, остальные ждут его.
+ * Пока в журнал пишут другие потоки, ведущий ждёт их записи, но не дольше {@code batchWindow} и не больше
+ * {@code batchSize} записей; одиночный поток сбрасывает сразу. В режиме {@code ASYNC} запись не ждёт
+ * диска: фоновый поток раз в окно передаёт накопленное в ОС, а его ошибка выбрасывается из следующей
+ * записи или {@link #sync()}.
+ * <p>
+ * Записи несут контрольную сумму: оборванная при сбое последняя запись при чтении отбрасывается,
+ * а файл обрезается до последней целой записи, чтобы новые записи не легли за мусором.
+ */
+public class TaskJournal implements Closeable {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final Duration DEFAULT_BATCH_WINDOW = Duration.ofMillis(10);
+
+    private final File file;
+    private final int compactionThreshold;
+    private final DurabilityPolicy policy;
+    private final int batchSize;
+    private final long batchWindowNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // любое изменение ниже: новая запись, конец сброса; ожидающие сами проверяют, дождались ли
+    private final Condition changed = lock.newCondition();
+
+    private FileOutputStream out;
+    private Writer writer;
+    private ScheduledExecutorService flusher;
+    private int records;
+    // записи, ещё не вошедшие ни в один начатый сброс
+    private int pending;
+    private boolean unsynced;
+    private long firstPendingAt;
+    private long syncs;
+    // номера записей: последней дописанной и последней, покрытой завершённым fsync
+    private long appended;
+    private long durable;
+    // ведущий делает fsync без блокировки, чтобы следующая пачка копилась во время сброса
+    private boolean syncing;
+    // записи до failedThrough не подтверждены: их fsync завершился ошибкой batchFailure
+    private long failedThrough;
+    private ManagerSaveException batchFailure;
+    // ошибка фонового сброса; выбрасывается из следующей записи или sync
+    private ManagerSaveException failure;
+
+    public TaskJournal(File file) {
+        this(file, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public TaskJournal(File file, int compactionThreshold) {
+        this(file, compactionThreshold, DurabilityPolicy.PER_OP, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_WINDOW);
+    }
+
+    public TaskJournal(File file, DurabilityPolicy policy) {
+        this(file, DEFAULT_COMPACTION_THRESHOLD, policy, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_WINDOW);
+    }
+
+    public TaskJournal(File file, int compactionThreshold, DurabilityPolicy policy, int batchSize, Duration batchWindow) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сжатия журнала должен быть положительным: " + compactionThreshold);
+        }
+        if (batchSize <= 0 || batchWindow.isNegative() || batchWindow.isZero()) {
+            throw new IllegalArgumentException("Размер пачки и окно должны быть положительными");
+        }
+        this.file = file;
+        this.compactionThreshold = compactionThreshold;
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.batchWindowNanos = batchWindow.toNanos();
+    }
+
+    // журнал по умолчанию лежит рядом со снимком
+    public static File defaultFileFor(File snapshot) {
+        return new File(snapshot.getPath() + ".journal");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public DurabilityPolicy getPolicy() {
+        return policy;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // сколько раз данные журнала сбрасывались на диск
+    public long syncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // дописывает готовую запись журнала; при PER_OP и PER_BATCH возвращается, когда она на диске
+    public void append(String record) {
+        lock.lock();
+        try {
+            long seq = write(record);
+            switch (policy) {
+                case PER_OP -> sync();
+                case PER_BATCH -> awaitDurable(seq);
+                case ASYNC -> {
+                    if (pending >= batchSize) flushToOs();
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал: " + file.getName(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // дописывает запись без ожидания диска при любой политике: подтверждает пачку сам вызывающий через sync
+    void appendUnsynced(String record) {
+        lock.lock();
+        try {
+            write(record);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал: " + file.getName(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // подтверждает все уже дописанные записи: после возврата они на диске
+    public void sync() {
+        lock.lock();
+        try {
+            while (syncing) changed.awaitUninterruptibly();
+            throwFailure();
+            if (writer == null || !unsynced) return;
+            writer.flush();
+            out.getFD().sync();
+            pending = 0;
+            unsynced = false;
+            durable = appended;
+            syncs++;
+            changed.signalAll();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сбросе журнала на диск: " + file.getName(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean needsCompaction() {
+        return size() >= compactionThreshold;
+    }
+
+    void reset() {
+        lock.lock();
+        try {
+            close();
+            new FileWriter(file).close();
+            records = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при очистке журнала: " + file.getName(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // передаёт записи журнала по одной, не загружая файл целиком; возвращает их количество.
+    // Оборванный хвост обрезается, повреждение в середине журнала прерывает чтение
+    int readRecords(Consumer<CsvReader> action) {
+        lock.lock();
+        try {
+            if (!file.exists()) return 0;
+            ChecksummedRecords.Result result;
+            try (CsvReader csv = new CsvReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                result = ChecksummedRecords.read(csv, file.getName(), 0, action);
+            } catch (IOException e) {
+                throw new ManagerLoadException("Ошибка при чтении журнала: " + file.getName(), e);
+            }
+            if (result.hasTornTail()) truncate(result.tailOffset());
+            records = result.records();
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void truncate(long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+            raf.getFD().sync();
+        } catch (IOException e) {
+            throw new ManagerLoadException("Не удалось обрезать оборванный журнал: " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (writer == null) return;
+            sync();
+            writer.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при закрытии журнала: " + file.getName(), e);
+        } finally {
+            if (writer != null) {
+                if (flusher != null) flusher.shutdownNow();
+                flusher = null;
+                writer = null;
+                out = null;
+            }
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        boolean unterminated = endsWithoutNewline();
+        out = new FileOutputStream(file, true);
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // сбой мог оборвать журнал между целой записью и её переводом строки
+        if (unterminated) writer.write('\n');
+        pending = 0;
+        unsynced = false;
+        if (policy == DurabilityPolicy.ASYNC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "task-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushByTimer, batchWindowNanos, batchWindowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean endsWithoutNewline() throws IOException {
+        if (file.length() == 0) return false;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    // дописывает запись в буфер и возвращает её номер
+    private long write(String record) throws IOException {
+        throwFailure();
+        if (writer == null) open();
+        writer.write(record);
+        writer.write('\n');
+        records++;
+        unsynced = true;
+        if (pending++ == 0) firstPendingAt = System.nanoTime();
+        changed.signalAll();
+        return ++appended;
+    }
+
+    // групповой сброс: ждёт, пока запись seq покроет fsync, а если сброс никто не ведёт — ведёт его сам
+    private void awaitDurable(long seq) throws IOException {
+        while (durable < seq) {
+            if (seq <= failedThrough) throw batchFailure;
+            if (syncing) {
+                changed.awaitUninterruptibly();
+                continue;
+            }
+            // в очереди блокировки — потоки, которые вот-вот допишут свои записи в эту же пачку
+            long left = firstPendingAt + batchWindowNanos - System.nanoTime();
+            if (pending < batchSize && left > 0 && lock.hasQueuedThreads()) {
+                try {
+                    changed.awaitNanos(left);
+                    continue;
+                } catch (InterruptedException e) {
+                    // прерванный поток не ждёт пачку, а сбрасывает накопленное сразу
+                    Thread.currentThread().interrupt();
+                }
+            }
+            syncBatch();
+        }
+    }
+
+    private void syncBatch() throws IOException {
+        writer.flush();
+        long target = appended;
+        FileOutputStream stream = out;
+        pending = 0;
+        syncing = true;
+        lock.unlock();
+        IOException error = null;
+        try {
+            stream.getFD().sync();
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+            syncing = false;
+            changed.signalAll();
+        }
+        if (error != null) {
+            failedThrough = target;
+            batchFailure = new ManagerSaveException("Ошибка при сбросе журнала на диск: " + file.getName(), error);
+            throw batchFailure;
+        }
+        durable = Math.max(durable, target);
+        if (durable == appended) unsynced = false;
+        syncs++;
+    }
+
+    private void throwFailure() {
+        ManagerSaveException error = failure;
+        if (error == null) return;
+        failure = null;
+        throw error;
+    }
+
+    private void flushByTimer() {
+        lock.lock();
+        try {
+            if (writer == null || pending == 0) return;
+            flushToOs();
+        } catch (IOException e) {
+            // задача таймера не должна завершиться: ошибка отдаётся следующей записи или sync
+            failure = new ManagerSaveException("Ошибка фонового сброса журнала: " + file.getName(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushToOs() throws IOException {
+        writer.flush();
+        pending = 0;
+    }
+}
@@ -1,10 +1,17 @@
 package ru.practicum.manager;
 
 import ru.practicum.model.Epic;
+import ru.practicum.model.Status;
 import ru.practicum.model.SubTask;
 import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     // методы ADD
@@ -14,6 +21,18 @@ public interface TaskManager {
 
     int addSubTask(SubTask subtask);
 
+    // пакетное добавление с новыми id, как последовательные вызовы add*, но все задачи или ни одной;
+    // возвращает id в порядке пакета
+    List<Integer> addAll(List<? extends Task> batch);
+
+    // импорт задач с их собственными id, например выгруженных из другого менеджера: все или ни одной.
+    // Подзадачи могут ссылаться на эпики из того же пакета
+    void importBatch(Collection<? extends Task> batch);
+
+    // группа изменений как одно целое: body получает этот же менеджер, а исключение внутри него
+    // откатывает все сделанные изменения
+    void transaction(Consumer<TaskManager> body);
+
     // методы UPDATE
     boolean updateTask(Task updatedTask);
 
@@ -51,7 +70,82 @@ public interface TaskManager {
 
     List<SubTask> getEpicSubtasks(int epicId);
 
+    // выборки и счётчики по статусу и типу; по умолчанию фильтруют полные списки,
+    // InMemoryTaskManager отвечает по индексу без перебора
+    default List<Task> getTasksByStatus(Status status) {
+        return getAllTasks().stream().filter(task -> task.getStatus() == status).toList();
+    }
+
+    default List<Epic> getEpicsByStatus(Status status) {
+        return getAllEpics().stream().filter(epic -> epic.getStatus() == status).toList();
+    }
+
+    default List<SubTask> getSubtasksByStatus(Status status) {
+        return getAllSubTasks().stream().filter(subtask -> subtask.getStatus() == status).toList();
+    }
+
+    default int countByStatus(TaskType type, Status status) {
+        List<? extends Task> matching = switch (type) {
+            case TASK -> getTasksByStatus(status);
+            case EPIC -> getEpicsByStatus(status);
+            case SUBTASK -> getSubtasksByStatus(status);
+        };
+        return matching.size();
+    }
+
+    default int count(TaskType type) {
+        return switch (type) {
+            case TASK -> getAllTasks().size();
+            case EPIC -> getAllEpics().size();
+            case SUBTASK -> getAllSubTasks().size();
+        };
+    }
+
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    // выборки по времени в порядке начала; задачи без времени в них не попадают.
+    // По умолчанию фильтруют getPrioritizedTasks, InMemoryTaskManager и ConcurrentTaskManager
+    // возвращают представления только для чтения, которые обходятся лениво и видят последующие изменения
+
+    // задачи, которые начинаются в [from, to)
+    default Collection<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return getPrioritizedTasks().stream()
+                .filter(task -> task.getStartTime() != null
+                        && !task.getStartTime().isBefore(from) && task.getStartTime().isBefore(to))
+                .toList();
+    }
+
+    // задачи, которые идут в момент instant (границы включительно, как при проверке пересечений)
+    default Collection<Task> getTasksActiveAt(LocalDateTime instant) {
+        return getPrioritizedTasks().stream()
+                .filter(task -> task.getEndTime() != null
+                        && !task.getStartTime().isAfter(instant) && !task.getEndTime().isBefore(instant))
+                .toList();
+    }
+
+    // не больше limit ближайших задач, которые начинаются не раньше from
+    default Collection<Task> getNextTasks(LocalDateTime from, int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Отрицательный limit: " + limit);
+        return getPrioritizedTasks().stream()
+                .filter(task -> task.getStartTime() != null && !task.getStartTime().isBefore(from))
+                .limit(limit)
+                .toList();
+    }
+
+    // задачи всех типов, в названии или описании которых есть все слова запроса, в порядке id;
+    // слово со звёздочкой на конце ищется как префикс, см. TextQuery. По умолчанию задачи перебираются
+    default List<Task> search(String query, int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Отрицательный limit: " + limit);
+        TextQuery parsed = TextQuery.parse(query);
+        if (parsed.isEmpty()) return List.of();
+        return Stream.of(getAllTasks(), getAllEpics(), getAllSubTasks())
+                .flatMap(List::stream)
+                .filter(parsed::matches)
+                .sorted(Comparator.comparingInt(Task::getId))
+                .limit(limit)
+                .map(Task.class::cast)
+                .toList();
+    }
 }
@@ -0,0 +1,26 @@
+package ru.practicum.manager;
+
+import java.util.Map;
+
+/**
+ * Метрики {@link RecordingMetricsSink} для JMX: ключи — имена {@link ManagerOperation}
+ * и {@link ManagerCounter}, операции без вызовов не показываются.
+ */
+public interface TaskManagerMetricsMXBean {
+
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Double> getP50Micros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getP999Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    void reset();
+}
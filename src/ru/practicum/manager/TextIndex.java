@@ -0,0 +1,425 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.model.TaskType;
+import ru.practicum.util.IntObjectMap;
+import ru.practicum.util.TextTokenizer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Полнотекстовый индекс по названию и описанию задач: обратный индекс слово → id задач.
+ * <p>
+ * Словарь упорядочен, поэтому слова с общим префиксом лежат подряд и находятся одним диапазоном.
+ * Для каждой задачи хранятся её списки id, чтобы при изменении текста поправить только списки
+ * появившихся и исчезнувших слов. Поддерживается хранилищами {@link IndexedStore}; название
+ * и описание эпика, изменённые на месте, нужно передать через {@link #put}. Не потокобезопасно.
+ * <p>
+ * При загрузке индекс строится пакетом: между {@link #beginBulk} и {@link #finishBulk} изменения только
+ * запоминаются, а потом слова всех задач разбираются кусками (при parallel — в ForkJoinPool.commonPool()),
+ * списки id собираются по словам без вставок в середину, и словарь строится из отсортированной карты
+ * за линейное время.
+ */
+final class TextIndex implements TaskIndex {
+
+    // оценки размеров объектов для 64-битной JVM со сжатыми указателями
+    private static final int ARRAY_HEADER = 16;
+    private static final int STRING = 24;
+    private static final int TREE_ENTRY = 40;
+    private static final int POSTINGS = 24;
+    private static final int STORE_ENTRY = 24;
+
+    // сколько списков префикса проверять по отдельности, прежде чем объединить их
+    private static final int MAX_CHECKED_LISTS = 8;
+    // меньше задач на кусок пакетного построения не даёт выигрыша от параллельности
+    private static final int MIN_BULK_CHUNK = 4096;
+
+    // id задач со словом по возрастанию
+    private static final class Postings {
+
+        final String term;
+        int[] ids;
+        int size;
+
+        Postings(String term) {
+            this(term, new int[2], 0);
+        }
+
+        Postings(String term, int[] ids, int size) {
+            this.term = term;
+            this.ids = ids;
+            this.size = size;
+        }
+
+        void add(int id) {
+            // id выдаются по возрастанию, поэтому обычно задача дописывается в конец
+            int at = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) return;
+                at = ~at;
+            }
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void append(int[] more, int count) {
+            if (size + count > ids.length) ids = Arrays.copyOf(ids, Math.max(size + count, ids.length * 2));
+            System.arraycopy(more, 0, ids, size, count);
+            size += count;
+        }
+
+        void sortUnique() {
+            Arrays.sort(ids, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || ids[unique - 1] != ids[i]) ids[unique++] = ids[i];
+            }
+            size = unique;
+        }
+    }
+
+    // слово внутри куска пакетного построения: id задач куска с этим словом и итоговый список слова
+    private static final class ChunkTerm {
+
+        final String term;
+        int[] ids = new int[4];
+        int size;
+        int lastDoc = -1;
+        Postings target;
+
+        ChunkTerm(String term) {
+            this.term = term;
+        }
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final NavigableMap<String, Postings> dictionary = new TreeMap<>();
+    private final List<IntObjectMap<Postings[]>> documents = new ArrayList<>();
+    private long postings;
+    // задачи пакета по типам, последняя версия по id; null — изменения вносятся сразу
+    private List<IntObjectMap<Task>> pending;
+
+    TextIndex() {
+        for (int i = 0; i < TaskType.values().length; i++) documents.add(new IntObjectMap<>());
+    }
+
+    @Override
+    public void put(TaskType type, Task task) {
+        if (pending != null) {
+            pending.get(type.ordinal()).put(task.getId(), task);
+            return;
+        }
+        int id = task.getId();
+        Set<String> words = new HashSet<>();
+        TextTokenizer.forEachTerm(task.getTitle(), words::add);
+        TextTokenizer.forEachTerm(task.getDescription(), words::add);
+
+        IntObjectMap<Postings[]> store = documents.get(type.ordinal());
+        Postings[] previous = store.get(id);
+        List<Postings> current = new ArrayList<>(words.size());
+        if (previous != null) {
+            for (Postings list : previous) {
+                if (words.remove(list.term)) {
+                    current.add(list);
+                } else {
+                    unlink(list, id);
+                }
+            }
+        }
+        for (String word : words) {
+            Postings list = dictionary.computeIfAbsent(word, Postings::new);
+            list.add(id);
+            postings++;
+            current.add(list);
+        }
+
+        if (current.isEmpty()) {
+            store.remove(id);
+        } else if (previous == null || !words.isEmpty() || current.size() != previous.length) {
+            store.put(id, current.toArray(new Postings[0]));
+        }
+    }
+
+    @Override
+    public void remove(TaskType type, Task task) {
+        if (pending != null) {
+            pending.get(type.ordinal()).remove(task.getId());
+            return;
+        }
+        Postings[] previous = documents.get(type.ordinal()).remove(task.getId());
+        if (previous == null) return;
+        for (Postings list : previous) unlink(list, task.getId());
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        if (pending != null) {
+            pending.get(type.ordinal()).clear();
+            return;
+        }
+        IntObjectMap<Postings[]> store = documents.get(type.ordinal());
+        store.forEachKey(id -> {
+            for (Postings list : store.get(id)) unlink(list, id);
+        });
+        store.clear();
+    }
+
+    // пакет начинается только у пустого индекса, иначе изменения по-прежнему вносятся сразу
+    void beginBulk() {
+        if (pending != null || !dictionary.isEmpty()) return;
+        pending = new ArrayList<>();
+        for (int i = 0; i < TaskType.values().length; i++) pending.add(new IntObjectMap<>());
+    }
+
+    void finishBulk(boolean parallel) {
+        if (pending == null) return;
+        List<IntObjectMap<Task>> batch = pending;
+        pending = null;
+        int total = batch.stream().mapToInt(IntObjectMap::size).sum();
+        Task[] docs = new Task[total];
+        TaskType[] docTypes = new TaskType[total];
+        int next = 0;
+        for (TaskType type : TaskType.values()) {
+            for (Task task : batch.get(type.ordinal()).values()) {
+                docTypes[next] = type;
+                docs[next++] = task;
+            }
+        }
+
+        int chunks = parallel ? Math.max(1, Math.min(total / MIN_BULK_CHUNK, ForkJoinPool.getCommonPoolParallelism() * 4)) : 1;
+        ChunkTerm[][] docTerms = new ChunkTerm[total][];
+        // слова каждого куска разложены по частям словаря: часть слова определяется его хешем
+        List<List<List<ChunkTerm>>> chunkParts = new ArrayList<>(Collections.nCopies(chunks, null));
+        range(chunks, parallel).forEach(chunk -> {
+            Map<String, ChunkTerm> terms = new HashMap<>();
+            for (int doc = chunk(chunk, chunks, total); doc < chunk(chunk + 1, chunks, total); doc++) {
+                int id = docs[doc].getId();
+                int current = doc;
+                List<ChunkTerm> words = new ArrayList<>();
+                Consumer<String> collect = word -> {
+                    ChunkTerm term = terms.computeIfAbsent(word, ChunkTerm::new);
+                    if (term.lastDoc == current) return;
+                    term.lastDoc = current;
+                    term.add(id);
+                    words.add(term);
+                };
+                TextTokenizer.forEachTerm(docs[doc].getTitle(), collect);
+                TextTokenizer.forEachTerm(docs[doc].getDescription(), collect);
+                docTerms[doc] = words.toArray(new ChunkTerm[0]);
+            }
+            List<List<ChunkTerm>> parts = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) parts.add(new ArrayList<>());
+            for (ChunkTerm term : terms.values()) parts.get(part(term.term, chunks)).add(term);
+            chunkParts.set(chunk, parts);
+        });
+
+        // часть словаря собирает списки своих слов из всех кусков по порядку
+        ConcurrentSkipListMap<String, Postings> sorted = new ConcurrentSkipListMap<>();
+        long[] counts = new long[chunks];
+        range(chunks, parallel).forEach(part -> {
+            Map<String, Postings> merged = new HashMap<>();
+            for (List<List<ChunkTerm>> parts : chunkParts) {
+                for (ChunkTerm term : parts.get(part)) {
+                    Postings list = merged.computeIfAbsent(term.term, Postings::new);
+                    list.append(term.ids, term.size);
+                    term.target = list;
+                }
+            }
+            for (Postings list : merged.values()) {
+                list.sortUnique();
+                counts[part] += list.size;
+                sorted.put(list.term, list);
+            }
+        });
+        dictionary.putAll(sorted);
+        for (long count : counts) postings += count;
+
+        Postings[][] docLists = new Postings[total][];
+        range(chunks, parallel).forEach(chunk -> {
+            for (int doc = chunk(chunk, chunks, total); doc < chunk(chunk + 1, chunks, total); doc++) {
+                ChunkTerm[] words = docTerms[doc];
+                if (words.length == 0) continue;
+                Postings[] lists = new Postings[words.length];
+                for (int i = 0; i < words.length; i++) lists[i] = words[i].target;
+                docLists[doc] = lists;
+            }
+        });
+        for (int doc = 0; doc < total; doc++) {
+            if (docLists[doc] != null) documents.get(docTypes[doc].ordinal()).put(docs[doc].getId(), docLists[doc]);
+        }
+    }
+
+    private static IntStream range(int count, boolean parallel) {
+        IntStream range = IntStream.range(0, count);
+        return parallel ? range.parallel() : range;
+    }
+
+    // начало куска с номером chunk из chunks для total задач
+    private static int chunk(int chunk, int chunks, int total) {
+        return (int) ((long) total * chunk / chunks);
+    }
+
+    private static int part(String term, int parts) {
+        return (term.hashCode() & Integer.MAX_VALUE) % parts;
+    }
+
+    // id задач, в тексте которых есть все слова запроса, по возрастанию и не больше limit.
+    // Кандидаты перебираются по самому редкому слову запроса и ищутся в списках остальных, так что
+    // обход останавливается, как только набрано limit задач
+    int[] search(TextQuery query, int limit) {
+        if (query.isEmpty() || limit == 0) return new int[0];
+        List<List<Postings>> terms = new ArrayList<>(query.terms().size());
+        for (TextQuery.Term term : query.terms()) {
+            List<Postings> lists = term.prefix() ? withPrefix(term.text()) : exact(term.text());
+            if (lists.isEmpty()) return new int[0];
+            terms.add(lists);
+        }
+        terms.sort(Comparator.comparingLong(TextIndex::totalSize));
+        PrimitiveIterator.OfInt candidates = ascending(terms.getFirst());
+        List<List<Postings>> checks = new ArrayList<>(terms.size() - 1);
+        for (List<Postings> lists : terms.subList(1, terms.size())) {
+            // у короткого префикса могут быть тысячи слов: проще один раз объединить их списки
+            checks.add(lists.size() > MAX_CHECKED_LISTS ? List.of(union(lists)) : lists);
+        }
+
+        int[] result = new int[Math.min(limit, 16)];
+        int count = 0;
+        next:
+        while (count < limit && candidates.hasNext()) {
+            int id = candidates.nextInt();
+            for (List<Postings> lists : checks) {
+                if (!containsAny(lists, id)) continue next;
+            }
+            if (count == result.length) result = Arrays.copyOf(result, (int) Math.min(limit, 2L * count));
+            result[count++] = id;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    SearchIndexStats stats() {
+        long bytes = 0;
+        for (Postings list : dictionary.values()) {
+            bytes += TREE_ENTRY + stringBytes(list.term) + POSTINGS + align(ARRAY_HEADER + 4L * list.ids.length);
+        }
+        int count = 0;
+        for (IntObjectMap<Postings[]> store : documents) {
+            count += store.size();
+            for (Postings[] lists : store.values()) {
+                bytes += STORE_ENTRY + align(ARRAY_HEADER + 4L * lists.length);
+            }
+        }
+        return new SearchIndexStats(count, dictionary.size(), postings, bytes);
+    }
+
+    private void unlink(Postings list, int id) {
+        list.remove(id);
+        postings--;
+        if (list.size == 0) dictionary.remove(list.term);
+    }
+
+    private List<Postings> exact(String term) {
+        Postings list = dictionary.get(term);
+        return list == null ? List.of() : List.of(list);
+    }
+
+    // списки всех слов, которые начинаются с prefix
+    private List<Postings> withPrefix(String prefix) {
+        return List.copyOf(dictionary.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    private static long totalSize(List<Postings> lists) {
+        long size = 0;
+        for (Postings list : lists) size += list.size;
+        return size;
+    }
+
+    private static boolean containsAny(List<Postings> lists, int id) {
+        for (Postings list : lists) {
+            if (list.contains(id)) return true;
+        }
+        return false;
+    }
+
+    // id из нескольких списков по возрастанию без повторов: слияние через очередь по текущему id списка
+    private static PrimitiveIterator.OfInt ascending(List<Postings> lists) {
+        if (lists.size() == 1) {
+            Postings list = lists.getFirst();
+            return Arrays.stream(list.ids, 0, list.size).iterator();
+        }
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Comparator.comparingInt((int[] cursor) ->
+                lists.get(cursor[0]).ids[cursor[1]]));
+        for (int i = 0; i < lists.size(); i++) cursors.add(new int[]{i, 0});
+        return new PrimitiveIterator.OfInt() {
+            private int last = Integer.MIN_VALUE;
+
+            @Override
+            public boolean hasNext() {
+                while (!cursors.isEmpty() && current(cursors.peek()) == last) advance();
+                return !cursors.isEmpty();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                last = current(cursors.peek());
+                advance();
+                return last;
+            }
+
+            private int current(int[] cursor) {
+                return lists.get(cursor[0]).ids[cursor[1]];
+            }
+
+            private void advance() {
+                int[] cursor = cursors.poll();
+                if (++cursor[1] < lists.get(cursor[0]).size) cursors.add(cursor);
+            }
+        };
+    }
+
+    private static Postings union(List<Postings> lists) {
+        int[] ids = new int[(int) totalSize(lists)];
+        int size = 0;
+        for (Postings list : lists) {
+            System.arraycopy(list.ids, 0, ids, size, list.size);
+            size += list.size;
+        }
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) ids[unique++] = ids[i];
+        }
+        return new Postings("", ids, unique);
+    }
+
+    private static long stringBytes(String text) {
+        boolean latin1 = text.chars().allMatch(c -> c <= 0xFF);
+        return STRING + align(ARRAY_HEADER + (long) text.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+import ru.practicum.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Поисковый запрос: слова через пробел, которые все должны встретиться в названии или описании задачи.
+ * Слово со звёздочкой на конце ищется как префикс: {@code отчёт* q3}. Слова разбираются
+ * так же, как текст задач, см. {@link TextTokenizer}.
+ */
+record TextQuery(List<Term> terms) {
+
+    record Term(String text, boolean prefix) {
+    }
+
+    static TextQuery parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query == null) return new TextQuery(terms);
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            List<String> parts = TextTokenizer.terms(word);
+            // из «e-mail*» получаются «e» и префикс «mail»
+            for (int i = 0; i < parts.size(); i++) {
+                terms.add(new Term(parts.get(i), prefix && i == parts.size() - 1));
+            }
+        }
+        return new TextQuery(List.copyOf(terms));
+    }
+
+    boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    // проверка одной задачи без индекса
+    boolean matches(Task task) {
+        Set<String> words = new HashSet<>();
+        TextTokenizer.forEachTerm(task.getTitle(), words::add);
+        TextTokenizer.forEachTerm(task.getDescription(), words::add);
+        for (Term term : terms) {
+            boolean found = term.prefix()
+                    ? words.stream().anyMatch(word -> word.startsWith(term.text()))
+                    : words.contains(term.text());
+            if (!found) return false;
+        }
+        return true;
+    }
+}
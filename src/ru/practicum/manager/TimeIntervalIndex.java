@@ -0,0 +1,100 @@
+package ru.practicum.manager;
+
+import ru.practicum.util.SortedArrays;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Индекс временных интервалов задач, упорядоченный по времени начала.
+ * Менеджер не допускает пересечений, поэтому интервалы в индексе не пересекаются
+ * и для проверки нового интервала достаточно посмотреть на ближайших соседей слева и справа.
+ */
+class TimeIntervalIndex {
+
+    record Interval(int id, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private final NavigableMap<LocalDateTime, Interval> byStart = new TreeMap<>();
+    private final Map<Integer, Interval> byId = new HashMap<>();
+    // сколько интервалов просмотрено проверками пересечений за всё время, для метрик
+    private long scanned;
+
+    void add(int id, LocalDateTime start, LocalDateTime end) {
+        remove(id);
+        Interval interval = new Interval(id, start, end);
+        byStart.put(start, interval);
+        byId.put(id, interval);
+    }
+
+    // то же, что add для каждого интервала по порядку: при равном начале остаётся последний.
+    // В пустой индекс интервалы сортируются Arrays.parallelSort, а дерево строится из отсортированного
+    // массива за линейное время
+    void addAll(List<Interval> intervals) {
+        if (!byId.isEmpty()) {
+            intervals.forEach(interval -> add(interval.id(), interval.start(), interval.end()));
+            return;
+        }
+        Interval[] sorted = intervals.toArray(new Interval[0]);
+        // сортировка устойчивая, поэтому последний из равных по началу стоит последним
+        Arrays.parallelSort(sorted, Comparator.comparing(Interval::start));
+        LocalDateTime[] starts = new LocalDateTime[sorted.length];
+        int size = 0;
+        for (Interval interval : sorted) {
+            if (size > 0 && starts[size - 1].equals(interval.start())) size--;
+            starts[size] = interval.start();
+            sorted[size++] = interval;
+        }
+        byStart.putAll(SortedArrays.asSortedMap(starts, sorted, size));
+        for (Interval interval : intervals) byId.put(interval.id(), interval);
+    }
+
+    void remove(int id) {
+        Interval interval = byId.remove(id);
+        if (interval != null && byStart.get(interval.start()) == interval) {
+            byStart.remove(interval.start());
+        }
+    }
+
+    void clear() {
+        byStart.clear();
+        byId.clear();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    long scanned() {
+        return scanned;
+    }
+
+    // интервал, который содержит момент (границы включительно), или null; интервалы не пересекаются,
+    // поэтому это может быть только ближайший интервал, начавшийся не позже момента
+    Interval at(LocalDateTime instant) {
+        Map.Entry<LocalDateTime, Interval> floor = byStart.floorEntry(instant);
+        if (floor == null || floor.getValue().end().isBefore(instant)) return null;
+        return floor.getValue();
+    }
+
+    // границы включительно: задача, начинающаяся в момент окончания другой, считается пересечением
+    boolean overlaps(LocalDateTime start, LocalDateTime end, int ignoredId) {
+        Map.Entry<LocalDateTime, Interval> before = byStart.floorEntry(start);
+        while (before != null && before.getValue().id() == ignoredId) {
+            scanned++;
+            before = byStart.lowerEntry(before.getKey());
+        }
+        if (before != null) scanned++;
+        if (before != null && !before.getValue().end().isBefore(start)) {
+            return true;
+        }
+
+        Map.Entry<LocalDateTime, Interval> after = byStart.higherEntry(start);
+        while (after != null && after.getValue().id() == ignoredId) {
+            scanned++;
+            after = byStart.higherEntry(after.getKey());
+        }
+        if (after != null) scanned++;
+        return after != null && !after.getValue().start().isAfter(end);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.Task;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Выборки по времени начала из множества задач, упорядоченного как prioritizedTasks:
+ * по времени начала, задачи без времени в конце, при равном начале — по id.
+ * <p>
+ * Границы диапазона задаются пробными задачами с наименьшим id, поэтому поиск границы стоит O(log N),
+ * а результат — представление поверх самого множества без копирования: обход выдаёт k задач за O(k)
+ * и видит изменения, сделанные после вызова. Представления только для чтения.
+ */
+final class TimeRanges {
+
+    // стоит перед всеми задачами без времени начала и после всех задач со временем
+    private static final Task UNSCHEDULED = probe(null);
+
+    private TimeRanges() {
+    }
+
+    // задачи, которые начинаются в [from, to)
+    static Collection<Task> startingBetween(NavigableSet<Task> prioritized, LocalDateTime from, LocalDateTime to) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (!from.isBefore(to)) return List.of();
+        return Collections.unmodifiableNavigableSet(prioritized.subSet(probe(from), true, probe(to), false));
+    }
+
+    // не больше limit задач, которые начинаются не раньше from
+    static Collection<Task> startingFrom(NavigableSet<Task> prioritized, LocalDateTime from, int limit) {
+        Objects.requireNonNull(from, "from");
+        if (limit < 0) throw new IllegalArgumentException("Отрицательный limit: " + limit);
+        return limited(prioritized.subSet(probe(from), true, UNSCHEDULED, false), limit);
+    }
+
+    // задача, которая идёт в момент instant (границы включительно), или null. Задачи со временем
+    // не пересекаются, поэтому это может быть только ближайшая начавшаяся не позже момента задача
+    // с длительностью; задачи с началом, но без длительности, пропускаются
+    static Task activeAt(NavigableSet<Task> prioritized, LocalDateTime instant) {
+        Objects.requireNonNull(instant, "instant");
+        for (Task task : prioritized.headSet(probe(instant, Integer.MAX_VALUE), true).descendingSet()) {
+            LocalDateTime end = task.getEndTime();
+            if (end != null) return end.isBefore(instant) ? null : task;
+        }
+        return null;
+    }
+
+    private static Task probe(LocalDateTime start) {
+        return probe(start, Integer.MIN_VALUE);
+    }
+
+    private static Task probe(LocalDateTime start, int id) {
+        Task probe = new Task(null, null, null);
+        probe.setId(id);
+        probe.setStartTime(start);
+        return probe;
+    }
+
+    private static Collection<Task> limited(Collection<Task> source, int limit) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                Iterator<Task> iterator = source.iterator();
+                return new Iterator<>() {
+                    private int left = limit;
+
+                    @Override
+                    public boolean hasNext() {
+                        return left > 0 && iterator.hasNext();
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        left--;
+                        return iterator.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (Iterator<Task> iterator = iterator(); iterator.hasNext(); iterator.next()) size++;
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.manager;
+
+import ru.practicum.model.*;
+import ru.practicum.util.IntObjectMap;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Журнал отката транзакции {@link TaskManager#transaction}: при первом изменении задачи
+ * запоминается её прежнее значение ({@code null} — задачи не было), у эпика — поля и состав подзадач.
+ * Кроме того, копится то, что откладывается до фиксации: задачи с временем для проверки пересечений,
+ * эпики для пересчёта и id для удаления из истории.
+ * <p>
+ * Id, выданные внутри транзакции, при откате не возвращаются: в сессионной истории удалённый id
+ * отличается от задачи, которая получит его позже, только пока id не выдаются повторно.
+ */
+final class TransactionLog {
+
+    record EpicState(String title, String description, Status status, int[] subtaskIds) {
+    }
+
+    final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    final IntObjectMap<SubTask> subtasks = new IntObjectMap<>();
+    final IntObjectMap<EpicState> epicStates = new IntObjectMap<>();
+    final IntObjectMap<Epic> dirtyEpics = new IntObjectMap<>();
+    final BitSet timed = new BitSet();
+    final BitSet forgotten = new BitSet();
+
+    void rememberTask(int id, Task previous) {
+        if (!tasks.containsKey(id)) tasks.put(id, previous);
+    }
+
+    void rememberEpic(int id, Epic previous) {
+        if (!epics.containsKey(id)) epics.put(id, previous);
+        if (previous != null) rememberEpicState(previous);
+    }
+
+    void rememberSubtask(int id, SubTask previous) {
+        if (!subtasks.containsKey(id)) subtasks.put(id, previous);
+    }
+
+    void rememberEpicState(Epic epic) {
+        if (epicStates.containsKey(epic.getId())) return;
+        epicStates.put(epic.getId(), new EpicState(epic.getTitle(), epic.getDescription(), epic.getStatus(),
+                epic.getSubtaskIdArray()));
+    }
+
+    // id задач, созданных в транзакции: при откате их не остаётся, и они убираются из истории
+    void forEachCreated(IntConsumer action) {
+        forEachCreated(tasks, action);
+        forEachCreated(epics, action);
+        forEachCreated(subtasks, action);
+    }
+
+    private static void forEachCreated(IntObjectMap<? extends Task> previous, IntConsumer action) {
+        for (int id : previous.keys()) {
+            if (previous.get(id) == null) action.accept(id);
+        }
+    }
+
+    boolean isEmpty() {
+        return tasks.isEmpty() && epics.isEmpty() && subtasks.isEmpty() && epicStates.isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.manager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Неизменяемый снимок коллекции, который пересобирается только после изменения её версии.
+// Повторные чтения без изменений возвращают один и тот же объект списка.
+class VersionedSnapshot<T> {
+
+    private List<T> snapshot;
+    private long version = -1;
+
+    List<T> get(long currentVersion, Supplier<? extends Collection<? extends T>> source) {
+        if (snapshot == null || version != currentVersion) {
+            snapshot = List.copyOf(source.get());
+            version = currentVersion;
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,371 @@
+package ru.practicum.manager;
+
+import ru.practicum.exception.ManagerSaveException;
+import ru.practicum.model.*;
+import ru.practicum.util.IntObjectMap;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отложенная запись для {@link FileBackedTaskManager}: изменения ставятся в ограниченную очередь,
+ * а отдельный поток забирает всё накопившееся и записывает одним действием.
+ * <p>
+ * Поток держит собственную копию сохранённого состояния, поэтому не обращается к менеджеру
+ * и пишет снимок без блокировок. Без журнала пачка изменений превращается в одну перезапись снимка,
+ * с журналом — в записи журнала, где изменения одной задачи внутри пачки схлопываются в последнее,
+ * а затем один сброс на диск. Переполненная очередь останавливает вызывающий поток, пока запись
+ * не догонит, так что отставание ограничено ёмкостью очереди.
+ * <p>
+ * Ошибка записи запоминается и выбрасывается из следующего изменения, {@link #flush()} или {@link #close()}.
+ */
+final class WriteBehindPersister {
+
+    private enum Op { PUT, DELETE, CLEAR, GROUP, SNAPSHOT, SEED, STOP }
+
+    // у GROUP в group лежат изменения транзакции, которые записываются только вместе,
+    // у SEED — задачи, уже сохранённые на диске
+    private record Change(Op op, TaskType type, int id, Task task, long enqueuedAt, List<Change> group) {
+
+        Change(Op op, TaskType type, int id, Task task, long enqueuedAt) {
+            this(op, type, id, task, enqueuedAt, List.of());
+        }
+    }
+
+    private final File file;
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private final BlockingQueue<Change> queue;
+    private final Thread thread;
+
+    // состояние, уже переданное на запись; меняется только потоком записи
+    private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    private final IntObjectMap<Task> epics = new IntObjectMap<>();
+    private final IntObjectMap<Task> subtasks = new IntObjectMap<>();
+    private final JournalRecords records = new JournalRecords();
+    private boolean journalStarted;
+
+    private final Object progress = new Object();
+    private long enqueued;
+    private long persisted;
+    private volatile long inFlightSince;
+    private volatile long maxLagNanos;
+    private volatile long writes;
+    private final LongAdder backpressureWaits = new LongAdder();
+    private volatile RuntimeException failure;
+    private volatile MetricsSink metrics = MetricsSink.NONE;
+    private boolean stopped;
+
+    WriteBehindPersister(File file, SnapshotFormat format, TaskJournal journal, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость очереди записи должна быть положительной: " + capacity);
+        }
+        this.file = file;
+        this.format = format;
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "task-write-behind");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void put(Task task) {
+        enqueue(new Change(Op.PUT, task.getType(), task.getId(), copyOf(task), System.nanoTime()));
+    }
+
+    void delete(TaskType type, int id) {
+        enqueue(new Change(Op.DELETE, type, id, null, System.nanoTime()));
+    }
+
+    void clear(TaskType type) {
+        enqueue(new Change(Op.CLEAR, type, 0, null, System.nanoTime()));
+    }
+
+    // изменения транзакции одним элементом очереди: на диск они попадают только снимком, целиком
+    void group(List<Task> puts, List<Task> deleted) {
+        List<Change> changes = new ArrayList<>(puts.size() + deleted.size());
+        long now = System.nanoTime();
+        for (Task task : deleted) {
+            changes.add(new Change(Op.DELETE, task.getType(), task.getId(), null, now));
+        }
+        for (Task task : puts) {
+            changes.add(new Change(Op.PUT, task.getType(), task.getId(), copyOf(task), now));
+        }
+        enqueue(new Change(Op.GROUP, null, 0, null, now, changes));
+    }
+
+    // загруженное с диска состояние: копия потока записи начинается с него, а не с пустой доски.
+    // Ничего не записывает; вызывается до первого изменения
+    void seed(Collection<? extends Task> loaded) {
+        List<Change> changes = new ArrayList<>(loaded.size());
+        long now = System.nanoTime();
+        for (Task task : loaded) {
+            changes.add(new Change(Op.PUT, task.getType(), task.getId(), copyOf(task), now));
+        }
+        enqueue(new Change(Op.SEED, null, 0, null, now, changes));
+    }
+
+    // полный снимок сохранённого состояния; журнал после него очищается
+    void snapshot() {
+        enqueue(new Change(Op.SNAPSHOT, null, 0, null, System.nanoTime()));
+    }
+
+    // ждёт, пока будут записаны все изменения, поставленные до вызова
+    void flush() {
+        long target;
+        synchronized (progress) {
+            target = enqueued;
+        }
+        awaitPersisted(target);
+    }
+
+    void close() {
+        synchronized (progress) {
+            if (stopped) return;
+            stopped = true;
+            enqueued++;
+        }
+        boolean queued = false;
+        try {
+            queue.put(new Change(Op.STOP, null, 0, null, System.nanoTime()));
+            queued = true;
+            thread.join();
+        } catch (InterruptedException e) {
+            // STOP не попал в очередь: поток записи продолжает работу, и close можно повторить
+            if (!queued) {
+                synchronized (progress) {
+                    stopped = false;
+                    cancelEnqueued();
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Прервано ожидание отложенной записи", e);
+        }
+        checkFailure();
+    }
+
+    WriteBehindStats stats() {
+        long since = inFlightSince;
+        Change oldest = queue.peek();
+        if (since == 0 && oldest != null) since = oldest.enqueuedAt();
+        long lag = since == 0 ? 0 : Math.max(0, System.nanoTime() - since);
+        return new WriteBehindStats(queue.size(), Duration.ofNanos(lag), Duration.ofNanos(Math.max(lag, maxLagNanos)),
+                persistedCount(), writes, backpressureWaits.sum());
+    }
+
+    private void enqueue(Change change) {
+        checkFailure();
+        synchronized (progress) {
+            if (stopped) throw new IllegalStateException("Отложенная запись уже остановлена");
+            enqueued++;
+        }
+        try {
+            if (!queue.offer(change)) {
+                backpressureWaits.increment();
+                queue.put(change);
+            }
+        } catch (InterruptedException e) {
+            synchronized (progress) {
+                cancelEnqueued();
+            }
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Прервано ожидание места в очереди записи", e);
+        }
+    }
+
+    // изменение посчитано, но в очередь не попало; вызывается под progress
+    private void cancelEnqueued() {
+        enqueued--;
+        progress.notifyAll();
+    }
+
+    // счётчик уменьшается, если изменение так и не встало в очередь, поэтому flush, начатый раньше,
+    // ждёт не больше текущего значения
+    private void awaitPersisted(long target) {
+        synchronized (progress) {
+            while (persisted < Math.min(target, enqueued) && failure == null) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerSaveException("Прервано ожидание отложенной записи", e);
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    private long persistedCount() {
+        synchronized (progress) {
+            return persisted;
+        }
+    }
+
+    private void checkFailure() {
+        RuntimeException error = failure;
+        if (error != null) {
+            throw new ManagerSaveException("Ошибка отложенной записи в файл: " + file.getName(), error);
+        }
+    }
+
+    private void run() {
+        List<Change> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            inFlightSince = batch.getFirst().enqueuedAt();
+            running = batch.getLast().op() != Op.STOP;
+            // после ошибки очередь только разбирается, чтобы не держать вызывающие потоки
+            if (failure == null) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - inFlightSince);
+            inFlightSince = 0;
+            synchronized (progress) {
+                persisted += batch.size();
+                progress.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    // применяет пачку к копии состояния и записывает её на диск одним действием
+    private void write(List<Change> batch) {
+        boolean changed = false;
+        boolean snapshotRequested = false;
+        // записи журнала по id: повторное изменение той же задачи заменяет предыдущее
+        Map<Integer, Change> pending = new LinkedHashMap<>();
+        for (Change change : batch) {
+            if (change.op() != Op.STOP && change.op() != Op.SEED) changed = true;
+            switch (change.op()) {
+                case PUT -> {
+                    storeFor(change.type()).put(change.id(), change.task());
+                    if (journal != null) pending.put(change.id(), change);
+                }
+                case DELETE -> {
+                    storeFor(change.type()).remove(change.id());
+                    if (journal != null) pending.put(change.id(), change);
+                }
+                case CLEAR -> {
+                    storeFor(change.type()).clear();
+                    if (change.type() == TaskType.EPIC) subtasks.clear();
+                    if (journal != null) {
+                        // очистка затрагивает все задачи типа, поэтому накопленное пишется до неё
+                        appendAll(pending);
+                        appendToJournal(records.clear(change.type()));
+                    }
+                }
+                case GROUP -> {
+                    if (journal != null) appendAll(pending);
+                    for (Change part : change.group()) {
+                        if (part.op() == Op.PUT) {
+                            storeFor(part.type()).put(part.id(), part.task());
+                        } else {
+                            storeFor(part.type()).remove(part.id());
+                        }
+                    }
+                    snapshotRequested = true;
+                }
+                case SNAPSHOT -> {
+                    if (journal != null) appendAll(pending);
+                    snapshotRequested = true;
+                }
+                case SEED -> {
+                    for (Change part : change.group()) storeFor(part.type()).put(part.id(), part.task());
+                    // снимок и журнал на диске уже согласованы с загруженным состоянием
+                    journalStarted = true;
+                }
+                case STOP -> {
+                }
+            }
+        }
+        if (!changed) return;
+
+        if (journal == null) {
+            writeSnapshot();
+        } else {
+            appendAll(pending);
+            if (snapshotRequested || journal.needsCompaction()) {
+                compact();
+            } else {
+                journal.sync();
+            }
+        }
+        writes++;
+    }
+
+    private void appendAll(Map<Integer, Change> pending) {
+        for (Change change : pending.values()) {
+            appendToJournal(change.op() == Op.PUT
+                    ? records.put(change.task())
+                    : records.delete(change.type(), change.id()));
+        }
+        pending.clear();
+    }
+
+    void setMetrics(MetricsSink metrics) {
+        this.metrics = metrics;
+    }
+
+    private void appendToJournal(String record) {
+        // первая запись начинается со свежего снимка, чтобы не смешаться со старым журналом
+        if (!journalStarted) compact();
+        long start = System.nanoTime();
+        // пачку подтверждает один journal.sync() в конце write
+        journal.appendUnsynced(record);
+        FileBackedTaskManager.recordJournalAppend(metrics, record, System.nanoTime() - start);
+    }
+
+    private void compact() {
+        writeSnapshot();
+        journal.reset();
+        journalStarted = true;
+    }
+
+    private void writeSnapshot() {
+        long start = System.nanoTime();
+        FileBackedTaskManager.writeSnapshot(file, format, tasks.values(), epics.values(), subtasks.values());
+        FileBackedTaskManager.recordSnapshot(metrics, file, System.nanoTime() - start);
+    }
+
+    private IntObjectMap<Task> storeFor(TaskType type) {
+        return switch (type) {
+            case TASK -> tasks;
+            case EPIC -> epics;
+            case SUBTASK -> subtasks;
+        };
+    }
+
+    // вызывающий код может менять свои объекты после возврата, поэтому в очередь идёт копия
+    private static Task copyOf(Task task) {
+        Task copy = switch (task.getType()) {
+            case TASK -> new Task(task.getTitle(), task.getDescription(), task.getStatus());
+            case EPIC -> new Epic(task.getTitle(), task.getDescription(), task.getStatus());
+            case SUBTASK -> new SubTask(task.getTitle(), task.getDescription(), task.getStatus(),
+                    ((SubTask) task).getEpicId());
+        };
+        copy.setId(task.getId());
+        if (task.getType() != TaskType.EPIC) {
+            copy.setDuration(task.getDuration());
+            copy.setStartTime(task.getStartTime());
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.manager;
+
+import java.time.Duration;
+
+/**
+ * Состояние отложенной записи {@link FileBackedTaskManager}.
+ *
+ * @param queueDepth        изменений в очереди, ещё не взятых потоком записи
+ * @param lag               сколько ждёт самое старое незаписанное изменение
+ * @param maxLag            наибольшее отставание записи за время работы
+ * @param persistedChanges  сколько изменений уже записано
+ * @param writes            сколько раз данные записывались на диск; меньше числа изменений за счёт объединения
+ * @param backpressureWaits сколько раз вызывающий поток ждал места в заполненной очереди
+ */
+public record WriteBehindStats(int queueDepth, Duration lag, Duration maxLag, long persistedChanges,
+                               long writes, long backpressureWaits) {
+}
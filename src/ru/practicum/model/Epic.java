@@ -1,32 +1,131 @@
 package ru.practicum.model;
 
+import ru.practicum.util.IntObjectMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
     private LocalDateTime endTime;
-    private final List<Integer> subtaskIds = new ArrayList<>();
+
+    // id подзадач в порядке добавления вместе с их вкладом в агрегаты: удаление за O(1).
+    // Агрегаты обновляются при каждом изменении, а не пересчитываются целиком;
+    // вклад подзадачи запоминается, потому что сам объект подзадачи могут изменить снаружи
+    private final IntObjectMap<Contribution> contributions = new IntObjectMap<>();
+    private final Set<Integer> subtaskIds = contributions.keySet();
+    private final int[] statusCounts = new int[Status.values().length];
+    private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+    private long totalMinutes;
+
+    private record Contribution(Status status, LocalDateTime start, LocalDateTime end, long minutes) {
+    }
 
     public Epic(String title, String description, Status status) {
         super(title, description, status);
     }
 
+    // независимая копия эпика с теми же подзадачами, агрегатами, статусом и временем
+    public Epic copy() {
+        Epic copy = new Epic(title, description, status);
+        copy.id = id;
+        copy.startTime = startTime;
+        copy.duration = duration;
+        copy.endTime = endTime;
+        contributions.forEachKey(subtaskId -> copy.contributions.put(subtaskId, contributions.get(subtaskId)));
+        System.arraycopy(statusCounts, 0, copy.statusCounts, 0, statusCounts.length);
+        copy.starts.putAll(starts);
+        copy.ends.putAll(ends);
+        copy.totalMinutes = totalMinutes;
+        return copy;
+    }
+
+    // неизменяемый снимок id подзадач в порядке добавления
     public List<Integer> getSubtaskIds() {
+        return Arrays.stream(contributions.keys()).boxed().toList();
+    }
+
+    // живое представление id подзадач только для чтения, без копирования
+    public Set<Integer> getSubtaskIdSet() {
         return subtaskIds;
     }
 
-    public void addSubtaskId(int id) {
-        subtaskIds.add(id);
+    // копия id подзадач в порядке добавления, удобная для изменения эпика по ходу обхода
+    public int[] getSubtaskIdArray() {
+        return contributions.keys();
     }
 
-    public void removeSubtaskId(int id) {
-        subtaskIds.remove((Integer) id);
+    public void forEachSubtaskId(IntConsumer action) {
+        contributions.forEachKey(action);
+    }
+
+    // добавляет подзадачу или обновляет вклад уже добавленной
+    public void addSubtask(SubTask subtask) {
+        Contribution contribution = contributionOf(subtask);
+        Contribution previous = contributions.put(subtask.getId(), contribution);
+        if (previous != null) exclude(previous);
+        include(contribution);
+    }
+
+    public void removeSubtask(int id) {
+        Contribution previous = contributions.remove(id);
+        if (previous != null) exclude(previous);
     }
 
     public void clearSubtasks() {
-        subtaskIds.clear();
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        starts.clear();
+        ends.clear();
+        totalMinutes = 0;
+    }
+
+    public Status calculateStatus() {
+        int total = contributions.size();
+        if (total == 0 || statusCounts[Status.NEW.ordinal()] == total) {
+            return Status.NEW;
+        }
+        if (statusCounts[Status.DONE.ordinal()] == total) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    public LocalDateTime getSubtasksStart() {
+        return starts.isEmpty() ? null : starts.firstKey();
+    }
+
+    public LocalDateTime getSubtasksEnd() {
+        return ends.isEmpty() ? null : ends.lastKey();
+    }
+
+    public Duration getSubtasksDuration() {
+        return Duration.ofMinutes(totalMinutes);
+    }
+
+    private static Contribution contributionOf(SubTask subtask) {
+        long minutes = subtask.getDuration() == null ? 0 : subtask.getDuration().toMinutes();
+        return new Contribution(subtask.getStatus(), subtask.getStartTime(), subtask.getEndTime(), minutes);
+    }
+
+    private void include(Contribution contribution) {
+        if (contribution.status() != null) statusCounts[contribution.status().ordinal()]++;
+        if (contribution.start() != null) starts.merge(contribution.start(), 1, Integer::sum);
+        if (contribution.end() != null) ends.merge(contribution.end(), 1, Integer::sum);
+        totalMinutes += contribution.minutes();
+    }
+
+    private void exclude(Contribution contribution) {
+        if (contribution.status() != null) statusCounts[contribution.status().ordinal()]--;
+        if (contribution.start() != null) decrement(starts, contribution.start());
+        if (contribution.end() != null) decrement(ends, contribution.end());
+        totalMinutes -= contribution.minutes();
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        multiset.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
     }
 
     @Override
@@ -54,4 +153,3 @@ public class Epic extends Task {
         this.endTime = endTime;
     }
 }
-
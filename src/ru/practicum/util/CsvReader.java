@@ -0,0 +1,246 @@
+package ru.practicum.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Потоковое чтение CSV по RFC 4180 за один проход: поля в кавычках могут содержать запятые,
+ * переводы строк и удвоенные кавычки, записи разделяются {@code \n}, {@code \r\n} или {@code \r}.
+ * <p>
+ * Символы текущей записи складываются в переиспользуемый буфер, а строки создаются только
+ * при вызове {@link #get}: числа и константы перечислений разбираются прямо из буфера.
+ * Для данных в UTF-8 {@link #byteOffset()} даёт смещение начала записи в байтах, например чтобы
+ * обрезать файл по последней целой записи. Не потокобезопасно.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    private char[] chars = new char[256];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fields;
+    private long recordNumber;
+    private long bytesRead;
+    private long recordStart;
+    private FieldChecksum checksum;
+
+    public CsvReader(Reader in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    // меньший буфер для чтения одной короткой записи
+    public CsvReader(Reader in, int bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("Размер буфера должен быть положительным: " + bufferSize);
+        this.in = in;
+        this.buffer = new char[bufferSize];
+    }
+
+    // переходит к следующей записи; false, если данные закончились
+    public boolean next() throws IOException {
+        fields = 0;
+        length = 0;
+        recordStart = bytesRead;
+        int c = read();
+        if (c == -1) return false;
+        recordNumber++;
+
+        while (true) {
+            int start = length;
+            boolean inQuotes = c == '"';
+            if (inQuotes) {
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new IOException("Незакрытые кавычки в записи " + recordNumber);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') break;
+                    }
+                    append((char) c);
+                }
+                if (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    throw new IOException("Символы после закрывающей кавычки в записи " + recordNumber);
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    append((char) c);
+                    c = read();
+                }
+            }
+            addField(start, inQuotes);
+
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r') {
+                c = read();
+                if (c != '\n' && c != -1) unread();
+            }
+            return true;
+        }
+    }
+
+    // номер текущей записи, начиная с 1
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    public int size() {
+        return fields;
+    }
+
+    // смещение начала текущей записи в байтах UTF-8
+    public long byteOffset() {
+        return recordStart;
+    }
+
+    // запись начинается с контрольной суммы CsvWriter.withChecksums; верно и для оборванной записи
+    public boolean isChecksummed() {
+        return fields > 0 && ends[0] > starts[0] && chars[starts[0]] == FieldChecksum.PREFIX;
+    }
+
+    // первое поле — контрольная сумма, и она совпадает с посчитанной по остальным полям
+    public boolean checksumMatches() {
+        if (fields == 0) return false;
+        long expected = FieldChecksum.parse(chars, starts[0], ends[0]);
+        if (expected < 0) return false;
+        if (checksum == null) checksum = new FieldChecksum();
+        checksum.reset();
+        for (int i = 1; i < fields; i++) {
+            if (ends[i] == starts[i] && !quoted[i]) {
+                checksum.addNull();
+            } else {
+                checksum.add(chars, starts[i], ends[i]);
+            }
+        }
+        return checksum.value() == (int) expected;
+    }
+
+    // пустая строка файла читается как запись из одного пустого поля
+    public boolean isBlankRecord() {
+        return fields == 1 && ends[0] == starts[0] && !quoted[0];
+    }
+
+    public boolean isEmpty(int index) {
+        Objects.checkIndex(index, fields);
+        return ends[index] == starts[index];
+    }
+
+    public String get(int index) {
+        Objects.checkIndex(index, fields);
+        return new String(chars, starts[index], ends[index] - starts[index]);
+    }
+
+    // пустое поле без кавычек — null, "" — пустая строка
+    public String getOrNull(int index) {
+        Objects.checkIndex(index, fields);
+        return ends[index] == starts[index] && !quoted[index] ? null : get(index);
+    }
+
+    public boolean equalsField(int index, String value) {
+        Objects.checkIndex(index, fields);
+        int fieldLength = ends[index] - starts[index];
+        if (fieldLength != value.length()) return false;
+        for (int i = 0; i < fieldLength; i++) {
+            if (chars[starts[index] + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public int getInt(int index) {
+        long value = getLong(index);
+        if (value != (int) value) throw numberFormat(index);
+        return (int) value;
+    }
+
+    public long getLong(int index) {
+        Objects.checkIndex(index, fields);
+        int from = starts[index];
+        int to = ends[index];
+        boolean negative = from < to && chars[from] == '-';
+        if (negative || from < to && chars[from] == '+') from++;
+        if (from == to) throw numberFormat(index);
+        // 19 и более цифр могут не поместиться в long: переполнение проверит Long.parseLong
+        if (to - from > 18) return Long.parseLong(get(index));
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) throw numberFormat(index);
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // константа перечисления по имени без создания строки, как Enum.valueOf
+    public <E extends Enum<E>> E getEnum(int index, E[] values) {
+        for (E value : values) {
+            if (equalsField(index, value.name())) return value;
+        }
+        throw new IllegalArgumentException("Неизвестное значение \"" + get(index) + "\" в записи " + recordNumber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        bytesRead += utf8Length(c);
+        return c;
+    }
+
+    private void unread() {
+        bytesRead -= utf8Length(buffer[--position]);
+    }
+
+    // половинки суррогатной пары дают по два байта, вместе — четыре
+    private static int utf8Length(char c) {
+        if (c < 0x80) return 1;
+        if (c < 0x800 || Character.isSurrogate(c)) return 2;
+        return 3;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) chars = Arrays.copyOf(chars, length * 2);
+        chars[length++] = c;
+    }
+
+    private void addField(int start, boolean inQuotes) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+            quoted = Arrays.copyOf(quoted, fields * 2);
+        }
+        starts[fields] = start;
+        ends[fields] = length;
+        quoted[fields] = inQuotes;
+        fields++;
+    }
+
+    private NumberFormatException numberFormat(int index) {
+        return new NumberFormatException("For input string: \"" + get(index) + "\"");
+    }
+}
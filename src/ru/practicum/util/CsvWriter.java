@@ -0,0 +1,133 @@
+package ru.practicum.util;
+
+import java.io.CharArrayWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Потоковая запись CSV по RFC 4180. Поле берётся в кавычки, только если содержит запятую, кавычку
+ * или перевод строки; кавычки внутри удваиваются. {@code null} записывается пустым полем,
+ * а пустая строка — как {@code ""}, так что {@link CsvReader#getOrNull} различает их при чтении.
+ * <p>
+ * Числа пишутся цифрами во внутренний буфер, поэтому запись записи не создаёт строк.
+ * Записи разделяются символом {@code '\n'}.
+ * <p>
+ * Писатель из {@link #withChecksums} ставит первым полем каждой записи контрольную сумму остальных полей
+ * (её проверяет {@link CsvReader#checksumMatches()}). Оборванная при сбое запись тогда всё равно начинается
+ * с {@code #} и не проходит проверку. Для этого запись копится в переиспользуемом буфере до {@link #endRecord()}.
+ * Не потокобезопасно.
+ */
+public final class CsvWriter implements Closeable, Flushable {
+
+    private final Writer target;
+    private final Writer out;
+    private final CharArrayWriter record;
+    private final FieldChecksum checksum;
+    private final char[] digits = new char[20];
+    private boolean recordStarted;
+
+    public CsvWriter(Writer out) {
+        this(out, null, null);
+    }
+
+    // без буфера записи поля пишутся сразу в target
+    private CsvWriter(Writer target, CharArrayWriter record, FieldChecksum checksum) {
+        this.target = target;
+        this.record = record;
+        this.out = record != null ? record : target;
+        this.checksum = checksum;
+    }
+
+    public static CsvWriter withChecksums(Writer out) {
+        return new CsvWriter(out, new CharArrayWriter(256), new FieldChecksum());
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (checksum != null) checksum.add(value);
+        if (value == null) return this;
+        if (value.isEmpty()) {
+            out.write("\"\"");
+            return this;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return this;
+        }
+
+        out.write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                out.write(value, from, i + 1 - from);
+                out.write('"');
+                from = i + 1;
+            }
+        }
+        out.write(value, from, value.length() - from);
+        out.write('"');
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            String text = Long.toString(value);
+            out.write(text);
+            if (checksum != null) checksum.add(text);
+            return this;
+        }
+        int position = digits.length;
+        long rest = Math.abs(value);
+        do {
+            digits[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (value < 0) digits[--position] = '-';
+        out.write(digits, position, digits.length - position);
+        if (checksum != null) checksum.add(digits, position, digits.length);
+        return this;
+    }
+
+    public CsvWriter field(Enum<?> value) throws IOException {
+        return field(value == null ? null : value.name());
+    }
+
+    public void endRecord() throws IOException {
+        if (checksum != null) {
+            FieldChecksum.format(checksum.value(), digits, 0);
+            target.write(digits, 0, FieldChecksum.TEXT_LENGTH);
+            if (record.size() > 0 || recordStarted) target.write(',');
+            record.writeTo(target);
+            record.reset();
+            checksum.reset();
+        }
+        target.write('\n');
+        recordStarted = false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+
+    private void separate() throws IOException {
+        if (recordStarted) out.write(',');
+        recordStarted = true;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
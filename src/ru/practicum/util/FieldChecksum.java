@@ -0,0 +1,94 @@
+package ru.practicum.util;
+
+import java.util.zip.CRC32C;
+
+/**
+ * CRC32C по значениям полей записи, а не по её тексту: так контрольную сумму одинаково считают
+ * {@link CsvWriter} при записи и {@link CsvReader} после разбора кавычек. Каждый символ поля даёт
+ * два байта UTF-16, за полем следует разделитель, у {@code null} — свой, чтобы он отличался от пустой строки.
+ * <p>
+ * Сумма хранится первым полем записи в виде {@code #} и восьми шестнадцатеричных цифр.
+ */
+final class FieldChecksum {
+
+    static final int TEXT_LENGTH = 9;
+    static final char PREFIX = '#';
+
+    private static final int FIELD_END = 0x1F;
+    private static final int NULL_FIELD = 0x1E;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final CRC32C crc = new CRC32C();
+    private final byte[] scratch = new byte[512];
+    private int used;
+
+    void add(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            putChar(chars[i]);
+        }
+        put(FIELD_END);
+    }
+
+    void add(String value) {
+        if (value == null) {
+            put(NULL_FIELD);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            putChar(value.charAt(i));
+        }
+        put(FIELD_END);
+    }
+
+    void addNull() {
+        put(NULL_FIELD);
+    }
+
+    int value() {
+        crc.update(scratch, 0, used);
+        used = 0;
+        return (int) crc.getValue();
+    }
+
+    void reset() {
+        crc.reset();
+        used = 0;
+    }
+
+    // "#" и восемь шестнадцатеричных цифр в target начиная с offset
+    static void format(int checksum, char[] target, int offset) {
+        target[offset] = PREFIX;
+        for (int i = 8; i >= 1; i--) {
+            target[offset + i] = HEX[checksum & 0xF];
+            checksum >>>= 4;
+        }
+    }
+
+    // -1L, если текст не является записью контрольной суммы
+    static long parse(char[] chars, int from, int to) {
+        if (to - from != TEXT_LENGTH || chars[from] != PREFIX) return -1L;
+        long value = 0;
+        for (int i = from + 1; i < to; i++) {
+            int digit = Character.digit(chars[i], 16);
+            if (digit < 0) return -1L;
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private void putChar(char c) {
+        if (used + 2 > scratch.length) flushScratch();
+        scratch[used++] = (byte) (c >>> 8);
+        scratch[used++] = (byte) c;
+    }
+
+    private void put(int b) {
+        if (used == scratch.length) flushScratch();
+        scratch[used++] = (byte) b;
+    }
+
+    private void flushScratch() {
+        crc.update(scratch, 0, used);
+        used = 0;
+    }
+}
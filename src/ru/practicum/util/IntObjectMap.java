@@ -0,0 +1,306 @@
+package ru.practicum.util;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Отображение int → объект без упаковки ключей.
+ * <p>
+ * Записи лежат в плотных массивах слотов и связаны в порядке добавления, а поиск идёт по отдельной
+ * таблице с открытой адресацией (линейное пробирование, удаление со сдвигом назад), в ячейках которой
+ * хранится номер слота. Освободившиеся слоты переиспользуются. Итерация идёт в порядке добавления.
+ * Не потокобезопасно.
+ */
+public class IntObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] table;
+    private int mask;
+    private int shift;
+
+    private int[] keys;
+    private Object[] values;
+    private int[] prev;
+    private int[] next;
+    private int head = -1;
+    private int tail = -1;
+    private int freeSlot = -1;
+    private int usedSlots;
+
+    private int size;
+    private int modCount;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        allocateTable(tableSizeFor(capacity));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // счётчик структурных и обычных изменений: растёт при каждом put/remove/clear
+    public int modCount() {
+        return modCount;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = find(key);
+        return index < 0 ? null : (V) values[table[index] - 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        int index = find(key);
+        modCount++;
+        if (index >= 0) {
+            int slot = table[index] - 1;
+            V old = (V) values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        int slot = allocateSlot();
+        keys[slot] = key;
+        values[slot] = value;
+        linkLast(slot);
+        table[~index] = slot + 1;
+        if (++size > table.length / 2) {
+            allocateTable(table.length * 2);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = find(key);
+        if (index < 0) return null;
+
+        int slot = table[index] - 1;
+        V old = (V) values[slot];
+        unlink(slot);
+        values[slot] = null;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        deleteFromTable(index);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, 0, usedSlots, null);
+        head = tail = freeSlot = -1;
+        usedSlots = 0;
+        size = 0;
+        modCount++;
+    }
+
+    // самый давний из добавленных ключей
+    public int firstKey() {
+        if (head == -1) throw new NoSuchElementException();
+        return keys[head];
+    }
+
+    // ключи в порядке добавления
+    public int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int slot = head; slot != -1; slot = next[slot]) {
+            result[i++] = keys[slot];
+        }
+        return result;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        int expectedModCount = modCount;
+        for (int slot = head; slot != -1; slot = next[slot]) {
+            action.accept(keys[slot]);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Integer element(int slot) {
+                        return keys[slot];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer key && containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    V element(int slot) {
+                        return (V) values[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int slot = head; slot != -1; slot = next[slot]) {
+            joiner.add(keys[slot] + "=" + values[slot]);
+        }
+        return joiner.toString();
+    }
+
+    private abstract class SlotIterator<E> implements Iterator<E> {
+        private int slot = head;
+        private final int expectedModCount = modCount;
+
+        abstract E element(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return slot != -1;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (slot == -1) throw new NoSuchElementException();
+            E element = element(slot);
+            slot = IntObjectMap.this.next[slot];
+            return element;
+        }
+    }
+
+    private int hash(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    // индекс ячейки с ключом или ~индекс пустой ячейки, куда его можно вставить
+    private int find(int key) {
+        int index = hash(key);
+        while (table[index] != 0) {
+            if (keys[table[index] - 1] == key) return index;
+            index = (index + 1) & mask;
+        }
+        return ~index;
+    }
+
+    private void deleteFromTable(int index) {
+        int hole = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            if (table[current] == 0) break;
+            int ideal = hash(keys[table[current] - 1]);
+            // запись остаётся на месте, если её идеальная позиция циклически лежит в (hole, current]
+            boolean stays = hole <= current
+                    ? hole < ideal && ideal <= current
+                    : hole < ideal || ideal <= current;
+            if (stays) continue;
+            table[hole] = table[current];
+            hole = current;
+        }
+        table[hole] = 0;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != -1) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (usedSlots == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return usedSlots++;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = -1;
+        if (tail != -1) {
+            next[tail] = slot;
+        } else {
+            head = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before != -1) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != -1) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+
+    private void allocateTable(int length) {
+        table = new int[length];
+        mask = length - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(length);
+        for (int slot = head; slot != -1; slot = next[slot]) {
+            int index = hash(keys[slot]);
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = slot + 1;
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) * 2 - 1) * 2;
+    }
+}
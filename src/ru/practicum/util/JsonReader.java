@@ -0,0 +1,201 @@
+package ru.practicum.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальный разбор JSON по RFC 8259 в объекты Java: объект — {@code Map<String, Object>} с порядком полей
+ * из текста, массив — {@code List<Object>}, строка — {@code String}, целое число — {@code Long},
+ * дробное — {@code Double}, {@code true}/{@code false} — {@code Boolean}, {@code null} — {@code null}.
+ * <p>
+ * Рассчитан на небольшие тела запросов: документ читается целиком. Ошибка формата, лишние символы после
+ * значения и вложенность глубже {@link #MAX_DEPTH} дают {@link IOException} с позицией, как в {@link CsvReader}.
+ */
+public final class JsonReader {
+
+    static final int MAX_DEPTH = 64;
+
+    private final Reader in;
+    private int peeked = -2;
+    private long position;
+    private int depth;
+    private final StringBuilder text = new StringBuilder();
+
+    private JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    public static Object parse(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Object value = reader.value();
+        reader.skipWhitespace();
+        if (reader.peek() != -1) throw reader.error("Лишние символы после значения");
+        return value;
+    }
+
+    public static Object parse(String json) throws IOException {
+        return parse(new StringReader(json));
+    }
+
+    private Object value() throws IOException {
+        skipWhitespace();
+        int c = peek();
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            case -1 -> throw error("Неожиданный конец JSON");
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) yield number();
+                throw error("Неожиданный символ '" + (char) c + "'");
+            }
+        };
+    }
+
+    private Map<String, Object> object() throws IOException {
+        enter();
+        read();
+        Map<String, Object> object = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            read();
+            depth--;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw error("Ожидалось имя поля");
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            int c = read();
+            if (c == '}') break;
+            if (c != ',') throw error("Ожидалась ',' или '}'");
+        }
+        depth--;
+        return object;
+    }
+
+    private List<Object> array() throws IOException {
+        enter();
+        read();
+        List<Object> array = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == ']') {
+            read();
+            depth--;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            int c = read();
+            if (c == ']') break;
+            if (c != ',') throw error("Ожидалась ',' или ']'");
+        }
+        depth--;
+        return array;
+    }
+
+    private String string() throws IOException {
+        read();
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') return text.toString();
+            if (c == -1) throw error("Незакрытая строка");
+            if (c < 0x20) throw error("Управляющий символ в строке");
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"', '\\', '/' -> text.append((char) escaped);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) throw error("Неверная последовательность \\u");
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                }
+                default -> throw error("Неверная escape-последовательность");
+            }
+        }
+    }
+
+    private Object number() throws IOException {
+        text.setLength(0);
+        boolean fraction = false;
+        while (true) {
+            int c = peek();
+            if (c == '.' || c == 'e' || c == 'E') {
+                fraction = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            text.append((char) read());
+        }
+        try {
+            return fraction ? (Object) Double.parseDouble(text.toString()) : (Object) Long.parseLong(text.toString());
+        } catch (NumberFormatException e) {
+            throw error("Неверное число " + text);
+        }
+    }
+
+    private Object literal(String word, Object value) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (read() != word.charAt(i)) throw error("Ожидалось " + word);
+        }
+        return value;
+    }
+
+    private void enter() throws IOException {
+        if (++depth > MAX_DEPTH) throw error("Вложенность глубже " + MAX_DEPTH);
+    }
+
+    private void expect(char expected) throws IOException {
+        if (read() != expected) throw error("Ожидалось '" + expected + "'");
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            read();
+            c = peek();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) peeked = in.read();
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        if (c != -1) position++;
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " в позиции " + position);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмически-линейными корзинами, как в HdrHistogram.
+ * <p>
+ * Значения до {@code 2^SUB_BITS} лежат каждое в своей корзине, а дальше каждый интервал
+ * {@code [2^k, 2^(k+1))} делится на {@code 2^SUB_BITS} равных корзин, поэтому относительная погрешность
+ * перцентилей не больше 1/32 при любом масштабе. Все корзины выделяются заранее: запись значения —
+ * несколько атомарных увеличений без выделения памяти. Записывать и читать можно из разных потоков;
+ * снимок, снятый во время записи, может не учесть значения, записываемые в этот момент.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // значения от 2^MAX_EXPONENT нс (около 18 минут) попадают в последнюю корзину
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param count число значений
+     * @param mean  среднее, нс
+     * @param p50   медиана, нс
+     * @param p90   90-й перцентиль, нс
+     * @param p99   99-й перцентиль, нс
+     * @param p999  99,9-й перцентиль, нс
+     * @param max   наибольшее значение, нс
+     */
+    public record Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+    }
+
+    // отрицательные значения (например, после перевода часов) записываются как 0
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // другой поток обновил максимум, сравниваем заново
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    // верхняя граница корзины, в которую попадает доля quantile значений; 0 для пустой гистограммы
+    public long percentile(double quantile) {
+        if (quantile < 0 || quantile > 1) throw new IllegalArgumentException("Доля вне [0, 1]: " + quantile);
+        return percentile(copyCounts(), quantile);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = copyCounts();
+        long total = 0;
+        for (long bucket : copy) total += bucket;
+        long n = count.sum();
+        return new Snapshot(total, n == 0 ? 0 : (double) sum.sum() / n, percentile(copy, 0.5), percentile(copy, 0.9),
+                percentile(copy, 0.99), percentile(copy, 0.999), max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private long[] copyCounts() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return copy;
+    }
+
+    private long percentile(long[] copy, double quantile) {
+        long total = 0;
+        for (long bucket : copy) total += bucket;
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += copy[i];
+            if (seen >= target) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BITS;
+        // старшие SUB_BITS + 1 битов значения дают номер корзины внутри степени двойки
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // наибольшее значение, которое попадает в корзину
+    static long upperBound(int index) {
+        int region = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (region == 0) return sub;
+        if (index == BUCKETS - 1) return Long.MAX_VALUE;
+        int shift = region - 1;
+        return ((long) (SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+}
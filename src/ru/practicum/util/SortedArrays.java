@@ -0,0 +1,163 @@
+package ru.practicum.util;
+
+import java.util.*;
+
+/**
+ * Представления отсортированных массивов как {@link SortedSet} и {@link SortedMap} для линейного построения
+ * деревьев: {@code new TreeSet<>(comparator).addAll(view)} и {@code new TreeMap<>().putAll(view)} строят
+ * сбалансированное дерево за один проход по итератору без сравнений, если дерево пустое и компараторы
+ * совпадают. Так большой набор можно отсортировать {@link Arrays#parallelSort} и потом построить дерево
+ * вместо N вставок с балансировкой.
+ * <p>
+ * Массивы не копируются и должны быть отсортированы без повторов. Представления только для чтения
+ * и не поддерживают поддиапазоны.
+ */
+public final class SortedArrays {
+
+    private SortedArrays() {
+    }
+
+    // элементы sorted[0 .. size) по возрастанию comparator
+    public static <E> SortedSet<E> asSortedSet(E[] sorted, int size, Comparator<? super E> comparator) {
+        return new SetView<>(sorted, size, comparator);
+    }
+
+    // ключи keys[0 .. size) по возрастанию естественного порядка, values[i] — значение keys[i]
+    public static <K, V> SortedMap<K, V> asSortedMap(K[] keys, V[] values, int size) {
+        return new MapView<>(keys, values, size);
+    }
+
+    private static final class SetView<E> extends AbstractSet<E> implements SortedSet<E> {
+
+        private final E[] elements;
+        private final int size;
+        private final Comparator<? super E> comparator;
+
+        SetView(E[] elements, int size, Comparator<? super E> comparator) {
+            this.elements = elements;
+            this.size = size;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Arrays.asList(elements).subList(0, size).iterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public E first() {
+            if (size == 0) throw new NoSuchElementException();
+            return elements[0];
+        }
+
+        @Override
+        public E last() {
+            if (size == 0) throw new NoSuchElementException();
+            return elements[size - 1];
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class MapView<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+
+        private final K[] keys;
+        private final V[] values;
+        private final int size;
+
+        MapView(K[] keys, V[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<K, V> next() {
+                            if (next >= size) throw new NoSuchElementException();
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(keys[i], values[i]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return null;
+        }
+
+        @Override
+        public K firstKey() {
+            if (size == 0) throw new NoSuchElementException();
+            return keys[0];
+        }
+
+        @Override
+        public K lastKey() {
+            if (size == 0) throw new NoSuchElementException();
+            return keys[size - 1];
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
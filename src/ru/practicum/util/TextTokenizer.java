@@ -0,0 +1,47 @@
+package ru.practicum.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Разбиение текста на слова для поиска по русскому и английскому тексту.
+ * <p>
+ * Слово — непрерывная последовательность букв и цифр Unicode; всё остальное (пробелы, знаки препинания,
+ * дефисы) разделяет слова. Слова приводятся к нижнему регистру независимо от локали, а «ё» заменяется
+ * на «е», так как в запросах их обычно не различают. Основы слов не выделяются: разные формы слова
+ * находятся поиском по префиксу.
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    public static void forEachTerm(CharSequence text, Consumer<String> action) {
+        if (text == null) return;
+        StringBuilder term = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(normalize(codePoint));
+            } else if (!term.isEmpty()) {
+                action.accept(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) action.accept(term.toString());
+    }
+
+    public static List<String> terms(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        forEachTerm(text, terms::add);
+        return terms;
+    }
+
+    private static int normalize(int codePoint) {
+        int lower = Character.toLowerCase(codePoint);
+        return lower == 'ё' ? 'е' : lower;
+    }
+}
@@ -0,0 +1,226 @@
+package ru.practicum.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.manager.Managers;
+import ru.practicum.manager.TaskManager;
+import ru.practicum.model.*;
+import ru.practicum.util.JsonReader;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TaskManager manager;
+    private HttpTaskServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = Managers.getDefault();
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, publisher)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Map<?, ?> object(HttpResponse<String> response) throws IOException {
+        return (Map<?, ?>) JsonReader.parse(response.body());
+    }
+
+    private static List<?> array(HttpResponse<String> response) throws IOException {
+        return (List<?>) JsonReader.parse(response.body());
+    }
+
+    @Test
+    void shouldCreateReadUpdateAndDeleteTask() throws Exception {
+        HttpResponse<String> created = send("POST", "/tasks",
+                "{\"title\":\"Отчёт \\\"Q1\\\"\",\"description\":\"строка 1\\nстрока 2\",\"status\":\"NEW\","
+                        + "\"duration\":30,\"startTime\":\"2025-03-01T09:00:00\"}");
+        assertEquals(201, created.statusCode());
+        int id = ((Long) object(created).get("id")).intValue();
+
+        Task task = manager.getTask(id);
+        assertEquals("Отчёт \"Q1\"", task.getTitle());
+        assertEquals("строка 1\nстрока 2", task.getDescription());
+        assertEquals(START.plusMinutes(30), task.getEndTime());
+
+        HttpResponse<String> read = send("GET", "/tasks/" + id, null);
+        assertEquals(200, read.statusCode());
+        assertEquals(Map.of("id", (long) id, "type", "TASK", "title", "Отчёт \"Q1\"", "description", "строка 1\nстрока 2",
+                "status", "NEW", "duration", 30L, "startTime", "2025-03-01T09:00", "endTime", "2025-03-01T09:30"),
+                object(read));
+
+        assertEquals(200, send("POST", "/tasks", "{\"id\":" + id + ",\"title\":\"Отчёт\",\"status\":\"DONE\"}").statusCode());
+        assertEquals(Status.DONE, manager.getTask(id).getStatus());
+        assertEquals(404, send("POST", "/tasks", "{\"id\":999,\"title\":\"Нет\"}").statusCode());
+
+        assertEquals(200, send("DELETE", "/tasks/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/tasks/" + id, null).statusCode());
+    }
+
+    @Test
+    void shouldServeEpicsWithSubtasksHistoryAndPrioritized() throws Exception {
+        int epicId = ((Long) object(send("POST", "/epics", "{\"title\":\"Релиз\"}")).get("id")).intValue();
+        assertEquals(201, send("POST", "/subtasks", "{\"title\":\"Сборка\",\"status\":\"DONE\",\"epicId\":" + epicId
+                + ",\"duration\":15,\"startTime\":\"2025-03-01T10:00:00\"}").statusCode());
+        assertEquals(201, send("POST", "/subtasks", "{\"title\":\"Тесты\",\"epicId\":" + epicId
+                + ",\"duration\":15,\"startTime\":\"2025-03-01T09:00:00\"}").statusCode());
+        assertEquals(404, send("POST", "/subtasks", "{\"title\":\"Сирота\",\"epicId\":999}").statusCode());
+
+        Map<?, ?> epic = object(send("GET", "/epics/" + epicId, null));
+        assertEquals("IN_PROGRESS", epic.get("status"));
+        assertEquals("2025-03-01T09:00", epic.get("startTime"));
+        assertEquals(List.of(2L, 3L), epic.get("subtaskIds"));
+
+        List<?> subtasks = array(send("GET", "/epics/" + epicId + "/subtasks", null));
+        assertEquals(2, subtasks.size());
+        assertEquals((long) epicId, ((Map<?, ?>) subtasks.getFirst()).get("epicId"));
+
+        send("GET", "/subtasks/3", null);
+        assertEquals(List.of((long) epicId, 3L), array(send("GET", "/history", null)).stream()
+                .map(task -> ((Map<?, ?>) task).get("id")).toList());
+        assertEquals(List.of(3L, 2L), array(send("GET", "/prioritized", null)).stream()
+                .map(task -> ((Map<?, ?>) task).get("id")).toList());
+        assertEquals(1, array(send("GET", "/search?q=%D1%81%D0%B1%D0%BE%D1%80%D0%BA%D0%B0", null)).size());
+
+        assertEquals(200, send("DELETE", "/epics", null).statusCode());
+        assertEquals(List.of(), array(send("GET", "/subtasks", null)));
+    }
+
+    @Test
+    void shouldAnswerWithErrorCodes() throws Exception {
+        send("POST", "/tasks", "{\"title\":\"Встреча\",\"duration\":60,\"startTime\":\"2025-03-01T09:00:00\"}");
+
+        assertEquals(406, send("POST", "/tasks",
+                "{\"title\":\"Пересечение\",\"duration\":10,\"startTime\":\"2025-03-01T09:30:00\"}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"description\":\"без названия\"}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":\"x\",\"status\":\"LATER\"}").statusCode());
+        assertEquals(400, send("POST", "/subtasks", "{\"title\":\"x\",\"type\":\"TASK\",\"epicId\":1}").statusCode());
+        assertEquals(400, send("POST", "/subtasks", "{\"title\":\"x\",\"epicId\":-1}").statusCode());
+        assertEquals(400, send("POST", "/subtasks", "{\"title\":\"x\",\"epicId\":4294967296}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":\"x\",\"id\":-3}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":\"x\",\"id\":9223372036854775807}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":\"x\",\"duration\":-5}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":\"x\",\"duration\":60,"
+                + "\"startTime\":\"+999999999-12-31T23:30:00\"}").statusCode());
+        assertEquals(400, send("GET", "/tasks/abc", null).statusCode());
+        assertEquals(400, send("GET", "/search?q=x&limit=-1", null).statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"title\":\"" + "x".repeat(BaseHttpHandler.MAX_BODY) + "\"}").statusCode());
+        assertEquals(405, send("PUT", "/tasks", "{}").statusCode());
+        assertEquals(405, send("POST", "/history", "{}").statusCode());
+        assertEquals(404, send("GET", "/epics/7", null).statusCode());
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    void shouldStreamLargeLists() throws Exception {
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) batch.add(new Task("Задача " + i, "описание " + i, Status.NEW));
+        manager.addAll(batch);
+
+        HttpResponse<String> response = send("GET", "/tasks", null);
+
+        assertEquals(200, response.statusCode());
+        List<?> tasks = array(response);
+        assertEquals(20_000, tasks.size());
+        assertEquals("Задача 19999", ((Map<?, ?>) tasks.getLast()).get("title"));
+    }
+
+    @Test
+    void responseShouldNotFollowEpicChangedAfterLockIsReleased() {
+        int epicId = manager.addEpic(new Epic("Эпик", "d", Status.NEW));
+        ListHandler handler = new ListHandler(manager, new ReentrantLock(), (m, query) -> m.getAllEpics());
+
+        Epic single = (Epic) handler.readTask(m -> m.getEpic(epicId));
+        Epic listed = (Epic) handler.readTasks(m -> m.getAllEpics()).iterator().next();
+        manager.addSubTask(new SubTask("П", "d", Status.DONE, epicId));
+
+        for (Epic epic : List.of(single, listed)) {
+            assertEquals(Status.NEW, epic.getStatus(), "Ответ пишется из копии, снятой под блокировкой");
+            assertEquals(0, epic.getSubtaskIdArray().length);
+        }
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    void shouldServeConsistentEpicsWhileSubtasksArePosted() throws Exception {
+        int epicId = manager.addEpic(new Epic("Эпик", "d", Status.NEW));
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> posts = new ArrayList<>();
+            List<Future<HttpResponse<String>>> reads = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                int n = i;
+                posts.add(clients.submit(() -> send("POST", "/subtasks", "{\"title\":\"П " + n + "\",\"epicId\":" + epicId
+                        + ",\"status\":\"DONE\",\"duration\":10,\"startTime\":\"" + START.plusHours(n) + "\"}").statusCode()));
+                reads.add(clients.submit(() -> send("GET", n % 2 == 0 ? "/epics" : "/epics/" + epicId, null)));
+            }
+            for (Future<Integer> status : posts) assertEquals(201, (int) status.get());
+            for (Future<HttpResponse<String>> read : reads) {
+                HttpResponse<String> response = read.get();
+                assertEquals(200, response.statusCode(), response.body());
+                Object parsed = JsonReader.parse(response.body());
+                Map<?, ?> epic = (Map<?, ?>) (parsed instanceof List<?> list ? list.getFirst() : parsed);
+                // длительность эпика — сумма подзадач по 10 минут, статус — по тем же подзадачам
+                long count = ((List<?>) epic.get("subtaskIds")).size();
+                assertEquals(count * 10, epic.get("duration"));
+                assertEquals(count == 0 ? "NEW" : "DONE", epic.get("status"));
+            }
+        }
+        assertEquals(300, manager.getEpicSubtasks(epicId).size());
+    }
+
+    @Test
+    void shouldHandleConcurrentRequestsWithConcurrentManager() throws Exception {
+        server.stop(0);
+        manager = Managers.getConcurrent();
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                statuses.add(clients.submit(() -> send("POST", "/tasks", "{\"title\":\"Задача " + n + "\",\"duration\":10,"
+                        + "\"startTime\":\"" + START.plusHours(n) + "\"}").statusCode()));
+            }
+            for (Future<Integer> status : statuses) assertEquals(201, (int) status.get());
+        }
+
+        assertEquals(200, manager.getAllTasks().size());
+        assertEquals(200, array(send("GET", "/prioritized", null)).size());
+        assertEquals(Duration.ofMinutes(10), manager.getPrioritizedTasks().getFirst().getDuration());
+    }
+}
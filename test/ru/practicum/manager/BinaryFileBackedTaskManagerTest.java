@@ -0,0 +1,133 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createManager() {
+        try {
+            file = File.createTempFile("tasks", ".bin");
+            return new FileBackedTaskManager(file, SnapshotFormat.BINARY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    void shouldRoundTripAllFields() {
+        Task task = new Task("Задача, с запятой", null, Status.IN_PROGRESS);
+        task.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 59, 30, 123_000_000));
+        task.setDuration(Duration.ofMinutes(45));
+        int taskId = manager.addTask(task);
+        int untimedId = manager.addTask(new Task("Без времени", "desc", Status.NEW));
+
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        SubTask sub = new SubTask("Sub", "desc", Status.DONE, epicId);
+        sub.setStartTime(LocalDateTime.of(2025, 10, 30, 10, 0));
+        sub.setDuration(Duration.ofMinutes(90));
+        int subId = manager.addSubTask(sub);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(SnapshotFormat.BINARY, loaded.getFormat());
+        Task loadedTask = loaded.getTask(taskId);
+        assertEquals("Задача, с запятой", loadedTask.getTitle());
+        assertNull(loadedTask.getDescription());
+        assertEquals(Status.IN_PROGRESS, loadedTask.getStatus());
+        assertEquals(task.getStartTime(), loadedTask.getStartTime());
+        assertEquals(Duration.ofMinutes(45), loadedTask.getDuration());
+        assertNull(loaded.getTask(untimedId).getDuration(), "Отсутствующая длительность должна сохраняться");
+
+        assertEquals(epicId, loaded.getSubtask(subId).getEpicId());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(LocalDateTime.of(2025, 10, 30, 11, 30), loaded.getEpic(epicId).getEndTime());
+        assertEquals(2, loaded.getPrioritizedTasks().stream().filter(t -> t.getStartTime() != null).count());
+        assertEquals(subId + 1, loaded.addTask(new Task("Next", "d", Status.NEW)));
+    }
+
+    @Test
+    void shouldExportCsvAndImportItBack() throws IOException {
+        manager.addTask(new Task("A", "desc", Status.NEW));
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        manager.addSubTask(new SubTask("S", "desc", Status.DONE, epicId));
+
+        File csv = File.createTempFile("export", ".csv");
+        try {
+            manager.export(csv, SnapshotFormat.CSV);
+            assertTrue(Files.readAllLines(csv.toPath()).getFirst().startsWith("checksum,id,type"));
+
+            FileBackedTaskManager imported = FileBackedTaskManager.loadFromFile(csv);
+            assertEquals(SnapshotFormat.CSV, imported.getFormat());
+            assertEquals(1, imported.getAllTasks().size());
+            assertEquals(Status.DONE, imported.getEpic(epicId).getStatus());
+        } finally {
+            csv.delete();
+        }
+    }
+
+    @Test
+    void shouldBeSmallerThanCsv() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            Task task = new Task("Повторяющееся название", "Повторяющееся описание", Status.NEW);
+            task.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+        File csv = File.createTempFile("export", ".csv");
+        try {
+            manager.export(csv, SnapshotFormat.CSV);
+            assertTrue(file.length() * 3 < csv.length(), "Двоичный снимок должен быть заметно компактнее");
+        } finally {
+            csv.delete();
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownVersion() throws IOException {
+        manager.addTask(new Task("A", "desc", Status.NEW));
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[4] = 99;
+        Files.write(file.toPath(), bytes);
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void shouldRejectCorruptBytesInUnframedSnapshot() throws IOException {
+        // версия 1: пустая таблица строк и одна запись без рамки; испорчены тип, статус или время
+        byte[][] records = {
+                {7, 0, 1, 0, 0, 0},
+                {0, 8, 1, 9, 0, 0},
+                {0, 2, 1, 0, 0, 0, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                        (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01},
+        };
+        for (byte[] record : records) {
+            byte[] header = {'J', 'K', 'B', 'S', 1, 0, 1};
+            byte[] bytes = new byte[header.length + record.length];
+            System.arraycopy(header, 0, bytes, 0, header.length);
+            System.arraycopy(record, 0, bytes, header.length, record.length);
+            Files.write(file.toPath(), bytes);
+
+            assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+        }
+    }
+}
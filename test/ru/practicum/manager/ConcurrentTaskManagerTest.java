@@ -0,0 +1,347 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager(new InMemoryHistoryManager());
+    }
+
+    private void runConcurrently(int threads, IntConsumerWithException body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                body.accept(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerWithException {
+        void accept(int value) throws Exception;
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsUnderContention() throws Exception {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 1000; i++) {
+                ids.add(manager.addTask(new Task("T", "d", Status.NEW)));
+            }
+        });
+
+        assertEquals(THREADS * 1000, ids.size());
+        assertEquals(THREADS * 1000, manager.getAllTasks().size());
+    }
+
+    @Test
+    void shouldKeepEpicsConsistentWhenMutatedInParallel() throws Exception {
+        int[] epicIds = new int[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            epicIds[t] = manager.addEpic(new Epic("E" + t, "d", Status.NEW));
+        }
+
+        runConcurrently(THREADS, thread -> {
+            int epicId = epicIds[thread];
+            List<Integer> own = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                SubTask sub = new SubTask("S", "d", Status.NEW, epicId);
+                sub.setStartTime(BASE.plusHours((long) thread * 1000 + i));
+                sub.setDuration(Duration.ofMinutes(30));
+                own.add(manager.addSubTask(sub));
+            }
+            for (int i = 0; i < own.size(); i += 2) {
+                manager.deleteSubtask(own.get(i));
+            }
+            for (int i = 1; i < own.size(); i += 2) {
+                SubTask done = new SubTask("S", "d", Status.DONE, epicId);
+                done.setId(own.get(i));
+                done.setStartTime(BASE.plusHours((long) thread * 1000 + i));
+                done.setDuration(Duration.ofMinutes(30));
+                manager.updateSubtask(done);
+            }
+        });
+
+        for (int t = 0; t < THREADS; t++) {
+            Epic epic = manager.getEpic(epicIds[t]);
+            assertEquals(250, manager.getEpicSubtasks(epic.getId()).size());
+            assertEquals(250, epic.getSubtaskIds().size());
+            assertEquals(Status.DONE, epic.getStatus());
+            assertEquals(Duration.ofMinutes(250 * 30), epic.getDuration());
+            assertEquals(BASE.plusHours((long) t * 1000 + 1), epic.getStartTime());
+        }
+        assertEquals(THREADS * 250, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldNeverAcceptOverlappingTasksFromDifferentThreads() throws Exception {
+        Set<Integer> accepted = ConcurrentHashMap.newKeySet();
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 200; i++) {
+                Task task = new Task("T", "d", Status.NEW);
+                // все потоки борются за одни и те же 200 слотов
+                task.setStartTime(BASE.plusHours(i));
+                task.setDuration(Duration.ofMinutes(30));
+                try {
+                    accepted.add(manager.addTask(task));
+                } catch (IllegalArgumentException ignored) {
+                    // слот уже занят другим потоком
+                }
+            }
+        });
+
+        assertEquals(200, accepted.size());
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        Set<LocalDateTime> starts = new HashSet<>();
+        for (Task task : prioritized) {
+            assertTrue(starts.add(task.getStartTime()), "Слот не может быть занят дважды");
+        }
+    }
+
+    @Test
+    void shouldNotLoseReadsWhileWriting() throws Exception {
+        int epicId = manager.addEpic(new Epic("E", "d", Status.NEW));
+        runConcurrently(4, thread -> {
+            for (int i = 0; i < 2000; i++) {
+                if (thread == 0) {
+                    manager.addSubTask(new SubTask("S", "d", Status.NEW, epicId));
+                } else {
+                    assertNotNull(manager.getEpicSubtasks(epicId));
+                    assertNotNull(manager.getAllSubTasks());
+                    assertNotNull(manager.getPrioritizedTasks());
+                }
+            }
+        });
+        assertEquals(2000, manager.getEpicSubtasks(epicId).size());
+    }
+
+    @Test
+    void shouldImportBatchWithOwnIdsAllOrNothing() {
+        Epic epic = new Epic("E", "d", Status.NEW);
+        epic.setId(100);
+        SubTask sub = new SubTask("S", "d", Status.DONE, 100);
+        sub.setId(101);
+        sub.setStartTime(BASE);
+        sub.setDuration(Duration.ofMinutes(30));
+        manager.importBatch(List.of(sub, epic));
+
+        assertEquals(Status.DONE, manager.getEpic(100).getStatus());
+        assertEquals(BASE, manager.getEpic(100).getStartTime());
+        assertEquals(List.of(sub), manager.getEpicSubtasks(100));
+        assertEquals(102, manager.addTask(new Task("T", "d", Status.NEW)), "Новые id идут после импортированных");
+
+        Task free = new Task("Free", "d", Status.NEW);
+        free.setId(200);
+        Task taken = new Task("Taken", "d", Status.NEW);
+        taken.setId(101);
+        assertThrows(IllegalArgumentException.class, () -> manager.importBatch(List.of(free, taken)));
+        assertNull(manager.getTask(200));
+    }
+
+    @Test
+    void importShouldLeaveRoomForNextId() {
+        Task last = new Task("Last", "d", Status.NEW);
+        last.setId(Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> manager.importBatch(List.of(last)));
+        assertEquals(1, manager.addTask(new Task("First", "d", Status.NEW)), "Отклонённый id не сдвигает nextId");
+
+        Task edge = new Task("Edge", "d", Status.NEW);
+        edge.setId(Integer.MAX_VALUE - 1);
+        manager.importBatch(List.of(edge));
+
+        assertThrows(IllegalStateException.class, () -> manager.addTask(new Task("Next", "d", Status.NEW)));
+        assertThrows(IllegalStateException.class, () -> manager.addAll(List.of(new Task("Batch", "d", Status.NEW))));
+        assertEquals(2, manager.getAllTasks().size());
+    }
+
+    @Test
+    void importedIdsShouldNotCollideWithConcurrentAdds() throws Exception {
+        Set<Integer> added = ConcurrentHashMap.newKeySet();
+        Set<Integer> imported = ConcurrentHashMap.newKeySet();
+        runConcurrently(4, thread -> {
+            for (int i = 0; i < 1000; i++) {
+                int id = manager.addTask(new Task("T", "d", Status.NEW));
+                assertTrue(added.add(id));
+                if (thread != 0) continue;
+                // id чуть впереди счётчика: его может успеть получить другой поток
+                Task task = new Task("Imported", "d", Status.NEW);
+                task.setId(id + 1);
+                try {
+                    manager.importBatch(List.of(task));
+                    imported.add(id + 1);
+                } catch (IllegalArgumentException e) {
+                    assertTrue(added.contains(id + 1) || manager.getTask(id + 1) != null);
+                }
+            }
+        });
+
+        assertTrue(Collections.disjoint(added, imported));
+        assertEquals(added.size() + imported.size(), manager.getAllTasks().size());
+        for (int id : imported) {
+            assertEquals("Imported", manager.getTask(id).getTitle());
+        }
+    }
+
+    @Test
+    void shouldRollBackTransactionAndKeepIdsUnique() {
+        int taskId = manager.addTask(timedTask("Task", BASE, 30));
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("Sub", "d", Status.DONE, epicId));
+        manager.getTask(taskId);
+        int[] created = new int[1];
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> {
+            created[0] = tm.addTask(new Task("New", "d", Status.NEW));
+            tm.getTask(created[0]);
+            Task moved = timedTask("Moved", BASE.plusDays(1), 30);
+            moved.setId(taskId);
+            tm.updateTask(moved);
+            Epic renamed = new Epic("Renamed", "d", Status.NEW);
+            renamed.setId(epicId);
+            tm.updateEpic(renamed);
+            tm.deleteSubtask(subId);
+            tm.addSubTask(new SubTask("Other", "d", Status.NEW, epicId));
+            tm.deleteAllTasks();
+            throw new IllegalStateException("отмена");
+        }));
+
+        assertEquals(List.of(taskId), manager.getAllTasks().stream().map(Task::getId).toList());
+        assertEquals("Task", manager.getTask(taskId).getTitle());
+        Epic epic = manager.getEpic(epicId);
+        assertEquals("Epic", epic.getTitle());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(List.of(subId), manager.getEpicSubtasks(epicId).stream().map(Task::getId).toList());
+        assertEquals(List.of(taskId, epicId), manager.getHistory().stream().map(Task::getId).toList(),
+                "Просмотры созданных в транзакции задач откатываются, а удалённых — остаются");
+        assertTrue(manager.addTask(new Task("Next", "d", Status.NEW)) > created[0]);
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(timedTask("Clash", BASE.plusMinutes(10), 5)));
+        assertDoesNotThrow(() -> manager.addTask(timedTask("Free", BASE.plusDays(1), 30)));
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> tm.transaction(inner -> {
+        })));
+    }
+
+    @Test
+    void transactionsShouldStayAtomicUnderConcurrentWriters() throws Exception {
+        int epicId = manager.addEpic(new Epic("E", "d", Status.NEW));
+        runConcurrently(4, thread -> {
+            for (int i = 0; i < 300; i++) {
+                if (thread == 0) {
+                    // пара подзадач добавляется вместе или откатывается вместе
+                    boolean fail = i % 2 == 1;
+                    try {
+                        manager.transaction(tm -> {
+                            tm.addSubTask(new SubTask("A", "d", Status.DONE, epicId));
+                            tm.addSubTask(new SubTask("B", "d", Status.DONE, epicId));
+                            if (fail) throw new IllegalStateException("отмена");
+                        });
+                    } catch (IllegalStateException e) {
+                        assertTrue(fail);
+                    }
+                } else if (thread == 1) {
+                    manager.addTask(new Task("T", "d", Status.NEW));
+                } else {
+                    Epic epic = manager.getEpic(epicId);
+                    assertEquals(epic.getSubtaskIdArray().length, epic.getSubtaskIds().size());
+                }
+            }
+        });
+
+        assertEquals(300, manager.getEpicSubtasks(epicId).size());
+        assertEquals(300, manager.getEpic(epicId).getSubtaskIds().size());
+        assertEquals(300, manager.getAllTasks().size());
+    }
+
+    private static Task timedTask(String title, LocalDateTime start, long minutes) {
+        Task task = new Task(title, "d", Status.NEW);
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(minutes));
+        return task;
+    }
+
+    // эпик отдаётся копией, снятой под полосой: она не меняется, новое состояние видно при следующем чтении
+    @Override
+    @Test
+    void epicShouldFollowSubtaskChangesMadeInPlace() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        SubTask sub = new SubTask("S1", "d", Status.NEW, epicId);
+        sub.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        sub.setDuration(Duration.ofMinutes(30));
+        manager.addSubTask(sub);
+        SubTask other = new SubTask("S2", "d", Status.NEW, epicId);
+        other.setStartTime(LocalDateTime.of(2025, 10, 22, 12, 0));
+        other.setDuration(Duration.ofMinutes(30));
+        int otherId = manager.addSubTask(other);
+
+        sub.setStatus(Status.DONE);
+        sub.setDuration(Duration.ofMinutes(60));
+        manager.updateSubtask(sub);
+
+        Epic epic = manager.getEpic(epicId);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        manager.deleteSubtask(otherId);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(2, epic.getSubtaskIds().size());
+
+        Epic current = manager.getEpic(epicId);
+        assertEquals(Status.DONE, current.getStatus());
+        assertEquals(LocalDateTime.of(2025, 10, 22, 10, 0), current.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 10, 22, 11, 0), current.getEndTime());
+    }
+
+    @Test
+    void shouldReadConsistentEpicsWhileSubtasksChange() throws Exception {
+        int epicId = manager.addEpic(new Epic("E", "d", Status.NEW));
+        runConcurrently(3, thread -> {
+            for (int i = 0; i < 3000; i++) {
+                if (thread == 0) {
+                    SubTask sub = new SubTask("S", "d", i % 2 == 0 ? Status.NEW : Status.DONE, epicId);
+                    sub.setStartTime(BASE.plusHours(i));
+                    sub.setDuration(Duration.ofMinutes(30));
+                    int id = manager.addSubTask(sub);
+                    if (i % 3 == 0) manager.deleteSubtask(id);
+                } else {
+                    // копия эпика не меняется после чтения: подзадачи, статус и длительность согласованы
+                    Epic epic = thread == 1 ? manager.getAllEpics().getFirst() : manager.getEpic(epicId);
+                    int[] ids = epic.getSubtaskIdArray();
+                    assertEquals(ids.length, epic.getSubtaskIds().size());
+                    assertEquals(Duration.ofMinutes(30L * ids.length), epic.getDuration());
+                    assertEquals(ids.length == 0 ? Status.NEW : epic.calculateStatus(), epic.getStatus());
+                    assertNotNull(manager.getHistory());
+                    manager.getTasksActiveAt(BASE.plusHours(i).plusMinutes(10));
+                }
+            }
+        });
+        assertEquals(2000, manager.getEpic(epicId).getSubtaskIds().size());
+        assertEquals(List.of(manager.getSubtask(manager.getEpicSubtasks(epicId).getLast().getId())),
+                List.copyOf(manager.getTasksActiveAt(BASE.plusHours(2999).plusMinutes(30))));
+    }
+}
@@ -0,0 +1,240 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.exception.ManagerSaveException;
+import ru.practicum.model.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// обрывает запись снимков и журнала на случайных байтах и проверяет, что загружается последнее целое состояние
+class CrashSafetyTest {
+
+    private File dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("crash").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        dir.delete();
+    }
+
+    // поток, который записывает limit байт и затем падает, как процесс, убитый посреди записи
+    private static final class CrashingOutputStream extends FilterOutputStream {
+
+        private long left;
+
+        CrashingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.left = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (left == 0) throw new IOException("Сбой записи");
+            out.write(b);
+            left--;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int part = (int) Math.min(len, left);
+            out.write(b, off, part);
+            left -= part;
+            if (part < len) throw new IOException("Сбой записи");
+        }
+    }
+
+    private static List<Task> sampleTasks(int count, Random random) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Task task = new Task("Задача " + i, "описание, \"с кавычками\"\nи строками " + random.nextInt(1000), Status.NEW);
+            task.setId(i);
+            if (random.nextBoolean()) {
+                task.setDuration(Duration.ofMinutes(5 + random.nextInt(60)));
+                task.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(90L * i));
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static String describe(TaskManager manager) {
+        StringBuilder text = new StringBuilder();
+        for (List<? extends Task> group : List.of(manager.getAllTasks(), manager.getAllEpics(), manager.getAllSubTasks())) {
+            for (Task task : group) text.append(describe(task)).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String describe(Task task) {
+        return task.getId() + "|" + task.getType() + "|" + task.getTitle() + "|" + task.getDescription() + "|"
+                + task.getStatus() + "|" + task.getDuration() + "|" + task.getStartTime()
+                + (task instanceof SubTask sub ? "|" + sub.getEpicId() : "");
+    }
+
+    private File copyTruncated(File source, String name, int length) throws IOException {
+        File copy = new File(dir, name);
+        Files.write(copy.toPath(), Arrays.copyOf(Files.readAllBytes(source.toPath()), length));
+        return copy;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        search:
+        for (int i = 0; i + part.length <= bytes.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (bytes[i + j] != part[j]) continue search;
+            }
+            return i;
+        }
+        throw new AssertionError("Нет такой последовательности байтов");
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotWhenWriteCrashes() throws IOException {
+        Random random = new Random(7);
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = new File(dir, "tasks-" + format);
+            List<Task> saved = sampleTasks(20, random);
+            FileBackedTaskManager.writeSnapshot(file, format, saved, List.of(), List.of());
+            String expected = describe(FileBackedTaskManager.loadFromFile(file));
+
+            List<Task> next = sampleTasks(40, random);
+            File probe = new File(dir, "probe-" + format);
+            FileBackedTaskManager.writeSnapshot(probe, format, next, List.of(), List.of());
+            long nextSize = probe.length();
+            for (int i = 0; i < 50; i++) {
+                long limit = random.nextLong(nextSize);
+                assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.writeSnapshot(file, format,
+                        next, List.of(), List.of(), out -> new CrashingOutputStream(out, limit)));
+
+                assertEquals(expected, describe(FileBackedTaskManager.loadFromFile(file)), "Сбой на байте " + limit);
+                assertFalse(FileBackedTaskManager.temporaryFileFor(file).exists(), "Временный файл должен удаляться");
+            }
+        }
+    }
+
+    @Test
+    void shouldLoadWholeRecordsBeforeTornSnapshotTail() throws IOException {
+        Random random = new Random(11);
+        List<Task> tasks = sampleTasks(30, random);
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = new File(dir, "full-" + format);
+            FileBackedTaskManager.writeSnapshot(file, format, tasks, List.of(), List.of());
+            int size = (int) file.length();
+
+            for (int i = 0; i < 200; i++) {
+                int cut = random.nextInt(size + 1);
+                File torn = copyTruncated(file, "torn-" + format, cut);
+                List<Task> loaded;
+                try {
+                    loaded = FileBackedTaskManager.loadFromFile(torn).getAllTasks();
+                } catch (ManagerLoadException e) {
+                    // обрыв внутри заголовка двоичного снимка: восстанавливать нечего
+                    assertEquals(SnapshotFormat.BINARY, format);
+                    continue;
+                }
+                assertTrue(loaded.size() <= tasks.size());
+                for (int k = 0; k < loaded.size(); k++) {
+                    assertEquals(describe(tasks.get(k)), describe(loaded.get(k)), "Обрыв на байте " + cut);
+                }
+                if (cut == size) assertEquals(tasks.size(), loaded.size());
+            }
+        }
+    }
+
+    @Test
+    void shouldTruncateTornJournalToLastWholeRecord() throws IOException {
+        File file = new File(dir, "tasks.csv");
+        File journalFile = TaskJournal.defaultFileFor(file);
+        // состояние после каждой записи журнала и длина журнала в этот момент
+        List<String> states = new ArrayList<>();
+        List<Long> boundaries = new ArrayList<>();
+        Random random = new Random(3);
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(file, new TaskJournal(journalFile))) {
+            int epicId = manager.addEpic(new Epic("Эпик", "с запятой, и \"кавычками\"", Status.NEW));
+            states.add(describe(manager));
+            boundaries.add(journalFile.length());
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                switch (random.nextInt(4)) {
+                    case 0, 1 -> {
+                        Task task = new Task("Задача " + i, "строка\nперенос " + i, Status.NEW);
+                        task.setDuration(Duration.ofMinutes(10));
+                        task.setStartTime(LocalDateTime.of(2025, 3, 1, 0, 0).plusHours(i));
+                        ids.add(manager.addTask(task));
+                    }
+                    case 2 -> manager.addSubTask(new SubTask("Подзадача " + i, null, Status.DONE, epicId));
+                    default -> {
+                        if (ids.isEmpty()) {
+                            manager.deleteAllTasks();
+                        } else {
+                            manager.deleteTask(ids.remove(random.nextInt(ids.size())));
+                        }
+                    }
+                }
+                states.add(describe(manager));
+                boundaries.add(journalFile.length());
+            }
+        }
+
+        int size = boundaries.getLast().intValue();
+        for (int i = 0; i < 300; i++) {
+            int cut = i < boundaries.size() ? boundaries.get(i).intValue() - 1 : random.nextInt(size + 1);
+            File snapshot = new File(dir, "copy.csv");
+            Files.copy(file.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            File journal = copyTruncated(journalFile, "copy.csv.journal", cut);
+
+            // целая запись без перевода строки тоже принимается
+            int whole = -1;
+            for (int k = 0; k < boundaries.size(); k++) {
+                if (boundaries.get(k) <= cut + 1) whole = k;
+            }
+            long expectedLength = whole < 0 ? 0 : Math.min(boundaries.get(whole), cut);
+
+            try (FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot, new TaskJournal(journal))) {
+                // первая запись журнала сворачивает в снимок уже добавленный эпик
+                assertEquals(states.get(Math.max(whole, 0)), describe(loaded), "Обрыв журнала на байте " + cut);
+                assertEquals(expectedLength, journal.length(), "Журнал должен обрезаться по последней целой записи");
+                loaded.addTask(new Task("После сбоя", "desc", Status.NEW));
+            }
+            try (FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(snapshot, new TaskJournal(journal))) {
+                assertTrue(reloaded.getAllTasks().stream().anyMatch(t -> "После сбоя".equals(t.getTitle())),
+                        "Запись после обрезки должна читаться");
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectCorruptionInTheMiddle() throws IOException {
+        List<Task> tasks = sampleTasks(10, new Random(5));
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = new File(dir, "mid-" + format);
+            FileBackedTaskManager.writeSnapshot(file, format, tasks, List.of(), List.of());
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // в названии задачи из середины файла меняем одну цифру
+            byte[] title = "Задача 5".getBytes(StandardCharsets.UTF_8);
+            bytes[indexOf(bytes, title) + title.length - 1] = '6';
+            Files.write(file.toPath(), bytes);
+
+            assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file), format.toString());
+        }
+    }
+}
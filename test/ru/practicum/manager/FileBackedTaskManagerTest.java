@@ -1,6 +1,7 @@
 package ru.practicum.manager;
 
 import org.junit.jupiter.api.*;
+import ru.practicum.exception.ManagerLoadException;
 import ru.practicum.model.*;
 
 import java.io.File;
@@ -107,6 +108,8 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Epic loadedEpic = loaded.getEpic(epicId);
 
         assertEquals(2, loadedEpic.getSubtaskIds().size());
+        assertEquals(2, loaded.countByStatus(TaskType.SUBTASK, Status.NEW), "Индекс по статусу строится при загрузке");
+        assertEquals(List.of(loadedEpic), loaded.getEpicsByStatus(Status.NEW));
     }
 
     @Test
@@ -133,6 +136,13 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(LocalDateTime.of(2025, 10, 30, 12, 30), loadedEpic.getEndTime());
     }
 
+    @Test
+    void shouldRejectIdThatLeavesNoRoomForNextId() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic,duration,startTime\n"
+                + Integer.MAX_VALUE + ",TASK,A,NEW,desc,,,\n");
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
     @Test
     void shouldThrowExceptionWhenFileIsCorrupted() throws IOException {
         Files.writeString(file.toPath(), "id,type,name,status,description,epic\nbroken,line,here\n");
@@ -187,4 +197,56 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals("T2", prioritized.getFirst().getTitle(),
                 "После загрузки задачи должны оставаться отсортированными по времени начала");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepCommasQuotesAndLineBreaksInFields() {
+        Task task = new Task("Купить: хлеб, молоко", "Строка 1\nСтрока \"2\", с запятой", Status.NEW);
+        int id = manager.addTask(task);
+        int emptyId = manager.addTask(new Task("", null, Status.NEW));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(task.getTitle(), loaded.getTask(id).getTitle());
+        assertEquals(task.getDescription(), loaded.getTask(id).getDescription());
+        assertEquals("", loaded.getTask(emptyId).getTitle());
+        assertNull(loaded.getTask(emptyId).getDescription(), "null и пустая строка должны различаться");
+        assertNull(loaded.getTask(emptyId).getDuration());
+    }
+
+    @Test
+    void shouldPersistBatchAndLoadItBack() {
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        List<Task> batch = new java.util.ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(i % 2 == 0 ? new Task("T" + i, "d", Status.NEW) : new SubTask("S" + i, "d", Status.DONE, epicId));
+        }
+
+        manager.addAll(batch);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(25, loaded.getAllTasks().size());
+        assertEquals(25, loaded.getAllSubTasks().size());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    void shouldPersistCommittedTransactionAndNothingOnRollback() throws IOException {
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        manager.transaction(tm -> {
+            tm.addTask(new Task("T", "d", Status.NEW));
+            tm.addSubTask(new SubTask("S", "d", Status.DONE, epicId));
+        });
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loaded.getAllTasks().size());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+
+        byte[] committed = Files.readAllBytes(file.toPath());
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> {
+            tm.deleteAllTasks();
+            tm.deleteEpic(epicId);
+            throw new IllegalStateException("отмена");
+        }));
+        assertArrayEquals(committed, Files.readAllBytes(file.toPath()), "Откат не должен трогать файл");
+    }
+}
@@ -54,4 +54,35 @@ class InMemoryHistoryManagerTest {
         historyManager.remove(3); // конец
         assertTrue(historyManager.getHistory().isEmpty());
     }
+
+    @Test
+    void shouldEvictOldestWhenFull() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(2);
+        bounded.add(task1);
+        bounded.add(task2);
+        bounded.add(task1); // task1 становится самым свежим
+        bounded.add(task3);
+
+        assertEquals(List.of(task1, task3), bounded.getHistory(), "Должна вытесняться самая давняя задача");
+    }
+
+    @Test
+    void shouldKeepWorkingAfterManyEvictions() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(3);
+        for (int i = 1; i <= 1000; i++) {
+            Task task = new Task("T" + i, "d", Status.NEW);
+            task.setId(i);
+            bounded.add(task);
+            if (i % 7 == 0) bounded.remove(i - 1);
+        }
+
+        List<Task> history = bounded.getHistory();
+        assertEquals(3, history.size());
+        assertEquals(1000, history.getLast().getId());
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0));
+    }
 }
@@ -2,6 +2,12 @@ package ru.practicum.manager;
 
 import org.junit.jupiter.api.Test;
 import ru.practicum.model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryTaskManagerIntegrityTest extends TaskManagerTest<InMemoryTaskManager> {
@@ -22,4 +28,304 @@ class InMemoryTaskManagerIntegrityTest extends TaskManagerTest<InMemoryTaskManag
         assertNull(manager.getEpic(epicId));
         assertNull(manager.getSubtask(subId));
     }
+
+    @Test
+    void shouldReturnSameSnapshotUntilNextMutation() {
+        manager.addTask(new Task("T1", "d", Status.NEW));
+        int epicId = manager.addEpic(new Epic("E", "d", Status.NEW));
+        manager.addSubTask(new SubTask("S", "d", Status.NEW, epicId));
+
+        List<Task> tasks = manager.getAllTasks();
+        assertSame(tasks, manager.getAllTasks());
+        assertSame(manager.getAllEpics(), manager.getAllEpics());
+        assertSame(manager.getAllSubTasks(), manager.getAllSubTasks());
+        assertSame(manager.getPrioritizedTasks(), manager.getPrioritizedTasks());
+
+        manager.getTask(tasks.getFirst().getId());
+        assertSame(tasks, manager.getAllTasks(), "Чтение не должно сбрасывать снимок");
+
+        manager.addTask(new Task("T2", "d", Status.NEW));
+        List<Task> updated = manager.getAllTasks();
+        assertNotSame(tasks, updated);
+        assertEquals(1, tasks.size(), "Выданный снимок не меняется после изменения менеджера");
+        assertEquals(2, updated.size());
+    }
+
+    @Test
+    void snapshotsShouldBeUnmodifiable() {
+        manager.addTask(new Task("T1", "d", Status.NEW));
+
+        assertThrows(UnsupportedOperationException.class, () -> manager.getAllTasks().clear());
+        assertThrows(UnsupportedOperationException.class, () -> manager.getPrioritizedTasks().removeFirst());
+    }
+
+    @Test
+    void prioritizedSnapshotShouldFollowTimeChanges() {
+        Task task = new Task("T1", "d", Status.NEW);
+        task.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        int id = manager.addTask(task);
+        Task other = new Task("T2", "d", Status.NEW);
+        other.setStartTime(LocalDateTime.of(2025, 10, 22, 12, 0));
+        other.setDuration(Duration.ofMinutes(30));
+        manager.addTask(other);
+        List<Task> before = manager.getPrioritizedTasks();
+
+        Task moved = new Task("T1", "d", Status.NEW);
+        moved.setId(id);
+        moved.setStartTime(LocalDateTime.of(2025, 10, 22, 14, 0));
+        moved.setDuration(Duration.ofMinutes(30));
+        manager.updateTask(moved);
+
+        assertEquals("T1", before.getFirst().getTitle());
+        assertEquals("T2", manager.getPrioritizedTasks().getFirst().getTitle());
+    }
+
+    @Test
+    void shouldImportBatchKeepingIds() {
+        InMemoryTaskManager source = new InMemoryTaskManager(new InMemoryHistoryManager());
+        int epicId = source.addEpic(new Epic("Epic", "d", Status.NEW));
+        SubTask sub = new SubTask("Sub", "d", Status.IN_PROGRESS, epicId);
+        sub.setStartTime(LocalDateTime.of(2025, 2, 1, 10, 0));
+        sub.setDuration(Duration.ofMinutes(45));
+        int subId = source.addSubTask(sub);
+        int taskId = source.addTask(new Task("Task", "d", Status.NEW));
+
+        List<Task> exported = new java.util.ArrayList<>();
+        for (SubTask s : source.getAllSubTasks()) {
+            SubTask copy = new SubTask(s.getTitle(), s.getDescription(), s.getStatus(), s.getEpicId());
+            copy.setId(s.getId());
+            copy.setStartTime(s.getStartTime());
+            copy.setDuration(s.getDuration());
+            exported.add(copy);
+        }
+        Epic epicCopy = new Epic("Epic", "d", Status.NEW);
+        epicCopy.setId(epicId);
+        exported.add(epicCopy);
+        Task taskCopy = new Task("Task", "d", Status.NEW);
+        taskCopy.setId(taskId);
+        exported.add(taskCopy);
+
+        manager.importBatch(exported);
+
+        assertEquals(Status.IN_PROGRESS, manager.getEpic(epicId).getStatus(), "Эпик пересчитывается по подзадачам пакета");
+        assertEquals(sub.getStartTime(), manager.getEpic(epicId).getStartTime());
+        assertEquals(epicId, manager.getSubtask(subId).getEpicId());
+        assertTrue(manager.addTask(new Task("Next", "d", Status.NEW)) > Math.max(subId, taskId),
+                "Новые id выдаются после импортированных");
+
+        Task duplicate = new Task("Dup", "d", Status.NEW);
+        duplicate.setId(taskId);
+        assertThrows(IllegalArgumentException.class, () -> manager.importBatch(List.of(duplicate)));
+    }
+
+    @Test
+    void importShouldLeaveRoomForNextId() {
+        Task last = new Task("Last", "d", Status.NEW);
+        last.setId(Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> manager.importBatch(List.of(last)));
+
+        Task edge = new Task("Edge", "d", Status.NEW);
+        edge.setId(Integer.MAX_VALUE - 1);
+        manager.importBatch(List.of(edge));
+
+        assertThrows(IllegalStateException.class, () -> manager.addTask(new Task("Next", "d", Status.NEW)));
+        assertThrows(IllegalStateException.class, () -> manager.addAll(List.of(new Task("Batch", "d", Status.NEW))));
+        assertEquals(List.of(edge), manager.getAllTasks());
+    }
+
+    @Test
+    void shouldReturnLiveReadOnlyTimeRangeViews() {
+        LocalDateTime start = LocalDateTime.of(2025, 6, 2, 9, 0);
+        int first = manager.addTask(timed("First", start, 30));
+        Collection<Task> day = manager.getTasksStartingBetween(start, start.plusDays(1));
+        Collection<Task> next = manager.getNextTasks(start, 2);
+
+        int second = manager.addTask(timed("Second", start.plusHours(1), 30));
+        manager.addTask(timed("Third", start.plusHours(2), 30));
+
+        assertEquals(List.of(first, second), day.stream().limit(2).map(Task::getId).toList(), "Представление видит новые задачи");
+        assertEquals(3, day.size());
+        assertEquals(2, next.size(), "Ограничение действует и после добавления");
+        assertThrows(UnsupportedOperationException.class, () -> day.remove(day.iterator().next()));
+        assertThrows(UnsupportedOperationException.class, () -> next.clear());
+    }
+
+    @Test
+    void shouldAnswerSearchLikeFullScanAfterRandomChanges() {
+        String[] words = {"отчёт", "отчеты", "клиент", "report", "release", "релиз", "план", "q3"};
+        Random random = new Random(17);
+        List<Integer> ids = new ArrayList<>();
+        int epicId = manager.addEpic(new Epic("Эпик", "план", Status.NEW));
+        for (int step = 0; step < 2000; step++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            String description = random.nextBoolean() ? null : words[random.nextInt(words.length)];
+            switch (random.nextInt(5)) {
+                case 0, 1 -> ids.add(manager.addTask(new Task(title, description, Status.NEW)));
+                case 2 -> manager.addSubTask(new SubTask(title, description, Status.NEW, epicId));
+                case 3 -> {
+                    if (ids.isEmpty()) continue;
+                    Task updated = new Task(title, description, Status.DONE);
+                    updated.setId(ids.get(random.nextInt(ids.size())));
+                    manager.updateTask(updated);
+                }
+                default -> {
+                    if (!ids.isEmpty()) manager.deleteTask(ids.remove(random.nextInt(ids.size())));
+                }
+            }
+            if (step % 50 == 0) {
+                for (String query : List.of("отчет", "отч*", "клиент report", "rel* план", "q*")) {
+                    TextQuery parsed = TextQuery.parse(query);
+                    List<Task> expected = Stream.of(manager.getAllTasks(), manager.getAllEpics(), manager.getAllSubTasks())
+                            .flatMap(List::stream)
+                            .filter(parsed::matches)
+                            .sorted(Comparator.comparingInt(Task::getId))
+                            .limit(25)
+                            .map(Task.class::cast)
+                            .toList();
+                    assertEquals(expected, manager.search(query, 25), query);
+                }
+            }
+        }
+        SearchIndexStats stats = manager.getSearchIndexStats();
+        assertEquals(manager.getAllTasks().size() + manager.getAllEpics().size() + manager.getAllSubTasks().size(),
+                stats.documents());
+        assertTrue(stats.terms() <= words.length + 1);
+        assertTrue(stats.estimatedBytes() > 0);
+    }
+
+    @Test
+    void shouldRestoreSearchIndexOnRollback() {
+        int taskId = manager.addTask(new Task("Отчёт", "d", Status.NEW));
+        int epicId = manager.addEpic(new Epic("Релиз", "d", Status.NEW));
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> {
+            Task renamed = new Task("План", "d", Status.NEW);
+            renamed.setId(taskId);
+            tm.updateTask(renamed);
+            Epic epic = new Epic("Сборка", "d", Status.NEW);
+            epic.setId(epicId);
+            tm.updateEpic(epic);
+            tm.addTask(new Task("Черновик", "d", Status.NEW));
+            throw new IllegalStateException("сбой");
+        }));
+
+        assertEquals(List.of(taskId), manager.search("отчет", 10).stream().map(Task::getId).toList());
+        assertEquals(List.of(epicId), manager.search("релиз", 10).stream().map(Task::getId).toList());
+        assertTrue(manager.search("план", 10).isEmpty());
+        assertTrue(manager.search("сборка", 10).isEmpty());
+        assertTrue(manager.search("черновик", 10).isEmpty());
+    }
+
+    private static Task timed(String title, LocalDateTime start, long minutes) {
+        Task task = new Task(title, "d", Status.NEW);
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(minutes));
+        return task;
+    }
+
+    @Test
+    void shouldCommitTransactionCheckingOverlapsOnlyAtTheEnd() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 9, 0);
+        int first = manager.addTask(timed("First", start, 60));
+        int second = manager.addTask(timed("Second", start.plusHours(2), 60));
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+
+        manager.transaction(tm -> {
+            // обмен слотами проходит через состояние с пересечением
+            Task movedFirst = timed("First", start.plusHours(2), 60);
+            movedFirst.setId(first);
+            tm.updateTask(movedFirst);
+            Task movedSecond = timed("Second", start, 60);
+            movedSecond.setId(second);
+            tm.updateTask(movedSecond);
+            tm.addSubTask(new SubTask("S1", "d", Status.DONE, epicId));
+            tm.addSubTask(new SubTask("S2", "d", Status.DONE, epicId));
+        });
+
+        assertEquals(start.plusHours(2), manager.getTask(first).getStartTime());
+        assertEquals(List.of(second, first), manager.getPrioritizedTasks().stream().limit(2).map(Task::getId).toList());
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(timed("Clash", start.plusMinutes(10), 5)),
+                "Интервалы транзакции должны попасть в индекс");
+    }
+
+    @Test
+    void shouldRollBackWholeTransactionOnException() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 9, 0);
+        int taskId = manager.addTask(timed("Task", start, 30));
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("Sub", "d", Status.DONE, epicId));
+        manager.getTask(taskId);
+        List<Task> prioritized = List.copyOf(manager.getPrioritizedTasks());
+
+        RuntimeException failure = new IllegalStateException("сбой клиента");
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> manager.transaction(tm -> {
+            tm.addTask(new Task("New", "d", Status.NEW));
+            Task moved = timed("Task moved", start.plusDays(1), 30);
+            moved.setId(taskId);
+            tm.updateTask(moved);
+            Epic renamed = new Epic("Renamed", "d", Status.NEW);
+            renamed.setId(epicId);
+            tm.updateEpic(renamed);
+            tm.deleteSubtask(subId);
+            tm.addSubTask(new SubTask("Other", "d", Status.NEW, epicId));
+            tm.deleteAllTasks();
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(List.of(taskId), manager.getAllTasks().stream().map(Task::getId).toList());
+        assertEquals("Task", manager.getTask(taskId).getTitle());
+        assertEquals(start, manager.getTask(taskId).getStartTime());
+        Epic epic = manager.getEpic(epicId);
+        assertEquals("Epic", epic.getTitle());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(List.of(subId), List.copyOf(epic.getSubtaskIds()));
+        assertEquals(prioritized, manager.getPrioritizedTasks());
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.DONE));
+        assertEquals(List.of(subId), manager.getSubtasksByStatus(Status.DONE).stream().map(Task::getId).toList());
+        assertEquals(0, manager.countByStatus(TaskType.SUBTASK, Status.NEW), "Подзадача из отката не должна остаться в индексе");
+        assertEquals(1, manager.countByStatus(TaskType.TASK, Status.NEW));
+        assertEquals(List.of(taskId, epicId), manager.getHistory().stream().map(Task::getId).distinct().toList(),
+                "История не должна терять задачи из отменённых удалений");
+        assertEquals(subId + 3, manager.addTask(new Task("Next", "d", Status.NEW)), "Выданные в транзакции id не выдаются повторно");
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(timed("Clash", start.plusMinutes(10), 5)));
+        assertDoesNotThrow(() -> manager.addTask(timed("Free", start.plusDays(1), 30)));
+    }
+
+    @Test
+    void rollbackShouldDropTasksCreatedInTransactionFromHistory() {
+        int taskId = manager.addTask(new Task("Task", "d", Status.NEW));
+        int[] created = new int[1];
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> {
+            created[0] = tm.addTask(new Task("Phantom", "d", Status.NEW));
+            tm.getTask(created[0]);
+            tm.getTask(taskId);
+            throw new IllegalStateException("отмена");
+        }));
+
+        assertEquals(List.of(taskId), manager.getHistory().stream().map(Task::getId).toList());
+        int next = manager.addTask(new Task("Next", "d", Status.NEW));
+        assertTrue(next > created[0], "Id из отменённой транзакции не выдаётся новой задаче");
+        assertEquals(List.of(taskId), manager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldRollBackTransactionThatLeavesOverlaps() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 9, 0);
+        manager.addTask(timed("Existing", start, 60));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.transaction(tm -> {
+            tm.addTask(timed("A", start.plusHours(3), 60));
+            tm.addTask(timed("B", start.plusMinutes(30), 60));
+        }));
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> tm.transaction(inner -> {
+        })));
+
+        assertEquals(1, manager.getAllTasks().size());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+        assertDoesNotThrow(() -> manager.addTask(timed("A", start.plusHours(3), 60)));
+    }
 }
@@ -0,0 +1,180 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTaskManagerTest extends TaskManagerTest<InstrumentedTaskManager> {
+
+    private RecordingMetricsSink sink;
+
+    @Override
+    protected InstrumentedTaskManager createManager() {
+        sink = new RecordingMetricsSink();
+        return Managers.getInstrumented(Managers.getDefault(), sink);
+    }
+
+    @Test
+    void shouldRecordLatencyOfEveryCall() {
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        manager.addSubTask(new SubTask("S", "desc", Status.DONE, epicId));
+        manager.getEpic(epicId);
+        manager.getEpic(epicId);
+        manager.getEpicSubtasks(epicId);
+
+        assertEquals(1, sink.count(ManagerOperation.ADD_EPIC));
+        assertEquals(2, sink.count(ManagerOperation.GET_EPIC));
+        assertEquals(1, sink.count(ManagerOperation.GET_EPIC_SUBTASKS));
+        assertEquals(0, sink.count(ManagerOperation.GET_TASK));
+        assertTrue(sink.count(ManagerOperation.UPDATE_EPIC_STATUS) > 0);
+        assertTrue(sink.latency(ManagerOperation.GET_EPIC).max() > 0);
+        assertEquals(Map.of("ADD_EPIC", 1L, "ADD_SUBTASK", 1L, "GET_EPIC", 2L, "GET_EPIC_SUBTASKS", 1L,
+                        "UPDATE_EPIC_STATUS", 1L, "UPDATE_EPIC_TIME", 1L),
+                sink.getOperationCounts());
+    }
+
+    @Test
+    void shouldCountFailedCallsAndCallsInsideTransaction() {
+        Task first = timed("A", 10);
+        manager.addTask(first);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(timed("B", 10)));
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> {
+            tm.addTask(new Task("C", "desc", Status.NEW));
+            throw new IllegalStateException("отмена");
+        }));
+
+        assertEquals(2, sink.counter(ManagerCounter.FAILED_OPERATIONS));
+        // вызов внутри транзакции тоже проходит через обёртку
+        assertEquals(3, sink.count(ManagerOperation.ADD_TASK));
+        assertEquals(1, sink.count(ManagerOperation.TRANSACTION));
+    }
+
+    @Test
+    void shouldCountOverlapChecksAndScannedIntervals() {
+        for (int hour = 0; hour < 10; hour++) manager.addTask(timed("T" + hour, hour));
+
+        assertEquals(10, sink.counter(ManagerCounter.OVERLAP_CHECKS));
+        assertEquals(10, sink.count(ManagerOperation.HAS_OVERLAP));
+        // каждой новой задаче, кроме первой, достаточно соседа слева
+        assertEquals(9, sink.counter(ManagerCounter.OVERLAP_SCANNED));
+    }
+
+    @Test
+    void shouldCountSnapshotAndJournalBytesOfFileBackedManager() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        RecordingMetricsSink fileSink = new RecordingMetricsSink();
+        try {
+            InstrumentedTaskManager snapshots = Managers.getInstrumented(new FileBackedTaskManager(file), fileSink);
+            snapshots.addTask(new Task("A", "desc", Status.NEW));
+            long first = file.length();
+            snapshots.addTask(new Task("B", "desc", Status.NEW));
+
+            assertEquals(2, fileSink.count(ManagerOperation.SAVE));
+            assertEquals(first + file.length(), fileSink.counter(ManagerCounter.PERSISTED_BYTES));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void shouldCountJournalRecordsOfJournaledManager() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        File journalFile = TaskJournal.defaultFileFor(file);
+        RecordingMetricsSink fileSink = new RecordingMetricsSink();
+        try {
+            FileBackedTaskManager delegate = new FileBackedTaskManager(file, new TaskJournal(journalFile));
+            InstrumentedTaskManager journaled = Managers.getInstrumented(delegate, fileSink);
+            journaled.addTask(new Task("Отчёт", "desc", Status.NEW));
+            journaled.addTask(new Task("B", "desc", Status.NEW));
+            delegate.close();
+
+            // пустой снимок перед первой записью и две строки журнала, одна из них с кириллицей
+            assertEquals(2, fileSink.count(ManagerOperation.JOURNAL_APPEND));
+            assertEquals(1, fileSink.count(ManagerOperation.SAVE));
+            assertEquals(file.length() + journalFile.length(), fileSink.counter(ManagerCounter.PERSISTED_BYTES));
+        } finally {
+            file.delete();
+            journalFile.delete();
+        }
+    }
+
+    @Test
+    void shouldCountOverlapChecksOfConcurrentManager() {
+        RecordingMetricsSink concurrentSink = new RecordingMetricsSink();
+        InstrumentedTaskManager concurrent = Managers.getInstrumented(Managers.getConcurrent(), concurrentSink);
+        for (int hour = 0; hour < 5; hour++) concurrent.addTask(timed("T" + hour, hour));
+        int epicId = concurrent.addEpic(new Epic("E", "desc", Status.NEW));
+        concurrent.addSubTask(new SubTask("S", "desc", Status.DONE, epicId));
+
+        assertEquals(5, concurrentSink.counter(ManagerCounter.OVERLAP_CHECKS));
+        assertEquals(4, concurrentSink.counter(ManagerCounter.OVERLAP_SCANNED));
+        assertTrue(concurrentSink.count(ManagerOperation.UPDATE_EPIC_STATUS) > 0);
+        assertTrue(concurrentSink.count(ManagerOperation.UPDATE_EPIC_TIME) > 0);
+    }
+
+    @Test
+    void shouldCountOverlapChecksAndPageBytesOfPagedManager() throws IOException {
+        File file = File.createTempFile("tasks", ".pages");
+        file.delete();
+        RecordingMetricsSink pagedSink = new RecordingMetricsSink();
+        PagedTaskManager delegate = new PagedTaskManager(file, new InMemoryHistoryManager());
+        try {
+            InstrumentedTaskManager paged = Managers.getInstrumented(delegate, pagedSink);
+            for (int hour = 0; hour < 3; hour++) paged.addTask(timed("T" + hour, hour));
+
+            assertEquals(3, pagedSink.counter(ManagerCounter.OVERLAP_CHECKS));
+            assertEquals(2, pagedSink.counter(ManagerCounter.OVERLAP_SCANNED));
+            assertTrue(pagedSink.counter(ManagerCounter.PERSISTED_BYTES) > 0);
+        } finally {
+            delegate.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    void shouldNotReplaceSinkOfAlreadyInstrumentedManager() {
+        InMemoryTaskManager delegate = new InMemoryTaskManager(Managers.getDefaultHistory());
+        RecordingMetricsSink first = new RecordingMetricsSink();
+        Managers.getInstrumented(delegate, first);
+
+        assertSame(first, Managers.getInstrumented(delegate, first).getSink(), "Тот же sink можно передать снова");
+        assertThrows(IllegalStateException.class, () -> Managers.getInstrumented(delegate, new RecordingMetricsSink()));
+        delegate.addTask(timed("A", 1));
+        assertEquals(1, first.counter(ManagerCounter.OVERLAP_CHECKS), "Первая обёртка продолжает получать метрики");
+    }
+
+    @Test
+    void shouldExposeMetricsThroughJmx() throws Exception {
+        manager.addTask(new Task("A", "desc", Status.NEW));
+        ObjectName name = sink.registerMBean("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Object counts = server.getAttribute(name, "OperationCounts");
+            assertNotNull(counts);
+            assertTrue(counts.toString().contains("ADD_TASK"), counts.toString());
+            server.invoke(name, "reset", null, null);
+            assertEquals(0, sink.count(ManagerOperation.ADD_TASK));
+        } finally {
+            sink.unregisterMBean("test");
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static Task timed(String title, int hour) {
+        Task task = new Task(title, "desc", Status.NEW);
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, hour, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        return task;
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private File file;
+    private File journalFile;
+
+    @Override
+    protected FileBackedTaskManager createManager() {
+        try {
+            file = File.createTempFile("tasks", ".csv");
+            journalFile = TaskJournal.defaultFileFor(file);
+            return new FileBackedTaskManager(file, new TaskJournal(journalFile));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+        file.delete();
+        journalFile.delete();
+    }
+
+    private FileBackedTaskManager reload() {
+        manager.close();
+        return FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile));
+    }
+
+    @Test
+    void shouldAppendOneRecordPerMutation() throws IOException {
+        int id = manager.addTask(new Task("A", "desc", Status.NEW));
+        long snapshotSize = file.length();
+
+        Task updated = new Task("A", "desc", Status.DONE);
+        updated.setId(id);
+        manager.updateTask(updated);
+        manager.deleteTask(id);
+
+        assertEquals(snapshotSize, file.length(), "Снимок не должен перезаписываться на каждую операцию");
+        assertEquals(3, Files.readAllLines(journalFile.toPath()).size());
+    }
+
+    @Test
+    void shouldRestoreStateFromSnapshotAndJournal() {
+        int taskId = manager.addTask(new Task("Task", "desc", Status.NEW));
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+
+        SubTask sub1 = new SubTask("S1", "d", Status.NEW, epicId);
+        sub1.setStartTime(LocalDateTime.of(2025, 10, 30, 10, 0));
+        sub1.setDuration(Duration.ofMinutes(60));
+        int sub1Id = manager.addSubTask(sub1);
+        int sub2Id = manager.addSubTask(new SubTask("S2", "d", Status.NEW, epicId));
+
+        SubTask done = new SubTask("S1", "d", Status.DONE, epicId);
+        done.setId(sub1Id);
+        done.setStartTime(LocalDateTime.of(2025, 10, 30, 10, 0));
+        done.setDuration(Duration.ofMinutes(60));
+        manager.updateSubtask(done);
+        manager.deleteSubtask(sub2Id);
+        manager.deleteTask(taskId);
+
+        FileBackedTaskManager loaded = reload();
+
+        assertNull(loaded.getTask(taskId));
+        assertNull(loaded.getSubtask(sub2Id));
+        assertEquals(Status.DONE, loaded.getSubtask(sub1Id).getStatus());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(LocalDateTime.of(2025, 10, 30, 11, 0), loaded.getEpic(epicId).getEndTime());
+        assertEquals(1, loaded.getPrioritizedTasks().size());
+        loaded.close();
+    }
+
+    @Test
+    void shouldCascadeEpicDeletionOnReplay() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("S", "d", Status.NEW, epicId));
+        manager.deleteEpic(epicId);
+
+        FileBackedTaskManager loaded = reload();
+
+        assertNull(loaded.getEpic(epicId));
+        assertNull(loaded.getSubtask(subId));
+        assertTrue(loaded.getAllSubTasks().isEmpty());
+        loaded.close();
+    }
+
+    @Test
+    void shouldCompactJournalIntoSnapshot() throws IOException {
+        manager.close();
+        manager = new FileBackedTaskManager(file, new TaskJournal(journalFile, 5));
+        for (int i = 0; i < 12; i++) {
+            manager.addTask(new Task("T" + i, "desc", Status.NEW));
+        }
+
+        assertEquals(2, Files.readAllLines(journalFile.toPath()).size(), "Журнал должен сворачиваться по порогу");
+        assertEquals(11, Files.readAllLines(file.toPath()).size(), "Снимок должен содержать свёрнутые записи");
+
+        FileBackedTaskManager loaded = reload();
+        assertEquals(12, loaded.getAllTasks().size());
+        assertEquals(13, loaded.addTask(new Task("Next", "desc", Status.NEW)));
+        loaded.close();
+    }
+
+    @Test
+    void shouldFoldLeftoverJournalWhenLoadedWithoutIt() throws IOException {
+        manager.addTask(new Task("A", "desc", Status.NEW));
+        manager.addTask(new Task("B", "desc", Status.NEW));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(2, loaded.getAllTasks().size());
+        assertFalse(journalFile.exists(), "Журнал должен быть свёрнут в снимок");
+        assertEquals(3, Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test
+    void shouldReplayRecordsWithLineBreaksInFields() {
+        int id = manager.addTask(new Task("A, B", "первая строка\r\nвторая, \"третья\"", Status.NEW));
+
+        FileBackedTaskManager loaded = reload();
+
+        assertEquals("A, B", loaded.getTask(id).getTitle());
+        assertEquals("первая строка\r\nвторая, \"третья\"", loaded.getTask(id).getDescription());
+        loaded.close();
+    }
+}
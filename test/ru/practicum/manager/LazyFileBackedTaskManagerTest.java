@@ -0,0 +1,189 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createManager() {
+        try {
+            file = File.createTempFile("tasks", ".csv");
+            return FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+        TaskJournal.defaultFileFor(file).delete();
+    }
+
+    // задача 1, эпик 2 с подзадачами 3 и 4, задача 5 со временем; названия с кириллицей и переводом строки
+    private void seed() {
+        FileBackedTaskManager source = new FileBackedTaskManager(file);
+        source.addTask(new Task("Отчёт, \"квартал\"", "строка 1\nстрока 2", Status.NEW));
+        int epicId = source.addEpic(new Epic("Релиз", "desc", Status.NEW));
+        SubTask first = new SubTask("Сборка", "desc", Status.DONE, epicId);
+        first.setStartTime(START);
+        first.setDuration(Duration.ofMinutes(30));
+        source.addSubTask(first);
+        SubTask second = new SubTask("Тесты", "desc", Status.IN_PROGRESS, epicId);
+        second.setStartTime(START.plusHours(1));
+        second.setDuration(Duration.ofMinutes(45));
+        source.addSubTask(second);
+        Task timed = new Task("Встреча", "desc", Status.DONE);
+        timed.setStartTime(START.plusHours(3));
+        timed.setDuration(Duration.ofMinutes(15));
+        source.addTask(timed);
+    }
+
+    @Test
+    void shouldReadOnlyRequestedTasksUntilFullLoad() {
+        seed();
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+
+        assertFalse(lazy.isFullyLoaded());
+        assertEquals(2, lazy.count(TaskType.TASK));
+        assertEquals(2, lazy.count(TaskType.SUBTASK));
+
+        Task task = lazy.getTask(1);
+        assertEquals("Отчёт, \"квартал\"", task.getTitle());
+        assertEquals("строка 1\nстрока 2", task.getDescription());
+        assertEquals(Duration.ofMinutes(15), lazy.getTask(5).getDuration());
+        assertNull(lazy.getTask(2), "id эпика не читается как задача");
+        assertNull(lazy.getSubtask(42));
+        assertFalse(lazy.isFullyLoaded());
+        assertEquals(List.of(task, lazy.getTask(5)), lazy.getHistory());
+    }
+
+    @Test
+    void shouldCalculateEpicFromItsSubtasksOnFirstAccess() {
+        seed();
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+
+        SubTask sub = lazy.getSubtask(4);
+        Epic epic = lazy.getEpic(2);
+
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(START, epic.getStartTime());
+        assertEquals(START.plusHours(1).plusMinutes(45), epic.getEndTime());
+        assertEquals(List.of(3, 4), lazy.getEpicSubtasks(2).stream().map(Task::getId).toList());
+        assertSame(sub, lazy.getEpicSubtasks(2).get(1));
+        assertFalse(lazy.isFullyLoaded());
+    }
+
+    @Test
+    void shouldKeepReadObjectsAndMatchEagerLoadAfterFullLoad() {
+        seed();
+        FileBackedTaskManager eager = FileBackedTaskManager.loadFromFile(file);
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+        Task task = lazy.getTask(1);
+        Epic epic = lazy.getEpic(2);
+
+        assertEquals(eager.getPrioritizedTasks(), lazy.getPrioritizedTasks());
+        assertTrue(lazy.isFullyLoaded());
+        assertSame(task, lazy.getAllTasks().getFirst());
+        assertSame(epic, lazy.getAllEpics().getFirst());
+        assertEquals(eager.getAllTasks(), lazy.getAllTasks());
+        assertEquals(eager.getAllSubTasks(), lazy.getAllSubTasks());
+        assertEquals(eager.getEpic(2).getStatus(), epic.getStatus());
+        assertEquals(1, lazy.countByStatus(TaskType.SUBTASK, Status.DONE));
+        assertEquals(List.of(lazy.getTask(1)), lazy.search("квартал", 10));
+    }
+
+    @Test
+    void shouldLoadEverythingBeforeFirstChange() {
+        seed();
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+
+        Task clash = new Task("Пересечение", "desc", Status.NEW);
+        clash.setStartTime(START.plusMinutes(10));
+        clash.setDuration(Duration.ofMinutes(5));
+        assertThrows(IllegalArgumentException.class, () -> lazy.addTask(clash));
+        assertTrue(lazy.isFullyLoaded());
+
+        assertEquals(6, lazy.addTask(new Task("Новая", "desc", Status.NEW)));
+        lazy.deleteSubtask(3);
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(3, reloaded.getAllTasks().size());
+        assertEquals(List.of(4), List.copyOf(reloaded.getEpic(2).getSubtaskIds()));
+        assertEquals("Отчёт, \"квартал\"", reloaded.getTask(1).getTitle());
+    }
+
+    @Test
+    void shouldLoadEagerlyWhenJournalHasRecords() throws IOException {
+        seed();
+        File journalFile = TaskJournal.defaultFileFor(file);
+        FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile));
+        journaled.addTask(new Task("Из журнала", "desc", Status.NEW));
+        journaled.close();
+
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile), LoadMode.LAZY);
+
+        assertTrue(lazy.isFullyLoaded());
+        assertEquals("Из журнала", lazy.getTask(6).getTitle());
+        lazy.close();
+    }
+
+    @Test
+    void shouldDropTornTailAndRejectDamageInTheMiddleLikeEagerLoad() throws IOException {
+        seed();
+        Files.writeString(file.toPath(), "c123,6,TASK,Оборв", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+        assertEquals(2, lazy.count(TaskType.TASK));
+        assertEquals(15, lazy.getTask(5).getDuration().toMinutes());
+        assertEquals(2, lazy.getAllTasks().size());
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        lines.set(1, lines.get(1).replace("Отчёт", "Отчет"));
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY));
+    }
+
+    @Test
+    void shouldIndexSparseLargeIds() throws IOException {
+        int epicId = TaskBatches.MAX_ID - 1;
+        Epic epic = new Epic("Далёкий эпик", "desc", Status.NEW);
+        epic.setId(epicId);
+        SubTask sub = new SubTask("Подзадача", "desc", Status.DONE, epicId);
+        sub.setId(7);
+        Task far = new Task("Далёкая", "desc", Status.NEW);
+        far.setId(TaskBatches.MAX_ID);
+        new FileBackedTaskManager(file).importBatch(List.of(far, sub, epic));
+
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY);
+
+        assertFalse(lazy.isFullyLoaded());
+        assertEquals("Далёкая", lazy.getTask(TaskBatches.MAX_ID).getTitle());
+        assertEquals(Status.DONE, lazy.getEpic(epicId).getStatus());
+        assertEquals(List.of(7), List.copyOf(lazy.getEpic(epicId).getSubtaskIds()));
+        assertNull(lazy.getTask(8));
+        assertThrows(IllegalStateException.class, () -> lazy.addTask(new Task("Next", "desc", Status.NEW)));
+
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic,duration,startTime\n"
+                + Integer.MAX_VALUE + ",TASK,A,NEW,desc,,,\n");
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY));
+    }
+}
@@ -0,0 +1,243 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedTaskManagerTest extends TaskManagerTest<PagedTaskManager> {
+
+    private static final int SEGMENT_SIZE = PagedTaskStore.PAGE_SIZE * 4;
+
+    private File file;
+
+    @Override
+    protected PagedTaskManager createManager() {
+        try {
+            file = File.createTempFile("tasks", ".pages");
+            file.delete();
+            return open(4);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+        file.delete();
+    }
+
+    private PagedTaskManager open(int cacheCapacity) {
+        return new PagedTaskManager(new PagedTaskStore(file, SEGMENT_SIZE), new InMemoryHistoryManager(), cacheCapacity);
+    }
+
+    private PagedTaskManager reopen() {
+        manager.close();
+        manager = open(4);
+        return manager;
+    }
+
+    @Test
+    void shouldImportBatchWithOwnIdsAndKeepItAfterReopen() {
+        Epic epic = new Epic("E", "d", Status.NEW);
+        epic.setId(40);
+        SubTask sub = new SubTask("S", "d", Status.DONE, 40);
+        sub.setId(41);
+        Task clash = new Task("Clash", "d", Status.NEW);
+        clash.setId(41);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.importBatch(List.of(epic, sub, clash)));
+        assertTrue(manager.getAllEpics().isEmpty(), "Отклонённый пакет не записывается в файл");
+
+        manager.importBatch(List.of(sub, epic));
+        assertEquals(Status.DONE, manager.getEpic(40).getStatus());
+        assertEquals(42, manager.addTask(new Task("T", "d", Status.NEW)));
+
+        reopen();
+        assertEquals(41, manager.getEpicSubtasks(40).getFirst().getId());
+        assertEquals(Status.DONE, manager.getEpic(40).getStatus());
+    }
+
+    @Test
+    void shouldRollBackTransactionInFile() {
+        int taskId = manager.addTask(new Task("Task", "d", Status.NEW));
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("Sub", "d", Status.DONE, epicId));
+        manager.getTask(taskId);
+        int[] created = new int[1];
+
+        assertThrows(IllegalStateException.class, () -> manager.transaction(tm -> {
+            created[0] = tm.addTask(new Task("New", "d", Status.NEW));
+            tm.getTask(created[0]);
+            Task renamed = new Task("Renamed", "d", Status.DONE);
+            renamed.setId(taskId);
+            tm.updateTask(renamed);
+            tm.addSubTask(new SubTask("Other", "d", Status.NEW, epicId));
+            tm.deleteAllEpics();
+            throw new IllegalStateException("отмена");
+        }));
+
+        assertEquals(List.of(taskId), manager.getHistory().stream().map(Task::getId).toList());
+        assertTrue(manager.addTask(new Task("Next", "d", Status.NEW)) > created[0]);
+        reopen();
+        assertEquals("Task", manager.getTask(taskId).getTitle());
+        assertNull(manager.getTask(created[0]));
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+        assertEquals(List.of(subId), manager.getEpicSubtasks(epicId).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldKeepCacheBounded() {
+        for (int i = 0; i < 50; i++) {
+            manager.addTask(new Task("Task " + i, "desc", Status.NEW));
+        }
+        for (int id = 1; id <= 50; id++) {
+            assertEquals("Task " + (id - 1), manager.getTask(id).getTitle());
+        }
+
+        assertEquals(4, manager.cachedCount(), "Кэш не должен расти вместе с числом задач");
+        assertEquals(50, manager.getAllTasks().size());
+        assertEquals(4, manager.cachedCount(), "Полный список не должен вытеснять кэш");
+    }
+
+    @Test
+    void shouldRestoreStateAfterReopen() {
+        Task task = new Task("Задача", null, Status.IN_PROGRESS);
+        task.setStartTime(LocalDateTime.of(2025, 10, 30, 9, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        int taskId = manager.addTask(task);
+        int deletedId = manager.addTask(new Task("Удалённая", "desc", Status.NEW));
+        manager.deleteTask(deletedId);
+
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        SubTask sub = new SubTask("Sub", "desc", Status.NEW, epicId);
+        sub.setStartTime(LocalDateTime.of(2025, 10, 30, 10, 0));
+        sub.setDuration(Duration.ofMinutes(60));
+        int subId = manager.addSubTask(sub);
+        SubTask done = new SubTask("Sub", "done", Status.DONE, epicId);
+        done.setId(subId);
+        done.setStartTime(sub.getStartTime());
+        done.setDuration(sub.getDuration());
+        manager.updateSubtask(done);
+
+        PagedTaskManager reopened = reopen();
+
+        assertNull(reopened.getTask(deletedId));
+        assertNull(reopened.getTask(taskId).getDescription());
+        assertEquals("done", reopened.getSubtask(subId).getDescription());
+        assertEquals(Status.DONE, reopened.getEpic(epicId).getStatus());
+        assertEquals(LocalDateTime.of(2025, 10, 30, 11, 0), reopened.getEpic(epicId).getEndTime());
+        assertEquals(List.of(taskId, subId), reopened.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> {
+            Task overlapping = new Task("Overlap", "desc", Status.NEW);
+            overlapping.setStartTime(LocalDateTime.of(2025, 10, 30, 9, 15));
+            overlapping.setDuration(Duration.ofMinutes(10));
+            reopened.addTask(overlapping);
+        });
+        assertEquals(subId + 1, reopened.addTask(new Task("Next", "desc", Status.NEW)), "id не должны повторяться");
+    }
+
+    @Test
+    void shouldRestoreClearedTypes() {
+        manager.addTask(new Task("A", "desc", Status.NEW));
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        manager.addSubTask(new SubTask("S", "desc", Status.DONE, epicId));
+        manager.deleteAllSubtasks();
+        int taskId = manager.addTask(new Task("B", "desc", Status.NEW));
+
+        PagedTaskManager reopened = reopen();
+
+        assertEquals(List.of(taskId - 3, taskId), reopened.getAllTasks().stream().map(Task::getId).toList());
+        assertTrue(reopened.getAllSubTasks().isEmpty());
+        assertEquals(Status.NEW, reopened.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    void shouldStoreRecordsAcrossPagesAndSegments() {
+        String longDescription = "д".repeat(PagedTaskStore.PAGE_SIZE);
+        int bigId = manager.addTask(new Task("Большая", longDescription, Status.NEW));
+        for (int i = 0; i < 500; i++) {
+            manager.addTask(new Task("Task " + i, "desc " + i, Status.NEW));
+        }
+
+        PagedTaskManager reopened = reopen();
+
+        assertEquals(longDescription, reopened.getTask(bigId).getDescription());
+        assertEquals(501, reopened.getAllTasks().size());
+        assertEquals("desc 499", reopened.getTask(bigId + 500).getDescription());
+    }
+
+    @Test
+    void shouldKeepFileBoundedUnderRepeatedUpdates() {
+        for (int i = 0; i < 10; i++) {
+            manager.addTask(new Task("Task " + i, "desc", Status.NEW));
+        }
+        long largest = 0;
+        for (int i = 0; i < 5000; i++) {
+            Task update = new Task("Task", "desc " + i, Status.IN_PROGRESS);
+            update.setId(1 + i % 10);
+            manager.updateTask(update);
+            largest = Math.max(largest, file.length());
+        }
+        manager.deleteTask(10);
+
+        assertTrue(largest <= 3L * SEGMENT_SIZE, "Файл должен сжиматься, а не расти: " + largest);
+        PagedTaskManager reopened = reopen();
+        assertEquals(9, reopened.getAllTasks().size());
+        assertEquals("desc 4998", reopened.getTask(9).getDescription());
+        assertEquals(11, reopened.addTask(new Task("Next", "desc", Status.NEW)), "id не должны повторяться после сжатия");
+    }
+
+    @Test
+    void shouldIndexSparseLargeIds() {
+        Task far = new Task("Far", "d", Status.NEW);
+        far.setId(TaskBatches.MAX_ID);
+        Task near = new Task("Near", "d", Status.NEW);
+        near.setId(3);
+        manager.importBatch(List.of(far, near));
+
+        PagedTaskManager reopened = reopen();
+
+        assertEquals(List.of(3, TaskBatches.MAX_ID), reopened.getAllTasks().stream().map(Task::getId).toList());
+        assertThrows(IllegalStateException.class, () -> reopened.addTask(new Task("Next", "d", Status.NEW)));
+    }
+
+    @Test
+    void shouldRejectCorruptTypeOrId() throws IOException {
+        manager.addTask(new Task("A", "desc", Status.NEW));
+        manager.close();
+        byte[] original = Files.readAllBytes(file.toPath());
+        // первая запись: длина (4 байта), операция, тип, статус, id
+        int type = PagedTaskStore.PAGE_SIZE + 5;
+        int id = PagedTaskStore.PAGE_SIZE + 7;
+        for (int[] patch : new int[][]{{type, 9}, {id, 0}}) {
+            byte[] bytes = original.clone();
+            bytes[patch[0]] = (byte) patch[1];
+            Files.write(file.toPath(), bytes);
+
+            assertThrows(ManagerLoadException.class, () -> open(4));
+        }
+        file.delete();
+        manager = open(4);
+    }
+
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        manager.close();
+        Files.writeString(file.toPath(), "id,type,name\n".repeat(PagedTaskStore.PAGE_SIZE));
+
+        assertThrows(ManagerLoadException.class, () -> open(4));
+        file.delete();
+        manager = open(4);
+    }
+}
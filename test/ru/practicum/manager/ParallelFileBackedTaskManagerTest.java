@@ -0,0 +1,151 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ManagerLoadException;
+import ru.practicum.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createManager() {
+        try {
+            file = File.createTempFile("tasks", ".csv");
+            return FileBackedTaskManager.loadFromFile(file, null, LoadMode.PARALLEL);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+        TaskJournal.defaultFileFor(file).delete();
+    }
+
+    // снимок на несколько кусков по 64 КБ; в каждом описании кавычки и переводы строк,
+    // поэтому границы кусков попадают и внутрь полей в кавычках
+    private void seed(int epics) {
+        FileBackedTaskManager source = new FileBackedTaskManager(file);
+        source.transaction(tx -> {
+            for (int e = 0; e < epics; e++) {
+                int epicId = tx.addEpic(new Epic("Релиз " + e, "эпик", Status.NEW));
+                for (int s = 0; s < 3; s++) {
+                    SubTask sub = new SubTask("Сборка " + e + "-" + s,
+                            "шаг \"" + s + "\"\nстрока, вторая\n" + "x".repeat(e % 50), Status.values()[(e + s) % 3], epicId);
+                    if (s > 0) {
+                        sub.setStartTime(START.plusHours(e * 4L + s));
+                        sub.setDuration(Duration.ofMinutes(30));
+                    }
+                    tx.addSubTask(sub);
+                }
+                tx.addTask(new Task("Отчёт " + e, "\"квартал\"\n" + e, Status.NEW));
+            }
+        });
+    }
+
+    private static List<String> describe(List<? extends Task> tasks) {
+        List<String> result = new ArrayList<>();
+        for (Task task : tasks) {
+            result.add(task + " " + task.getStartTime() + " " + task.getDuration() + " " + task.getEndTime());
+        }
+        return result;
+    }
+
+    private static void assertSameContent(FileBackedTaskManager expected, FileBackedTaskManager actual) {
+        assertEquals(describe(expected.getAllTasks()), describe(actual.getAllTasks()));
+        assertEquals(describe(expected.getAllEpics()), describe(actual.getAllEpics()));
+        assertEquals(describe(expected.getAllSubTasks()), describe(actual.getAllSubTasks()));
+        assertEquals(describe(expected.getPrioritizedTasks()), describe(actual.getPrioritizedTasks()));
+        for (Epic epic : expected.getAllEpics()) {
+            assertEquals(List.copyOf(epic.getSubtaskIds()), List.copyOf(actual.getEpic(epic.getId()).getSubtaskIds()));
+        }
+    }
+
+    @Test
+    void shouldLoadLargeSnapshotLikeEagerLoad() throws IOException {
+        seed(1500);
+        assertTrue(Files.size(file.toPath()) > 4 * 65536, "снимок должен делиться на куски");
+        assertEquals(7500, ParallelSnapshotReader.read(file).size());
+
+        FileBackedTaskManager eager = FileBackedTaskManager.loadFromFile(file);
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file, null, LoadMode.PARALLEL);
+
+        assertSameContent(eager, parallel);
+        assertEquals(eager.search("квартал 1499", 10), parallel.search("квартал 1499", 10));
+        assertEquals(eager.search("сборк*", 50), parallel.search("сборк*", 50));
+        SearchIndexStats expected = eager.getSearchIndexStats();
+        SearchIndexStats actual = parallel.getSearchIndexStats();
+        assertEquals(expected.documents(), actual.documents());
+        assertEquals(expected.terms(), actual.terms());
+        assertEquals(expected.postings(), actual.postings());
+        assertEquals(eager.countByStatus(TaskType.SUBTASK, Status.DONE),
+                parallel.countByStatus(TaskType.SUBTASK, Status.DONE));
+        assertEquals(eager.getTasksActiveAt(START.plusHours(9).plusMinutes(10)),
+                parallel.getTasksActiveAt(START.plusHours(9).plusMinutes(10)));
+
+        Task clash = new Task("Пересечение", "desc", Status.NEW);
+        clash.setStartTime(START.plusHours(5).plusMinutes(10));
+        clash.setDuration(Duration.ofMinutes(5));
+        assertThrows(IllegalArgumentException.class, () -> parallel.addTask(clash));
+        assertEquals(eager.addTask(new Task("Новая", "desc", Status.NEW)),
+                parallel.addTask(new Task("Новая", "desc", Status.NEW)));
+    }
+
+    @Test
+    void shouldFallBackToSequentialReadForTornTail() throws IOException {
+        seed(1000);
+        Files.writeString(file.toPath(), "c123,9999,TASK,\"Оборв", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertNull(ParallelSnapshotReader.read(file), "оборванный хвост разбирается последовательно");
+
+        FileBackedTaskManager eager = FileBackedTaskManager.loadFromFile(file);
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file, null, LoadMode.PARALLEL);
+
+        assertSameContent(eager, parallel);
+        assertNull(parallel.getTask(9999));
+    }
+
+    @Test
+    void shouldRejectDamageInTheMiddleLikeEagerLoad() throws IOException {
+        seed(1000);
+        String text = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        Files.writeString(file.toPath(), text.replace("Отчёт 500,", "Отчет 500,"), StandardCharsets.UTF_8);
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+        assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(file, null, LoadMode.PARALLEL));
+    }
+
+    @Test
+    void shouldApplyJournalOnTopOfParallelRead() {
+        seed(10);
+        File journalFile = TaskJournal.defaultFileFor(file);
+        FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile));
+        journaled.addTask(new Task("Из журнала", "desc", Status.NEW));
+        journaled.deleteSubtask(2);
+        journaled.close();
+
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile), LoadMode.PARALLEL);
+
+        assertEquals("Из журнала", parallel.search("журнала", 1).getFirst().getTitle());
+        assertNull(parallel.getSubtask(2));
+        assertEquals(List.of(3, 4), List.copyOf(parallel.getEpic(1).getSubtaskIds()));
+        parallel.close();
+    }
+}
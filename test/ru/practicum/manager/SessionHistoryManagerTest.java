@@ -0,0 +1,152 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SessionHistoryManager history;
+    private TaskManager manager;
+    private int id1, id2, id3;
+
+    @BeforeEach
+    void setUp() {
+        history = new SessionHistoryManager(2, 3, Duration.ofNanos(100), now::get);
+        manager = Managers.getWithSessionHistory(history);
+        id1 = manager.addTask(new Task("T1", "d", Status.NEW));
+        id2 = manager.addTask(new Task("T2", "d", Status.NEW));
+        id3 = manager.addTask(new Task("T3", "d", Status.NEW));
+    }
+
+    private List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void sessionsShouldHaveSeparateHistories() {
+        history.runInSession("alice", () -> manager.getTask(id1));
+        history.runInSession("bob", () -> {
+            manager.getTask(id2);
+            assertEquals(List.of(id2), ids(manager.getHistory()));
+        });
+
+        assertEquals(List.of(id1), ids(history.getHistory("alice")));
+        assertTrue(manager.getHistory().isEmpty(), "Вне сессии используется отдельная анонимная история");
+    }
+
+    @Test
+    void bindingShouldRestorePreviousSession() {
+        SessionHistoryManager.Binding alice = history.bind("alice");
+        SessionHistoryManager.Binding bob = history.bind("bob");
+        manager.getTask(id2);
+        bob.close();
+        manager.getTask(id1);
+        alice.close();
+
+        assertEquals(List.of(id1), ids(history.getHistory("alice")));
+        assertEquals(List.of(id2), ids(history.getHistory("bob")));
+        assertTrue(manager.getHistory().isEmpty());
+    }
+
+    @Test
+    void historyShouldShareTaskObjectsWithManager() {
+        history.runInSession("alice", () -> {
+            Task task = manager.getTask(id1);
+            assertSame(task, manager.getHistory().getFirst());
+        });
+    }
+
+    @Test
+    void shouldKeepLastViewsWithoutDuplicates() {
+        history.runInSession("alice", () -> {
+            manager.getTask(id1);
+            manager.getTask(id2);
+            manager.getTask(id1);
+            assertEquals(List.of(id2, id1), ids(manager.getHistory()));
+
+            manager.getTask(id3);
+            assertEquals(List.of(id1, id3), ids(manager.getHistory()), "Самый давний просмотр должен вытесняться");
+        });
+    }
+
+    @Test
+    void deletedTasksShouldDisappearFromAllSessions() {
+        for (String session : List.of("alice", "bob")) {
+            history.runInSession(session, () -> {
+                manager.getTask(id1);
+                manager.getTask(id2);
+            });
+        }
+        manager.deleteTask(id1);
+
+        assertEquals(List.of(id2), ids(history.getHistory("alice")));
+        assertEquals(List.of(id2), ids(history.getHistory("bob")));
+    }
+
+    @Test
+    void deletedTasksShouldNotTakeHistoryCapacity() {
+        history.runInSession("alice", () -> {
+            manager.getTask(id1);
+            manager.getTask(id2);
+        });
+        manager.deleteTask(id1);
+        manager.deleteTask(id2);
+        history.runInSession("alice", () -> manager.getTask(id3));
+
+        assertEquals(List.of(id3), ids(history.getHistory("alice")));
+        int fresh = manager.addTask(new Task("T4", "d", Status.NEW));
+        history.runInSession("alice", () -> manager.getTask(fresh));
+        assertEquals(List.of(id3, fresh), ids(history.getHistory("alice")), "Удалённые id не должны вытеснять живые");
+    }
+
+    @Test
+    void taskImportedUnderDeletedIdShouldNotReplaceOldViews() {
+        history.runInSession("alice", () -> manager.getTask(id1));
+        manager.deleteTask(id1);
+        Task imported = new Task("Новая T1", "d", Status.NEW);
+        imported.setId(id1);
+        manager.importBatch(List.of(imported));
+
+        assertTrue(history.getHistory("alice").isEmpty(), "Просмотр удалённой задачи не переходит на новую с тем же id");
+        history.runInSession("alice", () -> manager.getTask(id1));
+        assertEquals(List.of(imported), history.getHistory("alice"));
+    }
+
+    @Test
+    void sweepShouldCleanSessionsThatWereNotAccessed() {
+        history.runInSession("alice", () -> manager.getTask(id1));
+        manager.deleteTask(id1);
+        // удалений больше порога: запомненные id вычищаются из всех сессий и забываются
+        for (int id = 1000; id < 3000; id++) history.remove(id);
+        Task imported = new Task("Новая T1", "d", Status.NEW);
+        imported.setId(id1);
+        manager.importBatch(List.of(imported));
+
+        assertTrue(history.getHistory("alice").isEmpty());
+    }
+
+    @Test
+    void shouldEvictIdleAndExcessSessions() {
+        for (String session : List.of("a", "b", "c", "d")) {
+            history.runInSession(session, () -> manager.getTask(id1));
+        }
+        assertEquals(3, history.sessionCount(), "Число сессий ограничено");
+        assertTrue(history.getHistory("a").isEmpty(), "Самая давняя сессия вытесняется");
+
+        now.addAndGet(50);
+        assertFalse(history.getHistory("d").isEmpty());
+        now.addAndGet(60);
+
+        assertEquals(1, history.sessionCount(), "Сессии без обращений дольше таймаута удаляются");
+        assertFalse(history.getHistory("d").isEmpty());
+    }
+}
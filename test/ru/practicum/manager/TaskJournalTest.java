@@ -0,0 +1,106 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.Status;
+import ru.practicum.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskJournalTest {
+
+    private File file;
+    private TaskJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("tasks", ".journal");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) journal.close();
+        file.delete();
+    }
+
+    @Test
+    void perOpShouldSyncEveryRecord() {
+        journal = new TaskJournal(file, DurabilityPolicy.PER_OP);
+        for (int i = 0; i < 5; i++) {
+            journal.append("CLEAR,TASK");
+        }
+        assertEquals(5, journal.syncCount());
+    }
+
+    @Test
+    void perBatchShouldAcknowledgeSingleWriterAfterSync() throws IOException {
+        journal = new TaskJournal(file, 1000, DurabilityPolicy.PER_BATCH, 1000, Duration.ofMinutes(1));
+        for (int i = 1; i <= 3; i++) {
+            journal.append("CLEAR,TASK");
+            assertEquals(i, journal.syncCount(), "Запись подтверждается только после fsync, одиночный поток не ждёт окна");
+            assertEquals(i, Files.readAllLines(file.toPath()).size());
+        }
+    }
+
+    @Test
+    void perBatchShouldCoverConcurrentAppendsWithSharedSyncs() throws Exception {
+        journal = new TaskJournal(file, 100_000, DurabilityPolicy.PER_BATCH, 64, Duration.ofMillis(50));
+        int threads = 16;
+        int perThread = 50;
+        try (ExecutorService writers = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                done.add(writers.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long before = journal.syncCount();
+                        journal.append("CLEAR,TASK");
+                        assertTrue(journal.syncCount() > before, "append вернулся до fsync своей пачки");
+                    }
+                }));
+            }
+            for (Future<?> future : done) future.get();
+        }
+        assertEquals(threads * perThread, Files.readAllLines(file.toPath()).size());
+        assertTrue(journal.syncCount() < threads * perThread, "Один fsync должен покрывать записи нескольких потоков");
+    }
+
+    @Test
+    void asyncShouldReachFileWithoutSyncOnHotPath() throws Exception {
+        journal = new TaskJournal(file, 1000, DurabilityPolicy.ASYNC, 1000, Duration.ofMillis(20));
+        journal.append("CLEAR,TASK");
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (file.length() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(file.length() > 0, "Фоновый поток должен передать запись в ОС");
+        assertEquals(0, journal.syncCount());
+    }
+
+    @Test
+    void managerShouldRecoverBatchedJournalAfterClose() {
+        File snapshot = new File(file.getPath() + ".csv");
+        TaskJournal batched = new TaskJournal(file, 1000, DurabilityPolicy.PER_BATCH, 16, Duration.ofSeconds(1));
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot, batched);
+        for (int i = 0; i < 40; i++) {
+            manager.addTask(new Task("T" + i, "desc", Status.NEW));
+        }
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot, new TaskJournal(file));
+        assertEquals(40, loaded.getAllTasks().size());
+        loaded.close();
+        snapshot.delete();
+    }
+}
@@ -6,6 +6,7 @@ import ru.practicum.model.*;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -219,4 +220,321 @@ abstract class TaskManagerTest<T extends TaskManager> {
 
         assertThrows(IllegalArgumentException.class, () -> manager.addTask(t2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldNotAllowTaskStartingAtEndOfAnother() {
+        Task t1 = new Task("T1", "desc", Status.NEW);
+        t1.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        t1.setDuration(Duration.ofMinutes(60));
+        manager.addTask(t1);
+
+        Task t2 = new Task("T2", "desc", Status.NEW);
+        t2.setStartTime(LocalDateTime.of(2025, 10, 22, 11, 0));
+        t2.setDuration(Duration.ofMinutes(30));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(t2));
+    }
+
+    @Test
+    void shouldAllowTasksBetweenExistingOnes() {
+        Task t1 = new Task("T1", "desc", Status.NEW);
+        t1.setStartTime(LocalDateTime.of(2025, 10, 22, 8, 0));
+        t1.setDuration(Duration.ofMinutes(60));
+        Task t2 = new Task("T2", "desc", Status.NEW);
+        t2.setStartTime(LocalDateTime.of(2025, 10, 22, 12, 0));
+        t2.setDuration(Duration.ofMinutes(60));
+        manager.addTask(t1);
+        manager.addTask(t2);
+
+        Task between = new Task("Between", "desc", Status.NEW);
+        between.setStartTime(LocalDateTime.of(2025, 10, 22, 9, 30));
+        between.setDuration(Duration.ofMinutes(60));
+        assertDoesNotThrow(() -> manager.addTask(between));
+
+        Task covering = new Task("Covering", "desc", Status.NEW);
+        covering.setStartTime(LocalDateTime.of(2025, 10, 22, 7, 0));
+        covering.setDuration(Duration.ofHours(8));
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(covering));
+    }
+
+    @Test
+    void shouldFreeTimeSlotAfterDeleteAndUpdate() {
+        Task t1 = new Task("T1", "desc", Status.NEW);
+        t1.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        t1.setDuration(Duration.ofMinutes(60));
+        int id = manager.addTask(t1);
+
+        Task moved = new Task("T1", "desc", Status.NEW);
+        moved.setId(id);
+        moved.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 30));
+        moved.setDuration(Duration.ofMinutes(60));
+        assertTrue(manager.updateTask(moved), "Задача не должна пересекаться сама с собой");
+
+        Task sameSlot = new Task("T2", "desc", Status.NEW);
+        sameSlot.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        sameSlot.setDuration(Duration.ofMinutes(20));
+        assertDoesNotThrow(() -> manager.addTask(sameSlot), "Старый слот должен освободиться после обновления");
+
+        manager.deleteTask(id);
+        Task afterDelete = new Task("T3", "desc", Status.NEW);
+        afterDelete.setStartTime(LocalDateTime.of(2025, 10, 22, 11, 0));
+        afterDelete.setDuration(Duration.ofMinutes(20));
+        assertDoesNotThrow(() -> manager.addTask(afterDelete), "Слот должен освободиться после удаления");
+    }
+
+    @Test
+    void shouldKeepOldSlotWhenUpdateOverlaps() {
+        Task t1 = new Task("T1", "desc", Status.NEW);
+        t1.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        t1.setDuration(Duration.ofMinutes(60));
+        manager.addTask(t1);
+        Task t2 = new Task("T2", "desc", Status.NEW);
+        t2.setStartTime(LocalDateTime.of(2025, 10, 22, 12, 0));
+        t2.setDuration(Duration.ofMinutes(60));
+        int id2 = manager.addTask(t2);
+
+        Task clash = new Task("T2", "desc", Status.NEW);
+        clash.setId(id2);
+        clash.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 30));
+        clash.setDuration(Duration.ofMinutes(60));
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(clash));
+
+        Task intoOldSlot = new Task("T3", "desc", Status.NEW);
+        intoOldSlot.setStartTime(LocalDateTime.of(2025, 10, 22, 12, 30));
+        intoOldSlot.setDuration(Duration.ofMinutes(10));
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(intoOldSlot),
+                "После неудачного обновления задача должна остаться в прежнем слоте");
+    }
+
+    @Test
+    void epicShouldFollowSubtaskChangesMadeInPlace() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        SubTask sub = new SubTask("S1", "d", Status.NEW, epicId);
+        sub.setStartTime(LocalDateTime.of(2025, 10, 22, 10, 0));
+        sub.setDuration(Duration.ofMinutes(30));
+        manager.addSubTask(sub);
+        SubTask other = new SubTask("S2", "d", Status.NEW, epicId);
+        other.setStartTime(LocalDateTime.of(2025, 10, 22, 12, 0));
+        other.setDuration(Duration.ofMinutes(30));
+        int otherId = manager.addSubTask(other);
+
+        sub.setStatus(Status.DONE);
+        sub.setDuration(Duration.ofMinutes(60));
+        manager.updateSubtask(sub);
+
+        Epic epic = manager.getEpic(epicId);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        manager.deleteSubtask(otherId);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(LocalDateTime.of(2025, 10, 22, 10, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 10, 22, 11, 0), epic.getEndTime());
+    }
+
+    @Test
+    void shouldMoveSubtaskBetweenEpics() {
+        int firstId = manager.addEpic(new Epic("E1", "desc", Status.NEW));
+        int secondId = manager.addEpic(new Epic("E2", "desc", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("S", "d", Status.DONE, firstId));
+
+        SubTask moved = new SubTask("S", "d", Status.DONE, secondId);
+        moved.setId(subId);
+        assertTrue(manager.updateSubtask(moved));
+
+        assertTrue(manager.getEpicSubtasks(firstId).isEmpty());
+        assertTrue(manager.getEpic(firstId).getSubtaskIds().isEmpty());
+        assertEquals(Status.NEW, manager.getEpic(firstId).getStatus());
+        assertEquals(List.of(subId), List.copyOf(manager.getEpic(secondId).getSubtaskIds()));
+        assertEquals(Status.DONE, manager.getEpic(secondId).getStatus());
+    }
+
+    @Test
+    void epicSubtasksShouldStayConsistentAcrossChanges() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        int otherEpicId = manager.addEpic(new Epic("Other", "desc", Status.NEW));
+        int s1 = manager.addSubTask(new SubTask("S1", "d", Status.NEW, epicId));
+        int s2 = manager.addSubTask(new SubTask("S2", "d", Status.NEW, epicId));
+        int s3 = manager.addSubTask(new SubTask("S3", "d", Status.NEW, epicId));
+        manager.addSubTask(new SubTask("O", "d", Status.NEW, otherEpicId));
+
+        manager.deleteSubtask(s2);
+        SubTask updated = new SubTask("S3 updated", "d", Status.DONE, epicId);
+        updated.setId(s3);
+        manager.updateSubtask(updated);
+
+        List<SubTask> subs = manager.getEpicSubtasks(epicId);
+        assertEquals(List.of(s1, s3), subs.stream().map(Task::getId).toList(), "Порядок добавления должен сохраняться");
+        assertEquals("S3 updated", subs.get(1).getTitle());
+
+        manager.deleteAllSubtasks();
+        assertTrue(manager.getEpicSubtasks(epicId).isEmpty());
+        assertTrue(manager.getEpicSubtasks(otherEpicId).isEmpty());
+
+        manager.deleteAllEpics();
+        assertTrue(manager.getEpicSubtasks(epicId).isEmpty(), "Для удалённого эпика подзадач нет");
+    }
+
+    //  BATCH
+
+    private static Task timed(String title, LocalDateTime start, long minutes) {
+        Task task = new Task(title, "desc", Status.NEW);
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(minutes));
+        return task;
+    }
+
+    @Test
+    void shouldAddBatchAndRecalculateEpicOnce() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+        SubTask first = new SubTask("S1", "d", Status.DONE, epicId);
+        first.setStartTime(start.plusHours(2));
+        first.setDuration(Duration.ofMinutes(30));
+        SubTask second = new SubTask("S2", "d", Status.DONE, epicId);
+
+        List<Integer> ids = manager.addAll(List.of(timed("T", start, 60), first, second));
+
+        assertEquals(3, ids.size());
+        assertEquals(3, ids.stream().distinct().count());
+        assertEquals("T", manager.getTask(ids.get(0)).getTitle());
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+        assertEquals(start.plusHours(2), manager.getEpic(epicId).getStartTime());
+        assertEquals(List.of(ids.get(1), ids.get(2)), manager.getEpicSubtasks(epicId).stream().map(Task::getId).toList());
+        assertEquals((int) ids.get(0), manager.getPrioritizedTasks().getFirst().getId());
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenAnyTaskOverlaps() {
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+        manager.addTask(timed("Existing", start, 60));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.addAll(List.of(timed("Free", start.plusHours(3), 30), timed("Clash", start.plusMinutes(30), 10))));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.addAll(List.of(timed("A", start.plusHours(5), 60), timed("B", start.plusHours(5).plusMinutes(59), 5))));
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.addAll(List.of(new SubTask("S", "d", Status.NEW, epicId), new SubTask("Lost", "d", Status.NEW, -5))));
+
+        assertEquals(1, manager.getAllTasks().size(), "Ни одна задача отклонённого пакета не должна добавиться");
+        assertTrue(manager.getAllSubTasks().isEmpty());
+        assertTrue(manager.getEpicSubtasks(epicId).isEmpty());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+        assertDoesNotThrow(() -> manager.addTask(timed("Free", start.plusHours(3), 30)), "Место пакета должно остаться свободным");
+    }
+
+    //  STATUS
+
+    @Test
+    void shouldSelectAndCountByStatusAfterEveryChange() {
+        int first = manager.addTask(new Task("First", "d", Status.NEW));
+        int second = manager.addTask(new Task("Second", "d", Status.DONE));
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("Sub", "d", Status.IN_PROGRESS, epicId));
+
+        assertEquals(List.of(first), manager.getTasksByStatus(Status.NEW).stream().map(Task::getId).toList());
+        assertEquals(List.of(second), manager.getTasksByStatus(Status.DONE).stream().map(Task::getId).toList());
+        assertEquals(List.of(subId), manager.getSubtasksByStatus(Status.IN_PROGRESS).stream().map(Task::getId).toList());
+        assertEquals(List.of(epicId), manager.getEpicsByStatus(Status.IN_PROGRESS).stream().map(Task::getId).toList(),
+                "Эпик должен попасть в корзину пересчитанного статуса");
+        assertEquals(0, manager.countByStatus(TaskType.EPIC, Status.NEW));
+        assertEquals(2, manager.count(TaskType.TASK));
+
+        Task done = new Task("First", "d", Status.DONE);
+        done.setId(first);
+        manager.updateTask(done);
+        SubTask finished = new SubTask("Sub", "d", Status.DONE, epicId);
+        finished.setId(subId);
+        manager.updateSubtask(finished);
+
+        assertTrue(manager.getTasksByStatus(Status.NEW).isEmpty());
+        assertEquals(2, manager.countByStatus(TaskType.TASK, Status.DONE));
+        assertEquals(1, manager.countByStatus(TaskType.SUBTASK, Status.DONE));
+        assertEquals(0, manager.countByStatus(TaskType.SUBTASK, Status.IN_PROGRESS));
+        assertEquals(List.of(epicId), manager.getEpicsByStatus(Status.DONE).stream().map(Task::getId).toList());
+
+        manager.deleteTask(second);
+        manager.deleteSubtask(subId);
+
+        assertEquals(List.of(first), manager.getTasksByStatus(Status.DONE).stream().map(Task::getId).toList());
+        assertEquals(0, manager.count(TaskType.SUBTASK));
+        assertEquals(1, manager.countByStatus(TaskType.EPIC, Status.NEW), "Эпик без подзадач снова NEW");
+
+        manager.deleteAllEpics();
+        manager.deleteAllTasks();
+        for (TaskType type : TaskType.values()) {
+            assertEquals(0, manager.count(type));
+            for (Status status : Status.values()) assertEquals(0, manager.countByStatus(type, status));
+        }
+    }
+
+    //  TIME RANGES
+
+    @Test
+    void shouldQueryTasksByTimeRange() {
+        LocalDateTime start = LocalDateTime.of(2025, 6, 2, 9, 0);
+        int epicId = manager.addEpic(new Epic("Epic", "d", Status.NEW));
+        int first = manager.addTask(timed("First", start, 60));
+        SubTask sub = new SubTask("Sub", "d", Status.NEW, epicId);
+        sub.setStartTime(start.plusHours(2));
+        sub.setDuration(Duration.ofMinutes(30));
+        int subId = manager.addSubTask(sub);
+        int third = manager.addTask(timed("Third", start.plusHours(4), 15));
+        manager.addTask(new Task("Untimed", "d", Status.NEW));
+
+        assertEquals(List.of(first, subId), ids(manager.getTasksStartingBetween(start, start.plusHours(4))),
+                "Правая граница не входит");
+        assertEquals(List.of(subId, third), ids(manager.getTasksStartingBetween(start.plusMinutes(1), start.plusDays(1))));
+        assertTrue(manager.getTasksStartingBetween(start.plusHours(5), start).isEmpty());
+
+        assertEquals(List.of(first), ids(manager.getTasksActiveAt(start.plusMinutes(60))), "Конец задачи входит");
+        assertEquals(List.of(subId), ids(manager.getTasksActiveAt(start.plusHours(2).plusMinutes(10))));
+        assertTrue(manager.getTasksActiveAt(start.plusHours(3)).isEmpty());
+        assertTrue(manager.getTasksActiveAt(start.minusMinutes(1)).isEmpty());
+
+        assertEquals(List.of(subId, third), ids(manager.getNextTasks(start.plusMinutes(30), 5)), "Задачи без времени не попадают");
+        assertEquals(List.of(first), ids(manager.getNextTasks(start, 1)));
+        assertTrue(manager.getNextTasks(start, 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.getNextTasks(start, -1));
+    }
+
+    private static List<Integer> ids(Collection<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    //  SEARCH
+
+    @Test
+    void shouldSearchTitlesAndDescriptionsByAllWords() {
+        int report = manager.addTask(new Task("Квартальный отчёт", "Отправить отчет клиенту по e-mail", Status.NEW));
+        int epicId = manager.addEpic(new Epic("Релиз", "Подготовка отчётов", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("Отчет QA", "Report for the client", Status.NEW, epicId));
+
+        assertEquals(List.of(report, subId), ids(manager.search("ОТЧЕТ", 10)), "Регистр и ё не различаются");
+        assertEquals(List.of(report), ids(manager.search("отчёт клиенту", 10)));
+        assertEquals(List.of(report, epicId, subId), ids(manager.search("отч*", 10)));
+        assertEquals(List.of(report, epicId), ids(manager.search("отч*", 2)), "Лимит оставляет первые по id");
+        assertEquals(List.of(epicId), ids(manager.search("отч* подг*", 10)));
+        assertEquals(List.of(subId), ids(manager.search("client rep*", 10)));
+        assertTrue(manager.search("отчет релиз", 10).isEmpty());
+        assertTrue(manager.search("  ", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.search("отчет", -1));
+
+        Task renamed = new Task("Планёрка", "без отчета", Status.NEW);
+        renamed.setId(report);
+        manager.updateTask(renamed);
+        Epic epic = new Epic("Релиз 2", "Сборка", Status.NEW);
+        epic.setId(epicId);
+        manager.updateEpic(epic);
+
+        assertTrue(manager.search("квартальный", 10).isEmpty());
+        assertEquals(List.of(report), ids(manager.search("планерка", 10)));
+        assertEquals(List.of(epicId), ids(manager.search("релиз 2", 10)));
+        assertTrue(manager.search("подготовка", 10).isEmpty(), "Старое описание эпика не должно находиться");
+
+        manager.deleteEpic(epicId);
+        assertTrue(manager.search("qa", 10).isEmpty());
+        assertEquals(List.of(report), ids(manager.search("отч*", 10)));
+    }
+}
@@ -0,0 +1,228 @@
+package ru.practicum.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ManagerSaveException;
+import ru.practicum.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createManager() {
+        try {
+            file = File.createTempFile("tasks", ".csv");
+            return new FileBackedTaskManager(file, SnapshotFormat.CSV, null, 16);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+        file.delete();
+        TaskJournal.defaultFileFor(file).delete();
+    }
+
+    @Test
+    void shouldPersistEverythingOnFlush() {
+        int taskId = manager.addTask(new Task("A", "desc", Status.NEW));
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        int subId = manager.addSubTask(new SubTask("S", "desc", Status.DONE, epicId));
+        manager.deleteTask(taskId);
+
+        manager.flush();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertNull(loaded.getTask(taskId));
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(epicId, loaded.getSubtask(subId).getEpicId());
+        assertEquals(0, manager.getWriteBehindStats().queueDepth());
+        assertEquals(Duration.ZERO, manager.getWriteBehindStats().lag());
+    }
+
+    @Test
+    void shouldCoalesceBurstIntoFewerWrites() {
+        for (int i = 0; i < 100; i++) {
+            manager.addTask(new Task("T" + i, "desc", Status.NEW));
+        }
+        for (int i = 0; i < 2000; i++) {
+            Task update = new Task("T", "desc " + i, Status.IN_PROGRESS);
+            update.setId(1 + i % 100);
+            manager.updateTask(update);
+        }
+        manager.flush();
+
+        WriteBehindStats stats = manager.getWriteBehindStats();
+        assertEquals(2100, stats.persistedChanges());
+        assertTrue(stats.writes() < stats.persistedChanges(), "Пачки изменений должны записываться одним действием");
+        assertEquals("desc 1999", FileBackedTaskManager.loadFromFile(file).getTask(100).getDescription());
+    }
+
+    @Test
+    void shouldPersistSnapshotOfObjectAtCallTime() {
+        Task task = new Task("A", "desc", Status.NEW);
+        task.setStartTime(LocalDateTime.of(2025, 10, 30, 9, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        int id = manager.addTask(task);
+        task.setTitle("Изменено без updateTask");
+
+        manager.flush();
+
+        assertEquals("A", FileBackedTaskManager.loadFromFile(file).getTask(id).getTitle());
+    }
+
+    @Test
+    void shouldApplyBackpressureWithTinyQueue() {
+        manager.close();
+        manager = new FileBackedTaskManager(file, SnapshotFormat.BINARY, null, 1);
+        for (int i = 0; i < 300; i++) {
+            manager.addTask(new Task("T" + i, "desc", Status.NEW));
+            assertTrue(manager.getWriteBehindStats().queueDepth() <= 1);
+        }
+        manager.close();
+
+        assertEquals(300, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+    }
+
+    @Test
+    void interruptedEnqueueShouldNotBlockFlush() throws InterruptedException {
+        manager.close();
+        manager = new FileBackedTaskManager(file, SnapshotFormat.CSV, null, 1);
+        boolean interrupted = false;
+        for (int i = 0; i < 10_000 && !interrupted; i++) {
+            // флаг прерывания выставлен заранее: put в заполненную очередь сразу бросает исключение
+            Thread.currentThread().interrupt();
+            try {
+                manager.addTask(new Task("T" + i, "desc", Status.NEW));
+            } catch (ManagerSaveException e) {
+                interrupted = true;
+            }
+            Thread.interrupted();
+        }
+
+        assertTrue(interrupted, "Очередь ни разу не заполнилась");
+        Thread flusher = new Thread(manager::flush);
+        flusher.start();
+        flusher.join(5_000);
+        assertFalse(flusher.isAlive(), "flush не должен ждать изменение, которое не попало в очередь");
+    }
+
+    @Test
+    void loadedManagerShouldKeepBoardOnFirstBackgroundWrite() {
+        manager.close();
+        FileBackedTaskManager plain = new FileBackedTaskManager(file, SnapshotFormat.CSV);
+        int taskId = plain.addTask(new Task("A", "desc", Status.NEW));
+        int epicId = plain.addEpic(new Epic("E", "desc", Status.NEW));
+        int subId = plain.addSubTask(new SubTask("S", "desc", Status.DONE, epicId));
+
+        manager = FileBackedTaskManager.loadFromFile(file, null, LoadMode.LAZY, 16);
+        assertTrue(manager.isWriteBehind());
+        int added = manager.addTask(new Task("B", "desc", Status.NEW));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals("A", loaded.getTask(taskId).getTitle());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(epicId, loaded.getSubtask(subId).getEpicId());
+        assertNotNull(loaded.getTask(added));
+    }
+
+    @Test
+    void loadedManagerShouldExtendExistingJournal() {
+        manager.close();
+        File journalFile = TaskJournal.defaultFileFor(file);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, new TaskJournal(journalFile));
+        int taskId = journaled.addTask(new Task("A", "desc", Status.NEW));
+        journaled.close();
+
+        manager = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile), LoadMode.EAGER, 16);
+        int added = manager.addTask(new Task("B", "desc", Status.NEW));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile));
+        assertNotNull(loaded.getTask(taskId));
+        assertNotNull(loaded.getTask(added));
+        loaded.close();
+    }
+
+    @Test
+    void shouldRecoverJournalWrittenInBackground() {
+        manager.close();
+        File journalFile = TaskJournal.defaultFileFor(file);
+        TaskJournal journal = new TaskJournal(journalFile, 1000, DurabilityPolicy.PER_BATCH,
+                TaskJournal.DEFAULT_BATCH_SIZE, Duration.ofSeconds(1));
+        manager = new FileBackedTaskManager(file, SnapshotFormat.CSV, journal, 64);
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        for (int i = 0; i < 50; i++) {
+            manager.addSubTask(new SubTask("S" + i, "desc", Status.DONE, epicId));
+        }
+        int taskId = manager.addTask(new Task("A", "desc", Status.NEW));
+        manager.deleteSubtask(epicId + 1);
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, new TaskJournal(journalFile));
+        assertEquals(49, loaded.getEpicSubtasks(epicId).size());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertNotNull(loaded.getTask(taskId));
+        loaded.close();
+    }
+
+    @Test
+    void shouldReportWriteFailureToCaller() {
+        manager.close();
+        File missing = new File(file.getParentFile(), "missing-dir-" + System.nanoTime() + "/tasks.csv");
+        manager = new FileBackedTaskManager(missing, SnapshotFormat.CSV, null, 4);
+
+        manager.addTask(new Task("A", "desc", Status.NEW));
+
+        assertThrows(ManagerSaveException.class, manager::flush);
+        assertThrows(ManagerSaveException.class, () -> manager.addTask(new Task("B", "desc", Status.NEW)));
+        assertThrows(ManagerSaveException.class, manager::close);
+    }
+
+    @Test
+    void shouldQueueBatchAsOneGroup() {
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        manager.flush();
+        long before = manager.getWriteBehindStats().persistedChanges();
+
+        manager.addAll(List.of(new Task("A", "desc", Status.NEW), new SubTask("S", "desc", Status.DONE, epicId)));
+        manager.flush();
+
+        assertEquals(before + 1, manager.getWriteBehindStats().persistedChanges(), "Пакет должен встать в очередь одним изменением");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loaded.getAllTasks().size());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    void shouldWriteTransactionAsOneGroup() {
+        int taskId = manager.addTask(new Task("A", "desc", Status.NEW));
+        int epicId = manager.addEpic(new Epic("E", "desc", Status.NEW));
+        manager.transaction(tm -> {
+            tm.deleteTask(taskId);
+            Epic renamed = new Epic("E2", "desc", Status.NEW);
+            renamed.setId(epicId);
+            tm.updateEpic(renamed);
+            tm.addSubTask(new SubTask("S", "desc", Status.IN_PROGRESS, epicId));
+        });
+
+        manager.flush();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertNull(loaded.getTask(taskId));
+        assertEquals("E2", loaded.getEpic(epicId).getTitle());
+        assertEquals(Status.IN_PROGRESS, loaded.getEpic(epicId).getStatus());
+    }
+}
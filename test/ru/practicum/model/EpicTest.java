@@ -4,6 +4,10 @@ import ru.practicum.model.Epic;
 import ru.practicum.model.Status;
 import ru.practicum.model.SubTask;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -29,4 +33,82 @@ class EpicTest {
         assertNotEquals(epic.getId(), subtask.getEpicId(),
                 "Эпик не может быть своим же сабтаском.");
     }
+
+    @Test
+    void aggregatesShouldMatchFullRecalculation() {
+        Epic epic = new Epic("Epic", "desc", Status.NEW);
+        epic.setId(1);
+        Map<Integer, SubTask> current = new LinkedHashMap<>();
+        Random random = new Random(42);
+        Status[] statuses = Status.values();
+
+        for (int step = 0; step < 2000; step++) {
+            int id = 2 + random.nextInt(50);
+            if (random.nextInt(4) == 0) {
+                epic.removeSubtask(id);
+                current.remove(id);
+            } else {
+                SubTask sub = new SubTask("S", "d", statuses[random.nextInt(statuses.length)], 1);
+                sub.setId(id);
+                if (random.nextBoolean()) {
+                    sub.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(random.nextInt(10_000)));
+                }
+                if (random.nextBoolean()) {
+                    sub.setDuration(Duration.ofMinutes(random.nextInt(300)));
+                }
+                epic.addSubtask(sub);
+                current.put(id, sub);
+            }
+
+            assertEquals(new ArrayList<>(current.keySet()), new ArrayList<>(epic.getSubtaskIds()));
+            assertEquals(expectedStatus(current.values()), epic.calculateStatus());
+            assertEquals(current.values().stream().map(SubTask::getStartTime).filter(Objects::nonNull)
+                    .min(LocalDateTime::compareTo).orElse(null), epic.getSubtasksStart());
+            assertEquals(current.values().stream().map(SubTask::getEndTime).filter(Objects::nonNull)
+                    .max(LocalDateTime::compareTo).orElse(null), epic.getSubtasksEnd());
+            assertEquals(Duration.ofMinutes(current.values().stream().map(SubTask::getDuration)
+                    .filter(Objects::nonNull).mapToLong(Duration::toMinutes).sum()), epic.getSubtasksDuration());
+        }
+    }
+
+    @Test
+    void aggregatesShouldIgnoreLaterChangesOfSubtaskObject() {
+        Epic epic = new Epic("Epic", "desc", Status.NEW);
+        SubTask sub = new SubTask("S", "d", Status.NEW, 1);
+        sub.setId(2);
+        epic.addSubtask(sub);
+
+        sub.setStatus(Status.DONE);
+        assertEquals(Status.NEW, epic.calculateStatus(), "Вклад фиксируется в момент добавления");
+
+        epic.addSubtask(sub);
+        assertEquals(Status.DONE, epic.calculateStatus());
+
+        epic.removeSubtask(2);
+        assertEquals(Status.NEW, epic.calculateStatus());
+        assertTrue(epic.getSubtaskIds().isEmpty());
+    }
+
+    @Test
+    void subtaskIdsShouldBeListInInsertionOrder() {
+        Epic epic = new Epic("Epic", "desc", Status.NEW);
+        epic.setId(1);
+        for (int id : new int[]{5, 3, 9}) {
+            SubTask sub = new SubTask("Sub" + id, "desc", Status.NEW, 1);
+            sub.setId(id);
+            epic.addSubtask(sub);
+        }
+        epic.removeSubtask(3);
+
+        List<Integer> ids = epic.getSubtaskIds();
+        assertEquals(List.of(5, 9), ids);
+        assertThrows(UnsupportedOperationException.class, () -> ids.add(7));
+        assertEquals(Set.of(5, 9), epic.getSubtaskIdSet());
+    }
+
+    private static Status expectedStatus(Collection<SubTask> subs) {
+        if (subs.isEmpty() || subs.stream().allMatch(s -> s.getStatus() == Status.NEW)) return Status.NEW;
+        if (subs.stream().allMatch(s -> s.getStatus() == Status.DONE)) return Status.DONE;
+        return Status.IN_PROGRESS;
+    }
 }
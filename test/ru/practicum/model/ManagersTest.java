@@ -19,4 +19,10 @@ class ManagersTest {
         HistoryManager historyManager = Managers.getDefaultHistory();
         assertNotNull(historyManager, "HistoryManager не должен быть пустой.");
     }
+
+    @Test
+    void shouldReturnInitializedConcurrentTaskManager() {
+        TaskManager manager = Managers.getConcurrent();
+        assertNotNull(manager, "Потокобезопасный менеджер задач не должен быть пустой.");
+    }
 }
@@ -0,0 +1,158 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.Status;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private static List<List<String>> readAll(String text) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new StringReader(text))) {
+            while (csv.next()) {
+                List<String> record = new ArrayList<>();
+                for (int i = 0; i < csv.size(); i++) {
+                    record.add(csv.getOrNull(i));
+                }
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void shouldParseQuotedFieldsByRfc4180() throws IOException {
+        String text = "a,\"b,c\",\"say \"\"hi\"\"\"\r\n\"multi\nline\",,\"\"\nlast";
+
+        List<List<String>> records = readAll(text);
+
+        assertEquals(3, records.size());
+        assertEquals(List.of("a", "b,c", "say \"hi\""), records.get(0));
+        assertEquals(Arrays.asList("multi\nline", null, ""), records.get(1));
+        assertEquals(List.of("last"), records.get(2));
+    }
+
+    @Test
+    void shouldRoundTripArbitraryValues() throws IOException {
+        Random random = new Random(13);
+        String alphabet = "ab,\"\n\r ё";
+        List<List<String>> expected = new ArrayList<>();
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        for (int r = 0; r < 500; r++) {
+            List<String> record = new ArrayList<>();
+            int fields = 1 + random.nextInt(5);
+            for (int f = 0; f < fields; f++) {
+                String value = null;
+                if (random.nextInt(6) != 0) {
+                    StringBuilder builder = new StringBuilder();
+                    int length = random.nextInt(8);
+                    for (int i = 0; i < length; i++) {
+                        builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                    }
+                    value = builder.toString();
+                }
+                record.add(value);
+                csv.field(value);
+            }
+            // запись из одного null неотличима от пустой строки файла
+            if (fields == 1 && record.getFirst() == null) {
+                record.set(0, "");
+                out.getBuffer().append("\"\"");
+            }
+            csv.endRecord();
+            expected.add(record);
+        }
+
+        assertEquals(expected, readAll(out.toString()));
+    }
+
+    @Test
+    void shouldParseNumbersAndEnumsWithoutStrings() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.field(42).field(-7).field(Long.MAX_VALUE).field(Long.MIN_VALUE).field(Status.DONE).endRecord();
+
+        try (CsvReader csv = new CsvReader(new StringReader(out.toString() + "x,1.5,\n"))) {
+            assertTrue(csv.next());
+            assertEquals(42, csv.getInt(0));
+            assertEquals(-7, csv.getInt(1));
+            assertEquals(Long.MAX_VALUE, csv.getLong(2));
+            assertEquals(Long.MIN_VALUE, csv.getLong(3));
+            assertEquals(Status.DONE, csv.getEnum(4, Status.values()));
+            assertThrows(NumberFormatException.class, () -> csv.getInt(2));
+
+            assertTrue(csv.next());
+            assertThrows(NumberFormatException.class, () -> csv.getInt(0));
+            assertThrows(NumberFormatException.class, () -> csv.getInt(1));
+            assertThrows(NumberFormatException.class, () -> csv.getInt(2));
+            assertThrows(IllegalArgumentException.class, () -> csv.getEnum(0, Status.values()));
+            assertFalse(csv.next());
+        }
+    }
+
+    @Test
+    void shouldRejectUnterminatedQuotes() {
+        assertThrows(IOException.class, () -> readAll("a,\"broken\n"));
+        assertThrows(IOException.class, () -> readAll("\"a\"b,c\n"));
+    }
+
+    @Test
+    void shouldVerifyRecordChecksums() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = CsvWriter.withChecksums(out);
+        writer.field("a,b").field((String) null).field("").field(7).endRecord();
+        writer.field("x").endRecord();
+        String text = out.toString();
+        assertTrue(text.startsWith("#"));
+
+        try (CsvReader csv = new CsvReader(new StringReader(text))) {
+            assertTrue(csv.next());
+            assertTrue(csv.isChecksummed());
+            assertTrue(csv.checksumMatches());
+            assertEquals(Arrays.asList("a,b", null, "", "7"),
+                    Arrays.asList(csv.get(1), csv.getOrNull(2), csv.getOrNull(3), csv.get(4)));
+            assertTrue(csv.next());
+            assertTrue(csv.checksumMatches());
+        }
+
+        // null и пустая строка дают разные суммы, как и изменённое поле или оборванная запись
+        for (String broken : List.of(text.replace(",,\"\",", ",\"\",,"), text.replace("7", "8"),
+                text.substring(0, text.indexOf('\n') - 1))) {
+            try (CsvReader csv = new CsvReader(new StringReader(broken))) {
+                assertTrue(csv.next());
+                assertTrue(csv.isChecksummed());
+                assertFalse(csv.checksumMatches(), broken);
+            }
+        }
+
+        try (CsvReader csv = new CsvReader(new StringReader("1,TASK\n"))) {
+            assertTrue(csv.next());
+            assertFalse(csv.isChecksummed());
+            assertFalse(csv.checksumMatches());
+        }
+    }
+
+    @Test
+    void shouldReportRecordByteOffsets() throws IOException {
+        String text = "ё,a\r\n\"x\ny\",b\nz\n";
+        try (CsvReader csv = new CsvReader(new StringReader(text))) {
+            assertTrue(csv.next());
+            assertEquals(0, csv.byteOffset());
+            assertTrue(csv.next());
+            assertEquals(6, csv.byteOffset());
+            assertTrue(csv.next());
+            assertEquals(14, csv.byteOffset());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+
+    @Test
+    void shouldBehaveLikeLinkedHashMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 50_000; step++) {
+            // узкий диапазон ключей даёт много коллизий, повторных вставок и удалений
+            int key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(5)) {
+                case 0, 1, 2 -> assertEquals(expected.put(key, "v" + step), map.put(key, "v" + step));
+                case 3 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), map.keys());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+    }
+
+    @Test
+    void shouldReplaceValueWithoutChangingOrder() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(3, "a");
+        map.put(1, "b");
+        map.put(3, "c");
+
+        assertEquals(List.of(3, 1), new ArrayList<>(map.keySet()));
+        assertEquals("c", map.get(3));
+    }
+
+    @Test
+    void shouldBeEmptyAfterClearAndReusable() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        assertFalse(map.values().iterator().hasNext());
+
+        map.put(5, "x");
+        assertEquals(List.of("x"), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    void iteratorShouldFailFastOnModification() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+
+        Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        map.remove(2);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonReaderTest {
+
+    @Test
+    void shouldParseAllValueTypes() throws IOException {
+        Object parsed = JsonReader.parse(" {\"s\":\"a\\u0041\\/\\n\", \"n\":-12, \"d\":1.5e2, \"t\":true, \"f\":false,"
+                + " \"z\":null, \"a\":[1, [], {}], \"o\":{\"x\":\"y\"}} ");
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("s", "aA/\n");
+        expected.put("n", -12L);
+        expected.put("d", 150.0);
+        expected.put("t", true);
+        expected.put("f", false);
+        expected.put("z", null);
+        expected.put("a", List.of(1L, List.of(), Map.of()));
+        expected.put("o", Map.of("x", "y"));
+        assertEquals(expected, parsed);
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(((Map<?, ?>) parsed).keySet()));
+    }
+
+    @Test
+    void shouldRejectMalformedDocumentsWithPosition() {
+        for (String json : List.of("", "{", "{\"a\" 1}", "[1,]", "[1 2]", "\"open", "tru", "01x", "-", "{} {}",
+                "{\"a\":\"\n\"}", "\"\\q\"", "\"\\u12G4\"", "{1:2}")) {
+            IOException e = assertThrows(IOException.class, () -> JsonReader.parse(json), json);
+            assertTrue(e.getMessage().contains("в позиции"), e.getMessage());
+        }
+    }
+
+    @Test
+    void shouldLimitNesting() throws IOException {
+        char[] open = new char[JsonReader.MAX_DEPTH];
+        char[] close = new char[JsonReader.MAX_DEPTH];
+        Arrays.fill(open, '[');
+        Arrays.fill(close, ']');
+        assertNotNull(JsonReader.parse(new String(open) + new String(close)));
+        assertThrows(IOException.class, () -> JsonReader.parse("[" + new String(open) + new String(close) + "]"));
+    }
+}
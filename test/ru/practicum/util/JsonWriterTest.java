@@ -0,0 +1,55 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonWriterTest {
+
+    @Test
+    void shouldPlaceSeparatorsByNesting() throws IOException {
+        StringWriter text = new StringWriter();
+        JsonWriter json = new JsonWriter(text);
+
+        json.beginArray()
+                .beginObject().name("id").value(1).name("tags").beginArray().value("a").value("b").endArray()
+                .name("empty").beginObject().endObject().endObject()
+                .beginObject().name("id").value(-42).name("done").value(true).name("note").value((String) null)
+                .name("end").nullValue().endObject()
+                .value(Long.MIN_VALUE)
+                .endArray();
+
+        assertEquals("[{\"id\":1,\"tags\":[\"a\",\"b\"],\"empty\":{}},"
+                + "{\"id\":-42,\"done\":true,\"note\":null,\"end\":null},-9223372036854775808]", text.toString());
+    }
+
+    @Test
+    void shouldEscapeStringsAndReadBackTheSameText() throws IOException {
+        String value = "кавычка \" слэш \\ строка\nтаб\t возврат\r звонок\u0007 конец";
+        StringWriter text = new StringWriter();
+        new JsonWriter(text).beginObject().name("ключ \"1\"").value(value).endObject();
+
+        assertEquals("{\"ключ \\\"1\\\"\":\"кавычка \\\" слэш \\\\ строка\\nтаб\\t возврат\\r звонок\\u0007 конец\"}",
+                text.toString());
+        assertEquals(Map.of("ключ \"1\"", value), JsonReader.parse(text.toString()));
+    }
+
+    @Test
+    void shouldWriteDeepNestingAndRejectUnbalancedClose() throws IOException {
+        StringWriter text = new StringWriter();
+        JsonWriter json = new JsonWriter(text);
+        for (int i = 0; i < 40; i++) json.beginArray();
+        json.value(0);
+        for (int i = 0; i < 40; i++) json.endArray();
+
+        Object parsed = JsonReader.parse(text.toString());
+        for (int i = 0; i < 40; i++) parsed = ((List<?>) parsed).getFirst();
+        assertEquals(0L, parsed);
+        assertThrows(IllegalStateException.class, json::endArray);
+    }
+}
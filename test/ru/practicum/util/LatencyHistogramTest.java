@@ -0,0 +1,73 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldKeepPercentilesWithinOneThirtySecondOfExactValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // от наносекунд до секунд, чтобы задеть много степеней двойки
+            values[i] = (long) Math.pow(10, random.nextDouble() * 9);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimate = histogram.percentile(quantile);
+            assertTrue(estimate >= exact, quantile + ": " + estimate + " < " + exact);
+            assertTrue(estimate - exact <= exact / 32, quantile + ": " + estimate + " vs " + exact);
+        }
+        assertEquals(values.length, histogram.count());
+        assertEquals(values[values.length - 1], histogram.snapshot().max());
+    }
+
+    @Test
+    void shouldStoreSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 32; value++) histogram.record(value);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(32, snapshot.count());
+        assertEquals(15, snapshot.p50());
+        assertEquals(31, snapshot.max());
+        assertEquals(15.5, snapshot.mean());
+    }
+
+    @Test
+    void shouldPlaceEveryValueIntoBucketThatContainsIt() {
+        for (long value : new long[]{31, 32, 63, 64, 65, 1000, 1_000_000, 123_456_789_012L}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.upperBound(index), String.valueOf(value));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBound(index - 1), String.valueOf(value));
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.percentile(1.0));
+    }
+
+    @Test
+    void shouldReturnZerosWhenEmptyOrReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(new LatencyHistogram.Snapshot(0, 0, 0, 0, 0, 0, 0), histogram.snapshot());
+
+        histogram.record(500);
+        histogram.record(-1);
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.percentile(0.5));
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(1.5));
+    }
+}
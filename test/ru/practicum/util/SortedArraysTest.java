@@ -0,0 +1,54 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedArraysTest {
+
+    @Test
+    void shouldBuildTreeSetThatWorksLikeOneBuiltByInserts() {
+        Comparator<String> order = Comparator.comparing(String::length).thenComparing(Comparator.naturalOrder());
+        TreeSet<String> expected = new TreeSet<>(order);
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) expected.add(Integer.toString(random.nextInt(100_000), 36));
+
+        String[] sorted = expected.toArray(new String[expected.size() + 10]);
+        TreeSet<String> built = new TreeSet<>(order);
+        built.addAll(SortedArrays.asSortedSet(sorted, expected.size(), order));
+
+        assertEquals(List.copyOf(expected), List.copyOf(built));
+        assertEquals(expected.first(), built.first());
+        assertEquals(expected.ceiling("zz"), built.ceiling("zz"));
+        assertTrue(built.remove(expected.first()));
+        assertTrue(built.add("0"));
+        assertEquals(expected.size(), built.size());
+    }
+
+    @Test
+    void shouldBuildTreeMapFromSortedKeysAndValues() {
+        Integer[] keys = {1, 3, 5, 7, 9};
+        String[] values = {"a", "b", "c", "d", "e"};
+        TreeMap<Integer, String> built = new TreeMap<>();
+        built.putAll(SortedArrays.asSortedMap(keys, values, 4));
+
+        assertEquals(Map.of(1, "a", 3, "b", 5, "c", 7, "d"), built);
+        assertEquals(Map.entry(5, "c"), built.floorEntry(6));
+        assertEquals(Integer.valueOf(7), built.lastKey());
+        built.put(4, "x");
+        assertEquals(List.of(1, 3, 4, 5, 7), List.copyOf(built.keySet()));
+    }
+
+    @Test
+    void shouldBeReadOnlyViews() {
+        SortedSet<Integer> set = SortedArrays.asSortedSet(new Integer[]{1, 2}, 2, Comparator.naturalOrder());
+        SortedMap<Integer, Integer> map = SortedArrays.asSortedMap(new Integer[0], new Integer[0], 0);
+
+        assertThrows(UnsupportedOperationException.class, () -> set.add(3));
+        assertThrows(UnsupportedOperationException.class, () -> set.headSet(2));
+        assertThrows(NoSuchElementException.class, map::firstKey);
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextTokenizerTest {
+
+    @Test
+    void shouldSplitRussianAndEnglishTextIntoLowerCaseWords() {
+        assertEquals(List.of("еще", "отчет", "q3", "e", "mail", "клиенту", "2025"),
+                TextTokenizer.terms("ЕЩЁ: Отчёт Q3, e-mail клиенту (2025)!"));
+    }
+
+    @Test
+    void shouldReturnNoWordsForNullOrPunctuation() {
+        assertTrue(TextTokenizer.terms(null).isEmpty());
+        assertTrue(TextTokenizer.terms(" ,.-— \n").isEmpty());
+    }
+
+    @Test
+    void shouldKeepLettersOutsideBasicPlane() {
+        assertEquals(List.of("a𝐀b"), TextTokenizer.terms("A𝐀B"));
+    }
+}